@@ -0,0 +1,50 @@
+package org.folio.list.configuration;
+
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.AsyncExecutionProperties.ExecutorMode;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Defines the executor for background work ({@code @Async} methods, and everything else that uses the
+ * {@link AsyncTaskExecutor}). It replaces Spring Boot's default executor, and is configured the same way in
+ * {@link ExecutorMode#PLATFORM} mode.
+ */
+@Log4j2
+@Configuration
+public class AsyncExecutionConfiguration {
+
+  @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+  public AsyncTaskExecutor applicationTaskExecutor(AsyncExecutionProperties properties,
+                                                   ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder,
+                                                   FolioExecutionContext executionContext) {
+    TaskDecorator contextPropagator = folioContextPropagator(executionContext);
+    if (properties.mode() == ExecutorMode.VIRTUAL) {
+      log.info("Running background tasks on virtual threads");
+      SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mod-lists-vtask-");
+      executor.setVirtualThreads(true);
+      executor.setTaskDecorator(contextPropagator);
+      return executor;
+    }
+    return threadPoolTaskExecutorBuilder.taskDecorator(contextPropagator).build();
+  }
+
+  /**
+   * Run each task in the FOLIO execution context (tenant, user, headers) of the thread that submitted it, since the
+   * context is thread-local
+   */
+  static TaskDecorator folioContextPropagator(FolioExecutionContext executionContext) {
+    return task -> {
+      FolioExecutionContext context = (FolioExecutionContext) executionContext.getInstance();
+      return () -> context.execute(() -> {
+        task.run();
+        return null;
+      });
+    };
+  }
+}
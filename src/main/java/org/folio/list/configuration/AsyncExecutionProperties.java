@@ -0,0 +1,34 @@
+package org.folio.list.configuration;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Controls how background work (refreshes, exports, migrations and other system user tasks) is run.
+ *
+ * @param mode           whether background tasks run on a fixed pool of platform threads (sized by
+ *                       {@code spring.task.execution.pool}), or each on a virtual thread of its own
+ * @param maxDbWrites    the number of list contents batches written to the database at once, across all background
+ *                       tasks. This leaves connections in the pool for API requests.
+ * @param maxFqmRequests the number of requests to FQM in flight at once
+ * @param maxS3Requests  the number of requests to S3 in flight at once (e.g., export parts being uploaded)
+ */
+@Validated
+@ConfigurationProperties(prefix = "mod-lists.async-execution")
+public record AsyncExecutionProperties(@NotNull ExecutorMode mode,
+                                       @Min(1) int maxDbWrites,
+                                       @Min(1) int maxFqmRequests,
+                                       @Min(1) int maxS3Requests) {
+
+  public enum ExecutorMode {
+    /** A fixed pool of platform threads, which caps the number of background tasks running at once */
+    PLATFORM,
+    /**
+     * A virtual thread per task. Tasks that are blocked on I/O don't hold a thread, so the limits on the resources they
+     * use are what caps them.
+     */
+    VIRTUAL,
+  }
+}
@@ -0,0 +1,30 @@
+package org.folio.list.configuration;
+
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Controls importing refresh results straight from FQM's result table, when mod-fqm-manager shares our database (see
+ * {@link org.folio.list.services.refresh.DirectResultsImporter}).
+ *
+ * @param enabled         whether to try importing results inside the database before falling back to fetching them
+ *                        from FQM over HTTP
+ * @param resultTable     the table holding FQM's query results, qualified with its schema. {@code {tenant}} is replaced
+ *                        with the tenant ID.
+ * @param queryIdColumn   the result table's column holding the query ID
+ * @param contentIdColumn the result table's column holding each result's content ID, as a text array
+ * @param sortColumn      what the result table is sorted by, for the sorted IDs that FQM would return
+ */
+@Validated
+@ConfigurationProperties(prefix = "mod-lists.direct-import")
+public record DirectImportProperties(boolean enabled,
+                                     @NotBlank String resultTable,
+                                     @NotBlank String queryIdColumn,
+                                     @NotBlank String contentIdColumn,
+                                     @NotBlank String sortColumn) {
+
+  public String resultTable(String tenantId) {
+    return resultTable.replace("{tenant}", tenantId);
+  }
+}
@@ -3,27 +3,38 @@ package org.folio.list.configuration;
 import org.folio.list.rest.EntityTypeClient;
 import org.folio.list.rest.MigrationClient;
 import org.folio.list.rest.QueryClient;
+import org.folio.list.rest.UserPermissionsClient;
 import org.folio.list.rest.UsersClient;
+import org.folio.list.services.ConcurrencyLimits;
+import org.folio.list.services.ConcurrencyLimits.Resource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 
+/**
+ * Defines the HTTP clients for other modules. Calls to FQM are capped by {@link ConcurrencyLimits}.
+ */
 @Configuration
 public class HttpClientConfiguration {
 
   @Bean
-  public EntityTypeClient entityTypeClient(HttpServiceProxyFactory factory) {
-    return factory.createClient(EntityTypeClient.class);
+  public EntityTypeClient entityTypeClient(HttpServiceProxyFactory factory, ConcurrencyLimits concurrencyLimits) {
+    return concurrencyLimits.limit(Resource.FQM, EntityTypeClient.class, factory.createClient(EntityTypeClient.class));
   }
 
   @Bean
-  public MigrationClient migrationClient(HttpServiceProxyFactory factory) {
-    return factory.createClient(MigrationClient.class);
+  public MigrationClient migrationClient(HttpServiceProxyFactory factory, ConcurrencyLimits concurrencyLimits) {
+    return concurrencyLimits.limit(Resource.FQM, MigrationClient.class, factory.createClient(MigrationClient.class));
   }
 
   @Bean
-  public QueryClient queryClient(HttpServiceProxyFactory factory) {
-    return factory.createClient(QueryClient.class);
+  public QueryClient queryClient(HttpServiceProxyFactory factory, ConcurrencyLimits concurrencyLimits) {
+    return concurrencyLimits.limit(Resource.FQM, QueryClient.class, factory.createClient(QueryClient.class));
+  }
+
+  @Bean
+  public UserPermissionsClient userPermissionsClient(HttpServiceProxyFactory factory) {
+    return factory.createClient(UserPermissionsClient.class);
   }
 
   @Bean
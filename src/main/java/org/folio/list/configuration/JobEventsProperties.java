@@ -0,0 +1,22 @@
+package org.folio.list.configuration;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Controls the stream of refresh and export events that clients can follow instead of polling (see
+ * {@link org.folio.list.services.events.JobEventSubscriptions}).
+ *
+ * @param enabled                  whether to publish events and keep streams open. When disabled, a stream only sends
+ *                                 the list's current state and closes, and clients have to poll.
+ * @param streamTimeoutSeconds     close a stream after this long. Clients are expected to reconnect.
+ * @param heartbeatIntervalSeconds send a comment down every open stream this often, so that proxies don't close idle
+ *                                 streams
+ */
+@Validated
+@ConfigurationProperties(prefix = "mod-lists.job-events")
+public record JobEventsProperties(boolean enabled,
+                                  @Min(1) int streamTimeoutSeconds,
+                                  @Min(1) int heartbeatIntervalSeconds) {
+}
@@ -0,0 +1,57 @@
+package org.folio.list.configuration;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.Map;
+
+/**
+ * Controls the job queue, through which refreshes and exports run.
+ *
+ * @param workerEnabled               whether this node runs queued jobs. Jobs are queued either way, so any node with
+ *                                    this enabled picks them up.
+ * @param pollIntervalMillis          how long to wait between checks for queued jobs. Jobs queued on this node are
+ *                                    picked up right away, without waiting for the next check.
+ * @param leaseSeconds                how long a node may go without renewing its claim on a job before another node
+ *                                    takes it over. Claims are renewed every third of this.
+ * @param maxAttempts                 the number of times a job may be claimed before it's given up on
+ * @param maxRunningJobs              the number of jobs this node runs at once, across all tenants
+ * @param maxRunningJobsPerTenant     the number of jobs each tenant may have running at once, across all nodes
+ * @param tenantMaxRunningJobs        per-tenant overrides of {@code maxRunningJobsPerTenant}, keyed by tenant ID
+ * @param tenantWeights               each tenant's share of this node's job slots, relative to the others', keyed by
+ *                                    tenant ID. Tenants that aren't listed have a weight of 1.
+ * @param sizePenaltyRecordsPerSecond how quickly big jobs fall behind small ones in their tenant's queue: a refresh
+ *                                    expected to produce this many records counts as queued one second later than it
+ *                                    was
+ * @param maxSizePenaltySeconds       the most a job can fall behind for its size, so that big jobs still get their turn
+ * @param retentionMinutes            how long finished jobs are kept around
+ */
+@Validated
+@ConfigurationProperties(prefix = "mod-lists.job-queue")
+public record JobQueueProperties(boolean workerEnabled,
+                                 @Min(100) int pollIntervalMillis,
+                                 @Min(3) int leaseSeconds,
+                                 @Min(1) int maxAttempts,
+                                 @Min(1) int maxRunningJobs,
+                                 @Min(1) int maxRunningJobsPerTenant,
+                                 Map<String, Integer> tenantMaxRunningJobs,
+                                 Map<String, Integer> tenantWeights,
+                                 @Min(1) int sizePenaltyRecordsPerSecond,
+                                 @Min(0) int maxSizePenaltySeconds,
+                                 @Min(1) int retentionMinutes) {
+
+  public int getMaxRunningJobs(String tenantId) {
+    if (tenantMaxRunningJobs == null) {
+      return maxRunningJobsPerTenant;
+    }
+    return Math.max(1, tenantMaxRunningJobs.getOrDefault(tenantId, maxRunningJobsPerTenant));
+  }
+
+  public int getWeight(String tenantId) {
+    if (tenantWeights == null) {
+      return 1;
+    }
+    return Math.max(1, tenantWeights.getOrDefault(tenantId, 1));
+  }
+}
@@ -2,12 +2,22 @@ package org.folio.list.configuration;
 
 import lombok.RequiredArgsConstructor;
 import org.folio.list.domain.dto.ListConfiguration;
+import org.folio.list.repository.ChunkedListContentsStore;
+import org.folio.list.repository.ListContentsCopyRepository;
 import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStagingRepository;
+import org.folio.list.repository.ListContentsWriter;
+import org.folio.list.repository.ListContentsWriter.WriteMode;
 import org.folio.list.repository.ListRefreshRepository;
+import org.folio.list.services.ConcurrencyLimits;
+import org.folio.list.services.ConcurrencyLimits.Resource;
+import org.folio.list.services.cancellation.CancellationRegistry;
 import org.folio.list.services.refresh.DataBatchCallback;
+import org.folio.list.services.refresh.RefreshCheckpointService;
 import org.folio.s3.client.FolioS3Client;
 import org.folio.s3.client.S3ClientFactory;
 import org.folio.s3.client.S3ClientProperties;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,6 +29,7 @@ import java.util.function.Supplier;
 @RequiredArgsConstructor
 public class ListAppConfiguration {
   private final ListExportProperties listExportProperties;
+  private final ConcurrencyLimits concurrencyLimits;
   private static final String AWS_S3_ENDPOINT_FORMAT = "https://s3.%s.amazonaws.com";
 
   @Bean
@@ -39,7 +50,7 @@ public class ListAppConfiguration {
       .secretKey(s3Config.secretKey())
       .subPath(s3Config.subPath())
       .build();
-    return S3ClientFactory.getS3Client(s3Properties);
+    return concurrencyLimits.limit(Resource.S3, FolioS3Client.class, S3ClientFactory.getS3Client(s3Properties));
   }
 
   @Bean
@@ -48,10 +59,28 @@ public class ListAppConfiguration {
     return new ListConfiguration();
   }
 
+  @Bean
+  public ListContentsWriter listContentsWriter(@Value("${mod-lists.general.refresh-write-mode:JPA}") WriteMode writeMode,
+                                               ListContentsRepository listContentsRepository,
+                                               ListContentsCopyRepository listContentsCopyRepository,
+                                               ChunkedListContentsStore chunkedListContentsStore,
+                                               ListContentsStagingRepository listContentsStagingRepository) {
+    ListContentsWriter writer = switch (writeMode) {
+      case JPA -> listContentsRepository::saveAll;
+      case COPY -> listContentsCopyRepository::copyContents;
+      case CHUNKED -> chunkedListContentsStore::writeContents;
+      case STAGED -> listContentsStagingRepository::writeContents;
+    };
+    return contents -> concurrencyLimits.withPermit(Resource.DB_WRITES, () -> writer.writeContents(contents));
+  }
+
   @Bean
   public Supplier<DataBatchCallback> dataBatchCallbackSupplier(ListRefreshRepository listRefreshRepository,
-                                                               ListContentsRepository listContentsRepository,
-                                                               ListConfiguration listConfiguration) {
-    return () -> new DataBatchCallback(listRefreshRepository, listContentsRepository, listConfiguration);
+                                                               ListContentsWriter listContentsWriter,
+                                                               ListConfiguration listConfiguration,
+                                                               CancellationRegistry cancellationRegistry,
+                                                               RefreshCheckpointService refreshCheckpointService) {
+    return () -> new DataBatchCallback(listRefreshRepository, listContentsWriter, listConfiguration, cancellationRegistry,
+      refreshCheckpointService);
   }
 }
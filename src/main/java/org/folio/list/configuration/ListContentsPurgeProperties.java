@@ -0,0 +1,22 @@
+package org.folio.list.configuration;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Controls the background purge of obsolete list contents.
+ *
+ * @param enabled          whether this node purges contents. Contents are still marked for purging when disabled, so
+ *                         another node (or this one, once re-enabled) can pick them up.
+ * @param intervalSeconds  how long to wait between purge runs
+ * @param chunkSize        the maximum number of rows to delete per statement
+ * @param chunkDelayMillis how long to pause between chunks, to leave room for other work
+ */
+@Validated
+@ConfigurationProperties(prefix = "mod-lists.list-contents-purge")
+public record ListContentsPurgeProperties(boolean enabled,
+                                          @Min(1) int intervalSeconds,
+                                          @Min(1) int chunkSize,
+                                          @Min(0) long chunkDelayMillis) {
+}
@@ -0,0 +1,27 @@
+package org.folio.list.configuration;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Controls adaptive sizing of the pages of results that refreshes fetch from FQM and write to the database (see
+ * {@link org.folio.list.services.refresh.RefreshBatchSizer}).
+ *
+ * @param adaptive          whether refreshes adjust their page size as they go. When disabled, every page is
+ *                          {@code mod-lists.general.refresh-batch-size} results.
+ * @param minSize           the smallest page size to shrink to
+ * @param maxSize           the largest page size to grow to
+ * @param increaseStep      how many results to add to the page size after a page that was fetched and written quickly
+ * @param targetFetchMillis pages that take longer than this to fetch from FQM halve the page size
+ * @param targetWriteMillis pages that take longer than this to write to the database halve the page size
+ */
+@Validated
+@ConfigurationProperties(prefix = "mod-lists.refresh-batch-sizing")
+public record RefreshBatchSizeProperties(boolean adaptive,
+                                         @Min(1) int minSize,
+                                         @Min(1) int maxSize,
+                                         @Min(1) int increaseStep,
+                                         @Min(1) long targetFetchMillis,
+                                         @Min(1) long targetWriteMillis) {
+}
@@ -0,0 +1,21 @@
+package org.folio.list.configuration;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Controls refresh checkpoints, which let a refresh interrupted by a node going away be resumed on another node.
+ *
+ * @param enabled               whether this node records checkpoints and resumes refreshes. When disabled, refreshes
+ *                              that are still running at shutdown fail, as they always used to.
+ * @param leaseSeconds          how long a node may go without renewing its claim on a refresh before another node takes
+ *                              it over. Claims are renewed every third of this.
+ * @param resumeIntervalSeconds how long to wait between checks for refreshes to resume
+ */
+@Validated
+@ConfigurationProperties(prefix = "mod-lists.refresh-checkpoints")
+public record RefreshCheckpointProperties(boolean enabled,
+                                          @Min(3) int leaseSeconds,
+                                          @Min(1) int resumeIntervalSeconds) {
+}
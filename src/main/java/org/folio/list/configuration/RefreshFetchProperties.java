@@ -0,0 +1,25 @@
+package org.folio.list.configuration;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.Map;
+
+/**
+ * Controls how refresh results are fetched from FQM.
+ *
+ * @param concurrency       the default number of sorted ID pages to request from FQM at once during a refresh
+ * @param tenantConcurrency per-tenant overrides of {@code concurrency}, keyed by tenant ID
+ */
+@Validated
+@ConfigurationProperties(prefix = "mod-lists.refresh-fetch")
+public record RefreshFetchProperties(@Min(1) int concurrency, Map<String, Integer> tenantConcurrency) {
+
+  public int getConcurrency(String tenantId) {
+    if (tenantConcurrency == null) {
+      return concurrency;
+    }
+    return Math.max(1, tenantConcurrency.getOrDefault(tenantId, concurrency));
+  }
+}
@@ -0,0 +1,17 @@
+package org.folio.list.configuration;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Controls how running refreshes report their progress (see
+ * {@link org.folio.list.services.refresh.RefreshProgressService}).
+ *
+ * @param enabled      whether to record progress in the database. Progress metrics are published either way.
+ * @param saveInterval record progress every this many batches (and after the first one)
+ */
+@Validated
+@ConfigurationProperties(prefix = "mod-lists.refresh-progress")
+public record RefreshProgressProperties(boolean enabled, @Min(1) int saveInterval) {
+}
@@ -0,0 +1,28 @@
+package org.folio.list.configuration;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Controls scheduled refreshes (see {@link org.folio.list.services.refresh.RefreshScheduler}).
+ *
+ * @param schedulerEnabled    whether this node starts scheduled refreshes. Schedules can still be set when disabled, and
+ *                            are picked up by other nodes.
+ * @param pollIntervalSeconds how long to wait between checks for scheduled refreshes that are due
+ * @param maxJitterSeconds    the most that a scheduled refresh may be pushed back by, so that lists scheduled for the
+ *                            same time don't all start at once. Never more than half the schedule's interval.
+ * @param maxRefreshesPerPoll the most scheduled refreshes this node starts per poll, across all tenants. Any others
+ *                            that are due wait for the next poll.
+ * @param maxDbLatencyMillis  scheduled refreshes are held back while a trivial query takes longer than this
+ * @param maxFqmLatencyMillis scheduled refreshes are held back while requests to FQM take longer than this, on average
+ */
+@Validated
+@ConfigurationProperties(prefix = "mod-lists.refresh-schedule")
+public record RefreshScheduleProperties(boolean schedulerEnabled,
+                                        @Min(1) int pollIntervalSeconds,
+                                        @Min(0) int maxJitterSeconds,
+                                        @Min(1) int maxRefreshesPerPoll,
+                                        @Min(1) long maxDbLatencyMillis,
+                                        @Min(1) long maxFqmLatencyMillis) {
+}
@@ -9,6 +9,7 @@ import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.folio.list.domain.dto.ListDTO;
 import org.folio.list.domain.dto.ListRefreshDTO;
+import org.folio.list.domain.dto.ListRefreshScheduleDTO;
 import org.folio.list.domain.dto.ListRequestDTO;
 import org.folio.list.domain.dto.ListSummaryResultsDTO;
 import org.folio.list.domain.dto.ListUpdateRequestDTO;
@@ -17,6 +18,7 @@ import org.folio.list.exception.ListNotFoundException;
 import org.folio.list.rest.resource.ListApi;
 import org.folio.list.services.ListActions;
 import org.folio.list.services.ListService;
+import org.folio.list.services.ListService.ListContentsPage;
 import org.folio.querytool.domain.dto.ResultsetPage;
 import org.folio.spring.data.OffsetRequest;
 import org.springframework.data.domain.Pageable;
@@ -30,6 +32,9 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class ListController implements ListApi {
 
+  private static final String PARTIAL_HEADER = "x-partial";
+  private static final String RECORDS_SO_FAR_HEADER = "x-records-so-far";
+
   private final ListService listService;
 
   @Override
@@ -129,14 +134,29 @@ public class ListController implements ListApi {
     UUID id,
     Optional<List<String>> fields,
     Optional<Integer> offset,
-    Optional<Integer> size
+    Optional<Integer> size,
+    Optional<Boolean> preview
   ) {
+    if (!preview.orElse(false)) {
+      return listService
+        .getListContents(id, fields.orElse(null), offset.orElse(null), size.orElse(null))
+        .map(ResponseEntity::ok)
+        .orElseThrow(() -> new ListNotFoundException(id, ListActions.READ));
+    }
     return listService
-      .getListContents(id, fields.orElse(null), offset.orElse(null), size.orElse(null))
-      .map(ResponseEntity::ok)
+      .getListContentsPreview(id, fields.orElse(null), offset.orElse(null), size.orElse(null))
+      .map(ListController::toPreviewResponse)
       .orElseThrow(() -> new ListNotFoundException(id, ListActions.READ));
   }
 
+  private static ResponseEntity<ResultsetPage> toPreviewResponse(ListContentsPage contents) {
+    var response = ResponseEntity.ok().header(PARTIAL_HEADER, String.valueOf(contents.partial()));
+    if (contents.partial()) {
+      response.header(RECORDS_SO_FAR_HEADER, String.valueOf(contents.page().getTotalRecords()));
+    }
+    return response.body(contents.page());
+  }
+
   @Override
   public ResponseEntity<Void> deleteList(UUID id) {
     listService.deleteList(id);
@@ -149,6 +169,28 @@ public class ListController implements ListApi {
     return new ResponseEntity<>(HttpStatus.NO_CONTENT);
   }
 
+  @Override
+  public ResponseEntity<ListRefreshScheduleDTO> getRefreshSchedule(UUID id) {
+    return listService
+      .getRefreshSchedule(id)
+      .map(ResponseEntity::ok)
+      .orElseThrow(() -> new ListNotFoundException(id, ListActions.READ));
+  }
+
+  @Override
+  public ResponseEntity<ListRefreshScheduleDTO> updateRefreshSchedule(UUID id, ListRefreshScheduleDTO refreshSchedule) {
+    return listService
+      .updateRefreshSchedule(id, refreshSchedule)
+      .map(ResponseEntity::ok)
+      .orElseThrow(() -> new ListNotFoundException(id, ListActions.SCHEDULE_REFRESH));
+  }
+
+  @Override
+  public ResponseEntity<Void> deleteRefreshSchedule(UUID id) {
+    listService.deleteRefreshSchedule(id);
+    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+  }
+
   @Override
   public ResponseEntity<List<ListVersionDTO>> getListVersions(UUID listId) {
     return new ResponseEntity<>(listService.getListVersions(listId), HttpStatus.OK);
@@ -0,0 +1,21 @@
+package org.folio.list.controller;
+
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.folio.list.rest.resource.ListEventsApi;
+import org.folio.list.services.ListService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RequiredArgsConstructor
+@RestController
+public class ListEventsController implements ListEventsApi {
+
+  private final ListService listService;
+
+  @Override
+  public ResponseEntity<SseEmitter> getListEvents(UUID id) {
+    return ResponseEntity.ok(listService.getListEvents(id));
+  }
+}
@@ -0,0 +1,225 @@
+package org.folio.list.domain;
+
+import org.folio.list.domain.ContentIdCodec.EncodedContentId;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.UUID;
+
+/**
+ * A batch of content IDs, in order, held compactly.
+ * <p>
+ * Refreshes, reads and exports pass content IDs around thousands at a time. As a {@code List<List<String>>}, every ID
+ * costs a list, a string and the string's byte array, which is about 150 bytes in 3 objects for a single UUID. Here,
+ * IDs made of a single UUID in canonical form (nearly all of them) take 16 bytes in a pair of {@code long[]}s, and no
+ * objects at all. Anything else (composite keys, IDs that aren't UUIDs) is kept as a list of strings alongside.
+ * <p>
+ * Batches can't be changed once built. {@link #toContentIds()} gives a {@code List<List<String>>} view of a batch for
+ * APIs that need one (like FQM requests), which only creates an ID's strings when the ID is read.
+ */
+public final class ContentIdBatch {
+
+  private static final ContentIdBatch EMPTY = new ContentIdBatch(new long[0], new long[0], null, 0);
+
+  private final long[] mostSignificantBits;
+  private final long[] leastSignificantBits;
+  // Only allocated if the batch has IDs that aren't a single UUID, and only set for those IDs
+  private final List<String>[] otherIds;
+  private final int size;
+
+  private ContentIdBatch(long[] mostSignificantBits, long[] leastSignificantBits, List<String>[] otherIds, int size) {
+    this.mostSignificantBits = mostSignificantBits;
+    this.leastSignificantBits = leastSignificantBits;
+    this.otherIds = otherIds;
+    this.size = size;
+  }
+
+  public static ContentIdBatch empty() {
+    return EMPTY;
+  }
+
+  public static ContentIdBatch of(List<List<String>> contentIds) {
+    Builder builder = builder(contentIds.size());
+    contentIds.forEach(builder::add);
+    return builder.build();
+  }
+
+  /**
+   * Collect the content IDs of the given list contents. IDs stored as a single UUID go straight into the batch, without
+   * being turned into strings first.
+   */
+  public static ContentIdBatch ofContents(List<ListContent> contents) {
+    Builder builder = builder(contents.size());
+    contents.forEach(content -> builder.add(content.getEncodedContentId()));
+    return builder.build();
+  }
+
+  public static Builder builder(int expectedSize) {
+    return new Builder(expectedSize);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return whether the ID at the given index is a single UUID, in which case its bits can be read with
+   * {@link #mostSignificantBits} and {@link #leastSignificantBits}
+   */
+  public boolean isUuid(int index) {
+    checkIndex(index);
+    return otherIds == null || otherIds[index] == null;
+  }
+
+  public long mostSignificantBits(int index) {
+    checkUuid(index);
+    return mostSignificantBits[index];
+  }
+
+  public long leastSignificantBits(int index) {
+    checkUuid(index);
+    return leastSignificantBits[index];
+  }
+
+  /**
+   * @return the ID at the given index, as a list of strings
+   */
+  public List<String> get(int index) {
+    return isUuid(index)
+      ? List.of(new UUID(mostSignificantBits[index], leastSignificantBits[index]).toString())
+      : otherIds[index];
+  }
+
+  /**
+   * @return the ID at the given index, in the form it's stored in (see {@link ContentIdCodec})
+   */
+  public EncodedContentId encoded(int index) {
+    return isUuid(index)
+      ? new EncodedContentId(new UUID(mostSignificantBits[index], leastSignificantBits[index]), null, null)
+      : ContentIdCodec.encode(otherIds[index]);
+  }
+
+  /**
+   * @return a read-only view of this batch as a list of content IDs
+   */
+  public List<List<String>> toContentIds() {
+    return new ContentIdList();
+  }
+
+  @Override
+  public String toString() {
+    return "ContentIdBatch[size=" + size + "]";
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for batch of " + size + " IDs");
+    }
+  }
+
+  private void checkUuid(int index) {
+    if (!isUuid(index)) {
+      throw new IllegalArgumentException("The ID at index " + index + " is not a single UUID");
+    }
+  }
+
+  private class ContentIdList extends AbstractList<List<String>> implements RandomAccess {
+    @Override
+    public List<String> get(int index) {
+      return ContentIdBatch.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  public static final class Builder {
+    private long[] mostSignificantBits;
+    private long[] leastSignificantBits;
+    private List<String>[] otherIds;
+    private int size;
+
+    private Builder(int expectedSize) {
+      int capacity = Math.max(expectedSize, 16);
+      this.mostSignificantBits = new long[capacity];
+      this.leastSignificantBits = new long[capacity];
+    }
+
+    public Builder addUuid(long mostSignificantBits, long leastSignificantBits) {
+      ensureCapacity();
+      this.mostSignificantBits[size] = mostSignificantBits;
+      this.leastSignificantBits[size] = leastSignificantBits;
+      size++;
+      return this;
+    }
+
+    /**
+     * Add an ID made of a single value, which may be null
+     */
+    public Builder add(String value) {
+      if (ContentIdCodec.isCanonicalUuid(value)) {
+        return addUuid(ContentIdCodec.mostSignificantBits(value), ContentIdCodec.leastSignificantBits(value));
+      }
+      return addOther(Collections.singletonList(value));
+    }
+
+    public Builder add(List<String> contentId) {
+      if (contentId != null && contentId.size() == 1 && ContentIdCodec.isCanonicalUuid(contentId.get(0))) {
+        String value = contentId.get(0);
+        return addUuid(ContentIdCodec.mostSignificantBits(value), ContentIdCodec.leastSignificantBits(value));
+      }
+      return addOther(contentId);
+    }
+
+    public Builder add(EncodedContentId contentId) {
+      if (contentId.uuid() != null) {
+        return addUuid(contentId.uuid().getMostSignificantBits(), contentId.uuid().getLeastSignificantBits());
+      }
+      return addOther(ContentIdCodec.decode(null, contentId.uuids(), contentId.text()));
+    }
+
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Build the batch. The batch takes over the builder's storage, so the builder mustn't be used afterwards.
+     */
+    public ContentIdBatch build() {
+      return size == 0 ? EMPTY : new ContentIdBatch(mostSignificantBits, leastSignificantBits, otherIds, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Builder addOther(List<String> contentId) {
+      Objects.requireNonNull(contentId, "Content IDs can't be null");
+      ensureCapacity();
+      if (otherIds == null) {
+        otherIds = new List[mostSignificantBits.length];
+      }
+      otherIds[size] = contentId;
+      size++;
+      return this;
+    }
+
+    private void ensureCapacity() {
+      if (size == mostSignificantBits.length) {
+        int capacity = size * 2;
+        mostSignificantBits = Arrays.copyOf(mostSignificantBits, capacity);
+        leastSignificantBits = Arrays.copyOf(leastSignificantBits, capacity);
+        if (otherIds != null) {
+          otherIds = Arrays.copyOf(otherIds, capacity);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package org.folio.list.domain;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Converts content IDs to and from the columns they're stored in.
+ * <p>
+ * Content IDs are lists of strings, but nearly all of them are a single UUID, and most of the rest are made of UUIDs
+ * too. As a text[], a single UUID takes ~60 bytes (array header plus 36 characters), in the table and again in every
+ * index on it, and compares as collated text. As a native uuid, it takes 16 bytes and compares as bytes. So each ID is
+ * stored in the most compact column that holds it exactly:
+ * <ul>
+ *   <li>{@code content_uuid} (uuid): IDs made of a single UUID</li>
+ *   <li>{@code content_uuids} (uuid[]): IDs made of several UUIDs</li>
+ *   <li>{@code content_id} (text[]): anything else, along with every row written before the other two existed</li>
+ * </ul>
+ * Exactly one of the three is set on any row. Only UUIDs in canonical form (lowercase and hyphenated) are stored as
+ * uuid, since that's the form they're read back in; anything else would not survive the round trip.
+ * <p>
+ * Chunks of IDs (see {@code ChunkedListContentsStore}) are packed the same way, into a single byte array: each ID is a
+ * tag byte, followed by 16 bytes for a UUID, a count and 16 bytes per UUID for several UUIDs, or a count and
+ * length-prefixed UTF-8 strings for anything else.
+ */
+public class ContentIdCodec {
+
+  /**
+   * A content ID, as stored. Exactly one of the components is non-null.
+   */
+  public record EncodedContentId(UUID uuid, List<UUID> uuids, List<String> text) {
+  }
+
+  private static final int UUID_LENGTH = 36;
+  private static final byte CHUNK_FORMAT_VERSION = 1;
+  private static final byte TAG_UUID = 0;
+  private static final byte TAG_UUIDS = 1;
+  private static final byte TAG_TEXT = 2;
+  // Length prefix for null elements of text IDs
+  private static final int NULL_LENGTH = -1;
+
+  private ContentIdCodec() {
+    throw new UnsupportedOperationException("Trying to instantiate a utility class? Shame!");
+  }
+
+  public static EncodedContentId encode(List<String> contentId) {
+    if (contentId == null || contentId.isEmpty()) {
+      return new EncodedContentId(null, null, contentId);
+    }
+    if (contentId.size() == 1) {
+      UUID uuid = toUuid(contentId.get(0));
+      return uuid != null ? new EncodedContentId(uuid, null, null) : new EncodedContentId(null, null, contentId);
+    }
+    List<UUID> uuids = new ArrayList<>(contentId.size());
+    for (String value : contentId) {
+      UUID uuid = toUuid(value);
+      if (uuid == null) {
+        return new EncodedContentId(null, null, contentId);
+      }
+      uuids.add(uuid);
+    }
+    return new EncodedContentId(null, uuids, null);
+  }
+
+  public static List<String> decode(UUID uuid, List<UUID> uuids, List<String> text) {
+    if (uuid != null) {
+      return List.of(uuid.toString());
+    }
+    if (uuids != null) {
+      return uuids.stream().map(UUID::toString).toList();
+    }
+    return text;
+  }
+
+  /**
+   * Pack a chunk of content IDs into a byte array
+   */
+  public static byte[] encodeChunk(List<List<String>> contentIds) {
+    return encodeChunk(ContentIdBatch.of(contentIds));
+  }
+
+  /**
+   * Pack a chunk of content IDs into a byte array
+   */
+  public static byte[] encodeChunk(ContentIdBatch contentIds) {
+    // 17 bytes is what a single UUID takes, which is what nearly all IDs are
+    var bytes = new ByteArrayOutputStream(1 + contentIds.size() * 17);
+    try (var out = new DataOutputStream(bytes)) {
+      out.writeByte(CHUNK_FORMAT_VERSION);
+      for (int i = 0; i < contentIds.size(); i++) {
+        if (contentIds.isUuid(i)) {
+          out.writeByte(TAG_UUID);
+          out.writeLong(contentIds.mostSignificantBits(i));
+          out.writeLong(contentIds.leastSignificantBits(i));
+          continue;
+        }
+        List<String> contentId = contentIds.get(i);
+        EncodedContentId encoded = encode(contentId);
+        if (encoded.uuids() != null) {
+          out.writeByte(TAG_UUIDS);
+          out.writeShort(encoded.uuids().size());
+          for (UUID uuid : encoded.uuids()) {
+            writeUuid(out, uuid);
+          }
+        } else {
+          out.writeByte(TAG_TEXT);
+          out.writeShort(contentId.size());
+          for (String value : contentId) {
+            writeString(out, value);
+          }
+        }
+      }
+    } catch (IOException e) {
+      // Only possible if the output stream itself throws, which ByteArrayOutputStream doesn't
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Unpack a chunk of content IDs packed by {@link #encodeChunk}
+   */
+  public static ContentIdBatch decodeChunk(byte[] chunk) {
+    try (var in = new DataInputStream(new ByteArrayInputStream(chunk))) {
+      byte version = in.readByte();
+      if (version != CHUNK_FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unsupported content ID chunk format: " + version);
+      }
+      // Again, assume that nearly all IDs are single UUIDs
+      ContentIdBatch.Builder contentIds = ContentIdBatch.builder(chunk.length / 17);
+      while (in.available() > 0) {
+        byte tag = in.readByte();
+        if (tag == TAG_UUID) {
+          contentIds.addUuid(in.readLong(), in.readLong());
+          continue;
+        }
+        List<String> contentId = switch (tag) {
+          case TAG_UUIDS -> {
+            String[] values = new String[in.readUnsignedShort()];
+            for (int i = 0; i < values.length; i++) {
+              values[i] = readUuid(in).toString();
+            }
+            yield List.of(values);
+          }
+          case TAG_TEXT -> {
+            String[] values = new String[in.readUnsignedShort()];
+            for (int i = 0; i < values.length; i++) {
+              values[i] = readString(in);
+            }
+            // Text IDs may contain nulls, which List.of() doesn't allow
+            yield Arrays.asList(values);
+          }
+          default -> throw new IllegalArgumentException("Unknown content ID tag in chunk: " + tag);
+        };
+        contentIds.add(contentId);
+      }
+      return contentIds.build();
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Truncated content ID chunk", e);
+    }
+  }
+
+  private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+    out.writeLong(uuid.getMostSignificantBits());
+    out.writeLong(uuid.getLeastSignificantBits());
+  }
+
+  private static UUID readUuid(DataInputStream in) throws IOException {
+    return new UUID(in.readLong(), in.readLong());
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(NULL_LENGTH);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    return length == NULL_LENGTH ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return the UUID represented by the given string, or null if it isn't a UUID in canonical form
+   */
+  static UUID toUuid(String value) {
+    return isCanonicalUuid(value) ? new UUID(mostSignificantBits(value), leastSignificantBits(value)) : null;
+  }
+
+  /**
+   * @return whether the given string is a UUID in canonical form (lowercase and hyphenated)
+   */
+  // Called for every content ID we write, so this avoids the exception UUID.fromString throws for non-UUIDs
+  static boolean isCanonicalUuid(String value) {
+    if (value == null || value.length() != UUID_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < UUID_LENGTH; i++) {
+      char c = value.charAt(i);
+      boolean valid = (i == 8 || i == 13 || i == 18 || i == 23)
+        ? c == '-'
+        : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+      if (!valid) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the most significant bits of a UUID in canonical form (see {@link #isCanonicalUuid})
+   */
+  static long mostSignificantBits(String uuid) {
+    return parseHex(uuid, 0, 8) << 32 | parseHex(uuid, 9, 13) << 16 | parseHex(uuid, 14, 18);
+  }
+
+  /**
+   * @return the least significant bits of a UUID in canonical form (see {@link #isCanonicalUuid})
+   */
+  static long leastSignificantBits(String uuid) {
+    return parseHex(uuid, 19, 23) << 48 | parseHex(uuid, 24, 36);
+  }
+
+  private static long parseHex(String value, int from, int to) {
+    long result = 0;
+    for (int i = from; i < to; i++) {
+      result = result << 4 | Character.digit(value.charAt(i), 16);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,9 @@
+package org.folio.list.domain;
+
+/**
+ * The kinds of background work that go through the job queue
+ */
+public enum JobType {
+  REFRESH,
+  EXPORT,
+}
@@ -9,17 +9,17 @@ import jakarta.validation.constraints.NotNull;
 
 import java.util.List;
 import java.util.UUID;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.With;
+import lombok.Setter;
+import org.folio.list.domain.ContentIdCodec.EncodedContentId;
 import org.springframework.data.domain.Persistable;
 
 @Data
 @Entity
-@AllArgsConstructor
 @NoArgsConstructor
-@With
 @IdClass(ListContentId.class)
 @Table(name = "list_contents")
 // Implements Persistable so that we can explicitly mark each object as new in the DB
@@ -37,17 +37,67 @@ public class ListContent implements Persistable<ListContentId> {
   @Id
   private UUID refreshId;
 
+  // The content ID is stored in one of these 3 columns, depending on its shape. See ContentIdCodec
+  @Column(name = "content_uuid", updatable = false)
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private UUID contentUuid;
+
+  @Column(name = "content_uuids", updatable = false)
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private List<UUID> contentUuids;
+
   @Column(name = "content_id", updatable = false)
-  @NotNull
-  @Id
-  private List<String> contentId;
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private List<String> contentText;
 
   @Column(name = "sort_seq")
+  @Id
   private int sortSequence;
 
+  public ListContent(UUID listId, UUID refreshId, List<String> contentId, int sortSequence) {
+    this.listId = listId;
+    this.refreshId = refreshId;
+    this.sortSequence = sortSequence;
+    setContentId(contentId);
+  }
+
+  public ListContent(UUID listId, UUID refreshId, EncodedContentId contentId, int sortSequence) {
+    this.listId = listId;
+    this.refreshId = refreshId;
+    this.sortSequence = sortSequence;
+    this.contentUuid = contentId.uuid();
+    this.contentUuids = contentId.uuids();
+    this.contentText = contentId.text();
+  }
+
+  public List<String> getContentId() {
+    return ContentIdCodec.decode(contentUuid, contentUuids, contentText);
+  }
+
+  public void setContentId(List<String> contentId) {
+    EncodedContentId encoded = ContentIdCodec.encode(contentId);
+    this.contentUuid = encoded.uuid();
+    this.contentUuids = encoded.uuids();
+    this.contentText = encoded.text();
+  }
+
+  public ListContent withContentId(List<String> contentId) {
+    return new ListContent(listId, refreshId, contentId, sortSequence);
+  }
+
+  /**
+   * @return the content ID, in the form it's stored in
+   */
+  public EncodedContentId getEncodedContentId() {
+    return new EncodedContentId(contentUuid, contentUuids, contentText);
+  }
+
   @Override
   public ListContentId getId() {
-    return new ListContentId(listId, refreshId, contentId);
+    return new ListContentId(listId, refreshId, sortSequence);
   }
 
   @Override
@@ -7,8 +7,6 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.List;
-
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -20,6 +18,5 @@ public class ListContentId implements Serializable {
   @NotNull
   private UUID refreshId;
 
-  @NotNull
-  private List<String> contentId;
+  private int sortSequence;
 }
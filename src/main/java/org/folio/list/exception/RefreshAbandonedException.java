@@ -0,0 +1,43 @@
+package org.folio.list.exception;
+
+import org.folio.list.domain.ListEntity;
+import org.folio.list.domain.dto.ListAppError;
+import org.folio.list.domain.dto.Parameter;
+import org.springframework.http.HttpStatus;
+
+import java.util.UUID;
+
+/**
+ * A refresh that was given up on, after every node that tried to run it went away before it finished
+ */
+public class RefreshAbandonedException extends AbstractListException {
+  private static final String ERROR_CODE = "list.refresh.abandoned";
+
+  private final UUID listId;
+  private final String listName;
+  private final UUID inProgressRefreshId;
+  private final int attempts;
+
+  public RefreshAbandonedException(ListEntity list, int attempts) {
+    this.listId = list.getId();
+    this.listName = list.getName();
+    this.inProgressRefreshId = list.getInProgressRefresh().getId();
+    this.attempts = attempts;
+  }
+
+  @Override
+  public HttpStatus getHttpStatus() {
+    return HttpStatus.INTERNAL_SERVER_ERROR;
+  }
+
+  @Override
+  public ListAppError getError() {
+    return new ListAppError()
+      .code(ERROR_CODE)
+      .message("Refresh was given up after " + attempts + " attempts")
+      .addParametersItem(new Parameter().key("listId").value(listId.toString()))
+      .addParametersItem(new Parameter().key("name").value(listName))
+      .addParametersItem(new Parameter().key("refreshId").value(inProgressRefreshId.toString()))
+      .addParametersItem(new Parameter().key("attempts").value(Integer.toString(attempts)));
+  }
+}
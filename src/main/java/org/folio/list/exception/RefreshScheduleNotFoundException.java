@@ -0,0 +1,11 @@
+package org.folio.list.exception;
+
+import org.folio.list.domain.ListEntity;
+import org.folio.list.services.ListActions;
+import org.springframework.http.HttpStatus;
+
+public class RefreshScheduleNotFoundException extends SimpleListException {
+  public RefreshScheduleNotFoundException(ListEntity list, ListActions failedAction) {
+    super(list, failedAction, "List " + list.getId() + " has no refresh schedule", "refresh.schedule.not.found", HttpStatus.NOT_FOUND);
+  }
+}
@@ -22,6 +22,8 @@ public interface ListRefreshMapper {
   @Mapping(target = "contentVersion", source = "listRefreshDetails.contentVersion")
   @Mapping(target = "error", expression = "java(convertToListAppError(listRefreshDetails))")
   @Mapping(target = "listVersion", source = "listRefreshDetails.listVersion")
+  @Mapping(target = "queuePosition", ignore = true)
+  @Mapping(target = "progress", ignore = true)
   ListRefreshDTO toListRefreshDTO(ListRefreshDetails listRefreshDetails);
 
   default ListAppError convertToListAppError(ListRefreshDetails listRefreshDetails) {
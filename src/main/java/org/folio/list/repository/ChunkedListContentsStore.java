@@ -0,0 +1,123 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.domain.ContentIdBatch;
+import org.folio.list.domain.ContentIdCodec;
+import org.folio.list.domain.ListContent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stores list contents as ordered chunks of IDs, rather than a row per list member.
+ * <p>
+ * Each row of list_contents_chunks holds up to {@link #CHUNK_SIZE} consecutive members of a refresh, packed with
+ * {@link ContentIdCodec#encodeChunk}. Sort sequences aren't stored per member: a chunk only records the sequence of
+ * its first and last members, and the rest follow from their position in the chunk. A 1M-member list is then a few
+ * hundred rows (plus their TOAST) and a few hundred index entries, instead of 1M rows and 2M index entries. Chunks are
+ * big enough to be TOASTed, so Postgres also compresses them when that helps (e.g., for text IDs).
+ * <p>
+ * Reads assume that a refresh's sort sequences are dense (which {@code DataBatchCallback} guarantees), so that an
+ * offset and a sort sequence can be used interchangeably.
+ */
+// Not a Spring Data repository: JPA can't unpack the chunks.
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class ChunkedListContentsStore implements ListContentsStore {
+
+  public static final int CHUNK_SIZE = 4096;
+
+  private static final String INSERT_SQL = """
+    INSERT INTO list_contents_chunks (list_id, refresh_id, first_seq, last_seq, contents)
+    VALUES (?, ?, ?, ?, ?)
+    """;
+
+  // The (list_id, refresh_id, first_seq) primary key narrows this down to the chunks before the end of the range, and
+  // the last_seq condition drops the ones before its start
+  private static final String SELECT_SQL = """
+    SELECT first_seq, contents FROM list_contents_chunks
+    WHERE list_id = ? AND refresh_id = ? AND first_seq < ? AND last_seq >= ?
+    ORDER BY first_seq
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Write a batch of contents. The batch's contents must all belong to the same refresh, and be in sort order.
+   */
+  public void writeContents(List<ListContent> contents) {
+    List<Object[]> chunks = new ArrayList<>();
+    int start = 0;
+    for (int i = 1; i <= contents.size(); i++) {
+      // Chunks are runs of consecutive sort sequences, so that a member's sequence follows from its position
+      boolean endOfRun = i == contents.size()
+        || i - start == CHUNK_SIZE
+        || contents.get(i).getSortSequence() != contents.get(i - 1).getSortSequence() + 1;
+      if (endOfRun) {
+        chunks.add(toChunk(contents.subList(start, i)));
+        start = i;
+      }
+    }
+    if (!chunks.isEmpty()) {
+      jdbcTemplate.batchUpdate(INSERT_SQL, chunks);
+    }
+    log.debug("Wrote {} contents in {} chunks", contents.size(), chunks.size());
+  }
+
+  @Override
+  public List<ListContent> getContents(UUID listId, UUID refreshId, Pageable page) {
+    return getRange(listId, refreshId, Math.toIntExact(page.getOffset()), page.getPageSize());
+  }
+
+  @Override
+  public List<ListContent> getContents(UUID listId, UUID refreshId, int afterSequence, Pageable page) {
+    return getRange(listId, refreshId, afterSequence + 1, page.getPageSize());
+  }
+
+  public void deleteContents(UUID listId) {
+    jdbcTemplate.update("DELETE FROM list_contents_chunks WHERE list_id = ?", listId);
+  }
+
+  /**
+   * Delete a refresh's contents from the given sort sequence on. Chunks never span two batches, so as long as
+   * {@code fromSequence} is the start of a batch, no chunk straddles it.
+   */
+  public void deleteContentsFrom(UUID listId, UUID refreshId, int fromSequence) {
+    jdbcTemplate.update("DELETE FROM list_contents_chunks WHERE list_id = ? AND refresh_id = ? AND first_seq >= ?",
+      listId, refreshId, fromSequence);
+  }
+
+  /**
+   * Get the contents with sort sequences in [from, from + count)
+   */
+  private List<ListContent> getRange(UUID listId, UUID refreshId, int from, int count) {
+    int to = from + count;
+    List<ListContent> contents = new ArrayList<>(count);
+    jdbcTemplate.query(SELECT_SQL, (RowCallbackHandler) rs -> {
+      int firstSequence = rs.getInt("first_seq");
+      ContentIdBatch contentIds = ContentIdCodec.decodeChunk(rs.getBytes("contents"));
+      for (int i = Math.max(from - firstSequence, 0); i < contentIds.size() && firstSequence + i < to; i++) {
+        contents.add(new ListContent(listId, refreshId, contentIds.encoded(i), firstSequence + i));
+      }
+    }, listId, refreshId, to, from);
+    return contents;
+  }
+
+  private static Object[] toChunk(List<ListContent> run) {
+    ListContent first = run.get(0);
+    return new Object[] {
+      first.getListId(),
+      first.getRefreshId(),
+      first.getSortSequence(),
+      run.get(run.size() - 1).getSortSequence(),
+      ContentIdCodec.encodeChunk(ContentIdBatch.ofContents(run))
+    };
+  }
+}
@@ -0,0 +1,215 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.folio.list.domain.JobType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Not a Spring Data repository: claims rely on FOR UPDATE SKIP LOCKED and advisory locks, which JPA can't express.
+@Component
+@RequiredArgsConstructor
+public class JobRepository {
+
+  public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+  }
+
+  /**
+   * A job claimed by this node
+   *
+   * @param payload    the job's payload, as JSON
+   * @param userId     the user who asked for the work, if any
+   * @param okapiUrl   the Okapi URL of the request that asked for the work, if any
+   * @param attempts   the number of times the job has been claimed, including this one. More than 1 means that whoever
+   *                   claimed it before went away without finishing it.
+   * @param claimToken identifies the current claim on the job. A node whose lease ran out loses its claim.
+   * @param age        how long ago the job was queued
+   */
+  public record Job(UUID id, JobType type, String payload, UUID userId, String okapiUrl, int attempts, UUID claimToken,
+                    Duration age) {
+  }
+
+  private static final RowMapper<Job> JOB_MAPPER = (rs, rowNum) -> new Job(
+    rs.getObject("id", UUID.class),
+    JobType.valueOf(rs.getString("job_type")),
+    rs.getString("payload"),
+    rs.getObject("user_id", UUID.class),
+    rs.getString("okapi_url"),
+    rs.getInt("attempts"),
+    rs.getObject("claim_token", UUID.class),
+    Duration.ofMillis(rs.getLong("age_millis"))
+  );
+
+  // Claim the next jobs that are either waiting, or were claimed by a node that went away
+  private static final String CLAIM_SQL = """
+    UPDATE jobs
+    SET status = 'RUNNING', attempts = attempts + 1, claim_token = ?, claimed_until = now() + ? * interval '1 second'
+    WHERE id IN (
+      SELECT id FROM jobs
+      WHERE status = 'QUEUED' OR (status = 'RUNNING' AND claimed_until <= now() AND attempts < ?)
+      ORDER BY sort_key, created_at
+      LIMIT ?
+      FOR UPDATE SKIP LOCKED
+    )
+    RETURNING id, job_type, payload::text AS payload, user_id, okapi_url, attempts, claim_token,
+      (extract(EPOCH FROM now() - created_at) * 1000)::bigint AS age_millis
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Add a job to the queue. The job can be claimed once the caller's transaction (if any) commits.
+   *
+   * @param sortPenalty how much later than now the job counts as queued, when deciding which job to run next
+   */
+  public void enqueue(UUID id, JobType type, String payload, UUID userId, String okapiUrl, Duration sortPenalty) {
+    jdbcTemplate.update("""
+        INSERT INTO jobs (id, job_type, payload, user_id, okapi_url, sort_key)
+        VALUES (?, ?, ?::jsonb, ?, ?, now() + ? * interval '1 millisecond')
+        """,
+      id, type.name(), payload, userId, okapiUrl, sortPenalty.toMillis());
+  }
+
+  /**
+   * Claim up to {@code maxJobs} jobs for the given amount of time, without letting the tenant's running jobs (on all
+   * nodes) go over {@code tenantMaxRunning}. Jobs that were already claimed {@code maxAttempts} times aren't claimed
+   * again, so that a job that brings its node down can't take every node down in turn: see {@link #findAbandoned}.
+   */
+  @Transactional
+  public List<Job> claim(int maxJobs, int tenantMaxRunning, int maxAttempts, Duration lease) {
+    // Serialize claims within the tenant, so that two nodes can't both see room for one more job and both take it
+    jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext(current_schema() || '.jobs'))");
+    Integer running = jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM jobs WHERE status = 'RUNNING' AND claimed_until > now()", Integer.class);
+    int limit = Math.min(maxJobs, tenantMaxRunning - (running == null ? 0 : running));
+    if (limit <= 0) {
+      return List.of();
+    }
+    return jdbcTemplate.query(CLAIM_SQL, JOB_MAPPER, UUID.randomUUID(), lease.toSeconds(), maxAttempts, limit);
+  }
+
+  /**
+   * Find the jobs whose last claim ran out after they were claimed {@code maxAttempts} times. These are to be given up
+   * on (see {@link #giveUp}), rather than claimed again.
+   */
+  public List<Job> findAbandoned(int maxAttempts) {
+    return jdbcTemplate.query("""
+        SELECT id, job_type, payload::text AS payload, user_id, okapi_url, attempts, claim_token,
+          (extract(EPOCH FROM now() - created_at) * 1000)::bigint AS age_millis
+        FROM jobs
+        WHERE status = 'RUNNING' AND claimed_until <= now() AND attempts >= ?
+        """,
+      JOB_MAPPER, maxAttempts);
+  }
+
+  /**
+   * Fail an abandoned job, unless someone else got to it first. Meant to be called in the same transaction as the work
+   * that fails whatever the job was doing, so that the two can't get out of step.
+   *
+   * @return false if the job was already given up on (or otherwise changed) since it was found
+   */
+  public boolean giveUp(UUID id, UUID claimToken) {
+    return jdbcTemplate.update("""
+        UPDATE jobs
+        SET status = 'FAILED', finished_at = now(), error = 'Gave up after ' || attempts || ' attempts',
+          claimed_until = NULL
+        WHERE id = ? AND claim_token = ? AND status = 'RUNNING' AND claimed_until <= now()
+        """,
+      id, claimToken) > 0;
+  }
+
+  /**
+   * @return false if the claim was lost, in which case the lease wasn't extended
+   */
+  public boolean extendLease(UUID id, UUID claimToken, Duration lease) {
+    return jdbcTemplate.update("""
+        UPDATE jobs
+        SET claimed_until = now() + ? * interval '1 second'
+        WHERE id = ? AND claim_token = ? AND status = 'RUNNING'
+        """,
+      lease.toSeconds(), id, claimToken) > 0;
+  }
+
+  /**
+   * Put a claimed job back in the queue without counting the attempt, for when it couldn't be started at all
+   */
+  public void release(UUID id, UUID claimToken) {
+    jdbcTemplate.update("""
+        UPDATE jobs
+        SET status = 'QUEUED', attempts = attempts - 1, claim_token = NULL, claimed_until = NULL
+        WHERE id = ? AND claim_token = ? AND status = 'RUNNING'
+        """,
+      id, claimToken);
+  }
+
+  /**
+   * Record the outcome of a job
+   *
+   * @param error why the job failed, if it did
+   * @return false if the claim was lost, in which case nothing was recorded
+   */
+  public boolean finish(UUID id, UUID claimToken, JobStatus status, String error) {
+    return jdbcTemplate.update("""
+        UPDATE jobs
+        SET status = ?, error = ?, finished_at = now(), claimed_until = NULL
+        WHERE id = ? AND claim_token = ? AND status = 'RUNNING'
+        """,
+      status.name(), error, id, claimToken) > 0;
+  }
+
+  public Optional<JobStatus> findStatus(UUID id) {
+    return jdbcTemplate.queryForList("SELECT status FROM jobs WHERE id = ?", String.class, id)
+      .stream()
+      .findFirst()
+      .map(JobStatus::valueOf);
+  }
+
+  /**
+   * Find where a refresh's job is in the queue: 1 if it's the next of the tenant's jobs to run, 2 if it's after that,
+   * and so on
+   *
+   * @return the job's position, or empty if it isn't waiting in the queue (e.g., because it's already running)
+   */
+  public Optional<Integer> findRefreshQueuePosition(UUID refreshId) {
+    return jdbcTemplate.queryForList("""
+          SELECT 1 + (
+            SELECT count(*) FROM jobs ahead
+            WHERE ahead.status = 'QUEUED' AND (ahead.sort_key, ahead.created_at) < (job.sort_key, job.created_at)
+          )::int
+          FROM jobs job
+          WHERE job.status = 'QUEUED' AND job.job_type = 'REFRESH' AND job.payload ->> 'refreshId' = ?
+          """,
+        Integer.class, refreshId.toString())
+      .stream()
+      .findFirst();
+  }
+
+  public Optional<String> findError(UUID id) {
+    return jdbcTemplate.queryForList("SELECT error FROM jobs WHERE id = ? AND error IS NOT NULL", String.class, id)
+      .stream()
+      .findFirst();
+  }
+
+  /**
+   * Delete jobs that finished more than {@code retention} ago
+   *
+   * @return the number of jobs deleted
+   */
+  public int deleteFinishedBefore(Duration retention) {
+    return jdbcTemplate.update("""
+        DELETE FROM jobs
+        WHERE status IN ('SUCCEEDED', 'FAILED') AND finished_at < now() - ? * interval '1 second'
+        """,
+      retention.toSeconds());
+  }
+}
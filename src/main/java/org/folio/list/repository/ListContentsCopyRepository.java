@@ -0,0 +1,166 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.domain.ContentIdCodec.EncodedContentId;
+import org.folio.list.domain.ListContent;
+import org.folio.list.services.cancellation.CancellationRegistry;
+import org.folio.list.services.cancellation.CancellationRegistry.AbortRegistration;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.core.BaseConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+// Not a Spring Data repository: JPA has no notion of COPY, so this talks to the pgjdbc driver directly.
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class ListContentsCopyRepository {
+
+  private static final String COPY_SQL =
+    "COPY %s (list_id, refresh_id, content_uuid, content_uuids, content_id, sort_seq) FROM STDIN";
+  private static final String NULL = "\\N";
+  // Hand rows to the driver in chunks of roughly this many characters, rather than building one giant buffer per batch
+  private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Insert the given contents with a single COPY ... FROM STDIN statement. The COPY is atomic: if any row fails, none
+   * of the rows in this batch are written. If the refresh is cancelled in the meantime, the COPY is cancelled in
+   * Postgres (see {@link CancellationRegistry#abortOnCancel(Runnable)}).
+   */
+  public void copyContents(List<ListContent> contents) {
+    copyContents("list_contents", contents);
+  }
+
+  /**
+   * Like {@link #copyContents(List)}, but into another table with the same columns as list_contents
+   */
+  public void copyContents(String table, List<ListContent> contents) {
+    if (contents.isEmpty()) {
+      return;
+    }
+    Long rowCount = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+      BaseConnection pgConnection = connection.unwrap(BaseConnection.class);
+      CopyIn copyIn = pgConnection.getCopyAPI().copyIn(COPY_SQL.formatted(table));
+      // Closed before the connection goes back to the pool, so the cancel can't hit whoever uses it next
+      try (AbortRegistration ignored = CancellationRegistry.abortOnCancel(() -> cancelQuery(pgConnection))) {
+        StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+        for (ListContent content : contents) {
+          appendRow(buffer, content);
+          if (buffer.length() >= FLUSH_THRESHOLD) {
+            write(copyIn, buffer);
+          }
+        }
+        write(copyIn, buffer);
+        return copyIn.endCopy();
+      } finally {
+        if (copyIn.isActive()) {
+          copyIn.cancelCopy();
+        }
+      }
+    });
+    log.debug("Copied {} rows into {}", rowCount, table);
+  }
+
+  private static void cancelQuery(BaseConnection connection) {
+    try {
+      connection.cancelQuery();
+    } catch (SQLException e) {
+      throw new IllegalStateException("Unable to cancel COPY", e);
+    }
+  }
+
+  private static void write(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+    if (!buffer.isEmpty()) {
+      byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+      copyIn.writeToCopy(bytes, 0, bytes.length);
+      buffer.setLength(0);
+    }
+  }
+
+  // Visible for testing
+  static void appendRow(StringBuilder buffer, ListContent content) {
+    EncodedContentId contentId = content.getEncodedContentId();
+    buffer.append(content.getListId()).append('\t')
+      .append(content.getRefreshId()).append('\t');
+    // UUIDs never need escaping
+    buffer.append(contentId.uuid() == null ? NULL : contentId.uuid()).append('\t');
+    if (contentId.uuids() == null) {
+      buffer.append(NULL);
+    } else {
+      appendUuidArrayLiteral(buffer, contentId.uuids());
+    }
+    buffer.append('\t');
+    if (contentId.text() == null) {
+      buffer.append(NULL);
+    } else {
+      appendCopyEscaped(buffer, toArrayLiteral(contentId.text()));
+    }
+    buffer.append('\t')
+      .append(content.getSortSequence()).append('\n');
+  }
+
+  private static void appendUuidArrayLiteral(StringBuilder buffer, List<UUID> values) {
+    buffer.append('{');
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        buffer.append(',');
+      }
+      buffer.append(values.get(i));
+    }
+    buffer.append('}');
+  }
+
+  /**
+   * Build a Postgres array literal (e.g. {"a","b"}) for a text[] column. Every element is quoted, so commas, braces
+   * and whitespace inside IDs survive the round trip.
+   */
+  // Visible for testing
+  static String toArrayLiteral(List<String> values) {
+    StringBuilder literal = new StringBuilder("{");
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        literal.append(',');
+      }
+      String value = values.get(i);
+      if (value == null) {
+        literal.append("NULL");
+      } else {
+        literal.append('"');
+        for (int j = 0; j < value.length(); j++) {
+          char c = value.charAt(j);
+          if (c == '"' || c == '\\') {
+            literal.append('\\');
+          }
+          literal.append(c);
+        }
+        literal.append('"');
+      }
+    }
+    return literal.append('}').toString();
+  }
+
+  /**
+   * Escape a column value for COPY's text format, where backslash, tab and newlines are special.
+   */
+  private static void appendCopyEscaped(StringBuilder buffer, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\' -> buffer.append("\\\\");
+        case '\t' -> buffer.append("\\t");
+        case '\n' -> buffer.append("\\n");
+        case '\r' -> buffer.append("\\r");
+        default -> buffer.append(c);
+      }
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+// Not a Spring Data repository: the purge relies on ctid, which JPA can't express.
+@Component
+@RequiredArgsConstructor
+public class ListContentsGarbageRepository {
+
+  /**
+   * A set of list contents waiting to be purged
+   *
+   * @param refreshId the refresh whose contents should be purged, or null to purge all of the list's contents
+   */
+  public record GarbageEntry(UUID id, UUID listId, UUID refreshId, long rowsDeleted) {
+  }
+
+  private static final RowMapper<GarbageEntry> GARBAGE_ENTRY_MAPPER = (rs, rowNum) -> new GarbageEntry(
+    rs.getObject("id", UUID.class),
+    rs.getObject("list_id", UUID.class),
+    rs.getObject("refresh_id", UUID.class),
+    rs.getLong("rows_deleted")
+  );
+
+  // Claim the oldest entry that nobody else is working on. The claim is a lease rather than a lock, so that an entry
+  // abandoned by a node that went away is picked up again once the lease runs out.
+  private static final String CLAIM_SQL = """
+    UPDATE list_contents_garbage
+    SET claimed_until = now() + ? * interval '1 second'
+    WHERE id = (
+      SELECT id FROM list_contents_garbage
+      WHERE claimed_until IS NULL OR claimed_until <= now()
+      ORDER BY marked_at
+      LIMIT 1
+      FOR UPDATE SKIP LOCKED
+    )
+    RETURNING id, list_id, refresh_id, rows_deleted
+    """;
+
+  // list_contents is partitioned by list_id, then by refresh_id, and ctid is only unique within a partition, so the
+  // outer conditions are required: they keep the DELETE to rows of the partition the ctids came from. ctid = ANY(...)
+  // (rather than ctid IN (...)) gets us a TID scan instead of a join.
+  private static final String DELETE_REFRESH_CHUNK_SQL = """
+    DELETE FROM list_contents
+    WHERE list_id = ? AND refresh_id = ?
+    AND ctid = ANY(ARRAY(SELECT ctid FROM list_contents WHERE list_id = ? AND refresh_id = ? LIMIT ?))
+    """;
+
+  // A list's refresh partitions are dropped before its rows are purged, so that the rest are all in one partition
+  private static final String DELETE_LIST_CHUNK_SQL = """
+    DELETE FROM list_contents
+    WHERE list_id = ?
+    AND ctid = ANY(ARRAY(SELECT ctid FROM list_contents WHERE list_id = ? LIMIT ?))
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Mark a refresh's contents as garbage. This is just an insert, so it's cheap enough to do in the transaction that
+   * makes the contents obsolete.
+   */
+  public void markGarbage(UUID listId, UUID refreshId) {
+    jdbcTemplate.update("INSERT INTO list_contents_garbage (id, list_id, refresh_id) VALUES (?, ?, ?)",
+      UUID.randomUUID(), listId, refreshId);
+  }
+
+  /**
+   * Mark all of a list's contents as garbage. Only use this for lists that won't get any new contents (i.e., deleted
+   * lists), since it also covers contents written after it's called.
+   */
+  public void markGarbage(UUID listId) {
+    markGarbage(listId, null);
+  }
+
+  /**
+   * Claim the oldest unclaimed entry, for the given amount of time
+   */
+  public Optional<GarbageEntry> claimNext(Duration lease) {
+    return jdbcTemplate.query(CLAIM_SQL, GARBAGE_ENTRY_MAPPER, lease.toSeconds())
+      .stream()
+      .findFirst();
+  }
+
+  /**
+   * Delete up to {@code chunkSize} rows belonging to the given entry
+   *
+   * @return the number of rows deleted
+   */
+  public int deleteChunk(GarbageEntry entry, int chunkSize) {
+    if (entry.refreshId() == null) {
+      return jdbcTemplate.update(DELETE_LIST_CHUNK_SQL, entry.listId(), entry.listId(), chunkSize);
+    }
+    return jdbcTemplate.update(DELETE_REFRESH_CHUNK_SQL, entry.listId(), entry.refreshId(), entry.listId(),
+      entry.refreshId(), chunkSize);
+  }
+
+  /**
+   * Delete the entry's chunked contents (see {@link ChunkedListContentsStore}). There are few enough chunks per refresh
+   * that this is done in one go.
+   *
+   * @return the number of chunks deleted
+   */
+  public int deleteChunkedContents(GarbageEntry entry) {
+    if (entry.refreshId() == null) {
+      return jdbcTemplate.update("DELETE FROM list_contents_chunks WHERE list_id = ?", entry.listId());
+    }
+    return jdbcTemplate.update("DELETE FROM list_contents_chunks WHERE list_id = ? AND refresh_id = ?",
+      entry.listId(), entry.refreshId());
+  }
+
+  /**
+   * Record that more of an entry's rows were deleted, and extend the claim on it
+   */
+  public void recordProgress(UUID id, int rowsDeleted, Duration lease) {
+    jdbcTemplate.update("""
+        UPDATE list_contents_garbage
+        SET rows_deleted = rows_deleted + ?, last_purged_at = now(), claimed_until = now() + ? * interval '1 second'
+        WHERE id = ?
+        """,
+      rowsDeleted, lease.toSeconds(), id);
+  }
+
+  public void remove(UUID id) {
+    jdbcTemplate.update("DELETE FROM list_contents_garbage WHERE id = ?", id);
+  }
+
+  public long countPending() {
+    Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM list_contents_garbage", Long.class);
+    return count == null ? 0 : count;
+  }
+}
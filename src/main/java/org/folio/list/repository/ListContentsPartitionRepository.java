@@ -0,0 +1,283 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manages the per-refresh partitions of list_contents.
+ * <p>
+ * list_contents is hash-partitioned on list_id into 12 buckets, and each bucket is list-partitioned on refresh_id. Most
+ * contents live in each bucket's default partition, but a big refresh can get a partition of its own, so that its
+ * contents can be dropped in one go once they're obsolete instead of being deleted row by row. The partition is
+ * attached while it's still empty, before the refresh writes anything, so inserts and reads work exactly the same
+ * whether a refresh has its own partition or not.
+ * <p>
+ * Big staged refreshes (see {@link ListContentsStagingRepository}) get a partition too: their staging table becomes
+ * their partition once they're done.
+ */
+// Not a Spring Data repository: this is all DDL.
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class ListContentsPartitionRepository {
+
+  private static final int BUCKET_COUNT = 12;
+  // Don't let DDL queue up behind long-running reads, since everything else would then queue up behind the DDL
+  private static final String LOCK_TIMEOUT = "5s";
+  private static final Pattern INDEX_TARGET = Pattern.compile("^CREATE (UNIQUE )?INDEX \\S+ ON (?:ONLY )?\\S+ ");
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public static String partitionName(UUID refreshId) {
+    return "list_contents_r_" + refreshId.toString().replace("-", "");
+  }
+
+  /**
+   * Give a refresh a partition of its own. Call this before writing any of the refresh's contents.
+   *
+   * @return true if the partition was created, false if it couldn't be (in which case the contents go to the default
+   * partition, as usual)
+   */
+  public boolean createRefreshPartition(UUID listId, UUID refreshId) {
+    String partition = partitionName(refreshId);
+    String bucket = findBucket(listId);
+    if (bucket == null) {
+      log.warn("list_contents is not partitioned by refresh. Contents of refresh {} will go to the shared table", refreshId);
+      return false;
+    }
+    try {
+      jdbcTemplate.execute("CREATE TABLE %s (LIKE list_contents INCLUDING DEFAULTS)".formatted(partition));
+      addBoundsConstraint(partition, bucket, refreshId);
+      attach(partition, bucket, refreshId);
+      log.info("Created partition {} for list {}, refresh {}", partition, listId, refreshId);
+      return true;
+    } catch (Exception e) {
+      log.warn("Unable to create partition {} for list {}. Its contents will go to the shared table instead",
+        partition, listId, e);
+      cleanUp("DROP TABLE IF EXISTS %s".formatted(partition));
+      return false;
+    }
+  }
+
+  /**
+   * Make a table that holds all of a refresh's contents (a staging table, see {@link ListContentsStagingRepository})
+   * the refresh's partition, so that its contents become part of list_contents without being copied.
+   * <p>
+   * The table is made logged and given list_contents' indexes and constraints beforehand, under locks that only
+   * concern the table itself, so that attaching it finds them already in place instead of building and checking them
+   * under its own locks.
+   *
+   * @return true if the table is now the refresh's partition, false if it couldn't be attached (in which case it's left
+   * where it was, with its contents)
+   */
+  public boolean attachRefreshPartition(UUID listId, UUID refreshId, String table) {
+    String partition = partitionName(refreshId);
+    String bucket = findBucket(listId);
+    if (bucket == null) {
+      log.warn("list_contents is not partitioned by refresh. Table {} can't become part of it", table);
+      return false;
+    }
+    try {
+      // Writes the table to the WAL in one go. list_contents has to survive a crash, which unlogged tables don't
+      jdbcTemplate.execute("ALTER TABLE %s SET LOGGED".formatted(table));
+      copyIndexes(table);
+      copyConstraints(table);
+      if (!constraintExists(table, partition + "_bounds")) {
+        addBoundsConstraint(table, bucket, refreshId);
+      }
+      attach(table, bucket, refreshId);
+      log.info("Attached {} to list_contents as partition {} for list {}, refresh {}", table, partition, listId,
+        refreshId);
+      return true;
+    } catch (Exception e) {
+      log.warn("Unable to attach {} to list_contents for list {}, refresh {}", table, listId, refreshId, e);
+      return false;
+    }
+  }
+
+  /**
+   * Drop a refresh's partition, along with all of its contents
+   *
+   * @return true if the refresh had a partition, false if its contents are in the default partition
+   */
+  public boolean dropRefreshPartition(UUID refreshId) {
+    String partition = partitionName(refreshId);
+    if (!partitionExists(partition)) {
+      return false;
+    }
+    inTransaction(statement -> statement.execute("DROP TABLE IF EXISTS %s".formatted(partition)));
+    log.info("Dropped partition {}", partition);
+    return true;
+  }
+
+  /**
+   * Find the refreshes of a list that have a partition of their own
+   */
+  public List<UUID> findPartitionedRefreshes(UUID listId) {
+    return jdbcTemplate.queryForList("""
+        SELECT id FROM list_refresh_details
+        WHERE list_id = ? AND to_regclass('list_contents_r_' || replace(id::text, '-', '')) IS NOT NULL
+        """,
+      UUID.class, listId);
+  }
+
+  private boolean partitionExists(String partition) {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition));
+  }
+
+  /**
+   * Find the hash bucket that a list's contents belong to, if the buckets are partitioned by refresh
+   */
+  private String findBucket(UUID listId) {
+    return jdbcTemplate.queryForList("""
+        SELECT bucket FROM (
+          SELECT format('list_contents_%%s', lpad(r::text, 2, '0')) AS bucket, r
+          FROM generate_series(0, %d) r
+        ) buckets
+        WHERE satisfies_hash_partition('list_contents'::regclass::oid, %d, r, ?::uuid)
+        AND (SELECT relkind FROM pg_class WHERE oid = to_regclass(bucket)) = 'p'
+        """.formatted(BUCKET_COUNT - 1, BUCKET_COUNT),
+        String.class, listId)
+      .stream()
+      .findFirst()
+      .orElse(null);
+  }
+
+  /**
+   * Add a constraint matching the bounds of a refresh's partition, so that attaching the table doesn't need to check
+   * its rows
+   */
+  private void addBoundsConstraint(String table, String bucket, UUID refreshId) {
+    jdbcTemplate.execute("""
+      ALTER TABLE %s ADD CONSTRAINT %s_bounds
+      CHECK (refresh_id = '%s' AND satisfies_hash_partition('list_contents'::regclass::oid, %d, %s, list_id))
+      """.formatted(table, partitionName(refreshId), refreshId, BUCKET_COUNT, bucketRemainder(bucket)));
+  }
+
+  /**
+   * Attach a table to a bucket as a refresh's partition, renaming it to the partition's name if it isn't already
+   */
+  private void attach(String table, String bucket, UUID refreshId) {
+    String partition = partitionName(refreshId);
+    String defaultPartition = bucket + "_default";
+    String exclusion = partition + "_excluded";
+    try {
+      // Attaching a partition also checks that the default partition has no rows for it, which means a full scan
+      // under an ACCESS EXCLUSIVE lock. Proving it with a constraint first moves that scan under a lock that doesn't
+      // block reads and writes
+      inTransaction(statement -> statement.execute("ALTER TABLE %s ADD CONSTRAINT %s CHECK (refresh_id <> '%s') NOT VALID"
+        .formatted(defaultPartition, exclusion, refreshId)));
+      inTransaction(statement -> statement.execute("ALTER TABLE %s VALIDATE CONSTRAINT %s"
+        .formatted(defaultPartition, exclusion)));
+      inTransaction(statement -> {
+        if (!table.equals(partition)) {
+          statement.execute("ALTER TABLE %s RENAME TO %s".formatted(table, partition));
+        }
+        statement.execute("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES IN ('%s')".formatted(bucket, partition, refreshId));
+        statement.execute("ALTER TABLE %s DROP CONSTRAINT %s".formatted(defaultPartition, exclusion));
+      });
+    } catch (RuntimeException e) {
+      cleanUp("ALTER TABLE %s DROP CONSTRAINT IF EXISTS %s".formatted(defaultPartition, exclusion));
+      throw e;
+    }
+  }
+
+  /**
+   * Give a table the indexes list_contents has, for attaching it to adopt rather than build. Indexes that belong to a
+   * constraint come with the constraint instead (see {@link #copyConstraints}).
+   */
+  private void copyIndexes(String table) {
+    if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+      "SELECT EXISTS (SELECT 1 FROM pg_index WHERE indrelid = ?::regclass)", Boolean.class, table))) {
+      // Copied on an earlier attempt
+      return;
+    }
+    jdbcTemplate.queryForList("""
+          SELECT pg_get_indexdef(i.indexrelid) FROM pg_index i
+          WHERE i.indrelid = 'list_contents'::regclass
+          AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conrelid = i.indrelid AND c.conindid = i.indexrelid)
+          """,
+        String.class)
+      // e.g., CREATE UNIQUE INDEX idx_sort_seq ON ONLY diku_mod_lists.list_contents USING btree (...)
+      .forEach(definition -> jdbcTemplate.execute(INDEX_TARGET.matcher(definition)
+        .replaceFirst(Matcher.quoteReplacement("CREATE ") + "$1" + Matcher.quoteReplacement("INDEX ON " + table + " "))));
+  }
+
+  /**
+   * Give a table the primary key, unique and foreign key constraints list_contents has, for attaching it to adopt rather
+   * than check
+   */
+  private void copyConstraints(String table) {
+    List<Map<String, Object>> constraints = jdbcTemplate.queryForList("""
+      SELECT conname, contype, pg_get_constraintdef(oid) AS definition FROM pg_constraint
+      WHERE conrelid = 'list_contents'::regclass AND contype IN ('p', 'u', 'f')
+      """);
+    for (Map<String, Object> constraint : constraints) {
+      String name = (String) constraint.get("conname");
+      if (constraintExists(table, name)) {
+        continue;
+      }
+      String add = "ALTER TABLE %s ADD CONSTRAINT %s %s".formatted(table, name, constraint.get("definition"));
+      if (!"f".equals(String.valueOf(constraint.get("contype")))) {
+        jdbcTemplate.execute(add);
+        continue;
+      }
+      // Adding a foreign key NOT VALID only briefly locks the referenced table, and validating it doesn't block writes
+      // to it
+      inTransaction(statement -> statement.execute(add + " NOT VALID"));
+      inTransaction(statement -> statement.execute("ALTER TABLE %s VALIDATE CONSTRAINT %s".formatted(table, name)));
+    }
+  }
+
+  private boolean constraintExists(String table, String name) {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+      "SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = ?::regclass AND conname = ?)", Boolean.class,
+      table, name));
+  }
+
+  private void cleanUp(String sql) {
+    try {
+      inTransaction(statement -> statement.execute(sql));
+    } catch (Exception e) {
+      log.warn("Unable to clean up after failed partition DDL: {}", sql, e);
+    }
+  }
+
+  private static int bucketRemainder(String bucket) {
+    return Integer.parseInt(bucket.substring(bucket.length() - 2));
+  }
+
+  private void inTransaction(SqlWork work) {
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("SET LOCAL lock_timeout = '%s'".formatted(LOCK_TIMEOUT));
+        work.execute(statement);
+        connection.commit();
+      } catch (SQLException | RuntimeException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+      return null;
+    });
+  }
+
+  @FunctionalInterface
+  private interface SqlWork {
+    void execute(Statement statement) throws SQLException;
+  }
+}
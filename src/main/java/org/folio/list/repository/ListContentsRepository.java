@@ -12,7 +12,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface ListContentsRepository extends JpaRepository<ListContent, ListContentId> {
+public interface ListContentsRepository extends JpaRepository<ListContent, ListContentId>, ListContentsStore {
   @Modifying
   @Query("DELETE FROM ListContent lc WHERE lc.listId = :listId AND lc.refreshId = :refreshId")
   void deleteContents(UUID listId, UUID refreshId);
@@ -21,6 +21,16 @@ public interface ListContentsRepository extends JpaRepository<ListContent, ListC
   @Query("DELETE FROM ListContent lc WHERE lc.listId = :listId")
   void deleteContents(UUID listId);
 
+  @Modifying
+  @Query("""
+    DELETE FROM ListContent lc
+    WHERE lc.listId = :listId
+    AND lc.refreshId = :refreshId
+    AND lc.sortSequence >= :fromSequence
+    """)
+  void deleteContentsFrom(UUID listId, UUID refreshId, int fromSequence);
+
+  @Override
   @Query("""
     SELECT lc FROM ListContent lc
     WHERE lc.listId = :listId
@@ -29,6 +39,7 @@ public interface ListContentsRepository extends JpaRepository<ListContent, ListC
     """)
   List<ListContent> getContents(UUID listId, UUID refreshId, Pageable page);
 
+  @Override
   @Query("""
     SELECT lc FROM ListContent lc
     WHERE lc.listId = :listId
@@ -0,0 +1,165 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.domain.ContentIdCodec.EncodedContentId;
+import org.folio.list.domain.ListContent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.folio.list.domain.ListContent.SORT_SEQUENCE_START_NUMBER;
+
+/**
+ * Manages the staging tables that refreshes write to with {@link ListContentsWriter.WriteMode#STAGED}.
+ * <p>
+ * Each refresh gets an UNLOGGED table of its own, with list_contents' columns but none of its indexes, so writing the
+ * refresh's contents neither goes through the WAL nor maintains idx_sort_seq row by row. Once a big refresh succeeds,
+ * its staging table becomes its partition of list_contents (see {@link ListContentsPartitionRepository}), so its
+ * contents are never copied. A small refresh isn't worth a partition of its own, so its contents are copied to the
+ * default partition instead. Readers never see a partial refresh, since nothing points to the refresh until it's
+ * published, and a refresh that fails just has its table dropped.
+ * <p>
+ * Unlogged tables are emptied if Postgres crashes, so a refresh can only be resumed from its staging table if the
+ * table still holds everything up to the refresh's last checkpoint (see {@link #holdsContentsBefore}).
+ * <p>
+ * As a {@link ListContentsStore}, this reads the contents staged so far, for previews of a refresh in progress. The
+ * staging table has no index on sort_seq, so these reads scan it.
+ */
+// Not a Spring Data repository: this is mostly DDL.
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class ListContentsStagingRepository implements ListContentsStore {
+
+  private static final String COLUMNS = "list_id, refresh_id, content_uuid, content_uuids, content_id, sort_seq";
+
+  private static final RowMapper<ListContent> CONTENT_MAPPER = (rs, rowNum) -> new ListContent(
+    rs.getObject("list_id", UUID.class),
+    rs.getObject("refresh_id", UUID.class),
+    new EncodedContentId(rs.getObject("content_uuid", UUID.class), arrayColumn(rs, "content_uuids"),
+      arrayColumn(rs, "content_id")),
+    rs.getInt("sort_seq")
+  );
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ListContentsCopyRepository listContentsCopyRepository;
+  private final ListContentsPartitionRepository listContentsPartitionRepository;
+
+  public static String stagingTableName(UUID refreshId) {
+    return "list_contents_s_" + refreshId.toString().replace("-", "");
+  }
+
+  /**
+   * Create an empty staging table for a refresh, emptying it if it's left over from an earlier attempt. Call this
+   * before writing any of the refresh's contents.
+   */
+  public void createStagingTable(UUID refreshId) {
+    String table = stagingTableName(refreshId);
+    jdbcTemplate.execute("CREATE UNLOGGED TABLE IF NOT EXISTS %s (LIKE list_contents INCLUDING DEFAULTS)".formatted(table));
+    jdbcTemplate.execute("TRUNCATE %s".formatted(table));
+    log.info("Created staging table {} for refresh {}", table, refreshId);
+  }
+
+  /**
+   * Write a batch of a refresh's contents to its staging table. All contents must belong to the same refresh.
+   */
+  public void writeContents(List<ListContent> contents) {
+    if (contents.isEmpty()) {
+      return;
+    }
+    listContentsCopyRepository.copyContents(stagingTableName(contents.getFirst().getRefreshId()), contents);
+  }
+
+  public boolean stagingTableExists(UUID refreshId) {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+      stagingTableName(refreshId)));
+  }
+
+  /**
+   * Check that a refresh's staging table holds every sort sequence before {@code sortSequence}
+   */
+  public boolean holdsContentsBefore(UUID refreshId, int sortSequence) {
+    if (!stagingTableExists(refreshId)) {
+      return false;
+    }
+    Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM %s WHERE sort_seq < ?"
+      .formatted(stagingTableName(refreshId)), Long.class, sortSequence);
+    return count != null && count == sortSequence - SORT_SEQUENCE_START_NUMBER;
+  }
+
+  @Override
+  public List<ListContent> getContents(UUID listId, UUID refreshId, Pageable page) {
+    int from = Math.toIntExact(page.getOffset()) + SORT_SEQUENCE_START_NUMBER;
+    return getRange(listId, refreshId, from, page.getPageSize());
+  }
+
+  @Override
+  public List<ListContent> getContents(UUID listId, UUID refreshId, int afterSequence, Pageable page) {
+    return getRange(listId, refreshId, afterSequence + 1, page.getPageSize());
+  }
+
+  /**
+   * Delete a refresh's staged contents from the given sort sequence on, if it has a staging table
+   */
+  public void deleteContentsFrom(UUID refreshId, int fromSequence) {
+    if (stagingTableExists(refreshId)) {
+      jdbcTemplate.update("DELETE FROM %s WHERE sort_seq >= ?".formatted(stagingTableName(refreshId)), fromSequence);
+    }
+  }
+
+  /**
+   * Move a refresh's staged contents to list_contents. Do this before publishing the refresh: its contents are part of
+   * list_contents from then on, but nothing reads them until the list points to the refresh.
+   *
+   * @param ownPartition whether the staging table is to become the refresh's partition, rather than have its contents
+   *                     copied to the default partition. Attaching a partition means validating a constraint on the
+   *                     whole default partition of the list's bucket, which is only worth it for big refreshes.
+   * @throws IllegalStateException if the staging table couldn't be attached (in which case it's left as it is)
+   */
+  public void publish(UUID listId, UUID refreshId, boolean ownPartition) {
+    String table = stagingTableName(refreshId);
+    if (!ownPartition) {
+      // One statement, so that the contents are either all in list_contents or all still staged
+      int moved = jdbcTemplate.update("""
+        WITH staged AS (DELETE FROM %s RETURNING %s)
+        INSERT INTO list_contents (%s) SELECT %s FROM staged
+        """.formatted(table, COLUMNS, COLUMNS, COLUMNS));
+      dropStagingTable(refreshId);
+      log.info("Copied {} staged contents of refresh {} to list_contents", moved, refreshId);
+      return;
+    }
+    if (!listContentsPartitionRepository.attachRefreshPartition(listId, refreshId, table)) {
+      throw new IllegalStateException("Unable to attach staging table " + table + " to list_contents");
+    }
+  }
+
+  /**
+   * Drop a refresh's staging table, along with everything in it
+   */
+  public void dropStagingTable(UUID refreshId) {
+    jdbcTemplate.execute("DROP TABLE IF EXISTS %s".formatted(stagingTableName(refreshId)));
+  }
+
+  /**
+   * Get the staged contents with sort sequences in [from, from + count)
+   */
+  private List<ListContent> getRange(UUID listId, UUID refreshId, int from, int count) {
+    return jdbcTemplate.query("SELECT %s FROM %s WHERE list_id = ? AND sort_seq >= ? AND sort_seq < ? ORDER BY sort_seq"
+      .formatted(COLUMNS, stagingTableName(refreshId)), CONTENT_MAPPER, listId, from, from + count);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> List<T> arrayColumn(ResultSet rs, String column) throws SQLException {
+    Array array = rs.getArray(column);
+    return array == null ? null : Arrays.asList((T[]) array.getArray());
+  }
+}
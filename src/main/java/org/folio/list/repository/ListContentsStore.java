@@ -0,0 +1,54 @@
+package org.folio.list.repository;
+
+import org.folio.list.domain.ListContent;
+import org.folio.list.domain.ListRefreshDetails;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Reads the contents of a refresh, in sort order. Use {@link ListContentsStores} to get the store that a refresh's
+ * contents were written to.
+ */
+public interface ListContentsStore {
+
+  /**
+   * Get a page of contents by offset
+   */
+  List<ListContent> getContents(UUID listId, UUID refreshId, Pageable page);
+
+  /**
+   * Get a page of contents by keyset: the contents that come after the given sort sequence
+   */
+  List<ListContent> getContents(UUID listId, UUID refreshId, int afterSequence, Pageable page);
+
+  /**
+   * How a refresh's contents are laid out in the DB. A refresh records its layout in its metadata, so that contents
+   * stay readable when the configured write mode changes.
+   */
+  enum Layout {
+    /** One row per list member, in list_contents (see {@link ListContentsRepository}) */
+    ROWS,
+    /** Members packed into chunks, in list_contents_chunks (see {@link ChunkedListContentsStore}) */
+    CHUNKED;
+
+    public static final String METADATA_KEY = "CONTENTS_LAYOUT";
+
+    /**
+     * @return the layout of the given refresh's contents. Refreshes from before layouts were recorded use ROWS.
+     */
+    public static Layout of(ListRefreshDetails refresh) {
+      return Optional.ofNullable(refresh.getMetadata())
+        .map(metadata -> metadata.get(METADATA_KEY))
+        .map(Layout::valueOf)
+        .orElse(ROWS);
+    }
+
+    public Map<String, String> toMetadata() {
+      return Map.of(METADATA_KEY, name());
+    }
+  }
+}
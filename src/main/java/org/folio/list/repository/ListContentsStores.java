@@ -0,0 +1,63 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.folio.list.domain.ListRefreshDetails;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Finds where a refresh's contents are stored
+ */
+@Component
+@RequiredArgsConstructor
+public class ListContentsStores {
+
+  private final ListContentsRepository listContentsRepository;
+  private final ChunkedListContentsStore chunkedListContentsStore;
+  private final ListContentsStagingRepository listContentsStagingRepository;
+
+  public ListContentsStore forRefresh(ListRefreshDetails refresh) {
+    return forLayout(Layout.of(refresh));
+  }
+
+  /**
+   * Get the store that a refresh is still writing its contents to. A refresh's layout is only recorded with the refresh
+   * once it's over, so the checkpoint's layout is used instead. A staged refresh's contents stay in its staging table
+   * until the refresh is published.
+   */
+  public ListContentsStore forInProgressRefresh(RefreshCheckpoint checkpoint) {
+    return listContentsStagingRepository.stagingTableExists(checkpoint.refreshId())
+      ? listContentsStagingRepository
+      : forLayout(checkpoint.layout());
+  }
+
+  private ListContentsStore forLayout(Layout layout) {
+    return switch (layout) {
+      case ROWS -> listContentsRepository;
+      case CHUNKED -> chunkedListContentsStore;
+    };
+  }
+
+  /**
+   * Delete all of a list's contents, whatever their layout
+   */
+  public void deleteContents(UUID listId) {
+    listContentsRepository.deleteContents(listId);
+    chunkedListContentsStore.deleteContents(listId);
+  }
+
+  /**
+   * Delete a refresh's contents from the given sort sequence on, whatever their layout. Used to clear out the partial
+   * batch that an interrupted refresh may have left past its last checkpoint.
+   */
+  @Transactional
+  public void deleteContentsFrom(UUID listId, UUID refreshId, int fromSequence) {
+    listContentsRepository.deleteContentsFrom(listId, refreshId, fromSequence);
+    chunkedListContentsStore.deleteContentsFrom(listId, refreshId, fromSequence);
+    listContentsStagingRepository.deleteContentsFrom(refreshId, fromSequence);
+  }
+}
@@ -0,0 +1,32 @@
+package org.folio.list.repository;
+
+import org.folio.list.domain.ListContent;
+import org.folio.list.repository.ListContentsStore.Layout;
+
+import java.util.List;
+
+/**
+ * Writes a batch of refresh results into list_contents.
+ */
+@FunctionalInterface
+public interface ListContentsWriter {
+  void writeContents(List<ListContent> contents);
+
+  enum WriteMode {
+    /** Write contents through {@link ListContentsRepository#saveAll}, using Hibernate's JDBC batching */
+    JPA,
+    /** Stream contents straight into the table with PostgreSQL's COPY protocol */
+    COPY,
+    /** Pack contents into chunks of IDs, with {@link ChunkedListContentsStore} */
+    CHUNKED,
+    /**
+     * COPY contents into an unlogged staging table, which is moved into list_contents once the refresh succeeds (see
+     * {@link ListContentsStagingRepository})
+     */
+    STAGED;
+
+    public Layout layout() {
+      return this == CHUNKED ? Layout.CHUNKED : Layout.ROWS;
+    }
+  }
+}
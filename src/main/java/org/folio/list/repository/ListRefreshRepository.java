@@ -1,11 +1,49 @@
 package org.folio.list.repository;
 
 import org.folio.list.domain.ListRefreshDetails;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ListRefreshRepository extends CrudRepository<ListRefreshDetails, UUID> {
+
+  /**
+   * Get how long FQM took to run the query for the most recent successful refreshes of a list, as ISO-8601 durations
+   */
+  @Query(
+    value = """
+      SELECT r.metadata ->> 'WAIT_FOR_QUERY_COMPLETION'
+      FROM list_refresh_details r
+      WHERE r.list_id = :listId
+      AND r.status = 'SUCCESS'
+      AND r.metadata ->> 'WAIT_FOR_QUERY_COMPLETION' IS NOT NULL
+      ORDER BY r.refresh_start_date DESC
+      LIMIT :limit
+      """,
+    nativeQuery = true
+  )
+  List<String> getRecentQueryDurationsForList(UUID listId, int limit);
+
+  /**
+   * Get how long FQM took to run the query for the most recent successful refreshes of any list with the given entity
+   * type, as ISO-8601 durations
+   */
+  @Query(
+    value = """
+      SELECT r.metadata ->> 'WAIT_FOR_QUERY_COMPLETION'
+      FROM list_refresh_details r
+      JOIN list_details l ON l.id = r.list_id
+      WHERE l.entity_type_id = :entityTypeId
+      AND r.status = 'SUCCESS'
+      AND r.metadata ->> 'WAIT_FOR_QUERY_COMPLETION' IS NOT NULL
+      ORDER BY r.refresh_start_date DESC
+      LIMIT :limit
+      """,
+    nativeQuery = true
+  )
+  List<String> getRecentQueryDurationsForEntityType(UUID entityTypeId, int limit);
 }
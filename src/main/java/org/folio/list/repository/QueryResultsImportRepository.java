@@ -0,0 +1,105 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.services.cancellation.CancellationRegistry;
+import org.folio.list.services.cancellation.CancellationRegistry.AbortRegistration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.folio.list.domain.ListContent.SORT_SEQUENCE_START_NUMBER;
+
+/**
+ * Copies a query's results from FQM's result table into list_contents, without them ever leaving the database.
+ * <p>
+ * Content IDs are stored the same way {@link org.folio.list.domain.ContentIdCodec} would store them: a single UUID in
+ * canonical form goes in content_uuid, several go in content_uuids, and anything else stays as text in content_id.
+ */
+// Not a Spring Data repository: the result table isn't ours, and its name is only known at runtime.
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class QueryResultsImportRepository {
+
+  private static final String CANONICAL_UUID = "^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * @param table a table name, optionally qualified with its schema
+   * @return whether the table exists and we're allowed to read it
+   */
+  public boolean isReadable(String table) {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+      "SELECT coalesce(has_table_privilege(to_regclass(?), 'SELECT'), false)", Boolean.class, table));
+  }
+
+  /**
+   * Copy up to {@code limit} of a query's results into {@code targetTable} (list_contents, or a table with the same
+   * columns), in sort order, with sort sequences starting from {@link
+   * org.folio.list.domain.ListContent#SORT_SEQUENCE_START_NUMBER}. This is a single statement that can run for a long
+   * time, so it's cancelled in Postgres if the refresh is (see {@link CancellationRegistry#abortOnCancel(Runnable)}).
+   *
+   * @return the number of results copied
+   */
+  public int importResults(ResultTable resultTable, UUID queryId, UUID listId, UUID refreshId, int limit,
+                           String targetTable) {
+    String sql = """
+      WITH results AS (
+        SELECT %2$s AS content_id, row_number() OVER (ORDER BY %4$s) - 1 + %6$d AS sort_seq
+        FROM %1$s
+        WHERE %3$s = ?
+        ORDER BY %4$s
+        LIMIT ?
+      ), encoded AS (
+        SELECT content_id, sort_seq,
+          cardinality(content_id) > 0
+            AND NOT EXISTS (SELECT 1 FROM unnest(content_id) v WHERE v IS NULL OR v !~ '%7$s') AS all_uuids
+        FROM results
+      )
+      INSERT INTO %5$s (list_id, refresh_id, content_uuid, content_uuids, content_id, sort_seq)
+      SELECT ?, ?,
+        CASE WHEN all_uuids AND cardinality(content_id) = 1 THEN content_id[1]::uuid END,
+        CASE WHEN all_uuids AND cardinality(content_id) > 1 THEN content_id::uuid[] END,
+        CASE WHEN NOT all_uuids THEN content_id END,
+        sort_seq
+      FROM encoded
+      """.formatted(resultTable.table(), resultTable.contentIdColumn(), resultTable.queryIdColumn(),
+      resultTable.sortColumn(), targetTable, SORT_SEQUENCE_START_NUMBER, CANONICAL_UUID);
+    int rowCount = jdbcTemplate.execute(sql, (PreparedStatementCallback<Integer>) statement -> {
+      statement.setObject(1, queryId);
+      statement.setInt(2, limit);
+      statement.setObject(3, listId);
+      statement.setObject(4, refreshId);
+      try (AbortRegistration ignored = CancellationRegistry.abortOnCancel(() -> cancel(statement))) {
+        return statement.executeUpdate();
+      }
+    });
+    log.info("Copied {} results of query {} from {} into {}", rowCount, queryId, resultTable.table(), targetTable);
+    return rowCount;
+  }
+
+  private static void cancel(PreparedStatement statement) {
+    try {
+      statement.cancel();
+    } catch (SQLException e) {
+      throw new IllegalStateException("Unable to cancel import of query results", e);
+    }
+  }
+
+  /**
+   * Where to find a query's results
+   *
+   * @param table           the result table, optionally qualified with its schema
+   * @param queryIdColumn   the column holding the query ID
+   * @param contentIdColumn the column holding each result's content ID, as a text array
+   * @param sortColumn      what to sort the results by
+   */
+  public record ResultTable(String table, String queryIdColumn, String contentIdColumn, String sortColumn) {
+  }
+}
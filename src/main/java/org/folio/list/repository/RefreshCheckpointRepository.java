@@ -0,0 +1,154 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+// Not a Spring Data repository: claims rely on FOR UPDATE SKIP LOCKED, which JPA can't express.
+@Component
+@RequiredArgsConstructor
+public class RefreshCheckpointRepository {
+
+  /**
+   * How far a running refresh has got
+   *
+   * @param layout      the layout its contents are written in
+   * @param nextOffset  the offset (and sort sequence) of the first result that hasn't been imported yet
+   * @param batchNumber the number of batches imported so far
+   * @param claimToken  identifies the current claim on the refresh. A node whose lease ran out loses its claim, and can
+   *                    no longer record progress.
+   */
+  public record RefreshCheckpoint(UUID refreshId, UUID listId, UUID queryId, Layout layout, int nextOffset,
+                                  int batchNumber, UUID claimToken) {
+  }
+
+  private static final RowMapper<RefreshCheckpoint> CHECKPOINT_MAPPER = (rs, rowNum) -> new RefreshCheckpoint(
+    rs.getObject("refresh_id", UUID.class),
+    rs.getObject("list_id", UUID.class),
+    rs.getObject("query_id", UUID.class),
+    Layout.valueOf(rs.getString("layout")),
+    rs.getInt("next_offset"),
+    rs.getInt("batch_number"),
+    rs.getObject("claim_token", UUID.class)
+  );
+
+  // Claim the oldest checkpoint whose lease ran out, i.e. whose refresh isn't running anywhere anymore
+  private static final String CLAIM_SQL = """
+    UPDATE list_refresh_checkpoints
+    SET claimed_until = now() + ? * interval '1 second', claim_token = ?
+    WHERE refresh_id = (
+      SELECT refresh_id FROM list_refresh_checkpoints
+      WHERE claimed_until <= now()
+      ORDER BY updated_at
+      LIMIT 1
+      FOR UPDATE SKIP LOCKED
+    )
+    RETURNING refresh_id, list_id, query_id, layout, next_offset, batch_number, claim_token
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Record the start of a refresh, claimed by the caller for the given amount of time
+   */
+  public void create(RefreshCheckpoint checkpoint, Duration lease) {
+    jdbcTemplate.update("""
+        INSERT INTO list_refresh_checkpoints
+          (refresh_id, list_id, query_id, layout, next_offset, batch_number, claim_token, claimed_until)
+        VALUES (?, ?, ?, ?, ?, ?, ?, now() + ? * interval '1 second')
+        ON CONFLICT (refresh_id) DO UPDATE
+        SET query_id = excluded.query_id, layout = excluded.layout, next_offset = excluded.next_offset,
+          batch_number = excluded.batch_number, claim_token = excluded.claim_token,
+          claimed_until = excluded.claimed_until, updated_at = now()
+        """,
+      checkpoint.refreshId(), checkpoint.listId(), checkpoint.queryId(), checkpoint.layout().name(),
+      checkpoint.nextOffset(), checkpoint.batchNumber(), checkpoint.claimToken(), lease.toSeconds());
+  }
+
+  /**
+   * Record that a refresh has imported everything before {@code nextOffset}
+   *
+   * @return false if the claim was lost, in which case nothing was recorded
+   */
+  public boolean advance(UUID refreshId, UUID claimToken, int nextOffset, int batchNumber) {
+    return jdbcTemplate.update("""
+        UPDATE list_refresh_checkpoints
+        SET next_offset = ?, batch_number = ?, updated_at = now()
+        WHERE refresh_id = ? AND claim_token = ?
+        """,
+      nextOffset, batchNumber, refreshId, claimToken) > 0;
+  }
+
+  /**
+   * @return false if the claim was lost, in which case the lease wasn't extended
+   */
+  public boolean extendLease(UUID refreshId, UUID claimToken, Duration lease) {
+    return jdbcTemplate.update("""
+        UPDATE list_refresh_checkpoints
+        SET claimed_until = now() + ? * interval '1 second'
+        WHERE refresh_id = ? AND claim_token = ?
+        """,
+      lease.toSeconds(), refreshId, claimToken) > 0;
+  }
+
+  /**
+   * Hold on to a claimed checkpoint for as long as it takes, until the queued job that resumes the refresh takes it over
+   * (by {@link #extendLease extending the lease} with the same claim token)
+   *
+   * @return false if the claim was lost, in which case the checkpoint wasn't handed off
+   */
+  public boolean handOff(UUID refreshId, UUID claimToken) {
+    return jdbcTemplate.update("""
+        UPDATE list_refresh_checkpoints
+        SET claimed_until = 'infinity'
+        WHERE refresh_id = ? AND claim_token = ?
+        """,
+      refreshId, claimToken) > 0;
+  }
+
+  /**
+   * Give up a claim, so that the refresh can be resumed right away rather than once the lease runs out
+   */
+  public void release(UUID refreshId, UUID claimToken) {
+    jdbcTemplate.update("UPDATE list_refresh_checkpoints SET claimed_until = now() WHERE refresh_id = ? AND claim_token = ?",
+      refreshId, claimToken);
+  }
+
+  /**
+   * Claim the checkpoint of a refresh that isn't running anywhere, for the given amount of time
+   */
+  public Optional<RefreshCheckpoint> claimNext(Duration lease) {
+    return jdbcTemplate.query(CLAIM_SQL, CHECKPOINT_MAPPER, lease.toSeconds(), UUID.randomUUID())
+      .stream()
+      .findFirst();
+  }
+
+  /**
+   * @return how far a refresh has got, or empty if it has no checkpoint
+   */
+  public Optional<RefreshCheckpoint> find(UUID refreshId) {
+    return jdbcTemplate.query("""
+          SELECT refresh_id, list_id, query_id, layout, next_offset, batch_number, claim_token
+          FROM list_refresh_checkpoints
+          WHERE refresh_id = ?
+          """,
+        CHECKPOINT_MAPPER, refreshId)
+      .stream()
+      .findFirst();
+  }
+
+  public boolean exists(UUID refreshId) {
+    return !jdbcTemplate.queryForList("SELECT 1 FROM list_refresh_checkpoints WHERE refresh_id = ?", Integer.class,
+      refreshId).isEmpty();
+  }
+
+  public void delete(UUID refreshId) {
+    jdbcTemplate.update("DELETE FROM list_refresh_checkpoints WHERE refresh_id = ?", refreshId);
+  }
+}
@@ -0,0 +1,78 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+// Not a Spring Data repository: progress is written far more often than anything else about a refresh, so it's kept
+// out of list_refresh_details (and out of the list entity's optimistic locking).
+@Component
+@RequiredArgsConstructor
+public class RefreshProgressRepository {
+
+  /**
+   * How far a running refresh has got
+   *
+   * @param recordsImported           the number of records imported so far
+   * @param batchesProcessed          the number of batches imported so far
+   * @param recordsPerSecond          how fast records were imported lately
+   * @param estimatedSecondsRemaining how long until every record is imported at that rate, or null if the number of
+   *                                  records isn't known
+   * @param sinceUpdate               how long ago this was recorded. A refresh that stops making progress shows up as
+   *                                  this growing.
+   */
+  public record RefreshProgress(UUID refreshId, UUID listId, int recordsImported, int batchesProcessed,
+                                double recordsPerSecond, Integer estimatedSecondsRemaining, Duration sinceUpdate) {
+  }
+
+  private static final RowMapper<RefreshProgress> PROGRESS_MAPPER = (rs, rowNum) -> new RefreshProgress(
+    rs.getObject("refresh_id", UUID.class),
+    rs.getObject("list_id", UUID.class),
+    rs.getInt("records_imported"),
+    rs.getInt("batches_processed"),
+    rs.getDouble("records_per_second"),
+    rs.getObject("estimated_seconds_remaining", Integer.class),
+    Duration.ofMillis(rs.getLong("since_update_millis"))
+  );
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Record a refresh's progress, replacing whatever was recorded before. The {@code sinceUpdate} of the given progress
+   * is ignored: it's always recorded as of now.
+   */
+  public void save(RefreshProgress progress) {
+    jdbcTemplate.update("""
+        INSERT INTO list_refresh_progress
+          (refresh_id, list_id, records_imported, batches_processed, records_per_second, estimated_seconds_remaining)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON CONFLICT (refresh_id) DO UPDATE
+        SET records_imported = excluded.records_imported, batches_processed = excluded.batches_processed,
+          records_per_second = excluded.records_per_second,
+          estimated_seconds_remaining = excluded.estimated_seconds_remaining, updated_at = now()
+        """,
+      progress.refreshId(), progress.listId(), progress.recordsImported(), progress.batchesProcessed(),
+      progress.recordsPerSecond(), progress.estimatedSecondsRemaining());
+  }
+
+  public Optional<RefreshProgress> find(UUID refreshId) {
+    return jdbcTemplate.query("""
+          SELECT refresh_id, list_id, records_imported, batches_processed, records_per_second,
+            estimated_seconds_remaining, (extract(EPOCH FROM now() - updated_at) * 1000)::bigint AS since_update_millis
+          FROM list_refresh_progress
+          WHERE refresh_id = ?
+          """,
+        PROGRESS_MAPPER, refreshId)
+      .stream()
+      .findFirst();
+  }
+
+  public void delete(UUID refreshId) {
+    jdbcTemplate.update("DELETE FROM list_refresh_progress WHERE refresh_id = ?", refreshId);
+  }
+}
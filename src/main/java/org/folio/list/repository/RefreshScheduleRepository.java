@@ -0,0 +1,123 @@
+package org.folio.list.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Not a Spring Data repository: claims rely on FOR UPDATE SKIP LOCKED, which JPA can't express.
+@Component
+@RequiredArgsConstructor
+public class RefreshScheduleRepository {
+
+  /**
+   * A list's refresh schedule
+   *
+   * @param intervalMinutes how often the list is refreshed
+   * @param maxAgeMinutes   a scheduled refresh is skipped if the list was refreshed successfully more recently than this
+   * @param untilNextRun    how long until the next refresh may start (negative if it's overdue)
+   * @param scheduledBy     the user who set the schedule. Scheduled refreshes are started on their behalf.
+   * @param okapiUrl        the Okapi URL of the request that set the schedule
+   */
+  public record RefreshSchedule(UUID listId, int intervalMinutes, int maxAgeMinutes, Duration untilNextRun,
+                                UUID scheduledBy, String okapiUrl) {
+  }
+
+  private static final RowMapper<RefreshSchedule> SCHEDULE_MAPPER = (rs, rowNum) -> new RefreshSchedule(
+    rs.getObject("list_id", UUID.class),
+    rs.getInt("interval_minutes"),
+    rs.getInt("max_age_minutes"),
+    Duration.ofMillis(rs.getLong("until_next_run_millis")),
+    rs.getObject("scheduled_by", UUID.class),
+    rs.getString("okapi_url")
+  );
+
+  private static final String SCHEDULE_COLUMNS = """
+    list_id, interval_minutes, max_age_minutes, scheduled_by, okapi_url,
+    (extract(EPOCH FROM next_run_at - now()) * 1000)::bigint AS until_next_run_millis
+    """;
+
+  // Claim the schedules that are due, by moving them on to their next run. The claimed schedules are returned as they
+  // were before they were moved on. Jitter is at most half the interval, so that a refresh can't be pushed past the
+  // next one.
+  private static final String CLAIM_SQL = """
+    WITH due AS (
+      SELECT list_id, next_run_at,
+        base_run_at + interval_minutes * interval '1 minute'
+          * (floor(extract(EPOCH FROM now() - base_run_at) / (interval_minutes * 60)) + 1)::integer AS new_base_run_at
+      FROM list_refresh_schedules
+      WHERE next_run_at <= now()
+      ORDER BY next_run_at
+      LIMIT ?
+      FOR UPDATE SKIP LOCKED
+    )
+    UPDATE list_refresh_schedules s
+    SET base_run_at = due.new_base_run_at,
+      next_run_at = due.new_base_run_at + random() * least(?, s.interval_minutes * 30) * interval '1 second'
+    FROM due
+    WHERE s.list_id = due.list_id
+    RETURNING s.list_id, s.interval_minutes, s.max_age_minutes, s.scheduled_by, s.okapi_url,
+      (extract(EPOCH FROM due.next_run_at - now()) * 1000)::bigint AS until_next_run_millis
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Set (or replace) a list's refresh schedule
+   *
+   * @param firstRunDelay    how long until the first refresh is due
+   * @param maxJitterSeconds the most that each refresh may be pushed back by, so that lists scheduled for the same time
+   *                         don't all start at once
+   */
+  public void save(UUID listId, int intervalMinutes, int maxAgeMinutes, Duration firstRunDelay, int maxJitterSeconds,
+                   UUID scheduledBy, String okapiUrl) {
+    jdbcTemplate.update("""
+        INSERT INTO list_refresh_schedules
+          (list_id, interval_minutes, max_age_minutes, base_run_at, next_run_at, scheduled_by, okapi_url)
+        VALUES (?, ?, ?, now() + ? * interval '1 second',
+          now() + ? * interval '1 second' + random() * least(?, ? * 30) * interval '1 second', ?, ?)
+        ON CONFLICT (list_id) DO UPDATE
+        SET interval_minutes = excluded.interval_minutes, max_age_minutes = excluded.max_age_minutes,
+          base_run_at = excluded.base_run_at, next_run_at = excluded.next_run_at, scheduled_by = excluded.scheduled_by,
+          okapi_url = excluded.okapi_url, updated_at = now()
+        """,
+      listId, intervalMinutes, maxAgeMinutes, firstRunDelay.toSeconds(), firstRunDelay.toSeconds(), maxJitterSeconds,
+      intervalMinutes, scheduledBy, okapiUrl);
+  }
+
+  public Optional<RefreshSchedule> findByListId(UUID listId) {
+    return jdbcTemplate.query("SELECT " + SCHEDULE_COLUMNS + " FROM list_refresh_schedules WHERE list_id = ?",
+        SCHEDULE_MAPPER, listId)
+      .stream()
+      .findFirst();
+  }
+
+  /**
+   * @return false if the list had no schedule
+   */
+  public boolean delete(UUID listId) {
+    return jdbcTemplate.update("DELETE FROM list_refresh_schedules WHERE list_id = ?", listId) > 0;
+  }
+
+  /**
+   * Claim up to {@code limit} schedules that are due, the most overdue first, by moving each of them on to its next run
+   * (plus up to {@code maxJitterSeconds} of jitter). Another node can't claim them again until then.
+   */
+  public List<RefreshSchedule> claimDue(int limit, int maxJitterSeconds) {
+    return jdbcTemplate.query(CLAIM_SQL, SCHEDULE_MAPPER, limit, maxJitterSeconds);
+  }
+
+  /**
+   * Time a trivial query, as a measure of how busy the database (and this node's connection pool) is
+   */
+  public Duration probeLatency() {
+    long start = System.nanoTime();
+    jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+    return Duration.ofNanos(System.nanoTime() - start);
+  }
+}
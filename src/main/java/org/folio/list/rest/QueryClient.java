@@ -7,9 +7,11 @@ import org.folio.querytool.domain.dto.ContentsRequest;
 import org.folio.querytool.domain.dto.QueryDetails;
 import org.folio.querytool.domain.dto.QueryIdentifier;
 import org.folio.querytool.domain.dto.SubmitQuery;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.service.annotation.DeleteExchange;
 import org.springframework.web.service.annotation.GetExchange;
 import org.springframework.web.service.annotation.HttpExchange;
 import org.springframework.web.service.annotation.PostExchange;
@@ -22,6 +24,12 @@ public interface QueryClient {
   @GetExchange("/{queryId}")
   QueryDetails getQuery(@PathVariable UUID queryId);
 
+  /**
+   * Delete a query and its results, cancelling it if it's still running
+   */
+  @DeleteExchange("/{queryId}")
+  void deleteQuery(@PathVariable UUID queryId);
+
   @GetExchange("/{queryId}/sortedIds")
   List<List<String>> getSortedIds(
     @PathVariable UUID queryId,
@@ -29,6 +37,16 @@ public interface QueryClient {
     @RequestParam Integer limit
   );
 
+  /**
+   * Same as {@link #getSortedIds}, but leaves the response body to be streamed by the caller, who must close it
+   */
+  @GetExchange("/{queryId}/sortedIds")
+  InputStreamResource streamSortedIds(
+    @PathVariable UUID queryId,
+    @RequestParam Integer offset,
+    @RequestParam Integer limit
+  );
+
   @PostExchange("/contents")
   List<Map<String, Object>> getContents(@RequestBody ContentsRequest contentsRequest);
 
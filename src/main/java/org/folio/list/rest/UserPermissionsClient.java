@@ -0,0 +1,29 @@
+package org.folio.list.rest;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.service.annotation.GetExchange;
+import org.springframework.web.service.annotation.HttpExchange;
+
+/**
+ * Looks up what another user is allowed to do, for work done on their behalf without their token (e.g., scheduled
+ * refreshes), where nobody else checks their permissions
+ */
+@HttpExchange(url = "perms/users")
+public interface UserPermissionsClient {
+  @GetExchange("/{userId}/permissions")
+  UserPermissions getPermissions(@PathVariable UUID userId, @RequestParam String indexField,
+                                 @RequestParam boolean expanded);
+
+  /** Gets all of a user's permissions, including those granted through permission sets */
+  default List<String> getPermissionNames(UUID userId) {
+    List<String> names = getPermissions(userId, "userId", true).permissionNames();
+    return names == null ? List.of() : names;
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  record UserPermissions(List<String> permissionNames) {}
+}
@@ -0,0 +1,136 @@
+package org.folio.list.services;
+
+import org.folio.list.configuration.AsyncExecutionProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps the use of the resources that background tasks actually contend for. With a fixed pool of threads, the pool
+ * size capped these indirectly; with a virtual thread per task (see {@link AsyncExecutionProperties.ExecutorMode}),
+ * these are the only caps.
+ * <p>
+ * Waiting for a permit blocks the calling thread, which is cheap for a virtual thread. A thread interrupted while it
+ * waits (e.g., a cancelled refresh) gives up with an {@link IllegalStateException}, and keeps its interrupt status.
+ * <p>
+ * The time each resource takes to respond is tracked too, so that new work can be held back while it's struggling.
+ */
+@Component
+public class ConcurrencyLimits {
+
+  public enum Resource {
+    DB_WRITES,
+    FQM,
+    S3,
+  }
+
+  // Calls older than this no longer count towards a resource's latency, so that an idle resource isn't judged by them
+  private static final Duration LATENCY_WINDOW = Duration.ofMinutes(1);
+  // The weight of each new call in the average latency
+  private static final double LATENCY_WEIGHT = 0.2;
+
+  private final Map<Resource, Semaphore> permits = new EnumMap<>(Resource.class);
+  private final Map<Resource, LatencyTracker> latencies = new EnumMap<>(Resource.class);
+
+  @Autowired
+  public ConcurrencyLimits(AsyncExecutionProperties properties) {
+    permits.put(Resource.DB_WRITES, new Semaphore(properties.maxDbWrites(), true));
+    permits.put(Resource.FQM, new Semaphore(properties.maxFqmRequests(), true));
+    permits.put(Resource.S3, new Semaphore(properties.maxS3Requests(), true));
+    for (Resource resource : Resource.values()) {
+      latencies.put(resource, new LatencyTracker());
+    }
+  }
+
+  public <T> T withPermit(Resource resource, Supplier<T> task) {
+    Semaphore semaphore = permits.get(resource);
+    acquire(resource, semaphore);
+    long start = System.nanoTime();
+    try {
+      return task.get();
+    } finally {
+      semaphore.release();
+      latencies.get(resource).record(System.nanoTime() - start);
+    }
+  }
+
+  public void withPermit(Resource resource, Runnable task) {
+    withPermit(resource, () -> {
+      task.run();
+      return null;
+    });
+  }
+
+  /**
+   * Wrap a client, so that each call to it takes a permit for the given resource
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T limit(Resource resource, Class<T> clientType, T client) {
+    return (T) Proxy.newProxyInstance(clientType.getClassLoader(), new Class<?>[]{clientType},
+      (proxy, method, args) -> {
+        if (method.getDeclaringClass() == Object.class) {
+          return method.invoke(client, args);
+        }
+        Semaphore semaphore = permits.get(resource);
+        acquire(resource, semaphore);
+        long start = System.nanoTime();
+        try {
+          return method.invoke(client, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        } finally {
+          semaphore.release();
+          latencies.get(resource).record(System.nanoTime() - start);
+        }
+      });
+  }
+
+  /**
+   * How long recent calls that used the given resource took, on average, not counting the wait for a permit. Zero if
+   * there haven't been any lately.
+   */
+  public Duration recentLatency(Resource resource) {
+    return latencies.get(resource).recent();
+  }
+
+  // Visible for testing
+  public int availablePermits(Resource resource) {
+    return permits.get(resource).availablePermits();
+  }
+
+  private static void acquire(Resource resource, Semaphore semaphore) {
+    try {
+      semaphore.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for " + resource, e);
+    }
+  }
+
+  private static class LatencyTracker {
+    private double averageNanos;
+    private long lastCallNanos;
+    private boolean hasCalls;
+
+    synchronized void record(long nanos) {
+      averageNanos = hasCalls ? averageNanos + LATENCY_WEIGHT * (nanos - averageNanos) : nanos;
+      lastCallNanos = System.nanoTime();
+      hasCalls = true;
+    }
+
+    synchronized Duration recent() {
+      if (!hasCalls || System.nanoTime() - lastCallNanos > LATENCY_WINDOW.toNanos()) {
+        hasCalls = false;
+        return Duration.ZERO;
+      }
+      return Duration.ofNanos((long) averageNanos);
+    }
+  }
+}
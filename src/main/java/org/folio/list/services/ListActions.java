@@ -16,7 +16,8 @@ public enum ListActions {
   REFRESH("refresh"),
   EXPORT("export"),
   CANCEL_REFRESH("cancel_refresh"),
-  CANCEL_EXPORT("cancel_export");
+  CANCEL_EXPORT("cancel_export"),
+  SCHEDULE_REFRESH("schedule_refresh");
 
   private final String name;
 }
@@ -4,11 +4,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.folio.list.domain.ContentIdBatch;
 import org.folio.list.domain.ListContent;
 import org.folio.list.domain.ListRefreshDetails;
 import org.folio.list.domain.ListVersion;
 import org.folio.list.domain.dto.ListDTO;
 import org.folio.list.domain.dto.ListRefreshDTO;
+import org.folio.list.domain.dto.ListRefreshProgressDTO;
+import org.folio.list.domain.dto.ListRefreshScheduleDTO;
 import org.folio.list.domain.dto.ListRequestDTO;
 import org.folio.list.domain.dto.ListSummaryDTO;
 import org.folio.list.domain.dto.ListVersionDTO;
@@ -16,14 +19,25 @@ import org.folio.list.domain.dto.ListSummaryResultsDTO;
 import org.folio.list.domain.dto.ListUpdateRequestDTO;
 import org.folio.list.exception.ListContentsFqmRequestException;
 import org.folio.list.exception.ListNotFoundException;
-import org.folio.list.exception.RefreshInProgressDuringShutdownException;
+import org.folio.list.exception.RefreshScheduleNotFoundException;
 import org.folio.list.exception.VersionNotFoundException;
 import org.folio.list.mapper.*;
-import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.configuration.RefreshScheduleProperties;
+import org.folio.list.repository.ListContentsStores;
+import org.folio.list.repository.RefreshCheckpointRepository;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
+import org.folio.list.repository.RefreshScheduleRepository;
+import org.folio.list.repository.RefreshScheduleRepository.RefreshSchedule;
 import org.folio.list.repository.ListVersionRepository;
 import org.folio.list.rest.QueryClient;
-import org.folio.list.services.refresh.ListRefreshService;
-import org.folio.list.services.refresh.RefreshFailedCallback;
+import org.folio.list.services.cancellation.CancellationBus;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.list.services.events.JobEventSubscriptions;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.jobs.JobQueue;
+import org.folio.list.services.purge.ListContentsReaper;
+import org.folio.list.services.refresh.RefreshProgressService;
 import org.folio.list.services.refresh.TimedStage;
 import org.folio.list.util.TaskTimer;
 import org.folio.list.domain.ListEntity;
@@ -36,6 +50,7 @@ import org.folio.querytool.domain.dto.ContentsRequest;
 import org.folio.querytool.domain.dto.EntityType;
 import org.folio.querytool.domain.dto.Field;
 import org.folio.querytool.domain.dto.ResultsetPage;
+import org.folio.querytool.domain.dto.SubmitQuery;
 import org.folio.querytool.domain.dto.UpdateUsedByRequest;
 import org.folio.spring.FolioExecutionContext;
 import org.folio.spring.data.OffsetRequest;
@@ -45,9 +60,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.annotation.Nonnull;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Locale;
@@ -63,15 +80,27 @@ import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 @Transactional
 @RequiredArgsConstructor
 public class ListService {
-  private final AppShutdownService appShutdownService;
-  private final EntityManagerFlushService entityManagerFlushService;
+
+  /**
+   * A page of a list's contents
+   *
+   * @param partial true if the page comes from a refresh that's still in progress, in which case the page's total is
+   *                the number of records imported so far
+   */
+  public record ListContentsPage(ResultsetPage page, boolean partial) {
+  }
+
+  private final CancellationBus cancellationBus;
   private final EntityTypeClient entityTypeClient;
   private final FolioExecutionContext executionContext;
-  private final ListContentsRepository listContentsRepository;
+  private final JobEventBus jobEventBus;
+  private final JobEventSubscriptions jobEventSubscriptions;
+  private final JobQueue jobQueue;
+  private final ListContentsReaper listContentsReaper;
+  private final ListContentsStores listContentsStores;
   private final ListEntityMapper listEntityMapper;
   private final ListMapper listMapper;
   private final ListRefreshMapper refreshMapper;
-  private final ListRefreshService listRefreshService;
   private final ListRepository listRepository;
   private final ListSummaryMapper summaryMapper;
   private final ListValidationService validationService;
@@ -79,7 +108,10 @@ public class ListService {
   private final ListVersionRepository listVersionRepository;
   private final MigrationService migrationService;
   private final QueryClient queryClient;
-  private final RefreshFailedCallback refreshFailedCallback;
+  private final RefreshCheckpointRepository refreshCheckpointRepository;
+  private final RefreshProgressService refreshProgressService;
+  private final RefreshScheduleProperties refreshScheduleProperties;
+  private final RefreshScheduleRepository refreshScheduleRepository;
   private final UsersClient usersClient;
 
   public ListSummaryResultsDTO getAllLists(Pageable pageable, List<UUID> ids, List<UUID> entityTypeIds, Boolean active,
@@ -155,9 +187,7 @@ public class ListService {
     listVersionRepository.save(previousVersions);
 
     if (nonNull(listRequest.getQueryId()) && listRequest.getIsActive()) {
-      TaskTimer timer = new TaskTimer();
-      timer.start(TimedStage.TOTAL);
-      importListContentsFromAsyncQuery(savedEntity, currentUser, listRequest.getQueryId(), timer);
+      importListContentsFromAsyncQuery(savedEntity, currentUser, listRequest.getQueryId());
     }
     return listMapper.toListDTO(savedEntity);
   }
@@ -170,7 +200,7 @@ public class ListService {
       validationService.validateUpdate(list, request, entityType);
       if (!request.getIsActive()) {
         // If we're deactivating a list, clear its contents and refresh data
-        listContentsRepository.deleteContents(id);
+        listContentsStores.deleteContents(id);
         list.setSuccessRefresh(null);
       }
       // not all updates include a list of fields (e.g. just updating name/description)
@@ -181,9 +211,7 @@ public class ListService {
       list.update(request, getCurrentUser());
 
       if (request.getQueryId() != null && request.getIsActive()) {
-        TaskTimer timer = new TaskTimer();
-        timer.start(TimedStage.TOTAL);
-        importListContentsFromAsyncQuery(list, getCurrentUser(), request.getQueryId(), timer);
+        importListContentsFromAsyncQuery(list, getCurrentUser(), request.getQueryId());
       }
       ListVersion previousVersions = new ListVersion();
       previousVersions.setDataFromListEntity(list);
@@ -199,33 +227,38 @@ public class ListService {
     return listRepository.findByIdAndIsDeletedFalse(id)
       .map(list -> {
         validationService.validateRead(list);
-        return listMapper.toListDTO(list);
+        return withRefreshStatus(listMapper.toListDTO(list));
       });
   }
 
+  /**
+   * Follow a list's refresh and export events. The stream starts with the list itself, as returned by
+   * {@link #getListById}, so a user who can't read the list gets an error instead of a stream.
+   */
+  public SseEmitter getListEvents(UUID listId) {
+    log.info("Attempting to follow the events of list {}", listId);
+    return jobEventSubscriptions.subscribe(listId, () -> listRepository.findByIdAndIsDeletedFalse(listId)
+      .map(list -> {
+        validationService.validateRead(list);
+        return withRefreshStatus(listMapper.toListDTO(list));
+      })
+      .orElseThrow(() -> new ListNotFoundException(listId, ListActions.READ)));
+  }
+
   public Optional<ListRefreshDTO> performRefresh(UUID listId) {
     log.info("Attempting to refresh list with listId {}", listId);
     return listRepository.findByIdAndIsDeletedFalse(listId)
       .map(list -> {
         validationService.validateRefresh(list);
+        UUID queryId = submitQueryIfCrossTenant(list);
         list.refreshStarted(getCurrentUser());
         TaskTimer timer = new TaskTimer();
-        timer.start(TimedStage.TOTAL);
-        ListEntity savedList = timer.time(TimedStage.WRITE_START, () -> {
-          var tempSavedList = listRepository.save(list);
-          // Occasionally, the JPA entity manager doesn't flush the list refresh details INSERT before the async refresh method
-          // runs. This results in a race condition where the async method tries to write refresh contents before the refresh
-          // details are there, resulting in a foreign key constraint violation. This method manually flushes the entity manager
-          // to ensure the INSERTs happen in the right order
-          entityManagerFlushService.flush();
-          return tempSavedList;
-        });
-        listRefreshService.doAsyncRefresh(
-          savedList,
-          registerShutdownTask(savedList, "Cancel refresh for list " + savedList.getId()),
-          timer);
+        // The job can't be picked up until this transaction commits, so the refresh details are always there before
+        // the refresh starts writing contents
+        ListEntity savedList = timer.time(TimedStage.WRITE_START, () -> listRepository.save(list));
+        queueRefresh(savedList, queryId, timer);
         ListRefreshDetails refreshDetails = savedList.getInProgressRefresh();
-        return refreshMapper.toListRefreshDTO(refreshDetails);
+        return withQueuePosition(refreshMapper.toListRefreshDTO(refreshDetails));
       });
   }
 
@@ -239,6 +272,27 @@ public class ListService {
       });
   }
 
+  /**
+   * Like {@link #getListContents(UUID, List, Integer, Integer)}, but while the list is refreshing, serve the pages that
+   * its in-progress refresh has already imported, rather than the last successful refresh's. Only what the refresh has
+   * checkpointed is served, so the page is never missing members that an earlier page promised.
+   * <p>
+   * Lists that aren't refreshing (or whose refresh hasn't recorded any progress yet, e.g. because checkpoints are
+   * disabled) get their usual contents, with {@link ListContentsPage#partial()} false.
+   */
+  public Optional<ListContentsPage> getListContentsPreview(UUID listId, List<String> fields, Integer offset,
+                                                           Integer size) {
+    log.info("Attempting to preview contents for list with listId {}, tenantId {}, offset {}, size {}",
+      listId, executionContext.getTenantId(), offset, size);
+    return listRepository.findByIdAndIsDeletedFalse(listId)
+      .map(list -> {
+        validationService.validateRead(list);
+        return getPartialListContents(list, fields, offset, size)
+          .map(page -> new ListContentsPage(page, true))
+          .orElseGet(() -> new ListContentsPage(getListContents(list, fields, offset, size), false));
+      });
+  }
+
   public void deleteList(UUID id) {
     ListEntity list = listRepository.findByIdAndIsDeletedFalse(id)
       .orElseThrow(() -> new ListNotFoundException(id, ListActions.DELETE));
@@ -254,7 +308,76 @@ public class ListService {
     ListEntity list = listRepository.findByIdAndIsDeletedFalse(listId)
       .orElseThrow(() -> new ListNotFoundException(listId, ListActions.CANCEL_REFRESH));
     validationService.validateCancelRefresh(list);
+    ListRefreshDetails refresh = list.getInProgressRefresh();
     list.refreshCancelled(executionContext.getUserId());
+    cancellationBus.publishCancellation(refresh.getId());
+    jobEventBus.publish(JobEvent.refresh(refresh));
+  }
+
+  public Optional<ListRefreshScheduleDTO> getRefreshSchedule(UUID listId) {
+    log.info("Attempting to get the refresh schedule of list {}", listId);
+    return listRepository.findByIdAndIsDeletedFalse(listId)
+      .map(list -> {
+        validationService.validateRead(list);
+        return refreshScheduleRepository.findByListId(listId)
+          .map(ListService::toRefreshScheduleDTO)
+          .orElseThrow(() -> new RefreshScheduleNotFoundException(list, ListActions.READ));
+      });
+  }
+
+  public Optional<ListRefreshScheduleDTO> updateRefreshSchedule(UUID listId, ListRefreshScheduleDTO request) {
+    log.info("Attempting to set the refresh schedule of list {}", listId);
+    return listRepository.findByIdAndIsDeletedFalse(listId)
+      .map(list -> {
+        validationService.validateScheduleRefresh(list);
+        int intervalMinutes = request.getIntervalMinutes();
+        int maxAgeMinutes = Optional.ofNullable(request.getMaxAgeMinutes()).orElse(intervalMinutes / 2);
+        Duration firstRunDelay = request.getStartDate() == null
+          ? Duration.ofMinutes(intervalMinutes)
+          : untilNextOccurrence(request.getStartDate(), Duration.ofMinutes(intervalMinutes));
+        refreshScheduleRepository.save(listId, intervalMinutes, maxAgeMinutes, firstRunDelay,
+          refreshScheduleProperties.maxJitterSeconds(), executionContext.getUserId(), executionContext.getOkapiUrl());
+        return toRefreshScheduleDTO(refreshScheduleRepository.findByListId(listId).orElseThrow());
+      });
+  }
+
+  public void deleteRefreshSchedule(UUID listId) {
+    log.info("Deleting the refresh schedule of list {}", listId);
+    ListEntity list = listRepository.findByIdAndIsDeletedFalse(listId)
+      .orElseThrow(() -> new ListNotFoundException(listId, ListActions.SCHEDULE_REFRESH));
+    validationService.assertSharedOrOwnedByUser(list, ListActions.SCHEDULE_REFRESH);
+    if (!refreshScheduleRepository.delete(listId)) {
+      throw new RefreshScheduleNotFoundException(list, ListActions.SCHEDULE_REFRESH);
+    }
+  }
+
+  /**
+   * Start a scheduled refresh of a list, on behalf of the current user (the one who set the schedule). The refresh is
+   * subject to the same checks as one requested by the user. It runs without their token, so their access to the list's
+   * entity type is checked against their current permissions (see
+   * {@link ListValidationService#validateRefreshWithoutToken}).
+   *
+   * @param maxAge the refresh is skipped if the list was refreshed successfully more recently than this
+   * @return true if the refresh was queued, false if it was skipped
+   */
+  public boolean startScheduledRefresh(UUID listId, Duration maxAge) {
+    Optional<ListEntity> found = listRepository.findByIdAndIsDeletedFalse(listId);
+    if (found.isEmpty()) {
+      log.info("List {} no longer exists. Skipping its scheduled refresh", listId);
+      return false;
+    }
+    ListEntity list = found.get();
+    if (list.isRefreshed() && list.getSuccessRefresh().getRefreshEndDate().isAfter(OffsetDateTime.now().minus(maxAge))) {
+      log.info("List {} was refreshed less than {} ago. Skipping its scheduled refresh", listId, maxAge);
+      return false;
+    }
+    validationService.validateRefreshWithoutToken(list);
+    list.refreshStarted(getCurrentUser());
+    TaskTimer timer = new TaskTimer();
+    timer.addDetails(Map.of("SCHEDULED", "true"));
+    ListEntity savedList = timer.time(TimedStage.WRITE_START, () -> listRepository.save(list));
+    queueRefresh(savedList, null, timer);
+    return true;
   }
 
   @Nonnull
@@ -291,22 +414,57 @@ public class ListService {
   }
 
   private void deleteListAndContents(ListEntity list) {
-    listContentsRepository.deleteContents(list.getId());
+    listContentsReaper.markDeletedListGarbage(list.getId());
+    refreshScheduleRepository.delete(list.getId());
     listRepository.save(list.withIsDeleted(true));
   }
 
   private ResultsetPage getListContents(ListEntity list, List<String> fields, Integer offset, Integer limit) {
+    List<ListContent> contents = List.of();
+    if (list.isRefreshed()) {
+      contents = listContentsStores.forRefresh(list.getSuccessRefresh())
+        .getContents(list.getId(), list.getSuccessRefresh().getId(), new OffsetRequest(offset, limit));
+    }
+    return getContentsFromFqm(list, fields, contents).totalRecords(list.getRecordsCount());
+  }
+
+  /**
+   * @return a page of what the list's in-progress refresh has imported so far, with the number of records imported so
+   * far as its total, or empty if there's no refresh in progress or its progress isn't known
+   */
+  private Optional<ResultsetPage> getPartialListContents(ListEntity list, List<String> fields, Integer offset,
+                                                         Integer limit) {
+    if (!list.isRefreshing()) {
+      return Optional.empty();
+    }
+    ListRefreshDetails refresh = list.getInProgressRefresh();
+    Optional<RefreshCheckpoint> checkpoint = refreshCheckpointRepository.find(refresh.getId());
+    if (checkpoint.isEmpty()) {
+      log.debug("Refresh {} of list {} has no checkpoint, so it can't be previewed", refresh.getId(), list.getId());
+      return Optional.empty();
+    }
+    int recordsSoFar = checkpoint.get().nextOffset() - ListContent.SORT_SEQUENCE_START_NUMBER;
+    // Contents past the checkpoint may belong to a batch that's still being written (or was left behind by a node that
+    // died), so the page stops at the checkpoint
+    int start = offset == null ? 0 : offset;
+    int available = Math.max(recordsSoFar - start, 0);
+    int pageSize = limit == null ? available : Math.min(limit, available);
+    List<ListContent> contents = pageSize == 0
+      ? List.of()
+      : listContentsStores.forInProgressRefresh(checkpoint.get())
+        .getContents(list.getId(), refresh.getId(), new OffsetRequest(start, pageSize));
+    return Optional.of(getContentsFromFqm(list, fields, contents).totalRecords(recordsSoFar));
+  }
+
+  private ResultsetPage getContentsFromFqm(ListEntity list, List<String> fields, List<ListContent> contents) {
     EntityType entityType = entityTypeClient.getEntityType(list.getEntityTypeId(), ListActions.READ);
     // If fields are not provided, retrieve all fields from the entity type definition
     if (isEmpty(fields)) {
       fields = getFieldsFromEntityType(entityType, true);
     }
     List<Map<String, Object>> sortedContents = List.of();
-    if (list.isRefreshed()) {
-      List<List<String>> contentIds = listContentsRepository.getContents(list.getId(), list.getSuccessRefresh().getId(), new OffsetRequest(offset, limit))
-        .stream()
-        .map(ListContent::getContentId)
-        .toList();
+    if (list.isRefreshed() || !contents.isEmpty()) {
+      ContentIdBatch contentIds = ContentIdBatch.ofContents(contents);
       long expectedIdCount = entityType.getColumns().stream()
         .filter(entityTypeColumn -> Boolean.TRUE.equals(entityTypeColumn.getIsIdColumn()))
         .count();
@@ -314,16 +472,14 @@ public class ListService {
         log.error("Entity type {} has no ID columns", entityType.getId());
         throw new ListContentsFqmRequestException(list, "The upstream data schema is invalid.");
       }
-      long contentIdSize = contentIds.stream()
-        .mapToLong(List::size)
-        .findAny()
-        .orElse(expectedIdCount); // No list contents? Then the number of IDs doesn't matter, so use the expected count
+      // No list contents? Then the number of IDs doesn't matter, so use the expected count
+      long contentIdSize = contentIds.isEmpty() ? expectedIdCount : contentIds.get(0).size();
       if (contentIdSize != expectedIdCount) {
         throw new ListContentsFqmRequestException(list, "The upstream data schema changed. This can usually be fixed by refreshing the list.");
       }
       ContentsRequest contentsRequest = new ContentsRequest().entityTypeId(list.getEntityTypeId())
         .fields(fields)
-        .ids(contentIds);
+        .ids(contentIds.toContentIds());
       try {
         sortedContents = queryClient.getContents(contentsRequest);
       } catch (HttpClientErrorException e) {
@@ -331,7 +487,7 @@ public class ListService {
         throw new ListContentsFqmRequestException(list);
       }
     }
-    return new ResultsetPage().content(sortedContents).totalRecords(list.getRecordsCount());
+    return new ResultsetPage().content(sortedContents);
   }
 
   private UsersClient.User getCurrentUser() {
@@ -344,21 +500,81 @@ public class ListService {
     }
   }
 
-  private void importListContentsFromAsyncQuery(ListEntity savedEntity, UsersClient.User currentUser, UUID queryId, TaskTimer timer) {
+  private void importListContentsFromAsyncQuery(ListEntity savedEntity, UsersClient.User currentUser, UUID queryId) {
     savedEntity.refreshStarted(currentUser);
     // Save to ensure inProgressRefreshId is present
     savedEntity = listRepository.save(savedEntity);
     log.info("Attempting to refresh list with listId {}", savedEntity);
-    listRefreshService.doAsyncSorting(
-      savedEntity,
-      queryId,
-      registerShutdownTask(savedEntity, "Cancel refresh for list " + savedEntity.getId()),
-      timer);
+    queueRefresh(savedEntity, queryId, new TaskTimer());
+  }
+
+  /**
+   * Queued refreshes run without the user's token, which FQM needs to tell which tenants a cross-tenant query may
+   * cover. So a cross-tenant list's query is submitted right away, while we still have the token, and its refresh only
+   * imports the results.
+   *
+   * @return the ID of the submitted query, or null if the refresh is to run the list's query itself
+   */
+  private UUID submitQueryIfCrossTenant(ListEntity list) {
+    EntityType entityType = entityTypeClient.getEntityType(list.getEntityTypeId(), ListActions.REFRESH);
+    if (!Boolean.TRUE.equals(entityType.getCrossTenantQueriesEnabled())) {
+      return null;
+    }
+    SubmitQuery submitQuery = new SubmitQuery()
+      .entityTypeId(list.getEntityTypeId())
+      .fqlQuery(list.getFqlQuery())
+      .fields(list.getFields());
+    return queryClient.executeQuery(submitQuery).getQueryId();
+  }
+
+  private void queueRefresh(ListEntity list, UUID queryId, TaskTimer timer) {
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    // The last refresh's size is the best guess at this one's, to let small lists go ahead of big ones
+    jobQueue.enqueue(new JobPayload.Refresh(list.getId(), refreshId, queryId, timer.getSummary(),
+      list.getRecordsCount(), null));
+    jobEventBus.publish(JobEvent.refresh(list.getInProgressRefresh()));
+  }
+
+  /**
+   * @return how long until the first of {@code start}, {@code start + interval}, {@code start + 2 * interval}, etc.
+   * that's still to come. A start date in the past only sets the time (of day, say) that refreshes happen at.
+   */
+  private static Duration untilNextOccurrence(OffsetDateTime start, Duration interval) {
+    Duration delay = Duration.between(OffsetDateTime.now(), start);
+    if (!delay.isNegative()) {
+      return delay;
+    }
+    return delay.plus(interval.multipliedBy(delay.negated().dividedBy(interval) + 1));
+  }
+
+  private static ListRefreshScheduleDTO toRefreshScheduleDTO(RefreshSchedule schedule) {
+    return new ListRefreshScheduleDTO()
+      .intervalMinutes(schedule.intervalMinutes())
+      .maxAgeMinutes(schedule.maxAgeMinutes())
+      .nextRefreshDate(OffsetDateTime.now().plus(schedule.untilNextRun()))
+      .scheduledBy(schedule.scheduledBy());
+  }
+
+  private ListDTO withRefreshStatus(ListDTO list) {
+    if (list.getInProgressRefresh() != null) {
+      withProgress(withQueuePosition(list.getInProgressRefresh()));
+    }
+    return list;
+  }
+
+  private ListRefreshDTO withQueuePosition(ListRefreshDTO refresh) {
+    return refresh.queuePosition(jobQueue.findRefreshQueuePosition(refresh.getId()).orElse(null));
   }
 
-  private AppShutdownService.ShutdownTask registerShutdownTask(ListEntity list, String taskName) {
-    Runnable shutDownTask = () -> refreshFailedCallback.accept(list, new TaskTimer(), new RefreshInProgressDuringShutdownException(list));
-    return appShutdownService.registerShutdownTask(executionContext, shutDownTask, taskName);
+  private ListRefreshDTO withProgress(ListRefreshDTO refresh) {
+    return refresh.progress(refreshProgressService.find(refresh.getId())
+      .map(progress -> new ListRefreshProgressDTO()
+        .recordsImported(progress.recordsImported())
+        .batchesProcessed(progress.batchesProcessed())
+        .recordsPerSecond(progress.recordsPerSecond())
+        .estimatedSecondsRemaining(progress.estimatedSecondsRemaining())
+        .updatedDate(OffsetDateTime.now().minus(progress.sinceUpdate())))
+      .orElse(null));
   }
 
   private List<String> getFieldsFromEntityType(EntityType entityType, boolean showHidden) {
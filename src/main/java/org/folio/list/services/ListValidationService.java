@@ -11,12 +11,15 @@ import org.folio.list.exception.*;
 import org.folio.list.repository.ListExportRepository;
 
 import org.folio.list.rest.EntityTypeClient;
+import org.folio.list.rest.UserPermissionsClient;
 import org.folio.querytool.domain.dto.EntityType;
 import org.folio.spring.FolioExecutionContext;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
@@ -30,6 +33,7 @@ public class ListValidationService {
   private final FqlValidationService fqlValidationService;
   private final ListExportRepository listExportRepository;
   private final EntityTypeClient entityTypeClient;
+  private final UserPermissionsClient userPermissionsClient;
 
   public void validateCreate(ListRequestDTO saveRequest, EntityType entityType) {
     assertIsValidFql(entityType, saveRequest.getFqlQuery(), CREATE);
@@ -61,11 +65,43 @@ public class ListValidationService {
 
   public void validateRefresh(ListEntity list) {
     assertUserHasEntityTypePermissions(list.getEntityTypeId(), REFRESH);
+    assertListIsRefreshable(list);
+  }
+
+  /**
+   * Like {@link #validateRefresh}, for a refresh started on behalf of the current user without their token (e.g., a
+   * scheduled refresh). FQM only sees the system user then, so the user's own access to the list's entity type is
+   * checked here instead.
+   */
+  public void validateRefreshWithoutToken(ListEntity list) {
+    assertUserCanQueryWithoutToken(list.getEntityTypeId(), REFRESH);
+    assertListIsRefreshable(list);
+  }
+
+  /**
+   * Check that the user who queued a refresh may still refresh the list, now that the refresh is about to run. Queued
+   * refreshes run without the user's token, so as with {@link #validateRefreshWithoutToken}, the user's access to the
+   * list's entity type is checked against their current permissions.
+   *
+   * @param querySubmitted whether the list's query was already submitted with the user's token, in which case FQM has
+   *                       already seen which tenants the user can query
+   */
+  public void validateQueuedRefresh(ListEntity list, boolean querySubmitted) {
+    EntityType entityType = entityTypeClient.getEntityType(list.getEntityTypeId(), REFRESH);
+    if (!querySubmitted) {
+      assertNotQueryingOtherTenants(list.getEntityTypeId(), entityType, REFRESH);
+    }
+    assertUserHasRequiredPermissions(list.getEntityTypeId(), entityType, REFRESH);
     assertSharedOrOwnedByUser(list, REFRESH);
-    assertListIsActive(list, REFRESH);
-    assertListHasQuery(list, REFRESH);
-    assertListNotRefreshing(list, REFRESH);
-    assertListNotExporting(list, REFRESH);
+  }
+
+  public void validateScheduleRefresh(ListEntity list) {
+    EntityType entityType = entityTypeClient.getEntityType(list.getEntityTypeId(), SCHEDULE_REFRESH);
+    // Scheduled refreshes run without the user's token, and couldn't reach the tenants the user is affiliated with
+    assertNotQueryingOtherTenants(list.getEntityTypeId(), entityType, SCHEDULE_REFRESH);
+    assertSharedOrOwnedByUser(list, SCHEDULE_REFRESH);
+    assertListIsActive(list, SCHEDULE_REFRESH);
+    assertListHasQuery(list, SCHEDULE_REFRESH);
   }
 
   public void validateCancelRefresh(ListEntity list) {
@@ -168,6 +204,46 @@ public class ListValidationService {
     entityTypeClient.getEntityType(entityTypeId, failedAction);
   }
 
+  private void assertListIsRefreshable(ListEntity list) {
+    assertSharedOrOwnedByUser(list, REFRESH);
+    assertListIsActive(list, REFRESH);
+    assertListHasQuery(list, REFRESH);
+    assertListNotRefreshing(list, REFRESH);
+    assertListNotExporting(list, REFRESH);
+  }
+
+  /**
+   * Check the current user's access to an entity type when FQM can't, because we're calling it as the system user
+   */
+  private void assertUserCanQueryWithoutToken(UUID entityTypeId, ListActions failedAction) {
+    EntityType entityType = entityTypeClient.getEntityType(entityTypeId, failedAction);
+    assertNotQueryingOtherTenants(entityTypeId, entityType, failedAction);
+    assertUserHasRequiredPermissions(entityTypeId, entityType, failedAction);
+  }
+
+  // The user must still hold every permission the entity type requires
+  private void assertUserHasRequiredPermissions(UUID entityTypeId, EntityType entityType, ListActions failedAction) {
+    List<String> requiredPermissions = entityType.getRequiredPermissions() == null
+      ? List.of()
+      : entityType.getRequiredPermissions();
+    Set<String> userPermissions = Set.copyOf(userPermissionsClient.getPermissionNames(folioExecutionContext.getUserId()));
+    List<String> missingPermissions = requiredPermissions.stream()
+      .filter(permission -> !userPermissions.contains(permission))
+      .toList();
+    if (!missingPermissions.isEmpty()) {
+      throw new InsufficientEntityTypePermissionsException(entityTypeId, failedAction,
+        "User is missing permissions: " + missingPermissions);
+    }
+  }
+
+  // Without the user's token, FQM would use the system user's tenant affiliations rather than the user's
+  private void assertNotQueryingOtherTenants(UUID entityTypeId, EntityType entityType, ListActions failedAction) {
+    if (Boolean.TRUE.equals(entityType.getCrossTenantQueriesEnabled())) {
+      throw new InsufficientEntityTypePermissionsException(entityTypeId, failedAction,
+        "User is missing permissions to query other tenants without their token");
+    }
+  }
+
   // cross-tenant lists MUST be private
   private void assertListIsNotCrossTenantAndShared(EntityType entityType, Boolean isPrivate, ListActions failedAction) {
     if (Boolean.FALSE.equals(isPrivate) && Boolean.TRUE.equals(entityType.getCrossTenantQueriesEnabled())) {
@@ -103,6 +103,9 @@ public class MigrationService {
 
   /**
    * Migrate ALL lists in the database, asynchronously.
+   * <p>
+   * Migrations run right here, rather than through the job queue: callers wait for them during tenant install (or in a
+   * request's transaction), where a queued job might never be picked up.
    *
    * <strong>This does NOT check if this is actually necessary, and should only be invoked when the
    * caller is certain that lists need to be migrated.</strong>
@@ -0,0 +1,158 @@
+package org.folio.list.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listens for Postgres notifications (LISTEN/NOTIFY) on behalf of this node's buses (cancellations, job events, ...),
+ * and hands each notification to the handler of its channel.
+ * <p>
+ * All channels share one dedicated connection, outside the connection pool so that it doesn't take a pooled connection
+ * away from real work. If the connection is lost, every handler is told, since notifications sent in the meantime are
+ * lost too, and the listener keeps trying to reconnect.
+ */
+@Log4j2
+@Component
+public class NotificationListener {
+
+  private static final int NOTIFICATION_WAIT_MILLIS = 5000;
+  private static final long RECONNECT_DELAY_MILLIS = 10000;
+
+  /**
+   * Handles the notifications of a channel
+   */
+  public interface Handler {
+    void handle(String payload);
+
+    /**
+     * Called once notifications on the channel are delivered, after every (re)connection
+     */
+    default void connected() {
+    }
+
+    /**
+     * Called when the connection is lost, from which point notifications on the channel are missed until the next
+     * call to {@link #connected()}
+     */
+    default void disconnected() {
+    }
+  }
+
+  private final DataSourceProperties dataSourceProperties;
+  private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+  private volatile boolean running;
+  private Thread listenerThread;
+
+  @Autowired
+  public NotificationListener(@Qualifier("writerDataSourceProperties") DataSourceProperties dataSourceProperties) {
+    this.dataSourceProperties = dataSourceProperties;
+  }
+
+  /**
+   * Start listening on a channel. Channels can be added at any time: the connection picks them up within a few seconds.
+   * Channel names aren't quoted, so they must be plain lowercase identifiers.
+   */
+  public synchronized void listen(String channel, Handler handler) {
+    if (handlers.putIfAbsent(channel, handler) != null) {
+      throw new IllegalStateException("Already listening on channel " + channel);
+    }
+    if (listenerThread == null) {
+      running = true;
+      listenerThread = Thread.ofPlatform()
+        .name("mod-lists-notification-listener")
+        .daemon()
+        .start(this::listen);
+    }
+  }
+
+  @PreDestroy
+  public synchronized void stop() {
+    running = false;
+    if (listenerThread != null) {
+      listenerThread.interrupt();
+    }
+  }
+
+  private void listen() {
+    while (running) {
+      Set<String> listening = new HashSet<>();
+      try (Connection connection = DriverManager.getConnection(
+        dataSourceProperties.determineUrl(),
+        dataSourceProperties.determineUsername(),
+        dataSourceProperties.determinePassword())) {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          listenToNewChannels(connection, listening);
+          PGNotification[] notifications = pgConnection.getNotifications(NOTIFICATION_WAIT_MILLIS);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              handleNotification(notification.getName(), notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException e) {
+        if (running) {
+          log.warn("Notification listener lost its connection. Notifications on channels {} are missed until it "
+            + "reconnects", listening, e);
+        }
+      } finally {
+        listening.forEach(channel -> handlers.get(channel).disconnected());
+      }
+      waitToReconnect();
+    }
+  }
+
+  private void listenToNewChannels(Connection connection, Set<String> listening) throws SQLException {
+    for (Map.Entry<String, Handler> entry : handlers.entrySet()) {
+      if (listening.contains(entry.getKey())) {
+        continue;
+      }
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("LISTEN " + entry.getKey());
+      }
+      listening.add(entry.getKey());
+      entry.getValue().connected();
+      log.info("Listening for notifications on channel {}", entry.getKey());
+    }
+  }
+
+  private void handleNotification(String channel, String payload) {
+    Handler handler = handlers.get(channel);
+    if (handler == null) {
+      return;
+    }
+    try {
+      handler.handle(payload);
+    } catch (RuntimeException e) {
+      // Don't let one bad notification cost every channel its connection
+      log.warn("Error handling notification on channel {}: {}", channel, payload, e);
+    }
+  }
+
+  private void waitToReconnect() {
+    if (!running) {
+      return;
+    }
+    try {
+      Thread.sleep(RECONNECT_DELAY_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
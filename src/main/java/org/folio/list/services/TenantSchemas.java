@@ -0,0 +1,55 @@
+package org.folio.list.services;
+
+import lombok.RequiredArgsConstructor;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the tenants that this module is enabled for, for the background tasks that work through every tenant outside
+ * of any request (purging list contents, running queued jobs, starting scheduled refreshes, resuming interrupted ones),
+ * and gives them a context to work in.
+ */
+@Component
+@RequiredArgsConstructor
+public class TenantSchemas {
+
+  private static final String PROBE_TENANT = "tenant";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final FolioModuleMetadata folioModuleMetadata;
+
+  /**
+   * Find the tenants whose schema has the given table (i.e., the tenants that this module is enabled for, and whose
+   * schema is recent enough to have it)
+   */
+  public List<String> findTenantsWithTable(String tableName) {
+    // Schema names are <tenant>_<module>, so any tenant's schema name gives us the suffix they all share
+    String schemaSuffix = folioModuleMetadata.getDBSchemaName(PROBE_TENANT).substring(PROBE_TENANT.length());
+    String pattern = "%" + schemaSuffix.replace("\\", "\\\\").replace("_", "\\_").replace("%", "\\%");
+    return jdbcTemplate.queryForList("""
+          SELECT table_schema FROM information_schema.tables
+          WHERE table_name = ? AND table_schema LIKE ?
+          """,
+        String.class, tableName, pattern)
+      .stream()
+      .map(schema -> schema.substring(0, schema.length() - schemaSuffix.length()))
+      .toList();
+  }
+
+  /**
+   * The context to work on a tenant's data in. It has no token, so any calls to other modules run as the system user
+   * (see {@link RunAsSystemUserService}).
+   */
+  public FolioExecutionContext systemContext(String tenantId) {
+    Map<String, Collection<String>> headers = Map.of(XOkapiHeaders.TENANT, List.of(tenantId));
+    return new DefaultFolioExecutionContext(folioModuleMetadata, headers);
+  }
+}
@@ -0,0 +1,83 @@
+package org.folio.list.services.cancellation;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.services.NotificationListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Delivers refresh and export cancellations to whichever node is running the job, using Postgres LISTEN/NOTIFY.
+ * <p>
+ * Every node listens through its {@link NotificationListener}, and hands incoming cancellations to its {@link
+ * CancellationRegistry}. Job IDs are UUIDs, so a single channel is shared by all tenants.
+ */
+@Log4j2
+@Component
+public class CancellationBus {
+
+  static final String CHANNEL = "mod_lists_cancellation";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final CancellationRegistry cancellationRegistry;
+  private final NotificationListener notificationListener;
+  private final boolean enabled;
+
+  @Autowired
+  public CancellationBus(JdbcTemplate jdbcTemplate,
+                         CancellationRegistry cancellationRegistry,
+                         NotificationListener notificationListener,
+                         @Value("${mod-lists.general.cancellation-listener-enabled:true}") boolean enabled) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.cancellationRegistry = cancellationRegistry;
+    this.notificationListener = notificationListener;
+    this.enabled = enabled;
+  }
+
+  /**
+   * Tell every node to cancel the given refresh or export. Call this in the same transaction that marks the job as
+   * cancelled: Postgres only delivers the notification once that transaction commits, so the job's node never hears
+   * about a cancellation that was rolled back.
+   */
+  public void publishCancellation(UUID jobId) {
+    log.info("Publishing cancellation of job {}", jobId);
+    jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, jobId.toString());
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      log.info("Cancellation listener is disabled. Running jobs will check the database for cancellation instead");
+      return;
+    }
+    notificationListener.listen(CHANNEL, new NotificationListener.Handler() {
+      @Override
+      public void handle(String payload) {
+        handleNotification(payload);
+      }
+
+      @Override
+      public void connected() {
+        cancellationRegistry.listenerConnected();
+      }
+
+      @Override
+      public void disconnected() {
+        // Running jobs check the database for cancellation until it reconnects
+        cancellationRegistry.listenerDisconnected();
+      }
+    });
+  }
+
+  private void handleNotification(String payload) {
+    try {
+      cancellationRegistry.cancel(UUID.fromString(payload));
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring malformed cancellation notification: {}", payload);
+    }
+  }
+}
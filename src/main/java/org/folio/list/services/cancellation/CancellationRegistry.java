@@ -0,0 +1,237 @@
+package org.folio.list.services.cancellation;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps track of the refreshes and exports running on this node, keyed by refresh/export ID, so that they can be
+ * stopped as soon as they're cancelled. Cancellations arrive through the {@link CancellationBus}.
+ * <p>
+ * The bus is the fast path, but notifications can be missed while its connection is down. Jobs therefore still need
+ * to check the database for cancellation occasionally; {@link RunningJob#needsStatusCheck()} tells them when.
+ * <p>
+ * Cancelling a job interrupts its thread, which stops waits within the JVM. Blocking I/O carries on regardless of
+ * interrupts, though (a statement running in Postgres, a response being read from FQM), so long-running calls also
+ * register a way to abort them with {@link #abortOnCancel(Runnable)}.
+ */
+@Log4j2
+@Component
+public class CancellationRegistry {
+
+  private static final long NOT_LISTENING = -1;
+  // The job whose task is running on this thread, if any (see RunningJob.runInterruptibly)
+  private static final ThreadLocal<RunningJob> currentJob = new ThreadLocal<>();
+
+  private final Map<UUID, RunningJob> jobs = new ConcurrentHashMap<>();
+  // Incremented every time the bus (re)connects; NOT_LISTENING while it's disconnected
+  private volatile long listenerEpoch = NOT_LISTENING;
+  private long lastEpoch = 0;
+
+  /**
+   * Register a job as running on this node. Close the returned job once it's done.
+   */
+  public RunningJob register(UUID jobId) {
+    RunningJob job = new RunningJob(jobId);
+    jobs.put(jobId, job);
+    return job;
+  }
+
+  public Optional<RunningJob> find(UUID jobId) {
+    return Optional.ofNullable(jobs.get(jobId));
+  }
+
+  /**
+   * Cancel a job, if it's running on this node
+   *
+   * @return true if the job was running on this node
+   */
+  public boolean cancel(UUID jobId) {
+    RunningJob job = jobs.get(jobId);
+    if (job == null) {
+      return false;
+    }
+    log.info("Cancelling job {} running on this node", jobId);
+    job.cancel();
+    return true;
+  }
+
+  /**
+   * Abort a blocking call (e.g., with {@link java.sql.Statement#cancel()}) if the job running on this thread is
+   * cancelled while the call is in progress. Outside of a job's task (see {@link RunningJob#runInterruptibly}), this
+   * does nothing.
+   *
+   * @param abort stops the call. It runs on the cancelling thread, and never once the returned registration is closed,
+   *              so it's safe to abort through a pooled connection as long as the registration is closed before the
+   *              connection is released.
+   * @return the registration, to close once the call is over
+   * @throws CancellationException if the job has already been cancelled, in which case there's no point starting the
+   *                               call
+   */
+  public static AbortRegistration abortOnCancel(Runnable abort) {
+    RunningJob job = currentJob.get();
+    return job == null ? () -> { } : job.addAbort(abort);
+  }
+
+  /**
+   * Called by the {@link CancellationBus} once it's listening for cancellations
+   */
+  public synchronized void listenerConnected() {
+    listenerEpoch = ++lastEpoch;
+  }
+
+  /**
+   * Called by the {@link CancellationBus} when it stops listening for cancellations (e.g., it lost its connection)
+   */
+  public void listenerDisconnected() {
+    listenerEpoch = NOT_LISTENING;
+  }
+
+  /**
+   * See {@link #abortOnCancel(Runnable)}
+   */
+  public interface AbortRegistration extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /**
+   * A refresh or export running on this node
+   */
+  public class RunningJob implements AutoCloseable {
+    private final UUID jobId;
+    private final List<Runnable> cancelListeners = new ArrayList<>();
+    private final Set<Thread> interruptibleThreads = new HashSet<>();
+    private final Set<Runnable> aborts = new LinkedHashSet<>();
+    private volatile boolean cancelled;
+    private long checkedEpoch = Long.MIN_VALUE;
+
+    private RunningJob(UUID jobId) {
+      this.jobId = jobId;
+    }
+
+    public UUID getJobId() {
+      return jobId;
+    }
+
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    /**
+     * Check if the job should confirm its status from the database. This is always the case the first time (to catch
+     * cancellations that happened before the job was registered), while the bus is disconnected, and once after it
+     * reconnects (to catch cancellations that happened in the meantime).
+     */
+    public synchronized boolean needsStatusCheck() {
+      long epoch = listenerEpoch;
+      boolean needsCheck = epoch == NOT_LISTENING || epoch != checkedEpoch;
+      checkedEpoch = epoch;
+      return needsCheck;
+    }
+
+    /**
+     * Run the given listener when the job is cancelled. If it's already cancelled, the listener runs right away.
+     */
+    public void onCancel(Runnable listener) {
+      synchronized (this) {
+        if (!cancelled) {
+          cancelListeners.add(listener);
+          return;
+        }
+      }
+      listener.run();
+    }
+
+    /**
+     * Run a task on the current thread, interrupting it if the job is cancelled while the task runs. This is what
+     * stops waits (on background fetches, queued requests, etc.) right away. Blocking I/O needs to be aborted too: the
+     * task registers how with {@link #abortOnCancel(Runnable)}. The interrupt never outlives the task, so this is safe
+     * to use on pooled threads.
+     */
+    public <T> T runInterruptibly(Supplier<T> task) {
+      Thread current = Thread.currentThread();
+      RunningJob outerJob = currentJob.get();
+      currentJob.set(this);
+      synchronized (this) {
+        interruptibleThreads.add(current);
+        if (cancelled) {
+          current.interrupt();
+        }
+      }
+      try {
+        return task.get();
+      } finally {
+        synchronized (this) {
+          interruptibleThreads.remove(current);
+        }
+        if (outerJob == null) {
+          currentJob.remove();
+        } else {
+          currentJob.set(outerJob);
+        }
+        if (cancelled) {
+          // Clear our interrupt, so that it doesn't leak into whatever runs on this thread next
+          Thread.interrupted();
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      jobs.remove(jobId, this);
+    }
+
+    private synchronized AbortRegistration addAbort(Runnable abort) {
+      if (cancelled) {
+        throw new CancellationException("Job " + jobId + " was cancelled");
+      }
+      aborts.add(abort);
+      return () -> {
+        // Waits for the abort to finish if it's running, so that it can't outlive the call it aborts
+        synchronized (this) {
+          aborts.remove(abort);
+        }
+      };
+    }
+
+    private void cancel() {
+      List<Runnable> listeners;
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        cancelled = true;
+        interruptibleThreads.forEach(Thread::interrupt);
+        for (Runnable abort : aborts) {
+          try {
+            abort.run();
+          } catch (RuntimeException e) {
+            log.warn("Error aborting blocking call of job {}", jobId, e);
+          }
+        }
+        aborts.clear();
+        listeners = List.copyOf(cancelListeners);
+        cancelListeners.clear();
+      }
+      for (Runnable listener : listeners) {
+        try {
+          listener.run();
+        } catch (RuntimeException e) {
+          log.warn("Error running cancellation listener for job {}", jobId, e);
+        }
+      }
+    }
+  }
+}
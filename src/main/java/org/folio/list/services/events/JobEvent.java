@@ -0,0 +1,59 @@
+package org.folio.list.services.events;
+
+import org.folio.list.domain.AsyncProcessStatus;
+import org.folio.list.domain.ExportDetails;
+import org.folio.list.domain.ListRefreshDetails;
+import org.folio.list.repository.RefreshProgressRepository.RefreshProgress;
+
+import java.util.UUID;
+
+/**
+ * Something that happened to one of a list's refreshes or exports: it changed status or, for a running refresh, made
+ * progress.
+ * <p>
+ * Events are kept small (they travel as Postgres notifications, which are limited to 8000 bytes), so they carry no
+ * error messages or other free text. Clients that want the details fetch the list or export.
+ *
+ * @param type         whether this is about a refresh or an export
+ * @param jobId        the refresh or export ID
+ * @param recordsCount the number of records in a refresh that succeeded
+ * @param errorCode    why a refresh failed
+ * @param progress     how far a running refresh has got
+ */
+public record JobEvent(JobType type, UUID listId, UUID jobId, AsyncProcessStatus status, Integer recordsCount,
+                       String errorCode, Progress progress) {
+
+  public enum JobType {
+    REFRESH, EXPORT;
+
+    /**
+     * @return the name of this type's events in an event stream
+     */
+    public String eventName() {
+      return name().toLowerCase();
+    }
+  }
+
+  /**
+   * See {@link RefreshProgress}
+   */
+  public record Progress(int recordsImported, int batchesProcessed, double recordsPerSecond,
+                         Integer estimatedSecondsRemaining) {
+  }
+
+  public static JobEvent refresh(ListRefreshDetails refresh) {
+    return new JobEvent(JobType.REFRESH, refresh.getListId(), refresh.getId(), refresh.getStatus(),
+      refresh.getRecordsCount(), refresh.getErrorCode(), null);
+  }
+
+  public static JobEvent refreshProgress(RefreshProgress progress) {
+    return new JobEvent(JobType.REFRESH, progress.listId(), progress.refreshId(), AsyncProcessStatus.IN_PROGRESS,
+      null, null, new Progress(progress.recordsImported(), progress.batchesProcessed(), progress.recordsPerSecond(),
+      progress.estimatedSecondsRemaining()));
+  }
+
+  public static JobEvent export(ExportDetails export) {
+    return new JobEvent(JobType.EXPORT, export.getList().getId(), export.getExportId(), export.getStatus(), null,
+      null, null);
+  }
+}
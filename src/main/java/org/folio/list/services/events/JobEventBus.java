@@ -0,0 +1,89 @@
+package org.folio.list.services.events;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.JobEventsProperties;
+import org.folio.list.services.NotificationListener;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Spreads refresh and export events to every node, using Postgres LISTEN/NOTIFY, so that clients can follow a job
+ * whichever node they're connected to and whichever node runs it.
+ * <p>
+ * Like the {@link org.folio.list.services.cancellation.CancellationBus}, every node listens through its {@link
+ * NotificationListener}, and all tenants share a single channel: each notification names its tenant. Incoming events go
+ * to this node's {@link JobEventSubscriptions}. Events published while the listener is disconnected are lost to this
+ * node's subscribers.
+ */
+@Log4j2
+@Component
+public class JobEventBus {
+
+  static final String CHANNEL = "mod_lists_job_events";
+
+  /**
+   * What travels on the channel
+   */
+  record Notification(String tenantId, JobEvent event) {
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final JobEventSubscriptions subscriptions;
+  private final FolioExecutionContext executionContext;
+  private final ObjectMapper objectMapper;
+  private final NotificationListener notificationListener;
+  private final boolean enabled;
+
+  @Autowired
+  public JobEventBus(JdbcTemplate jdbcTemplate,
+                     JobEventSubscriptions subscriptions,
+                     FolioExecutionContext executionContext,
+                     ObjectMapper objectMapper,
+                     NotificationListener notificationListener,
+                     JobEventsProperties properties) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.subscriptions = subscriptions;
+    this.executionContext = executionContext;
+    this.objectMapper = objectMapper;
+    this.notificationListener = notificationListener;
+    this.enabled = properties.enabled();
+  }
+
+  /**
+   * Tell every node's subscribers about something that happened to the current tenant's job. Call this in the
+   * transaction that makes it happen: Postgres only delivers the notification once that transaction commits, so nobody
+   * hears about a change that was rolled back.
+   */
+  public void publish(JobEvent event) {
+    if (!enabled) {
+      return;
+    }
+    log.debug("Publishing {} event for job {}: {}", event.type(), event.jobId(), event.status());
+    String payload = objectMapper.writeValueAsString(new Notification(executionContext.getTenantId(), event));
+    jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    notificationListener.listen(CHANNEL, this::handleNotification);
+  }
+
+  private void handleNotification(String payload) {
+    Notification notification;
+    try {
+      notification = objectMapper.readValue(payload, Notification.class);
+    } catch (JacksonException e) {
+      log.warn("Ignoring malformed job event notification: {}", payload);
+      return;
+    }
+    subscriptions.deliver(notification.tenantId(), notification.event());
+  }
+}
@@ -0,0 +1,193 @@
+package org.folio.list.services.events;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.JobEventsProperties;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps track of the clients following lists' events on this node, and sends them the events that concern their lists
+ * (as server-sent events), whichever node the events came from. See {@link JobEventBus}.
+ * <p>
+ * A new subscriber first gets a snapshot of the list, then every event from the moment it subscribed, in order. Events
+ * that arrive while the snapshot is being read are held back until it's sent, so that nothing falls between the two.
+ */
+@Log4j2
+@Component
+public class JobEventSubscriptions {
+
+  static final String SNAPSHOT_EVENT = "list";
+
+  private record ListKey(String tenantId, UUID listId) {
+  }
+
+  private final FolioExecutionContext executionContext;
+  private final JobEventsProperties properties;
+  private final Map<ListKey, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+  private ScheduledExecutorService heartbeat;
+
+  @Autowired
+  public JobEventSubscriptions(FolioExecutionContext executionContext, JobEventsProperties properties) {
+    this.executionContext = executionContext;
+    this.properties = properties;
+  }
+
+  /**
+   * Start following a list's events
+   *
+   * @param snapshot reads the list's current state, which is sent before any event. If it throws, there's no
+   *                 subscription and the exception is passed on.
+   */
+  public SseEmitter subscribe(UUID listId, Supplier<?> snapshot) {
+    SseEmitter emitter = new SseEmitter(Duration.ofSeconds(properties.streamTimeoutSeconds()).toMillis());
+    subscribe(executionContext.getTenantId(), listId, emitter, snapshot);
+    return emitter;
+  }
+
+  // Visible for testing
+  public void subscribe(String tenantId, UUID listId, SseEmitter emitter, Supplier<?> snapshot) {
+    if (!properties.enabled()) {
+      send(emitter, SseEmitter.event().name(SNAPSHOT_EVENT).data(snapshot.get()));
+      emitter.complete();
+      return;
+    }
+    ListKey key = new ListKey(tenantId, listId);
+    Subscriber subscriber = new Subscriber(emitter);
+    add(key, subscriber);
+    Runnable remove = () -> remove(key, subscriber);
+    emitter.onCompletion(remove);
+    emitter.onTimeout(remove);
+    emitter.onError(e -> remove.run());
+    try {
+      subscriber.start(SseEmitter.event().name(SNAPSHOT_EVENT).data(snapshot.get()));
+    } catch (IOException e) {
+      log.debug("Subscriber to list {} went away before getting its snapshot", listId, e);
+      remove.run();
+    } catch (RuntimeException e) {
+      remove.run();
+      throw e;
+    }
+  }
+
+  /**
+   * Send an event to everyone on this node who follows its list
+   */
+  public void deliver(String tenantId, JobEvent event) {
+    ListKey key = new ListKey(tenantId, event.listId());
+    Set<Subscriber> listSubscribers = subscribers.get(key);
+    if (listSubscribers == null) {
+      return;
+    }
+    for (Subscriber subscriber : listSubscribers) {
+      sendOrRemove(key, subscriber, SseEmitter.event().name(event.type().eventName()).data(event));
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!properties.enabled()) {
+      log.info("Job events are disabled. Clients will have to poll for refresh and export status");
+      return;
+    }
+    heartbeat = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("mod-lists-job-events-heartbeat").daemon().factory()
+    );
+    heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, properties.heartbeatIntervalSeconds(),
+      properties.heartbeatIntervalSeconds(), TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (heartbeat != null) {
+      heartbeat.shutdownNow();
+    }
+    subscribers.values()
+      .forEach(listSubscribers -> listSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    subscribers.clear();
+  }
+
+  // Visible for testing
+  public void sendHeartbeats() {
+    subscribers.forEach((key, listSubscribers) ->
+      listSubscribers.forEach(subscriber -> sendOrRemove(key, subscriber, SseEmitter.event().comment("heartbeat"))));
+  }
+
+  private void sendOrRemove(ListKey key, Subscriber subscriber, SseEventBuilder event) {
+    try {
+      subscriber.send(event);
+    } catch (IOException | IllegalStateException e) {
+      // The client went away, or the stream timed out. Either way, the servlet container finishes the request.
+      log.debug("Dropping subscriber to list {}", key.listId(), e);
+      remove(key, subscriber);
+    }
+  }
+
+  private void add(ListKey key, Subscriber subscriber) {
+    subscribers.compute(key, (k, listSubscribers) -> {
+      Set<Subscriber> updated = listSubscribers == null ? ConcurrentHashMap.newKeySet() : listSubscribers;
+      updated.add(subscriber);
+      return updated;
+    });
+  }
+
+  private void remove(ListKey key, Subscriber subscriber) {
+    subscribers.computeIfPresent(key, (k, listSubscribers) -> {
+      listSubscribers.remove(subscriber);
+      return listSubscribers.isEmpty() ? null : listSubscribers;
+    });
+  }
+
+  private static void send(SseEmitter emitter, SseEventBuilder event) {
+    try {
+      emitter.send(event);
+    } catch (IOException e) {
+      log.debug("Subscriber went away before getting its snapshot", e);
+    }
+  }
+
+  /**
+   * A client following a list. Holds events back until the client has its snapshot.
+   */
+  private static class Subscriber {
+    private final SseEmitter emitter;
+    private List<SseEventBuilder> backlog = new ArrayList<>();
+
+    Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    synchronized void start(SseEventBuilder snapshot) throws IOException {
+      emitter.send(snapshot);
+      for (SseEventBuilder event : backlog) {
+        emitter.send(event);
+      }
+      backlog = null;
+    }
+
+    synchronized void send(SseEventBuilder event) throws IOException {
+      if (backlog != null) {
+        backlog.add(event);
+      } else {
+        emitter.send(event);
+      }
+    }
+  }
+}
@@ -1,6 +1,5 @@
 package org.folio.list.services.export;
 
-import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.folio.list.exception.ExportNotFoundException.exportNotFound;
 import static org.folio.list.util.LogUtils.getSanitizedExceptionMessage;
 
@@ -13,6 +12,7 @@ import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
@@ -22,13 +22,16 @@ import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.FileUtils;
 import org.folio.list.configuration.ListExportProperties;
 import org.folio.list.domain.AsyncProcessStatus;
+import org.folio.list.domain.ContentIdBatch;
 import org.folio.list.domain.ExportDetails;
 import org.folio.list.domain.ListEntity;
 import org.folio.list.exception.ExportCancelledException;
-import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStores;
 import org.folio.list.repository.ListExportRepository;
 import org.folio.list.rest.QueryClient;
 import org.folio.list.services.ListActions;
+import org.folio.list.services.cancellation.CancellationRegistry;
+import org.folio.list.services.cancellation.CancellationRegistry.RunningJob;
 import org.folio.querytool.domain.dto.ContentsRequest;
 import org.folio.querytool.domain.dto.EntityType;
 import org.folio.querytool.domain.dto.EntityTypeColumn;
@@ -45,10 +48,11 @@ import org.springframework.stereotype.Service;
 public class CsvCreator {
 
   private final ListExportRepository listExportRepository;
-  private final ListContentsRepository contentsRepository;
+  private final ListContentsStores contentsStores;
   private final ListExportProperties exportProperties;
   private final FolioS3Client folioS3Client;
   private final QueryClient queryClient;
+  private final CancellationRegistry cancellationRegistry;
 
   // Minimal s3 part size is 5 MB
   private static final Long MINIMAL_PART_SIZE = 5242880L;
@@ -64,7 +68,8 @@ public class CsvCreator {
   public ExportLocalStorage createAndUploadCSV(ExportDetails exportDetails, String destinationFileName, String uploadId, List<String> partETags, UUID userId, EntityType entityType, Map<String, Map<String, String>> localizedValues) {
     var localStorage = new ExportLocalStorage(exportDetails.getExportId());
     ListEntity list = exportDetails.getList();
-    var idsProvider = new ListIdsProvider(contentsRepository, list);
+    var idsProvider = new ListIdsProvider(contentsStores.forRefresh(list.getSuccessRefresh()), list);
+    Optional<RunningJob> job = cancellationRegistry.find(exportDetails.getExportId());
 
     OutputStream localStorageOutputStream = localStorage.outputStream();
     var csvWriter = new ListCsvWriter(entityType, exportDetails.getFields(), localizedValues);
@@ -72,10 +77,9 @@ public class CsvCreator {
     int batchNumber = 0;
     int partNumber = 1;
 
-    for (List<List<String>> ids = idsProvider.nextBatch(batchSize); !isEmpty(ids); ids = idsProvider.nextBatch(batchSize)) {
+    for (ContentIdBatch ids = idsProvider.nextBatch(batchSize); !ids.isEmpty(); ids = idsProvider.nextBatch(batchSize)) {
+      checkIfExportCancelled(list.getId(), exportDetails.getExportId(), job, batchNumber);
       if (batchNumber % 10 == 0) {
-        checkIfExportCancelled(list.getId(), exportDetails.getExportId());
-
         //Skip the first batch since we haven't generated any content yet and do not upload if file size less than 5 mb
         File multiPartFile = new File(localStorage.getAbsolutePath());
         long bytes = FileUtils.sizeOf(multiPartFile);
@@ -90,7 +94,7 @@ public class CsvCreator {
       ContentsRequest contentsRequest = new ContentsRequest()
         .entityTypeId(list.getEntityTypeId())
         .fields(exportDetails.getFields())
-        .ids(ids)
+        .ids(ids.toContentIds())
         .localize(true)
         .userId(userId);
       var sortedContents = queryClient.getContentsPrivileged(contentsRequest)
@@ -131,7 +135,22 @@ public class CsvCreator {
     }
   }
 
-  private void checkIfExportCancelled(UUID listId, UUID exportId) {
+  /**
+   * Stop the export if it has been cancelled. Cancellations normally reach the running export through the
+   * {@link CancellationRegistry}, so this is just an in-memory check. The database is only consulted (every 10 batches)
+   * when the registry says it might have missed a cancellation, or if the export isn't registered at all.
+   */
+  private void checkIfExportCancelled(UUID listId, UUID exportId, Optional<RunningJob> job, int batchNumber) {
+    if (job.map(RunningJob::isCancelled).orElse(false)) {
+      log.info("Export has been cancelled: exportId {}, listId {}", exportId, listId);
+      throw new ExportCancelledException(listId, exportId, ListActions.EXPORT);
+    }
+    if (batchNumber % 10 == 0 && job.map(RunningJob::needsStatusCheck).orElse(true)) {
+      checkIfExportCancelledInDatabase(listId, exportId);
+    }
+  }
+
+  private void checkIfExportCancelledInDatabase(UUID listId, UUID exportId) {
     ExportDetails exportDetails = listExportRepository.findById(exportId)
       .orElseThrow(() -> exportNotFound(listId, exportId, ListActions.EXPORT));
     if (exportDetails.getStatus().equals(AsyncProcessStatus.CANCELLED)) {
@@ -0,0 +1,49 @@
+package org.folio.list.services.export;
+
+import org.folio.list.domain.JobType;
+import org.folio.list.repository.JobRepository.Job;
+import org.folio.list.services.jobs.JobHandler;
+import org.folio.list.services.jobs.JobPayload;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs queued exports
+ */
+@Service
+public class ExportJobHandler implements JobHandler<JobPayload.Export> {
+
+  private final ListExportService listExportService;
+
+  @Autowired
+  public ExportJobHandler(@Lazy ListExportService listExportService) { // Do not connect to S3 when the application starts
+    this.listExportService = listExportService;
+  }
+
+  @Override
+  public JobType type() {
+    return JobType.EXPORT;
+  }
+
+  @Override
+  public Class<JobPayload.Export> payloadType() {
+    return JobPayload.Export.class;
+  }
+
+  @Override
+  public CompletableFuture<Void> handle(JobPayload.Export payload, Job job) {
+    return listExportService.runExport(payload.exportId(), job.userId(), payload.entityType(),
+      payload.localizedValues());
+  }
+
+  /**
+   * Fail the export, so that it doesn't stay in progress forever
+   */
+  @Override
+  public void giveUp(JobPayload.Export payload, Job job) {
+    listExportService.failExport(payload.exportId());
+  }
+}
@@ -9,8 +9,10 @@ import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
@@ -29,7 +31,11 @@ import org.folio.list.services.AppShutdownService;
 import org.folio.list.services.AppShutdownService.ShutdownTask;
 import org.folio.list.services.ListActions;
 import org.folio.list.services.ListValidationService;
-import org.folio.list.services.RunAsSystemUserService;
+import org.folio.list.services.cancellation.CancellationBus;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.jobs.JobQueue;
 import org.folio.querytool.domain.dto.EntityType;
 import org.folio.querytool.domain.dto.EntityTypeColumn;
 import org.folio.querytool.domain.dto.Field;
@@ -48,6 +54,7 @@ public class ListExportService {
 
   private final FolioExecutionContext executionContext;
   private final AppShutdownService appShutdownService;
+  private final CancellationBus cancellationBus;
   private final EntityTypeClient entityTypeClient;
   private final FolioS3Client folioS3Client;
   private final ListExportMapper listExportMapper;
@@ -55,7 +62,8 @@ public class ListExportService {
   private final ListExportWorkerService listExportWorkerService;
   private final ListRepository listRepository;
   private final ListValidationService validationService;
-  private final RunAsSystemUserService runAsSystemUserService;
+  private final JobQueue jobQueue;
+  private final JobEventBus jobEventBus;
 
   @Transactional
   public ListExportDTO createExport(UUID listId, List<String> fields) {
@@ -80,6 +88,7 @@ public class ListExportService {
 
     ExportDetails exportDetails = createExportDetails(list, validExportFields);
     ExportDetails savedExport = listExportRepository.save(exportDetails);
+    jobEventBus.publish(JobEvent.export(savedExport));
     doAsyncExport(savedExport, entityType);
     return listExportMapper.toListExportDTO(savedExport);
   }
@@ -121,8 +130,14 @@ public class ListExportService {
       .findByListIdAndExportId(listId, exportId)
       .orElseThrow(() -> exportNotFound(listId, exportId, ListActions.CANCEL_EXPORT));
     validationService.validateCancelExport(exportDetails);
+    cancel(exportDetails);
+  }
+
+  private void cancel(ExportDetails exportDetails) {
     exportDetails.setStatus(AsyncProcessStatus.CANCELLED);
     listExportRepository.save(exportDetails);
+    cancellationBus.publishCancellation(exportDetails.getExportId());
+    jobEventBus.publish(JobEvent.export(exportDetails));
   }
 
   private ExportDetails createExportDetails(ListEntity list, List<String> fields) {
@@ -156,34 +171,65 @@ public class ListExportService {
       }
     }
 
-    Runnable cancelExport = () -> cancelExport(exportDetails.getList().getId(), exportDetails.getExportId());
+    jobQueue.enqueue(new JobPayload.Export(exportDetails.getExportId(), entityType, localizedValues));
+  }
+
+  /**
+   * Run a queued export. This runs as the system user, with the user who asked for the export as a proxy.
+   *
+   * @return a future that completes once the export is over, whether it succeeded or not
+   */
+  public CompletableFuture<Void> runExport(UUID exportId, UUID userId, EntityType entityType,
+                                           Map<String, Map<String, String>> localizedValues) {
+    Optional<ExportDetails> export = listExportRepository.findById(exportId)
+      .filter(details -> details.getStatus() == AsyncProcessStatus.IN_PROGRESS);
+    if (export.isEmpty()) {
+      log.info("Export {} is no longer in progress. Skipping it", exportId);
+      return CompletableFuture.completedFuture(null);
+    }
+    ExportDetails exportDetails = export.get();
+    // Running as the system user, the user's own checks don't apply here
     ShutdownTask shutdownTask = appShutdownService.registerShutdownTask(
       executionContext,
-      cancelExport,
+      () -> cancel(exportDetails),
       "Cancel export for list " + exportDetails.getList().getId()
     );
-    UUID userId = executionContext.getUserId();
     log.debug("Using user {} as proxy user for export", userId);
-    runAsSystemUserService.executeAsyncSystemUserScoped(
-      executionContext.getTenantId(),
-      () ->
-        listExportWorkerService
-          .doAsyncExport(exportDetails, userId, entityType, localizedValues)
-          .whenComplete((success, throwable) -> {
-            // Reassign the task (an AutoCloseable) here, to auto-close it when the export is done
-            try (ShutdownTask autoClose = shutdownTask) {
-              setExportStatus(exportDetails, throwable);
-              exportDetails.setEndDate(OffsetDateTime.now());
-              listExportRepository.save(exportDetails);
-            }
-          })
-    );
+    return listExportWorkerService
+      .doAsyncExport(exportDetails, userId, entityType, localizedValues)
+      .handle((success, throwable) -> {
+        // Reassign the task (an AutoCloseable) here, to auto-close it when the export is done
+        try (ShutdownTask autoClose = shutdownTask) {
+          setExportStatus(exportDetails, throwable);
+          exportDetails.setEndDate(OffsetDateTime.now());
+          listExportRepository.save(exportDetails);
+          jobEventBus.publish(JobEvent.export(exportDetails));
+        }
+        return null;
+      });
+  }
+
+  /**
+   * Fail a queued export that was given up on, if it's still in progress
+   */
+  @Transactional
+  public void failExport(UUID exportId) {
+    listExportRepository.findById(exportId)
+      .filter(details -> details.getStatus() == AsyncProcessStatus.IN_PROGRESS)
+      .ifPresent(exportDetails -> {
+        log.error("Export {} of list {} was given up on", exportId, exportDetails.getList().getId());
+        exportDetails.setStatus(AsyncProcessStatus.FAILED);
+        exportDetails.setEndDate(OffsetDateTime.now());
+        listExportRepository.save(exportDetails);
+        jobEventBus.publish(JobEvent.export(exportDetails));
+      });
   }
 
   private void setExportStatus(ExportDetails exportDetails, Throwable throwable) {
     if (throwable == null) {
       exportDetails.setStatus(AsyncProcessStatus.SUCCESS);
-    } else if (throwable.getCause() instanceof ExportCancelledException) {
+    } else if (throwable instanceof ExportCancelledException
+      || throwable.getCause() instanceof ExportCancelledException) {
       exportDetails.setStatus(AsyncProcessStatus.CANCELLED);
     } else {
       exportDetails.setStatus(AsyncProcessStatus.FAILED);
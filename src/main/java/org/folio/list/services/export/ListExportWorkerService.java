@@ -4,12 +4,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.folio.list.domain.ExportDetails;
 import org.folio.list.exception.ExportCancelledException;
+import org.folio.list.services.ListActions;
+import org.folio.list.services.cancellation.CancellationRegistry;
+import org.folio.list.services.cancellation.CancellationRegistry.RunningJob;
 import org.folio.querytool.domain.dto.EntityType;
 import org.folio.s3.client.FolioS3Client;
 import org.folio.s3.exception.S3ClientException;
 import org.folio.spring.FolioExecutionContext;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,23 +31,27 @@ public class ListExportWorkerService {
   private final FolioExecutionContext folioExecutionContext;
   private final FolioS3Client folioS3Client;
   private final CsvCreator csvCreator;
+  private final CancellationRegistry cancellationRegistry;
 
   /**
-   * Performs asynchronous export of list data to CSV and uploads it to S3 using multipart upload.
+   * Exports list data to CSV and uploads it to S3 using multipart upload. This runs on the thread of the queued job
+   * that asked for it (see {@link ExportJobHandler}), rather than handing off to another thread.
    * @param localizedValues Map of localized values for export. The keys are field names, and the values are maps of non-localized to localized strings.
    */
-  @Async
   @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public CompletableFuture<Boolean> doAsyncExport(ExportDetails exportDetails, UUID userId, EntityType entityType, Map<String, Map<String, String>> localizedValues) {
     log.info("Starting export of list: " + exportDetails.getList().getId() + " with Export ID: " + exportDetails.getExportId());
     String destinationFileName = ExportUtils.getFileName(folioExecutionContext.getTenantId(), exportDetails.getExportId());
     String uploadId = null;
     var partETags = new ArrayList<String>();
+    // Register the export, so that a cancellation interrupts it right away (including any in-flight FQM request)
+    RunningJob job = cancellationRegistry.register(exportDetails.getExportId());
     try {
       uploadId = folioS3Client.initiateMultipartUpload(destinationFileName);
       log.info("S3 multipart upload initialized for exportId {}", exportDetails.getExportId());
 
-      ExportLocalStorage andUploadCSV = csvCreator.createAndUploadCSV(exportDetails, destinationFileName, uploadId, partETags, userId, entityType, localizedValues);
+      String multipartUploadId = uploadId;
+      ExportLocalStorage andUploadCSV = job.runInterruptibly(() -> csvCreator.createAndUploadCSV(exportDetails, destinationFileName, multipartUploadId, partETags, userId, entityType, localizedValues));
       andUploadCSV.close();
 
       folioS3Client.completeMultipartUpload(destinationFileName, uploadId, partETags);
@@ -56,7 +62,13 @@ public class ListExportWorkerService {
       abortMultipartUpload(destinationFileName, uploadId, exportDetails);
       return CompletableFuture.failedFuture(ex);
     } catch (Exception ex) {
-
+      if (job.isCancelled()) {
+        // The export was interrupted by its cancellation
+        log.info("Export {} for list {} has been cancelled", exportDetails.getExportId(), exportDetails.getList().getId());
+        abortMultipartUpload(destinationFileName, uploadId, exportDetails);
+        return CompletableFuture.failedFuture(
+          new ExportCancelledException(exportDetails.getList().getId(), exportDetails.getExportId(), ListActions.EXPORT));
+      }
       log.error("Cannot complete the export for the list: {} with exportId: {}. Failure reason: {}",
         exportDetails.getList().getId(),
         exportDetails.getExportId(),
@@ -64,6 +76,8 @@ public class ListExportWorkerService {
       );
       abortMultipartUpload(destinationFileName, uploadId, exportDetails);
       return CompletableFuture.failedFuture(new S3ClientException("S3 upload failed"));
+    } finally {
+      job.close();
     }
   }
 
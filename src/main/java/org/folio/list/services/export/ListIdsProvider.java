@@ -1,9 +1,10 @@
 package org.folio.list.services.export;
 
 import lombok.extern.log4j.Log4j2;
+import org.folio.list.domain.ContentIdBatch;
 import org.folio.list.domain.ListContent;
 import org.folio.list.domain.ListEntity;
-import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStore;
 import org.springframework.data.domain.PageRequest;
 
 import java.util.List;
@@ -16,23 +17,23 @@ import static org.springframework.util.CollectionUtils.isEmpty;
  */
 @Log4j2
 public class ListIdsProvider {
-  private final ListContentsRepository repository;
+  private final ListContentsStore repository;
   private final ListEntity list;
   private int previousSortSequence = SORT_SEQUENCE_START_NUMBER - 1;
 
-  public ListIdsProvider(ListContentsRepository repository, ListEntity list) {
+  public ListIdsProvider(ListContentsStore repository, ListEntity list) {
     this.repository = repository;
     this.list = list;
   }
 
-  public List<List<String>> nextBatch(int batchSize) {
+  public ContentIdBatch nextBatch(int batchSize) {
     log.info("Fetching {} contents of list {} after sequence number {}", batchSize, list.getId(), previousSortSequence);
 
     List<ListContent> listContents = repository.getContents(list.getId(), list.getSuccessRefresh().getId(), previousSortSequence,
       PageRequest.ofSize(batchSize));
 
     if (isEmpty(listContents)) {
-      return List.of();
+      return ContentIdBatch.empty();
     }
 
     previousSortSequence = listContents.stream()
@@ -40,9 +41,6 @@ public class ListIdsProvider {
       .reduce((first, second) -> second)
       .orElse(Integer.MAX_VALUE); // should not be here
 
-    return listContents
-      .stream()
-      .map(ListContent::getContentId)
-      .toList();
+    return ContentIdBatch.ofContents(listContents);
   }
 }
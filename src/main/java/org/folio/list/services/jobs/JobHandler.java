@@ -0,0 +1,36 @@
+package org.folio.list.services.jobs;
+
+import org.folio.list.domain.JobType;
+import org.folio.list.repository.JobRepository.Job;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Does the work of one type of queued job
+ */
+public interface JobHandler<P extends JobPayload> {
+
+  JobType type();
+
+  Class<P> payloadType();
+
+  /**
+   * Run a job. This is called in the context of the tenant that queued the job, as the system user.
+   * <p>
+   * A job may be run more than once, if the node that claimed it went away before it finished (see
+   * {@link Job#attempts()}), so handlers need to cope with work that was already (partly) done.
+   *
+   * @return a future that completes once the job is over. The job is failed if it completes exceptionally.
+   */
+  CompletableFuture<Void> handle(P payload, Job job);
+
+  /**
+   * Fail whatever a job was doing, once it's given up on: every node that claimed it went away before it finished, as
+   * many times as a job may be tried. This is called as the system user, in the transaction that fails the job, so it
+   * mustn't call other modules.
+   * <p>
+   * By default, there's nothing to do: the job's own status is all there is to fail.
+   */
+  default void giveUp(P payload, Job job) {
+  }
+}
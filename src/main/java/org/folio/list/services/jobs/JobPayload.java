@@ -0,0 +1,78 @@
+package org.folio.list.services.jobs;
+
+import org.folio.list.domain.JobType;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
+import org.folio.querytool.domain.dto.EntityType;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * What a queued job needs to know to do its work. Payloads are stored as JSON, so they need to hold everything the job
+ * needs that can't be looked up again once it runs (possibly on another node, as the system user).
+ */
+public sealed interface JobPayload {
+
+  JobType type();
+
+  /**
+   * Roughly how much work the job is, in records, or 0 if there's no telling. Bigger jobs give way to smaller ones.
+   */
+  default long expectedSize() {
+    return 0;
+  }
+
+  /**
+   * Whether the job acts on behalf of the user who queued it. Such a job still runs as the system user, but with the
+   * user's ID in its context, and its handler checks that the user is still allowed to do the work before it starts.
+   */
+  default boolean runsAsRequester() {
+    return false;
+  }
+
+  /**
+   * Refresh a list, or import the results of a query that was already run for it, or resume an interrupted refresh
+   *
+   * @param queryId         the query whose results to import, or null to run the list's own query
+   * @param timings         the timings of the work done before the refresh was queued, to be included in its own
+   * @param expectedRecords the number of records the list's last successful refresh found, if any
+   * @param checkpoint      the checkpoint to resume the refresh from, handed off to the job by
+   *                        {@link org.folio.list.services.refresh.RefreshResumer}, or null to start from scratch
+   */
+  record Refresh(UUID listId, UUID refreshId, UUID queryId, Map<String, String> timings, Integer expectedRecords,
+                 RefreshCheckpoint checkpoint)
+    implements JobPayload {
+    @Override
+    public JobType type() {
+      return JobType.REFRESH;
+    }
+
+    @Override
+    public long expectedSize() {
+      return expectedRecords == null ? 0 : expectedRecords;
+    }
+
+    /**
+     * A refresh runs the list's query on behalf of the user who asked for it, as it always has, so that the list only
+     * holds what that user can see (see {@link org.folio.list.services.refresh.RefreshJobHandler})
+     */
+    @Override
+    public boolean runsAsRequester() {
+      return true;
+    }
+  }
+
+  /**
+   * Export a list to CSV
+   *
+   * @param entityType      the list's entity type, as seen by the user who asked for the export
+   * @param localizedValues localized values of the columns that need them, fetched with the user's permissions
+   */
+  record Export(UUID exportId, EntityType entityType, Map<String, Map<String, String>> localizedValues)
+    implements JobPayload {
+    @Override
+    public JobType type() {
+      return JobType.EXPORT;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package org.folio.list.services.jobs;
+
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.JobQueueProperties;
+import org.folio.list.repository.JobRepository;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Queues refreshes and exports to run in the background.
+ * <p>
+ * Jobs are stored in the tenant's jobs table, in the caller's transaction, so they're only visible once the work that
+ * led to them is committed, and they survive the node going away. Any node can run them: see {@link JobWorker}.
+ * <p>
+ * Each tenant's jobs run roughly in the order they were queued, except that big jobs count as queued a little later than
+ * they were (up to a limit), so that a quick refresh of a small list doesn't sit behind a batch of huge ones.
+ * <p>
+ * Jobs run as the system user. Only the ID of the user who queued a job is kept with it, never their token: tokens
+ * don't belong in the database, and they'd expire while the job waits its turn anyway. Jobs whose payload
+ * {@link JobPayload#runsAsRequester() runs as the requester} act on that user's behalf (see {@link JobWorker}).
+ */
+@Log4j2
+@Service
+public class JobQueue {
+
+  /**
+   * Published when a job is queued, so that this node can pick it up without waiting for its next poll
+   */
+  public record JobQueuedEvent(String tenantId) {
+  }
+
+  private final JobRepository jobRepository;
+  private final FolioExecutionContext executionContext;
+  private final ObjectMapper objectMapper;
+  private final ApplicationEventPublisher eventPublisher;
+  private final JobQueueProperties properties;
+
+  @Autowired
+  public JobQueue(JobRepository jobRepository,
+                  FolioExecutionContext executionContext,
+                  ObjectMapper objectMapper,
+                  ApplicationEventPublisher eventPublisher,
+                  JobQueueProperties properties) {
+    this.jobRepository = jobRepository;
+    this.executionContext = executionContext;
+    this.objectMapper = objectMapper;
+    this.eventPublisher = eventPublisher;
+    this.properties = properties;
+  }
+
+  /**
+   * Queue a job for the current tenant, on behalf of the current user
+   *
+   * @return the job's ID
+   */
+  public UUID enqueue(JobPayload payload) {
+    UUID jobId = UUID.randomUUID();
+    jobRepository.enqueue(jobId, payload.type(), objectMapper.writeValueAsString(payload),
+      executionContext.getUserId(), executionContext.getOkapiUrl(), sortPenalty(payload));
+    log.info("Queued {} job {} for tenant {}", payload.type(), jobId, executionContext.getTenantId());
+    eventPublisher.publishEvent(new JobQueuedEvent(executionContext.getTenantId()));
+    return jobId;
+  }
+
+  /**
+   * Find where a refresh is in the current tenant's queue
+   *
+   * @return the refresh's position (1 if it's next to run), or empty if it isn't waiting to run
+   */
+  public Optional<Integer> findRefreshQueuePosition(UUID refreshId) {
+    return jobRepository.findRefreshQueuePosition(refreshId);
+  }
+
+  // Visible for testing
+  public Duration sortPenalty(JobPayload payload) {
+    long penaltyMillis = payload.expectedSize() * 1000 / properties.sizePenaltyRecordsPerSecond();
+    return Duration.ofMillis(Math.min(penaltyMillis, properties.maxSizePenaltySeconds() * 1000L));
+  }
+}
@@ -0,0 +1,423 @@
+package org.folio.list.services.jobs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.JobQueueProperties;
+import org.folio.list.domain.JobType;
+import org.folio.list.repository.JobRepository;
+import org.folio.list.repository.JobRepository.Job;
+import org.folio.list.repository.JobRepository.JobStatus;
+import org.folio.list.services.TenantSchemas;
+import org.folio.list.services.jobs.JobQueue.JobQueuedEvent;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.folio.list.util.LogUtils.sanitizeExceptionMessage;
+
+/**
+ * Runs queued jobs (see {@link JobQueue}).
+ * <p>
+ * Every node with the worker enabled polls each tenant's queue, and claims jobs with a lease that it renews for as long
+ * as they run. A node that goes away stops renewing its leases, so its jobs are claimed again by another node once they
+ * run out. Each node runs a limited number of jobs at once, and each tenant may only have a limited number of jobs
+ * running at once across all nodes, so that one busy tenant can't hold up everyone else.
+ * <p>
+ * A node's job slots are shared between tenants by weight: each tenant first gets its fair share of the slots, and
+ * whatever other tenants don't need is then handed out one at a time, in turn, to the tenants with more work waiting.
+ * The tenant that goes first changes from one poll to the next.
+ * <p>
+ * A job whose node went away {@link JobQueueProperties#maxAttempts()} times is given up on rather than claimed again.
+ * Its handler fails whatever it was doing (e.g., the list's refresh) in the same transaction as the job itself, so that
+ * a list can't be left refreshing (or an export in progress) forever.
+ * <p>
+ * Jobs run as the system user, since no user's token is kept with them (see {@link JobQueue}). Jobs that
+ * {@link JobPayload#runsAsRequester() run as the requester} (i.e., refreshes) get the ID of the user who queued them in
+ * their context, just like scheduled refreshes do, and their handler checks that user's current permissions before
+ * starting the work. Exports run as the system user, with the user as a proxy, just as they always have.
+ */
+@Log4j2
+@Service
+public class JobWorker {
+
+  public static final String JOBS_METRIC = "mod_lists.jobs";
+  private static final Duration PURGE_INTERVAL = Duration.ofMinutes(5);
+
+  private record RunningJob(String tenantId, Job job) {
+  }
+
+  private final JobRepository jobRepository;
+  private final Map<JobType, JobHandler<?>> handlers = new EnumMap<>(JobType.class);
+  private final ObjectMapper objectMapper;
+  private final AsyncTaskExecutor taskExecutor;
+  private final FolioModuleMetadata folioModuleMetadata;
+  private final TenantSchemas tenantSchemas;
+  private final JobQueueProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final TransactionTemplate transactionTemplate;
+  private final Map<UUID, RunningJob> runningJobs = new ConcurrentHashMap<>();
+  private final Map<String, Instant> lastPurges = new HashMap<>();
+  private volatile List<String> knownTenants = List.of();
+  private int nextFirstTenant;
+  private ScheduledExecutorService scheduler;
+  private volatile boolean running = true;
+
+  @Autowired
+  public JobWorker(JobRepository jobRepository,
+                   List<JobHandler<?>> handlers,
+                   ObjectMapper objectMapper,
+                   AsyncTaskExecutor taskExecutor,
+                   FolioModuleMetadata folioModuleMetadata,
+                   TenantSchemas tenantSchemas,
+                   JobQueueProperties properties,
+                   MeterRegistry meterRegistry,
+                   PlatformTransactionManager transactionManager) {
+    this.jobRepository = jobRepository;
+    handlers.forEach(handler -> this.handlers.put(handler.type(), handler));
+    this.objectMapper = objectMapper;
+    this.taskExecutor = taskExecutor;
+    this.folioModuleMetadata = folioModuleMetadata;
+    this.tenantSchemas = tenantSchemas;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!properties.workerEnabled()) {
+      log.info("Job worker is disabled on this node");
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("mod-lists-job-worker").daemon().factory()
+    );
+    scheduler.scheduleWithFixedDelay(this::pollAllTenants, properties.pollIntervalMillis(),
+      properties.pollIntervalMillis(), TimeUnit.MILLISECONDS);
+    long renewalIntervalSeconds = Math.max(1, properties.leaseSeconds() / 3);
+    scheduler.scheduleWithFixedDelay(this::renewLeases, renewalIntervalSeconds, renewalIntervalSeconds,
+      TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Pick up a job queued on this node right away, once it's committed
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onJobQueued(JobQueuedEvent event) {
+    wakeUp(event.tenantId());
+  }
+
+  /**
+   * Claim and start as many queued jobs as there's room for, sharing the room fairly between tenants
+   */
+  // Visible for testing
+  public void pollAllTenants() {
+    List<String> tenants;
+    try {
+      tenants = tenantSchemas.findTenantsWithTable("jobs");
+    } catch (Exception e) {
+      // Don't let this escape, or the scheduler would stop running us
+      log.warn("Unable to find tenants to run jobs for", e);
+      return;
+    }
+    knownTenants = tenants;
+    if (tenants.isEmpty()) {
+      return;
+    }
+    // Only the scheduler thread polls, so this needs no synchronization
+    int first = Math.floorMod(nextFirstTenant++, tenants.size());
+    List<String> inTurn = new ArrayList<>(tenants.subList(first, tenants.size()));
+    inTurn.addAll(tenants.subList(0, first));
+
+    // Each tenant gets its fair share first...
+    List<String> wantMore = new ArrayList<>();
+    for (String tenantId : inTurn) {
+      if (!running) {
+        return;
+      }
+      purgeFinishedJobs(tenantId);
+      giveUpAbandonedJobs(tenantId);
+      if (pollTenant(tenantId)) {
+        wantMore.add(tenantId);
+      }
+    }
+    // ...then the room the others didn't need goes to whoever has more work waiting, one job at a time
+    while (!wantMore.isEmpty() && room() > 0 && running) {
+      wantMore.removeIf(tenantId -> claimAndStart(tenantId, 1) < 1);
+    }
+  }
+
+  /**
+   * Claim and start up to the tenant's fair share of this node's job slots
+   *
+   * @return true if the tenant may have more work waiting than its share allowed for
+   */
+  // Visible for testing
+  public boolean pollTenant(String tenantId) {
+    int allowance = Math.min(room(), fairShare(tenantId) - runningJobsOf(tenantId));
+    if (allowance <= 0) {
+      return true;
+    }
+    return claimAndStart(tenantId, allowance) == allowance;
+  }
+
+  // Visible for testing
+  public int fairShare(String tenantId) {
+    List<String> tenants = knownTenants;
+    int totalWeight = tenants.stream().mapToInt(properties::getWeight).sum();
+    if (!tenants.contains(tenantId)) {
+      // Enabled after the last poll
+      totalWeight += properties.getWeight(tenantId);
+    }
+    return Math.max(1, properties.maxRunningJobs() * properties.getWeight(tenantId) / totalWeight);
+  }
+
+  /**
+   * @return the number of jobs started
+   */
+  private int claimAndStart(String tenantId, int maxJobs) {
+    // Only the scheduler thread starts jobs, so there's no race between this check and the claim
+    int limit = Math.min(maxJobs, room());
+    if (limit <= 0 || !running) {
+      return 0;
+    }
+    List<Job> jobs;
+    try {
+      jobs = tenantSchemas.systemContext(tenantId).execute(() -> jobRepository.claim(limit,
+        properties.getMaxRunningJobs(tenantId), properties.maxAttempts(), lease()));
+    } catch (Exception e) {
+      log.warn("Error claiming jobs for tenant {}", tenantId, e);
+      return 0;
+    }
+    jobs.forEach(job -> start(tenantId, job));
+    return jobs.size();
+  }
+
+  private int room() {
+    return properties.maxRunningJobs() - runningJobs.size();
+  }
+
+  private int runningJobsOf(String tenantId) {
+    return (int) runningJobs.values().stream().filter(job -> job.tenantId().equals(tenantId)).count();
+  }
+
+  /**
+   * Keep this node's claims on its running jobs
+   */
+  // Visible for testing
+  public void renewLeases() {
+    for (RunningJob runningJob : List.copyOf(runningJobs.values())) {
+      Job job = runningJob.job();
+      try {
+        boolean renewed = tenantSchemas.systemContext(runningJob.tenantId())
+          .execute(() -> jobRepository.extendLease(job.id(), job.claimToken(), lease()));
+        if (!renewed) {
+          // Its lease ran out (e.g., a long GC pause, or the DB was unreachable for a while) and another node took it
+          log.warn("Lost the claim on {} job {} for tenant {}. Another node may be running it too", job.type(),
+            job.id(), runningJob.tenantId());
+        }
+      } catch (Exception e) {
+        log.warn("Error renewing the lease on job {} for tenant {}", job.id(), runningJob.tenantId(), e);
+      }
+    }
+  }
+
+  private void start(String tenantId, Job job) {
+    log.info("Starting {} job {} for tenant {} (attempt {})", job.type(), job.id(), tenantId, job.attempts());
+    runningJobs.put(job.id(), new RunningJob(tenantId, job));
+    try {
+      taskExecutor.execute(() -> {
+        CompletableFuture<Void> done;
+        try {
+          done = jobContext(tenantId, job).execute(() -> handle(job));
+        } catch (Exception e) {
+          done = CompletableFuture.failedFuture(e);
+        }
+        done.whenComplete((ignored, throwable) -> finish(tenantId, job, throwable));
+      });
+    } catch (RejectedExecutionException e) {
+      // Leave it for a node (or a later poll) with room for it
+      log.warn("No room to start {} job {} for tenant {}. Putting it back in the queue", job.type(), job.id(), tenantId);
+      runningJobs.remove(job.id());
+      tenantSchemas.systemContext(tenantId).execute(() -> {
+        jobRepository.release(job.id(), job.claimToken());
+        return null;
+      });
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <P extends JobPayload> CompletableFuture<Void> handle(Job job) {
+    JobHandler<P> handler = (JobHandler<P>) handlers.get(job.type());
+    if (handler == null) {
+      throw new IllegalStateException("No handler for " + job.type() + " jobs");
+    }
+    return handler.handle(objectMapper.readValue(job.payload(), handler.payloadType()), job);
+  }
+
+  private void finish(String tenantId, Job job, Throwable throwable) {
+    runningJobs.remove(job.id());
+    Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+    JobStatus status = cause == null ? JobStatus.SUCCEEDED : JobStatus.FAILED;
+    if (cause == null) {
+      log.info("{} job {} for tenant {} is done", job.type(), job.id(), tenantId);
+    } else {
+      log.error("{} job {} for tenant {} failed", job.type(), job.id(), tenantId, cause);
+    }
+    try {
+      String error = cause == null ? null : sanitizeExceptionMessage(cause.toString());
+      boolean recorded = tenantSchemas.systemContext(tenantId)
+        .execute(() -> jobRepository.finish(job.id(), job.claimToken(), status, error));
+      if (!recorded) {
+        log.warn("Lost the claim on {} job {} for tenant {} before it finished", job.type(), job.id(), tenantId);
+      }
+    } catch (Exception e) {
+      // The job will be claimed again once its lease runs out
+      log.warn("Error recording the outcome of job {} for tenant {}", job.id(), tenantId, e);
+    }
+    countJob(tenantId, job, status.name());
+    // There's room for another job now
+    wakeUp(tenantId);
+  }
+
+  private void countJob(String tenantId, Job job, String status) {
+    Counter.builder(JOBS_METRIC)
+      .description("Queued jobs run on this node")
+      .tag("tenant", tenantId)
+      .tag("type", job.type().name())
+      .tag("status", status)
+      .register(meterRegistry)
+      .increment();
+  }
+
+  private void wakeUp(String tenantId) {
+    if (scheduler == null || !running) {
+      return;
+    }
+    try {
+      scheduler.execute(() -> pollTenant(tenantId));
+    } catch (RejectedExecutionException e) {
+      // Shutting down
+    }
+  }
+
+  /**
+   * Fail the tenant's jobs that were claimed too many times, along with whatever they were doing
+   */
+  // Visible for testing
+  public void giveUpAbandonedJobs(String tenantId) {
+    List<Job> abandoned;
+    try {
+      abandoned = tenantSchemas.systemContext(tenantId)
+        .execute(() -> jobRepository.findAbandoned(properties.maxAttempts()));
+    } catch (Exception e) {
+      log.warn("Error finding abandoned jobs for tenant {}", tenantId, e);
+      return;
+    }
+    for (Job job : abandoned) {
+      try {
+        Boolean gaveUp = tenantSchemas.systemContext(tenantId)
+          .execute(() -> transactionTemplate.execute(status -> giveUp(job)));
+        if (Boolean.TRUE.equals(gaveUp)) {
+          log.error("Gave up on {} job {} for tenant {} after {} attempts", job.type(), job.id(), tenantId,
+            job.attempts());
+          countJob(tenantId, job, "ABANDONED");
+        }
+      } catch (Exception e) {
+        // Nothing was committed, so the next poll tries again
+        log.warn("Error giving up on {} job {} for tenant {}", job.type(), job.id(), tenantId, e);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <P extends JobPayload> boolean giveUp(Job job) {
+    if (!jobRepository.giveUp(job.id(), job.claimToken())) {
+      // Another node got to it first
+      return false;
+    }
+    JobHandler<P> handler = (JobHandler<P>) handlers.get(job.type());
+    if (handler != null) {
+      handler.giveUp(objectMapper.readValue(job.payload(), handler.payloadType()), job);
+    }
+    return true;
+  }
+
+  private void purgeFinishedJobs(String tenantId) {
+    Instant lastPurge = lastPurges.get(tenantId);
+    if (lastPurge != null && lastPurge.plus(PURGE_INTERVAL).isAfter(Instant.now())) {
+      return;
+    }
+    lastPurges.put(tenantId, Instant.now());
+    try {
+      int deleted = tenantSchemas.systemContext(tenantId).execute(() ->
+        jobRepository.deleteFinishedBefore(Duration.ofMinutes(properties.retentionMinutes())));
+      log.debug("Deleted {} finished jobs for tenant {}", deleted, tenantId);
+    } catch (Exception e) {
+      log.warn("Error deleting finished jobs for tenant {}", tenantId, e);
+    }
+  }
+
+  private Duration lease() {
+    return Duration.ofSeconds(properties.leaseSeconds());
+  }
+
+  /**
+   * The context to run a job in: the system user's, with the ID of the user who queued the job if the job acts on their
+   * behalf. As with {@link org.folio.list.services.RunAsSystemUserService}, leaving out the token makes the call run as
+   * the system user.
+   */
+  // Visible for testing
+  public FolioExecutionContext jobContext(String tenantId, Job job) {
+    Map<String, Collection<String>> headers = new HashMap<>();
+    headers.put(XOkapiHeaders.TENANT, List.of(tenantId));
+    if (job.okapiUrl() != null) {
+      headers.put(XOkapiHeaders.URL, List.of(job.okapiUrl()));
+    }
+    if (job.userId() != null && runsAsRequester(job)) {
+      headers.put(XOkapiHeaders.USER_ID, List.of(job.userId().toString()));
+    }
+    return new DefaultFolioExecutionContext(folioModuleMetadata, headers);
+  }
+
+  private boolean runsAsRequester(Job job) {
+    JobHandler<?> handler = handlers.get(job.type());
+    return handler != null && objectMapper.readValue(job.payload(), handler.payloadType()).runsAsRequester();
+  }
+}
@@ -0,0 +1,224 @@
+package org.folio.list.services.purge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.ListContentsPurgeProperties;
+import org.folio.list.repository.ListContentsGarbageRepository;
+import org.folio.list.repository.ListContentsGarbageRepository.GarbageEntry;
+import org.folio.list.repository.ListContentsPartitionRepository;
+import org.folio.list.services.TenantSchemas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes obsolete list contents in the background.
+ * <p>
+ * Deleting a big refresh's contents in one statement holds locks and floods the WAL for as long as it takes, and it
+ * used to happen right in the transaction that published the new refresh. Instead, contents are now just marked as
+ * garbage in that transaction, and this reaper deletes them afterward in small chunks, pausing between chunks so that
+ * it doesn't crowd out other work. Progress is recorded after every chunk, and entries are claimed with a lease, so a
+ * purge interrupted by a restart picks up where it left off (on any node). Refreshes that got a partition of their own
+ * (see {@link ListContentsPartitionRepository}) skip all that: their partition is just dropped. Refreshes stored in
+ * chunks (see {@link org.folio.list.repository.ChunkedListContentsStore}) skip it too, since they're few enough rows
+ * to delete at once.
+ * <p>
+ * Contents marked as garbage are never read again: reads always go through the list's current refresh, which stops
+ * pointing at the old contents in the same transaction that marks them.
+ */
+@Log4j2
+@Service
+public class ListContentsReaper {
+
+  static final String ROWS_DELETED_METRIC = "mod_lists.list_contents.purge.rows";
+  static final String ENTRIES_PURGED_METRIC = "mod_lists.list_contents.purge.entries";
+  public static final String PARTITIONS_DROPPED_METRIC = "mod_lists.list_contents.purge.partitions";
+  static final String ENTRIES_PENDING_METRIC = "mod_lists.list_contents.purge.pending";
+  // How long an entry stays claimed without progress, before another run (or node) may take it over
+  private static final Duration LEASE = Duration.ofMinutes(5);
+
+  private final ListContentsGarbageRepository garbageRepository;
+  private final ListContentsPartitionRepository partitionRepository;
+  private final TenantSchemas tenantSchemas;
+  private final ListContentsPurgeProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final AtomicLong pendingEntries = new AtomicLong();
+  private ScheduledExecutorService scheduler;
+  private volatile boolean running = true;
+
+  @Autowired
+  public ListContentsReaper(ListContentsGarbageRepository garbageRepository,
+                            ListContentsPartitionRepository partitionRepository,
+                            TenantSchemas tenantSchemas,
+                            ListContentsPurgeProperties properties,
+                            MeterRegistry meterRegistry) {
+    this.garbageRepository = garbageRepository;
+    this.partitionRepository = partitionRepository;
+    this.tenantSchemas = tenantSchemas;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    Gauge.builder(ENTRIES_PENDING_METRIC, pendingEntries, AtomicLong::get)
+      .description("Sets of list contents waiting to be purged, as of the last purge run")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Mark a refresh's contents for purging. Call this in the transaction that makes the contents obsolete.
+   */
+  public void markGarbage(UUID listId, UUID refreshId) {
+    log.info("Marking contents of list {}, refresh {} for purging", listId, refreshId);
+    garbageRepository.markGarbage(listId, refreshId);
+  }
+
+  /**
+   * Mark all of a deleted list's contents for purging. Call this in the transaction that deletes the list.
+   */
+  public void markDeletedListGarbage(UUID listId) {
+    log.info("Marking all contents of deleted list {} for purging", listId);
+    garbageRepository.markGarbage(listId);
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!properties.enabled()) {
+      log.info("List contents purge is disabled on this node");
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("mod-lists-contents-reaper").daemon().factory()
+    );
+    scheduler.scheduleWithFixedDelay(this::purgeAllTenants, properties.intervalSeconds(),
+      properties.intervalSeconds(), TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Purge everything that's currently marked as garbage, for every tenant
+   */
+  // Visible for testing
+  public void purgeAllTenants() {
+    List<String> tenants;
+    try {
+      tenants = tenantSchemas.findTenantsWithTable("list_contents_garbage");
+    } catch (Exception e) {
+      // Don't let this escape, or the scheduler would stop running us
+      log.warn("Unable to find tenants to purge list contents for", e);
+      return;
+    }
+    long pending = 0;
+    for (String tenantId : tenants) {
+      if (!running) {
+        return;
+      }
+      try {
+        pending += tenantSchemas.systemContext(tenantId).execute(() -> purgeTenant(tenantId));
+      } catch (Exception e) {
+        // Whatever was left is still marked, so the next run will try again
+        log.warn("Error purging list contents for tenant {}", tenantId, e);
+      }
+    }
+    pendingEntries.set(pending);
+  }
+
+  /**
+   * @return the number of entries still waiting to be purged
+   */
+  private long purgeTenant(String tenantId) {
+    while (running) {
+      var entry = garbageRepository.claimNext(LEASE);
+      if (entry.isEmpty()) {
+        break;
+      }
+      purgeEntry(tenantId, entry.get());
+    }
+    return garbageRepository.countPending();
+  }
+
+  private void purgeEntry(String tenantId, GarbageEntry entry) {
+    // Refreshes with a partition of their own are simply dropped
+    if (entry.refreshId() != null) {
+      if (dropPartition(tenantId, entry.refreshId())) {
+        completeEntry(tenantId, entry, entry.rowsDeleted());
+        return;
+      }
+    } else {
+      partitionRepository.findPartitionedRefreshes(entry.listId())
+        .forEach(refreshId -> dropPartition(tenantId, refreshId));
+    }
+    // Refreshes written in chunks have no rows, so the loop below finds nothing for them
+    garbageRepository.deleteChunkedContents(entry);
+
+    Counter rowsDeleted = Counter.builder(ROWS_DELETED_METRIC)
+      .description("Rows purged from list_contents")
+      .tag("tenant", tenantId)
+      .register(meterRegistry);
+    long total = entry.rowsDeleted();
+    int deleted;
+    do {
+      deleted = garbageRepository.deleteChunk(entry, properties.chunkSize());
+      garbageRepository.recordProgress(entry.id(), deleted, LEASE);
+      rowsDeleted.increment(deleted);
+      total += deleted;
+      if (deleted == properties.chunkSize()) {
+        pause();
+      }
+    } while (running && deleted == properties.chunkSize());
+
+    if (deleted < properties.chunkSize()) {
+      completeEntry(tenantId, entry, total);
+    }
+  }
+
+  private boolean dropPartition(String tenantId, UUID refreshId) {
+    boolean dropped = partitionRepository.dropRefreshPartition(refreshId);
+    if (dropped) {
+      Counter.builder(PARTITIONS_DROPPED_METRIC)
+        .description("Refresh partitions dropped from list_contents")
+        .tag("tenant", tenantId)
+        .register(meterRegistry)
+        .increment();
+    }
+    return dropped;
+  }
+
+  private void completeEntry(String tenantId, GarbageEntry entry, long rowsDeleted) {
+    garbageRepository.remove(entry.id());
+    Counter.builder(ENTRIES_PURGED_METRIC)
+      .description("Sets of list contents fully purged")
+      .tag("tenant", tenantId)
+      .register(meterRegistry)
+      .increment();
+    log.info("Purged {} rows of list {}, refresh {} for tenant {}", rowsDeleted, entry.listId(),
+      entry.refreshId() == null ? "(all)" : entry.refreshId(), tenantId);
+  }
+
+  private void pause() {
+    if (properties.chunkDelayMillis() == 0) {
+      return;
+    }
+    try {
+      Thread.sleep(properties.chunkDelayMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
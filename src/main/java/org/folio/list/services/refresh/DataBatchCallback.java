@@ -3,6 +3,7 @@ package org.folio.list.services.refresh;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.folio.list.domain.AsyncProcessStatus;
+import org.folio.list.domain.ContentIdBatch;
 import org.folio.list.domain.ListContent;
 import org.folio.list.domain.ListEntity;
 import org.folio.list.domain.ListRefreshDetails;
@@ -10,10 +11,13 @@ import org.folio.list.domain.dto.ListConfiguration;
 import org.folio.list.exception.ListNotRefreshingException;
 import org.folio.list.exception.MaxListSizeExceededException;
 import org.folio.list.exception.RefreshCancelledException;
-import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsWriter;
 import org.folio.list.repository.ListRefreshRepository;
 import org.folio.list.services.ListActions;
+import org.folio.list.services.cancellation.CancellationRegistry;
+import org.folio.list.services.cancellation.CancellationRegistry.RunningJob;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,25 +29,51 @@ import static org.folio.list.domain.ListContent.SORT_SEQUENCE_START_NUMBER;
 @Log4j2
 public class DataBatchCallback implements BiConsumer<ListEntity, List<List<String>>> {
   private final ListRefreshRepository listRefreshRepository;
-  private final ListContentsRepository listContentsRepository;
+  private final ListContentsWriter listContentsWriter;
   private final ListConfiguration listConfiguration;
+  private final CancellationRegistry cancellationRegistry;
+  private final RefreshCheckpointService refreshCheckpointService;
   private int batchNumber = 0;
   private int sortSequence = SORT_SEQUENCE_START_NUMBER;
+  private RefreshProgressTracker progressTracker;
 
   public void accept(ListEntity entity, List<List<String>> contentIds) {
+    accept(entity, ContentIdBatch.of(contentIds));
+  }
+
+  public void accept(ListEntity entity, ContentIdBatch contentIds) {
     UUID refreshId = entity.getInProgressRefreshId().orElseThrow(() -> new ListNotRefreshingException(entity, ListActions.REFRESH));
-    log.info("Received data batch for list {}, refreshId {}: {}", entity.getId(), refreshId, contentIds);
-    if (batchNumber % 10 == 0) {
-      checkIfRefreshCancelled(entity, refreshId);
-    }
+    log.info("Received data batch for list {}, refreshId {}: {} IDs", entity.getId(), refreshId, contentIds.size());
+    checkIfRefreshCancelled(entity, refreshId);
     checkIfMaxListSizeExceeded(entity, sortSequence + contentIds.size());
-    List<ListContent> batch = contentIds.stream()
-      .map(id -> new ListContent(entity.getId(), refreshId, id, sortSequence++))
-      .toList();
-    listContentsRepository.saveAll(batch);
+    List<ListContent> batch = new ArrayList<>(contentIds.size());
+    for (int i = 0; i < contentIds.size(); i++) {
+      batch.add(new ListContent(entity.getId(), refreshId, contentIds.encoded(i), sortSequence++));
+    }
+    listContentsWriter.writeContents(batch);
     log.info("Saved list contents; list ID: {}; refreshId: {}; records in this batch: {}; total records so far: {}",
       entity.getId(), refreshId, contentIds.size(), sortSequence);
     batchNumber++;
+    refreshCheckpointService.advance(refreshId, sortSequence, batchNumber);
+    if (progressTracker != null) {
+      progressTracker.batchImported(contentIds.size(), sortSequence - SORT_SEQUENCE_START_NUMBER, batchNumber);
+    }
+  }
+
+  /**
+   * Continue a refresh that was interrupted after writing {@code batchNumber} batches, ending just before
+   * {@code sortSequence}
+   */
+  public void resumeFrom(int sortSequence, int batchNumber) {
+    this.sortSequence = sortSequence;
+    this.batchNumber = batchNumber;
+  }
+
+  /**
+   * Report the refresh's progress to the given tracker as batches are written
+   */
+  public void trackProgress(RefreshProgressTracker progressTracker) {
+    this.progressTracker = progressTracker;
   }
 
   private void checkIfMaxListSizeExceeded(ListEntity entity, int currentSize) {
@@ -55,9 +85,25 @@ public class DataBatchCallback implements BiConsumer<ListEntity, List<List<Strin
   }
 
   /**
-   * Retrieve up-to-date inProgressRefresh from database to check if cancelled. If so, stop performing refresh
+   * Stop performing the refresh if it has been cancelled. Cancellations normally reach the running refresh through the
+   * {@link CancellationRegistry}, so this is just an in-memory check. The database is only consulted (every 10 batches)
+   * when the registry says it might have missed a cancellation, or if the refresh isn't registered at all.
    */
   private void checkIfRefreshCancelled(ListEntity entity, UUID refreshId) {
+    Optional<RunningJob> job = cancellationRegistry.find(refreshId);
+    if (job.map(RunningJob::isCancelled).orElse(false)) {
+      log.info("Refresh cancelled for list {}, refreshId {}", entity.getId(), refreshId);
+      throw new RefreshCancelledException(entity);
+    }
+    if (batchNumber % 10 == 0 && job.map(RunningJob::needsStatusCheck).orElse(true)) {
+      checkIfRefreshCancelledInDatabase(entity, refreshId);
+    }
+  }
+
+  /**
+   * Retrieve up-to-date inProgressRefresh from database to check if cancelled. If so, stop performing refresh
+   */
+  private void checkIfRefreshCancelledInDatabase(ListEntity entity, UUID refreshId) {
     Optional<ListRefreshDetails> inProgressRefresh = listRefreshRepository.findById(refreshId);
     inProgressRefresh
       .filter(refresh -> refresh.getStatus() == AsyncProcessStatus.CANCELLED)
@@ -0,0 +1,91 @@
+package org.folio.list.services.refresh;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.DirectImportProperties;
+import org.folio.list.domain.ListEntity;
+import org.folio.list.domain.dto.ListConfiguration;
+import org.folio.list.exception.ListNotRefreshingException;
+import org.folio.list.exception.MaxListSizeExceededException;
+import org.folio.list.repository.ListContentsStagingRepository;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.ListContentsWriter.WriteMode;
+import org.folio.list.repository.QueryResultsImportRepository;
+import org.folio.list.repository.QueryResultsImportRepository.ResultTable;
+import org.folio.list.services.ListActions;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.stereotype.Service;
+
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Imports a refresh's query results without fetching them from FQM, when mod-fqm-manager keeps them in the same
+ * database. The results are copied from FQM's result table into list_contents by a single INSERT ... SELECT, so they
+ * never leave the database.
+ * <p>
+ * FQM doesn't tell us where it keeps its results, so the result table is configured (see
+ * {@link DirectImportProperties}). If it isn't there, or we aren't allowed to read it, the refresh falls back to paging
+ * through the results over HTTP, as usual.
+ * <p>
+ * Reading the result table directly skips FQM's own checks on who may fetch a query's results, so only the refresh
+ * that submitted a query, in its own context, may import it this way. A refresh sharing a query submitted for another
+ * list (see {@link QueryCoalescer}), or importing a query it was handed, fetches the results from FQM.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class DirectResultsImporter {
+
+  // Tenant IDs end up in the result table's name, so anything else is never trusted
+  private static final Pattern TENANT_ID = Pattern.compile("[a-z][a-z0-9_]*");
+
+  private final DirectImportProperties properties;
+  private final QueryResultsImportRepository queryResultsImportRepository;
+  private final ListConfiguration listConfiguration;
+  private final FolioExecutionContext executionContext;
+
+  /**
+   * Import all of a query's results into a list's in-progress refresh, if they can be copied inside the database.
+   * Only call this before any of the refresh's contents have been written, and only for a query the refresh submitted
+   * itself.
+   *
+   * @return the number of results imported, or empty if the results have to be fetched from FQM instead
+   */
+  public OptionalInt importResults(ListEntity list, UUID queryId, WriteMode writeMode) {
+    if (!properties.enabled()) {
+      return OptionalInt.empty();
+    }
+    if (writeMode.layout() != Layout.ROWS) {
+      log.debug("Results of query {} can't be imported inside the database when writing {}", queryId, writeMode);
+      return OptionalInt.empty();
+    }
+    String tenantId = executionContext.getTenantId();
+    if (tenantId == null || !TENANT_ID.matcher(tenantId).matches()) {
+      return OptionalInt.empty();
+    }
+    ResultTable resultTable = new ResultTable(properties.resultTable(tenantId), properties.queryIdColumn(),
+      properties.contentIdColumn(), properties.sortColumn());
+    if (!queryResultsImportRepository.isReadable(resultTable.table())) {
+      log.info("FQM result table {} isn't readable. Fetching results of query {} from FQM", resultTable.table(), queryId);
+      return OptionalInt.empty();
+    }
+
+    UUID refreshId = list.getInProgressRefreshId()
+      .orElseThrow(() -> new ListNotRefreshingException(list, ListActions.REFRESH));
+    String targetTable = writeMode == WriteMode.STAGED
+      ? ListContentsStagingRepository.stagingTableName(refreshId)
+      : "list_contents";
+    int maxListSize = listConfiguration.getMaxListSize();
+    // One past the max, to tell whether there are too many
+    int count = queryResultsImportRepository.importResults(resultTable, queryId, list.getId(), refreshId,
+      maxListSize + 1, targetTable);
+    if (count > maxListSize) {
+      // What was imported is purged along with the rest of the failed refresh
+      throw new MaxListSizeExceededException(list, maxListSize);
+    }
+    log.info("Imported {} results of query {} for list {} inside the database", count, queryId, list.getId());
+    return OptionalInt.of(count);
+  }
+}
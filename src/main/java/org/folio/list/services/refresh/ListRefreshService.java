@@ -1,29 +1,50 @@
 package org.folio.list.services.refresh;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.collections4.CollectionUtils;
-import org.awaitility.Awaitility;
 import org.folio.list.domain.ListEntity;
+import org.folio.list.configuration.RefreshBatchSizeProperties;
+import org.folio.list.configuration.RefreshFetchProperties;
 import org.folio.list.domain.dto.ListConfiguration;
+import org.folio.list.exception.ListNotRefreshingException;
 import org.folio.list.exception.MaxListSizeExceededException;
 import org.folio.list.exception.RefreshCancelledException;
+import org.folio.list.repository.ListContentsPartitionRepository;
+import org.folio.list.repository.ListContentsStagingRepository;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.ListContentsWriter.WriteMode;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
 import org.folio.list.rest.QueryClient;
 import org.folio.list.services.AppShutdownService.ShutdownTask;
 import org.folio.list.services.EntityManagerFlushService;
+import org.folio.list.services.ListActions;
+import org.folio.list.services.cancellation.CancellationRegistry;
+import org.folio.list.services.cancellation.CancellationRegistry.AbortRegistration;
+import org.folio.list.services.cancellation.CancellationRegistry.RunningJob;
+import org.folio.list.services.refresh.QueryCoalescer.SubmittedQuery;
 import org.folio.list.util.TaskTimer;
 import org.folio.querytool.domain.dto.QueryDetails;
-import org.folio.querytool.domain.dto.QueryIdentifier;
 import org.folio.querytool.domain.dto.SubmitQuery;
+import org.folio.spring.FolioExecutionContext;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Supplier;
 
 @Service
@@ -31,11 +52,20 @@ import java.util.function.Supplier;
 @RequiredArgsConstructor
 public class ListRefreshService {
 
-  @Value("${mod-lists.general.refresh-query-timeout-minutes:90}")
-  private int getQueryTimeoutMinutes;
   @Value("${mod-lists.general.refresh-batch-size:10000}")
   private int refreshBatchSize;
-  private long getQueryPollIntervalSeconds = 10;
+  @Value("${mod-lists.general.refresh-prefetch-pages:2}")
+  private int refreshPrefetchPages;
+  @Value("${mod-lists.general.refresh-streaming-enabled:false}")
+  private boolean refreshStreamingEnabled;
+  @Value("${mod-lists.general.refresh-stream-batch-size:4096}")
+  private int refreshStreamBatchSize;
+  @Value("${mod-lists.general.refresh-partitions-enabled:false}")
+  private boolean refreshPartitionsEnabled;
+  @Value("${mod-lists.general.refresh-partition-min-records:100000}")
+  private int refreshPartitionMinRecords;
+  @Value("${mod-lists.general.refresh-write-mode:JPA}")
+  private WriteMode refreshWriteMode;
 
   private final RefreshSuccessCallback refreshSuccessCallback;
   private final RefreshFailedCallback refreshFailedCallback;
@@ -43,58 +73,204 @@ public class ListRefreshService {
   private final QueryClient queryClient;
   private final EntityManagerFlushService entityManagerFlushService;
   private final ListConfiguration listConfiguration;
+  private final FolioExecutionContext executionContext;
+  private final RefreshFetchProperties refreshFetchProperties;
+  private final RefreshBatchSizeProperties refreshBatchSizeProperties;
+  private final QueryCompletionWaiter queryCompletionWaiter;
+  private final QueryPollSchedulePlanner queryPollSchedulePlanner;
+  private final AsyncTaskExecutor taskExecutor;
+  private final CancellationRegistry cancellationRegistry;
+  private final ListContentsPartitionRepository listContentsPartitionRepository;
+  private final ListContentsStagingRepository listContentsStagingRepository;
+  private final RefreshCheckpointService refreshCheckpointService;
+  private final RefreshProgressService refreshProgressService;
+  private final QueryCoalescer queryCoalescer;
+  private final DirectResultsImporter directResultsImporter;
 
-  @Async
+  /**
+   * Where to start importing a query's results from
+   *
+   * @param offset      the offset of the first result to import, which is also its sort sequence
+   * @param batchNumber the number of batches imported before this offset
+   */
+  private record ResumePoint(int offset, int batchNumber) {
+    private static final ResumePoint START = new ResumePoint(0, 0);
+  }
+
+  /**
+   * Refuse to start with fetch settings that can't work together, rather than quietly ignore some of them. Prefetched
+   * pages are requested before the previous ones are written, so they can neither be sized by how the previous pages
+   * went (adaptive sizing) nor be written while they're still arriving (streaming); and pages can only be fetched
+   * concurrently when they're prefetched.
+   */
+  @PostConstruct
+  public void validateFetchSettings() {
+    if (refreshPrefetchPages < 0) {
+      throw new IllegalStateException("mod-lists.general.refresh-prefetch-pages (REFRESH_PREFETCH_PAGES) can't be "
+        + "negative, but was " + refreshPrefetchPages);
+    }
+    if (refreshPrefetchPages > 0 && (refreshBatchSizeProperties.adaptive() || refreshStreamingEnabled)) {
+      throw new IllegalStateException("Refresh results can't be prefetched when their pages are sized adaptively "
+        + "(REFRESH_BATCH_SIZE_ADAPTIVE) or streamed (REFRESH_STREAMING_ENABLED). Set REFRESH_PREFETCH_PAGES=0 to use "
+        + "either of them");
+    }
+    boolean concurrentFetch = refreshFetchProperties.concurrency() > 1 || (refreshFetchProperties.tenantConcurrency() != null
+      && refreshFetchProperties.tenantConcurrency().values().stream().anyMatch(concurrency -> concurrency > 1));
+    if (refreshPrefetchPages == 0 && concurrentFetch) {
+      throw new IllegalStateException("Refresh results can only be fetched concurrently (REFRESH_FETCH_CONCURRENCY) "
+        + "when they're prefetched. Set REFRESH_PREFETCH_PAGES to at least 1, or REFRESH_FETCH_CONCURRENCY to 1");
+    }
+  }
+
+  /**
+   * Refresh a list. This returns once the query is submitted, and the returned future completes once the refresh is
+   * over, whether it succeeded or not (the outcome is recorded on the list).
+   */
   // Long-running method. Running this method within a transaction boundary will hog db connection for
   // long time. Hence, do not run this method in a transaction. Start transactions programmatically in
   // call-back methods
   @Transactional(propagation = Propagation.NOT_SUPPORTED)
-  public void doAsyncRefresh(ListEntity list, ShutdownTask shutdownTask, TaskTimer timer) {
-    try (var autoCloseMe = shutdownTask) {
+  public CompletableFuture<Void> doAsyncRefresh(ListEntity list, ShutdownTask shutdownTask, TaskTimer timer) {
+    RunningJob job = registerRefresh(list);
+    try {
       log.info("Performing async refresh for list {}, refreshId {}", list.getId(),
         list.getInProgressRefreshId().map(UUID::toString).orElse("NONE"));
       SubmitQuery submitQuery = new SubmitQuery()
         .entityTypeId(list.getEntityTypeId())
         .fqlQuery(list.getFqlQuery())
         .fields(list.getFields());
-      QueryIdentifier queryIdentifier = timer.time(TimedStage.REQUEST_QUERY, () -> queryClient.executeQuery(submitQuery));
-      waitForQueryCompletion(list, queryIdentifier.getQueryId(), timer);
+      SubmittedQuery query = timer.time(TimedStage.REQUEST_QUERY,
+        () -> job.runInterruptibly(() -> queryCoalescer.submit(job.getJobId(), submitQuery)));
+      if (query.shared()) {
+        timer.addDetails(Map.of("QUERY_SHARED", "true"));
+      }
+      refreshCheckpointService.begin(list, query.queryId(), refreshWriteMode.layout());
+      // A shared query was submitted by someone else's refresh, so its results are only fetched through FQM, which
+      // checks them against this refresh's own context
+      return waitForQueryCompletion(list, query.queryId(), !query.shared(), ResumePoint.START, job, shutdownTask,
+        timer);
     } catch (Exception exception) {
-      log.error("Unexpected error when performing async refresh for list with id " + list.getId()
-        + ", refreshId " + (list.getInProgressRefreshId().map(UUID::toString).orElse("NONE")), exception);
-      refreshFailedCallback.accept(list, timer, exception);
+      handleRefreshError(list, job, timer, exception);
+      finishRefresh(job, shutdownTask, timer);
+      return CompletableFuture.completedFuture(null);
     }
-    timer.stop(TimedStage.TOTAL);
   }
 
-  @Async
+  /**
+   * Import the results of a query that was already submitted for a list. Like {@link #doAsyncRefresh}, the returned
+   * future completes once the import is over.
+   */
   @Transactional(propagation = Propagation.NOT_SUPPORTED)
-  public void doAsyncSorting(ListEntity list, UUID queryId, ShutdownTask shutdownTask, TaskTimer timer) {
-    try (var autoCloseMe = shutdownTask) {
+  public CompletableFuture<Void> doAsyncSorting(ListEntity list, UUID queryId, ShutdownTask shutdownTask,
+                                                TaskTimer timer) {
+    RunningJob job = registerRefresh(list);
+    try {
       log.info("Performing async sorting for list {}, refreshId {}", list.getId(),
         list.getInProgressRefreshId().map(UUID::toString).orElse("NONE"));
-      waitForQueryCompletion(list, queryId, timer);
+      refreshCheckpointService.begin(list, queryId, refreshWriteMode.layout());
+      // Whoever submitted the query, it wasn't this refresh
+      return waitForQueryCompletion(list, queryId, false, ResumePoint.START, job, shutdownTask, timer);
     } catch (Exception exception) {
-      log.error("Unexpected error when performing async refresh for list with id " + list.getId()
-        + ", refreshId " + (list.getInProgressRefreshId().map(UUID::toString).orElse("NONE")), exception);
-      refreshFailedCallback.accept(list, timer, exception);
+      handleRefreshError(list, job, timer, exception);
+      finishRefresh(job, shutdownTask, timer);
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  /**
+   * Resume a refresh that was interrupted on another node, from its last checkpoint. The caller must have claimed the
+   * checkpoint, and removed any contents written past it. Like {@link #doAsyncRefresh}, the returned future completes
+   * once the refresh is over.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public CompletableFuture<Void> resumeRefresh(ListEntity list, RefreshCheckpoint checkpoint, ShutdownTask shutdownTask,
+                                               TaskTimer timer) {
+    RunningJob job = registerRefresh(list);
+    try {
+      log.info("Resuming refresh for list {}, refreshId {} from offset {}", list.getId(), checkpoint.refreshId(),
+        checkpoint.nextOffset());
+      refreshCheckpointService.resume(checkpoint);
+      // The results are still there if the query completed, so this doesn't wait long
+      return waitForQueryCompletion(list, checkpoint.queryId(), false,
+        new ResumePoint(checkpoint.nextOffset(), checkpoint.batchNumber()), job, shutdownTask, timer);
+    } catch (Exception exception) {
+      handleRefreshError(list, job, timer, exception);
+      finishRefresh(job, shutdownTask, timer);
+      return CompletableFuture.completedFuture(null);
     }
-    timer.stop(TimedStage.TOTAL);
   }
 
-  private void waitForQueryCompletion(ListEntity list, UUID queryId, TaskTimer timer) {
+  /**
+   * Wait for the query to complete, then import its results. This returns right away: no thread is held while FQM
+   * runs the query, and a task executor thread is only taken again once the query is done. The shutdown task stays
+   * open (and the timer keeps running) until the import finishes.
+   * <p>
+   * Cancelling the refresh stops the wait right away, and interrupts the import if it's already running.
+   *
+   * @param ownQuery whether this refresh submitted the query itself, in the current context. Only then can its results
+   *                 be imported inside the database (see {@link DirectResultsImporter})
+   * @return a future that completes once the refresh is over, successful or not
+   */
+  private CompletableFuture<Void> waitForQueryCompletion(ListEntity list, UUID queryId, boolean ownQuery,
+                                                         ResumePoint resumePoint, RunningJob job,
+                                                         ShutdownTask shutdownTask, TaskTimer timer) {
     log.info("Waiting for completion of query {} for list {}", queryId, list.getId());
-    timer.time(TimedStage.WAIT_FOR_QUERY_COMPLETION,
-      () -> Awaitility.with()
-        .pollInterval(getQueryPollIntervalSeconds, TimeUnit.SECONDS)
-        .await()
-        .atMost(getQueryTimeoutMinutes, TimeUnit.MINUTES)
-        .until(() -> queryClient.getQuery(queryId).getStatus() != QueryDetails.StatusEnum.IN_PROGRESS));
-    log.info("Query {} completed for list {}", queryId, list.getId());
-    QueryDetails queryDetails = queryClient.getQuery(queryId);
-
-    if (queryDetails.getStatus() == QueryDetails.StatusEnum.SUCCESS) {
-      int resultCount = timer.time(TimedStage.IMPORT_RESULTS, () -> importQueryResults(list, queryId));
+    FolioExecutionContext context = (FolioExecutionContext) executionContext.getInstance();
+    QueryPollSchedule pollSchedule = queryPollSchedulePlanner.plan(list);
+    timer.start(TimedStage.WAIT_FOR_QUERY_COMPLETION);
+    CompletableFuture<QueryDetails> queryCompletion = queryCompletionWaiter.waitForCompletion(queryId, pollSchedule,
+      listConfiguration.getMaxListSize(), context);
+    job.onCancel(() -> queryCompletion.completeExceptionally(new RefreshCancelledException(list)));
+    return queryCompletion
+      .whenComplete((queryDetails, throwable) -> {
+        timer.stop(TimedStage.WAIT_FOR_QUERY_COMPLETION);
+        // Only once FQM is done with the query. This refresh may have stopped waiting for other reasons (e.g., it was
+        // cancelled), while other refreshes keep waiting for the same query
+        if (queryDetails != null && queryDetails.getStatus() != QueryDetails.StatusEnum.IN_PROGRESS) {
+          queryCoalescer.queryCompleted(queryId);
+        }
+        timer.addDetails(pollSchedule.getSummary());
+      })
+      .thenAcceptAsync(queryDetails -> context.execute(() -> {
+        log.info("Query {} completed for list {}", queryId, list.getId());
+        handleQueryCompletion(list, queryId, ownQuery, queryDetails, resumePoint, job, timer);
+        return null;
+      }), taskExecutor)
+      .handleAsync((ignored, throwable) -> context.execute(() -> {
+        if (throwable != null) {
+          handleRefreshError(list, job, timer, throwable instanceof CompletionException ? throwable.getCause() : throwable);
+        }
+        finishRefresh(job, shutdownTask, timer);
+        return null;
+      }), taskExecutor);
+  }
+
+  private void handleQueryCompletion(ListEntity list, UUID queryId, boolean ownQuery, QueryDetails queryDetails,
+                                     ResumePoint resumePoint, RunningJob job, TaskTimer timer) {
+    // Only a query that succeeded, or that was given up on for finding too many results, has results worth counting.
+    // Any other outcome is reported as it is
+    boolean hasResults = queryDetails.getStatus() == QueryDetails.StatusEnum.SUCCESS
+      || queryDetails.getStatus() == QueryDetails.StatusEnum.IN_PROGRESS;
+    if (hasResults && timer.time(TimedStage.CHECK_RESULT_SIZE, () -> exceedsMaxListSize(queryId, queryDetails))) {
+      log.info("Query {} for list {} has more than the maximum list size of {} results. Marking refresh as failed.",
+        queryId, list.getId(), listConfiguration.getMaxListSize());
+      if (queryDetails.getStatus() == QueryDetails.StatusEnum.IN_PROGRESS) {
+        cancelAbandonedQuery(queryId, job.getJobId());
+      }
+      refreshFailedCallback.accept(list, timer, new MaxListSizeExceededException(list, listConfiguration.getMaxListSize()));
+    } else if (queryDetails.getStatus() == QueryDetails.StatusEnum.SUCCESS) {
+      // Readers need to know where to find the contents
+      timer.addDetails(refreshWriteMode.layout().toMetadata());
+      int resultCount = timer.time(TimedStage.IMPORT_RESULTS,
+        () -> job.runInterruptibly(() -> importQueryResults(list, queryId, ownQuery, queryDetails.getTotalRecords(),
+          resumePoint, timer)));
+      // The staged contents become part of list_contents here, but stay out of sight until the refresh is published. If
+      // it never is (e.g., it was superseded in the meantime), they're purged along with its other contents
+      list.getInProgressRefreshId()
+        .filter(listContentsStagingRepository::stagingTableExists)
+        .ifPresent(refreshId -> timer.time(TimedStage.PUBLISH_STAGED_CONTENTS,
+          () -> listContentsStagingRepository.publish(list.getId(), refreshId,
+            refreshPartitionsEnabled && resultCount >= refreshPartitionMinRecords)));
       refreshSuccessCallback.accept(list, resultCount, timer);
     } else if (queryDetails.getStatus() == QueryDetails.StatusEnum.FAILED) {
       refreshFailedCallback.accept(list, timer, new RuntimeException(queryDetails.getFailureReason()));
@@ -110,17 +286,206 @@ public class ListRefreshService {
     entityManagerFlushService.flush();
   }
 
-  private int importQueryResults(ListEntity list, UUID queryId) {
+  /**
+   * Check whether a query's results are too big for a list before importing any of them, rather than finding out after
+   * writing a full list's worth of contents (which then have to be deleted again). FQM normally reports the number of
+   * results, including the number found so far while the query is still running. When it doesn't, fetching the first
+   * ID past the limit is enough to tell.
+   */
+  private boolean exceedsMaxListSize(UUID queryId, QueryDetails queryDetails) {
+    int maxListSize = listConfiguration.getMaxListSize();
+    if (queryDetails.getTotalRecords() != null) {
+      return queryDetails.getTotalRecords() > maxListSize;
+    }
+    return queryDetails.getStatus() == QueryDetails.StatusEnum.SUCCESS
+      && !CollectionUtils.isEmpty(queryClient.getSortedIds(queryId, maxListSize, 1));
+  }
+
+  /**
+   * Stop FQM from running a query that this refresh gave up on, unless other refreshes are still waiting for it. Nobody
+   * would ever read its results.
+   */
+  private void cancelAbandonedQuery(UUID queryId, UUID refreshId) {
+    if (queryCoalescer.isSharedWithOthers(refreshId)) {
+      return;
+    }
+    try {
+      queryClient.deleteQuery(queryId);
+      queryCoalescer.queryCompleted(queryId);
+      log.info("Cancelled query {}, which refresh {} gave up on", queryId, refreshId);
+    } catch (Exception e) {
+      // FQM gives up on it eventually anyway
+      log.warn("Unable to cancel query {}, which refresh {} gave up on", queryId, refreshId, e);
+    }
+  }
+
+  private RunningJob registerRefresh(ListEntity list) {
+    UUID refreshId = list.getInProgressRefreshId()
+      .orElseThrow(() -> new ListNotRefreshingException(list, ListActions.REFRESH));
+    return cancellationRegistry.register(refreshId);
+  }
+
+  private void handleRefreshError(ListEntity list, RunningJob job, TaskTimer timer, Throwable throwable) {
+    if (refreshCheckpointService.isSuspended(job.getJobId())) {
+      // The refresh was stopped so that another node can take over, so it isn't over yet
+      log.info("Refresh suspended for list {}, refreshId {}", list.getId(), job.getJobId());
+      return;
+    }
+    if (job.isCancelled()) {
+      // Whatever went wrong was caused by interrupting the refresh, so just report the cancellation
+      log.info("Refresh cancelled for list {}, refreshId {}", list.getId(), job.getJobId());
+      refreshFailedCallback.accept(list, timer,
+        throwable instanceof RefreshCancelledException ? throwable : new RefreshCancelledException(list));
+      return;
+    }
+    log.error("Unexpected error when performing async refresh for list with id " + list.getId()
+      + ", refreshId " + (list.getInProgressRefreshId().map(UUID::toString).orElse("NONE")), throwable);
+    refreshFailedCallback.accept(list, timer, throwable);
+  }
+
+  private void finishRefresh(RunningJob job, ShutdownTask shutdownTask, TaskTimer timer) {
+    refreshCheckpointService.complete(job.getJobId());
+    refreshProgressService.complete(job.getJobId());
+    queryCoalescer.release(job.getJobId());
+    job.close();
+    if (shutdownTask != null) {
+      shutdownTask.close();
+    }
+    timer.stop(TimedStage.TOTAL);
+  }
+
+  private int importQueryResults(ListEntity list, UUID queryId, boolean ownQuery, Integer totalRecords,
+                                 ResumePoint resumePoint, TaskTimer timer) {
     log.info("Performing async sorting for list {}, refreshId {}", list.getId(),
       list.getInProgressRefreshId().map(UUID::toString).orElse("NONE"));
     DataBatchCallback dataBatchCallback = dataBatchCallbackSupplier.get();
-    int offset = 0;
-    List<List<String>> ids = queryClient.getSortedIds(queryId, offset, refreshBatchSize);
-    while (!CollectionUtils.isEmpty(ids)) {
+    if (resumePoint.offset() == 0) {
+      prepareRefreshPartition(list, totalRecords);
+      if (refreshWriteMode == WriteMode.STAGED) {
+        list.getInProgressRefreshId().ifPresent(listContentsStagingRepository::createStagingTable);
+      }
+      OptionalInt imported = ownQuery
+        ? directResultsImporter.importResults(list, queryId, refreshWriteMode)
+        : OptionalInt.empty();
+      if (imported.isPresent()) {
+        timer.addDetails(Map.of("IMPORTED_IN_DATABASE", "true"));
+        return imported.getAsInt();
+      }
+    } else {
+      // The partition (if any) was created before the refresh was interrupted, and it already holds some contents
+      dataBatchCallback.resumeFrom(resumePoint.offset(), resumePoint.batchNumber());
+    }
+    dataBatchCallback.trackProgress(refreshProgressService.startTracking(list, resumePoint.offset(), totalRecords));
+    if (refreshPrefetchPages == 0) {
+      // Adaptive sizing and streaming both need each page fetched only once the previous one is written (see
+      // validateFetchSettings)
+      RefreshBatchSizer batchSizer = refreshBatchSizeProperties.adaptive()
+        ? RefreshBatchSizer.adaptive(refreshBatchSize, refreshBatchSizeProperties)
+        : RefreshBatchSizer.fixed(refreshBatchSize);
+      try {
+        return refreshStreamingEnabled
+          ? importQueryResultsStreaming(list, queryId, resumePoint.offset(), batchSizer, dataBatchCallback)
+          : importQueryResultsSerially(list, queryId, resumePoint.offset(), batchSizer, dataBatchCallback);
+      } finally {
+        timer.addDetails(batchSizer.getSummary());
+      }
+    }
+    // Fetch the next pages from FQM while the current one is written to the DB. When FQM tells us the total, several
+    // pages can be requested at once. Closing the prefetcher stops the background fetch if the import is aborted (e.g.,
+    // the refresh is cancelled or the list is too big)
+    try (var prefetcher = new SortedIdsPrefetcher(
+      (offset, limit) -> queryClient.getSortedIds(queryId, resumePoint.offset() + offset, limit),
+      refreshBatchSize,
+      totalRecords == null ? null : Math.max(totalRecords - resumePoint.offset(), 0),
+      refreshPrefetchPages,
+      refreshFetchProperties.getConcurrency(executionContext.getTenantId()),
+      (FolioExecutionContext) executionContext.getInstance(),
+      "mod-lists-refresh-fetch-" + list.getId())) {
+      int recordsCount = resumePoint.offset();
+      for (List<List<String>> ids = prefetcher.next(); !CollectionUtils.isEmpty(ids); ids = prefetcher.next()) {
+        recordsCount += ids.size();
+        dataBatchCallback.accept(list, ids);
+      }
+      return recordsCount;
+    }
+  }
+
+  /**
+   * Give big refreshes a partition of their own, so that their contents can be dropped in one go once they're obsolete
+   * rather than deleted row by row
+   */
+  private void prepareRefreshPartition(ListEntity list, Integer totalRecords) {
+    // A big staged refresh's staging table becomes its partition once it's done (see handleQueryCompletion)
+    if (!refreshPartitionsEnabled || refreshWriteMode.layout() != Layout.ROWS || refreshWriteMode == WriteMode.STAGED
+      || totalRecords == null || totalRecords < refreshPartitionMinRecords) {
+      return;
+    }
+    list.getInProgressRefreshId()
+      .ifPresent(refreshId -> listContentsPartitionRepository.createRefreshPartition(list.getId(), refreshId));
+  }
+
+  private int importQueryResultsSerially(ListEntity list, UUID queryId, int startOffset, RefreshBatchSizer batchSizer,
+                                         DataBatchCallback dataBatchCallback) {
+    int offset = startOffset;
+    while (true) {
+      int limit = batchSizer.nextSize();
+      long fetchStart = System.nanoTime();
+      List<List<String>> ids = queryClient.getSortedIds(queryId, offset, limit);
+      Duration fetchTime = Duration.ofNanos(System.nanoTime() - fetchStart);
+      if (CollectionUtils.isEmpty(ids)) {
+        return offset;
+      }
       offset += ids.size();
+      long writeStart = System.nanoTime();
       dataBatchCallback.accept(list, ids);
-      ids = queryClient.getSortedIds(queryId, offset, refreshBatchSize);
+      batchSizer.record(limit, ids.size(), fetchTime, Duration.ofNanos(System.nanoTime() - writeStart));
     }
+  }
+
+  /**
+   * Like {@link #importQueryResultsSerially}, but writes each page's IDs while they're still arriving from FQM, in
+   * batches of {@code refreshStreamBatchSize}. Only one batch of IDs is held in memory at a time, however big the pages
+   * are.
+   */
+  private int importQueryResultsStreaming(ListEntity list, UUID queryId, int startOffset, RefreshBatchSizer batchSizer,
+                                          DataBatchCallback dataBatchCallback) {
+    SortedIdsStreamReader reader = new SortedIdsStreamReader(refreshStreamBatchSize);
+    int offset = startOffset;
+    int pageCount;
+    do {
+      int limit = batchSizer.nextSize();
+      long pageStart = System.nanoTime();
+      long[] writeNanos = {0};
+      InputStreamResource page = queryClient.streamSortedIds(queryId, offset, limit);
+      if (page == null) {
+        break;
+      }
+      // Closing the response from under the reader is what stops it, if the refresh is cancelled while FQM is slow to
+      // send the rest of the page
+      try (InputStream body = page.getInputStream();
+           AbortRegistration ignored = CancellationRegistry.abortOnCancel(() -> closeQuietly(body, queryId))) {
+        pageCount = reader.read(body, ids -> {
+          long writeStart = System.nanoTime();
+          dataBatchCallback.accept(list, ids);
+          writeNanos[0] += System.nanoTime() - writeStart;
+        });
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to read sorted IDs for query " + queryId, e);
+      }
+      offset += pageCount;
+      // The page is written while it's read, so whatever time wasn't spent writing was spent waiting on FQM
+      Duration writeTime = Duration.ofNanos(writeNanos[0]);
+      Duration pageTime = Duration.ofNanos(System.nanoTime() - pageStart);
+      batchSizer.record(limit, pageCount, pageTime.minus(writeTime), writeTime);
+    } while (pageCount > 0);
     return offset;
   }
+
+  private static void closeQuietly(InputStream body, UUID queryId) {
+    try {
+      body.close();
+    } catch (IOException e) {
+      log.debug("Error closing sorted IDs of query {}", queryId, e);
+    }
+  }
 }
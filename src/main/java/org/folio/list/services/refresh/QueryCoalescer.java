@@ -0,0 +1,156 @@
+package org.folio.list.services.refresh;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.rest.QueryClient;
+import org.folio.querytool.domain.dto.SubmitQuery;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shares FQM queries between refreshes of lists with the same query.
+ * <p>
+ * Tenants often have several lists with the same entity type, FQL query and fields (e.g., each librarian's own copy of
+ * "Missing items"), and those tend to get refreshed at the same time. Rather than have FQM run the same query once per
+ * list, a refresh whose query is identical to one that's still running joins it: it waits for the same query, then
+ * imports the same results into its own list. Each refresh still goes through its list's own validation before it gets
+ * here, and still fetches the results in its own context: refreshes that were queued with a user's token (i.e., asked
+ * for through the API) run as that user, while scheduled refreshes and refreshes resumed on another node run as the
+ * system user. So whoever submitted a shared query, each refresh only gets results it's allowed to fetch itself.
+ * <p>
+ * A query can only be joined while it's running. Once it completes, the next refresh submits a new one, so that no
+ * refresh gets results older than itself. Queries are only shared between refreshes on the same node.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class QueryCoalescer {
+
+  static final String SHARED_QUERIES_METRIC = "mod_lists.refresh.shared_queries";
+
+  /**
+   * The query a refresh should wait for
+   *
+   * @param shared whether the query was submitted for another refresh
+   */
+  public record SubmittedQuery(UUID queryId, boolean shared) {
+  }
+
+  private record QuerySignature(String tenantId, UUID entityTypeId, String fqlQuery, List<String> fields) {
+  }
+
+  private static class SharedQuery {
+    private final QuerySignature signature;
+    private final CompletableFuture<UUID> queryId = new CompletableFuture<>();
+    private final Set<UUID> refreshIds = ConcurrentHashMap.newKeySet();
+
+    private SharedQuery(QuerySignature signature) {
+      this.signature = signature;
+    }
+  }
+
+  @Value("${mod-lists.general.refresh-query-sharing-enabled:true}")
+  private boolean enabled;
+
+  private final QueryClient queryClient;
+  private final FolioExecutionContext executionContext;
+  private final MeterRegistry meterRegistry;
+  private final Map<QuerySignature, SharedQuery> sharedQueries = new ConcurrentHashMap<>();
+  private final Map<UUID, SharedQuery> refreshQueries = new ConcurrentHashMap<>();
+
+  /**
+   * Submit a refresh's query to FQM, unless an identical query is already running. Call {@link #release} once the
+   * refresh is over.
+   */
+  public SubmittedQuery submit(UUID refreshId, SubmitQuery submitQuery) {
+    if (!enabled) {
+      return new SubmittedQuery(queryClient.executeQuery(submitQuery).getQueryId(), false);
+    }
+    QuerySignature signature = new QuerySignature(executionContext.getTenantId(), submitQuery.getEntityTypeId(),
+      submitQuery.getFqlQuery(), List.copyOf(Objects.requireNonNullElse(submitQuery.getFields(), List.of())));
+    SharedQuery newQuery = new SharedQuery(signature);
+    SharedQuery query = sharedQueries.compute(signature, (key, existing) -> {
+      SharedQuery joined = existing == null ? newQuery : existing;
+      joined.refreshIds.add(refreshId);
+      return joined;
+    });
+    refreshQueries.put(refreshId, query);
+
+    if (query == newQuery) {
+      try {
+        UUID queryId = queryClient.executeQuery(submitQuery).getQueryId();
+        query.queryId.complete(queryId);
+        return new SubmittedQuery(queryId, false);
+      } catch (RuntimeException e) {
+        // Anyone who joined in the meantime gets the same error, and the next refresh tries again
+        query.queryId.completeExceptionally(e);
+        sharedQueries.remove(signature, query);
+        throw e;
+      }
+    }
+
+    UUID queryId = awaitQueryId(query);
+    log.info("Refresh {} is sharing FQM query {} with {} other refresh(es)", refreshId, queryId,
+      query.refreshIds.size() - 1);
+    Counter.builder(SHARED_QUERIES_METRIC)
+      .description("Refreshes that shared an FQM query with another refresh, instead of submitting their own")
+      .tag("tenant", signature.tenantId())
+      .register(meterRegistry)
+      .increment();
+    return new SubmittedQuery(queryId, true);
+  }
+
+  /**
+   * Stop new refreshes from joining a query, now that it's complete
+   */
+  public void queryCompleted(UUID queryId) {
+    sharedQueries.values().removeIf(query -> query.queryId.isDone()
+      && !query.queryId.isCompletedExceptionally()
+      && queryId.equals(query.queryId.join()));
+  }
+
+  /**
+   * Check whether other refreshes are waiting for the same query as the given refresh
+   */
+  public boolean isSharedWithOthers(UUID refreshId) {
+    SharedQuery query = refreshQueries.get(refreshId);
+    return query != null && query.refreshIds.stream().anyMatch(id -> !id.equals(refreshId));
+  }
+
+  /**
+   * Forget about a refresh, now that it's over
+   */
+  public void release(UUID refreshId) {
+    SharedQuery query = refreshQueries.remove(refreshId);
+    if (query == null) {
+      return;
+    }
+    // Whether or not the query can still be joined, the refreshes still waiting for it need to know this one is gone
+    query.refreshIds.remove(refreshId);
+    sharedQueries.computeIfPresent(query.signature,
+      (key, current) -> current == query && current.refreshIds.isEmpty() ? null : current);
+  }
+
+  private static UUID awaitQueryId(SharedQuery query) {
+    try {
+      return query.queryId.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a shared query to be submitted", e);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package org.folio.list.services.refresh;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.awaitility.core.ConditionTimeoutException;
+import org.folio.list.rest.QueryClient;
+import org.folio.querytool.domain.dto.QueryDetails;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for FQM queries to finish without tying up a thread per query. Each poll is a short task on a small shared
+ * scheduler, so any number of refreshes can wait on FQM at once while the async task pool stays free for real work.
+ * The time between polls is decided by a {@link QueryPollSchedule}.
+ */
+@Log4j2
+@Service
+public class QueryCompletionWaiter {
+
+  private final QueryClient queryClient;
+  private final ScheduledExecutorService scheduler;
+  private final int queryTimeoutMinutes;
+
+  @Autowired
+  public QueryCompletionWaiter(QueryClient queryClient,
+                               @Value("${mod-lists.general.refresh-query-timeout-minutes:90}") int queryTimeoutMinutes,
+                               @Value("${mod-lists.general.refresh-query-poll-threads:2}") int pollThreads) {
+    this.queryClient = queryClient;
+    this.queryTimeoutMinutes = queryTimeoutMinutes;
+    this.scheduler = Executors.newScheduledThreadPool(pollThreads,
+      Thread.ofPlatform().name("mod-lists-query-poll-", 0).daemon().factory());
+  }
+
+  /**
+   * Poll FQM until the given query is no longer in progress, or until it has found more than {@code maxResults}
+   * results.
+   *
+   * @param schedule   decides how long to wait between polls
+   * @param maxResults the most results the caller can use. FQM reports how many results a running query has found so
+   *                   far, so a query that's already past this is given up on without waiting for it to finish.
+   * @param context    the execution context to poll with. This must be a real context instance (see
+   *                   {@link FolioExecutionContext#getInstance()}), since polling happens on the scheduler's threads.
+   * @return a future with the last query details, which are only still in progress if the query found too many
+   * results. It completes exceptionally with a {@link ConditionTimeoutException} if the query is still running after
+   * the refresh query timeout, or with any error from FQM.
+   */
+  public CompletableFuture<QueryDetails> waitForCompletion(UUID queryId, QueryPollSchedule schedule, int maxResults,
+                                                          FolioExecutionContext context) {
+    CompletableFuture<QueryDetails> result = new CompletableFuture<>();
+    Instant start = Instant.now();
+    Poll poll = new Poll(queryId, schedule, maxResults, context, start,
+      start.plus(Duration.ofMinutes(queryTimeoutMinutes)), result);
+    schedulePoll(poll);
+    return result;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  private void schedulePoll(Poll poll) {
+    Duration delay = poll.schedule().nextDelay(Duration.between(poll.start(), Instant.now()));
+    scheduler.schedule(() -> poll(poll), delay.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void poll(Poll poll) {
+    UUID queryId = poll.queryId();
+    CompletableFuture<QueryDetails> result = poll.result();
+    if (result.isDone()) {
+      // Someone else gave up on this query (e.g., the app is shutting down)
+      return;
+    }
+    try {
+      QueryDetails queryDetails = poll.context().execute(() -> queryClient.getQuery(queryId));
+      if (queryDetails.getStatus() != QueryDetails.StatusEnum.IN_PROGRESS) {
+        result.complete(queryDetails);
+      } else if (queryDetails.getTotalRecords() != null && queryDetails.getTotalRecords() > poll.maxResults()) {
+        log.info("Query {} has already found {} results, more than the {} allowed. Not waiting for it to complete.",
+          queryId, queryDetails.getTotalRecords(), poll.maxResults());
+        result.complete(queryDetails);
+      } else if (Instant.now().isAfter(poll.deadline())) {
+        result.completeExceptionally(new ConditionTimeoutException(
+          "Query " + queryId + " did not complete within " + queryTimeoutMinutes + " minutes"));
+      } else {
+        schedulePoll(poll);
+      }
+    } catch (Exception e) {
+      log.error("Error polling FQM for the status of query {}", queryId, e);
+      result.completeExceptionally(e);
+    }
+  }
+
+  private record Poll(UUID queryId, QueryPollSchedule schedule, int maxResults, FolioExecutionContext context,
+                      Instant start, Instant deadline, CompletableFuture<QueryDetails> result) {
+  }
+}
@@ -0,0 +1,89 @@
+package org.folio.list.services.refresh;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decides how long to wait between polls of FQM while a refresh query runs.
+ * <p>
+ * Polling starts at {@code minInterval} and backs off exponentially up to {@code maxInterval}. When past refreshes tell
+ * us roughly how long the query should take, the backoff is capped so that a poll lands right around the expected
+ * completion time; after that, it starts over from {@code minInterval}, since the query should be done any moment.
+ * Small lists get their results within a second or two, while long-running queries are polled only a handful of times.
+ */
+public class QueryPollSchedule {
+
+  /**
+   * Where the expected query duration came from
+   */
+  public enum Basis {
+    /** Previous refreshes of the same list */
+    LIST,
+    /** Previous refreshes of other lists with the same entity type */
+    ENTITY_TYPE,
+    /** No history; plain exponential backoff */
+    NONE,
+  }
+
+  private final Basis basis;
+  private final Duration expectedDuration;
+  private final Duration minInterval;
+  private final Duration maxInterval;
+  private Duration lastInterval;
+  private boolean reachedExpectedDuration;
+  private int pollCount;
+
+  /**
+   * @param expectedDuration how long the query is expected to take. Ignored if {@code basis} is {@link Basis#NONE}.
+   */
+  public QueryPollSchedule(Basis basis, Duration expectedDuration, Duration minInterval, Duration maxInterval) {
+    this.basis = basis;
+    this.expectedDuration = basis == Basis.NONE ? null : expectedDuration;
+    this.minInterval = minInterval;
+    this.maxInterval = maxInterval;
+  }
+
+  /**
+   * Get the delay before the next poll, given how long we've been waiting so far
+   */
+  public synchronized Duration nextDelay(Duration elapsed) {
+    pollCount++;
+    Duration interval = lastInterval == null ? minInterval : min(lastInterval.multipliedBy(2), maxInterval);
+    if (expectedDuration != null) {
+      Duration untilExpected = expectedDuration.minus(elapsed);
+      if (untilExpected.isPositive()) {
+        // Aim the next poll at the expected completion time, rather than past it
+        interval = max(min(interval, untilExpected), minInterval);
+      } else if (!reachedExpectedDuration) {
+        // The query should be finishing any moment now, so start backing off again from the beginning
+        reachedExpectedDuration = true;
+        interval = minInterval;
+      }
+    }
+    lastInterval = interval;
+    return interval;
+  }
+
+  /**
+   * Describe this schedule, for the refresh metadata
+   */
+  public synchronized Map<String, String> getSummary() {
+    Map<String, String> summary = new LinkedHashMap<>();
+    summary.put("QUERY_POLL_BASIS", basis.toString());
+    if (expectedDuration != null) {
+      summary.put("QUERY_POLL_EXPECTED_DURATION", expectedDuration.toString());
+    }
+    summary.put("QUERY_POLL_INTERVAL_RANGE", minInterval + ".." + maxInterval);
+    summary.put("QUERY_POLL_COUNT", Integer.toString(pollCount));
+    return summary;
+  }
+
+  private static Duration min(Duration a, Duration b) {
+    return a.compareTo(b) <= 0 ? a : b;
+  }
+
+  private static Duration max(Duration a, Duration b) {
+    return a.compareTo(b) >= 0 ? a : b;
+  }
+}
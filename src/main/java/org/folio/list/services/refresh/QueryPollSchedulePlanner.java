@@ -0,0 +1,74 @@
+package org.folio.list.services.refresh;
+
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.domain.ListEntity;
+import org.folio.list.repository.ListRefreshRepository;
+import org.folio.list.services.refresh.QueryPollSchedule.Basis;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Plans how to poll FQM for a refresh query, based on how long the queries for previous refreshes took. The list's own
+ * history is the best predictor, so it's used when available; otherwise, refreshes of lists with the same entity type
+ * are used.
+ */
+@Log4j2
+@Service
+public class QueryPollSchedulePlanner {
+
+  private static final int LIST_HISTORY_SIZE = 5;
+  private static final int ENTITY_TYPE_HISTORY_SIZE = 20;
+
+  private final ListRefreshRepository listRefreshRepository;
+  private final Duration minInterval;
+  private final Duration maxInterval;
+
+  @Autowired
+  public QueryPollSchedulePlanner(ListRefreshRepository listRefreshRepository,
+                                  @Value("${mod-lists.general.refresh-query-poll-min-interval-millis:1000}") long minIntervalMillis,
+                                  @Value("${mod-lists.general.refresh-query-poll-max-interval-seconds:30}") long maxIntervalSeconds) {
+    this.listRefreshRepository = listRefreshRepository;
+    this.minInterval = Duration.ofMillis(minIntervalMillis);
+    this.maxInterval = Duration.ofSeconds(maxIntervalSeconds);
+  }
+
+  public QueryPollSchedule plan(ListEntity list) {
+    try {
+      Duration expected = median(listRefreshRepository.getRecentQueryDurationsForList(list.getId(), LIST_HISTORY_SIZE));
+      if (expected != null) {
+        return new QueryPollSchedule(Basis.LIST, expected, minInterval, maxInterval);
+      }
+      expected = median(listRefreshRepository.getRecentQueryDurationsForEntityType(list.getEntityTypeId(), ENTITY_TYPE_HISTORY_SIZE));
+      if (expected != null) {
+        return new QueryPollSchedule(Basis.ENTITY_TYPE, expected, minInterval, maxInterval);
+      }
+    } catch (Exception e) {
+      // The history is only an optimization, so don't fail the refresh over it
+      log.warn("Unable to look up previous query durations for list {}. Falling back to plain backoff", list.getId(), e);
+    }
+    return new QueryPollSchedule(Basis.NONE, null, minInterval, maxInterval);
+  }
+
+  private static Duration median(List<String> durations) {
+    List<Duration> parsed = durations.stream()
+      .map(QueryPollSchedulePlanner::parseDuration)
+      .filter(Objects::nonNull)
+      .sorted()
+      .toList();
+    return parsed.isEmpty() ? null : parsed.get(parsed.size() / 2);
+  }
+
+  private static Duration parseDuration(String duration) {
+    try {
+      return Duration.parse(duration);
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package org.folio.list.services.refresh;
+
+import org.folio.list.configuration.RefreshBatchSizeProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decides how many results a refresh fetches from FQM at a time.
+ * <p>
+ * With a fixed size, every page is the same size. With an adaptive size, the page size is adjusted after each page,
+ * additive-increase/multiplicative-decrease style: it grows by {@code increaseStep} after a full page that was fetched
+ * and written within their targets, and is halved as soon as either takes too long. Small pages waste round trips to
+ * FQM, while big ones risk FQM timeouts and long pauses for garbage collection, so this settles on the biggest page
+ * size that FQM and the database are comfortable with at the moment.
+ * <p>
+ * Not thread-safe; each refresh has its own.
+ */
+public class RefreshBatchSizer {
+
+  private final boolean adaptive;
+  private final int minSize;
+  private final int maxSize;
+  private final int increaseStep;
+  private final Duration targetFetchTime;
+  private final Duration targetWriteTime;
+  private final int initialSize;
+  private int size;
+  private int smallestSize;
+  private int largestSize;
+  private int increases;
+  private int decreases;
+
+  private RefreshBatchSizer(boolean adaptive, int initialSize, int minSize, int maxSize, int increaseStep,
+                            Duration targetFetchTime, Duration targetWriteTime) {
+    this.adaptive = adaptive;
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.increaseStep = increaseStep;
+    this.targetFetchTime = targetFetchTime;
+    this.targetWriteTime = targetWriteTime;
+    this.initialSize = Math.clamp(initialSize, minSize, maxSize);
+    this.size = this.initialSize;
+    this.smallestSize = this.initialSize;
+    this.largestSize = this.initialSize;
+  }
+
+  public static RefreshBatchSizer fixed(int size) {
+    return new RefreshBatchSizer(false, size, size, size, 0, null, null);
+  }
+
+  /**
+   * @param initialSize the size of the first page, which is brought within the configured bounds if needed
+   */
+  public static RefreshBatchSizer adaptive(int initialSize, RefreshBatchSizeProperties properties) {
+    if (properties.minSize() > properties.maxSize()) {
+      throw new IllegalArgumentException("The min batch size (" + properties.minSize()
+        + ") can't be bigger than the max batch size (" + properties.maxSize() + ")");
+    }
+    return new RefreshBatchSizer(true, initialSize, properties.minSize(), properties.maxSize(),
+      properties.increaseStep(), Duration.ofMillis(properties.targetFetchMillis()),
+      Duration.ofMillis(properties.targetWriteMillis()));
+  }
+
+  /**
+   * Get the number of results to request for the next page
+   */
+  public int nextSize() {
+    return size;
+  }
+
+  /**
+   * Record how a page went, to size the next one
+   *
+   * @param requested the number of results requested for the page
+   * @param received  the number of results FQM actually returned. Fewer than requested means that this was the last
+   *                  page, so its times say little about how a bigger one would do.
+   * @param fetchTime how long it took to get the page from FQM
+   * @param writeTime how long it took to write the page to the database
+   */
+  public void record(int requested, int received, Duration fetchTime, Duration writeTime) {
+    if (!adaptive) {
+      return;
+    }
+    if (fetchTime.compareTo(targetFetchTime) > 0 || writeTime.compareTo(targetWriteTime) > 0) {
+      resize(Math.max(requested / 2, minSize));
+    } else if (received >= requested) {
+      resize((int) Math.min((long) requested + increaseStep, maxSize));
+    }
+  }
+
+  /**
+   * Describe the page sizes used, for the refresh metadata. Empty unless the size is adaptive.
+   */
+  public Map<String, String> getSummary() {
+    if (!adaptive) {
+      return Map.of();
+    }
+    Map<String, String> summary = new LinkedHashMap<>();
+    summary.put("REFRESH_BATCH_SIZE_BOUNDS", minSize + ".." + maxSize);
+    summary.put("REFRESH_BATCH_SIZE_INITIAL", Integer.toString(initialSize));
+    summary.put("REFRESH_BATCH_SIZE_FINAL", Integer.toString(size));
+    summary.put("REFRESH_BATCH_SIZE_RANGE", smallestSize + ".." + largestSize);
+    summary.put("REFRESH_BATCH_SIZE_INCREASES", Integer.toString(increases));
+    summary.put("REFRESH_BATCH_SIZE_DECREASES", Integer.toString(decreases));
+    return summary;
+  }
+
+  private void resize(int newSize) {
+    if (newSize > size) {
+      increases++;
+    } else if (newSize < size) {
+      decreases++;
+    }
+    size = newSize;
+    smallestSize = Math.min(smallestSize, size);
+    largestSize = Math.max(largestSize, size);
+  }
+}
@@ -0,0 +1,192 @@
+package org.folio.list.services.refresh;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.RefreshCheckpointProperties;
+import org.folio.list.domain.ListEntity;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.RefreshCheckpointRepository;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
+import org.folio.list.services.TenantSchemas;
+import org.folio.list.services.cancellation.CancellationRegistry;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how far the refreshes running on this node have got, so that they can be resumed elsewhere.
+ * <p>
+ * A refresh's checkpoint is the offset of the first query result it hasn't imported yet. It's advanced after every
+ * batch is written, and the checkpoint is claimed with a lease that this node keeps renewing for as long as the
+ * refresh runs here. When this node shuts down, it suspends its refreshes instead of failing them: each one is
+ * stopped, and its claim released, so that another node (see {@link RefreshResumer}) picks it up and imports the rest
+ * of the results. If this node dies instead, the lease just runs out, with the same result.
+ * <p>
+ * A node that stops renewing its lease for too long (e.g., it was stuck in a GC pause) loses its claim, and stops
+ * recording progress as soon as it notices, leaving the refresh to whoever claimed it next.
+ */
+@Log4j2
+@Service
+public class RefreshCheckpointService {
+
+  private record TrackedRefresh(String tenantId, UUID claimToken) {
+  }
+
+  private final RefreshCheckpointRepository checkpointRepository;
+  private final CancellationRegistry cancellationRegistry;
+  private final FolioExecutionContext executionContext;
+  private final TenantSchemas tenantSchemas;
+  private final RefreshCheckpointProperties properties;
+  private final Map<UUID, TrackedRefresh> trackedRefreshes = new ConcurrentHashMap<>();
+  private final Set<UUID> suspendedRefreshes = ConcurrentHashMap.newKeySet();
+  private ScheduledExecutorService scheduler;
+
+  @Autowired
+  public RefreshCheckpointService(RefreshCheckpointRepository checkpointRepository,
+                                  CancellationRegistry cancellationRegistry,
+                                  FolioExecutionContext executionContext,
+                                  TenantSchemas tenantSchemas,
+                                  RefreshCheckpointProperties properties) {
+    this.checkpointRepository = checkpointRepository;
+    this.cancellationRegistry = cancellationRegistry;
+    this.executionContext = executionContext;
+    this.tenantSchemas = tenantSchemas;
+    this.properties = properties;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!properties.enabled()) {
+      log.info("Refresh checkpoints are disabled on this node");
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("mod-lists-refresh-checkpoints").daemon().factory()
+    );
+    long renewalInterval = properties.leaseSeconds() / 3L;
+    scheduler.scheduleWithFixedDelay(this::renewLeases, renewalInterval, renewalInterval, TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Start recording the progress of a list's in-progress refresh. Call this once its query has been submitted.
+   */
+  public void begin(ListEntity list, UUID queryId, Layout layout) {
+    if (!properties.enabled()) {
+      return;
+    }
+    list.getInProgressRefreshId().ifPresent(refreshId -> {
+      UUID claimToken = UUID.randomUUID();
+      checkpointRepository.create(
+        new RefreshCheckpoint(refreshId, list.getId(), queryId, layout, 0, 0, claimToken), lease());
+      trackedRefreshes.put(refreshId, new TrackedRefresh(executionContext.getTenantId(), claimToken));
+    });
+  }
+
+  /**
+   * Take over a checkpoint that was handed off to a queued job (see {@link RefreshResumer})
+   *
+   * @return false if someone else has claimed it since, in which case it's theirs to resume
+   */
+  public boolean takeOver(RefreshCheckpoint checkpoint) {
+    return checkpointRepository.extendLease(checkpoint.refreshId(), checkpoint.claimToken(), lease());
+  }
+
+  /**
+   * Continue recording the progress of a refresh claimed from its checkpoint
+   */
+  public void resume(RefreshCheckpoint checkpoint) {
+    trackedRefreshes.put(checkpoint.refreshId(), new TrackedRefresh(executionContext.getTenantId(), checkpoint.claimToken()));
+  }
+
+  /**
+   * Record that everything before {@code nextOffset} has been imported
+   */
+  public void advance(UUID refreshId, int nextOffset, int batchNumber) {
+    TrackedRefresh refresh = trackedRefreshes.get(refreshId);
+    if (refresh == null) {
+      return;
+    }
+    if (!checkpointRepository.advance(refreshId, refresh.claimToken(), nextOffset, batchNumber)) {
+      // Some other node has taken over, so this one must stop writing. Suspending the refresh keeps it from being
+      // reported as failed
+      log.warn("Lost the claim on refresh {}. Leaving it to the node that took it over", refreshId);
+      suspendedRefreshes.add(refreshId);
+      trackedRefreshes.remove(refreshId);
+      throw new IllegalStateException("Refresh " + refreshId + " was taken over by another node");
+    }
+  }
+
+  /**
+   * Stop recording a refresh's progress, now that it's over (whether it succeeded or failed)
+   */
+  public void complete(UUID refreshId) {
+    suspendedRefreshes.remove(refreshId);
+    if (trackedRefreshes.remove(refreshId) != null) {
+      checkpointRepository.delete(refreshId);
+    }
+  }
+
+  /**
+   * Stop a list's in-progress refresh, leaving it to be resumed on another node. Meant to be called on shutdown.
+   *
+   * @return true if the refresh was suspended, false if it can't be resumed (e.g., its query was never submitted), in
+   * which case it's still running
+   */
+  public boolean suspend(ListEntity list) {
+    UUID refreshId = list.getInProgressRefreshId().orElse(null);
+    TrackedRefresh refresh = refreshId == null ? null : trackedRefreshes.remove(refreshId);
+    if (refresh == null) {
+      return false;
+    }
+    log.info("Suspending refresh {} of list {}, to be resumed on another node", refreshId, list.getId());
+    suspendedRefreshes.add(refreshId);
+    cancellationRegistry.cancel(refreshId);
+    checkpointRepository.release(refreshId, refresh.claimToken());
+    return true;
+  }
+
+  /**
+   * @return true if the refresh was suspended, in which case it's stopping because of that and not because it failed
+   */
+  public boolean isSuspended(UUID refreshId) {
+    return suspendedRefreshes.contains(refreshId);
+  }
+
+  // Visible for testing
+  void renewLeases() {
+    trackedRefreshes.forEach((refreshId, refresh) -> {
+      try {
+        boolean renewed = tenantSchemas.systemContext(refresh.tenantId())
+          .execute(() -> checkpointRepository.extendLease(refreshId, refresh.claimToken(), lease()));
+        if (!renewed) {
+          // The next checkpoint will notice too, and stop the refresh
+          log.warn("Unable to renew the claim on refresh {}: another node has taken it over", refreshId);
+        }
+      } catch (Exception e) {
+        // Don't let this escape, or the scheduler would stop running us. The next renewal will try again
+        log.warn("Error renewing the claim on refresh {}", refreshId, e);
+      }
+    });
+  }
+
+  private Duration lease() {
+    return Duration.ofSeconds(properties.leaseSeconds());
+  }
+}
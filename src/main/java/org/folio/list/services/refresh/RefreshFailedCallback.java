@@ -3,8 +3,11 @@ package org.folio.list.services.refresh;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.folio.list.domain.ListEntity;
-import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStagingRepository;
 import org.folio.list.repository.ListRepository;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.list.services.purge.ListContentsReaper;
 import org.folio.list.util.TaskTimer;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,7 +20,9 @@ import java.util.function.Predicate;
 @Log4j2
 public class RefreshFailedCallback {
   private final ListRepository listRepository;
-  private final ListContentsRepository listContentsRepository;
+  private final ListContentsReaper listContentsReaper;
+  private final ListContentsStagingRepository listContentsStagingRepository;
+  private final JobEventBus jobEventBus;
 
   @Transactional
   public void accept(ListEntity entity, TaskTimer timer, Throwable failureReason) {
@@ -36,13 +41,16 @@ public class RefreshFailedCallback {
       currentRefreshId,
       failureReason);
     // inProgressRefresh should only be saved as failedRefresh if it is this list's most recent inProgressRefresh
-    // Otherwise, it would overwrite the more recent refresh. However, contents of refresh should be deleted
+    // Otherwise, it would overwrite the more recent refresh. However, contents of refresh should be purged
     // no matter what
     if (isActiveRefresh(entity.getId(), currentRefreshId)) {
       entity.refreshFailed(failureReason, timer);
       listRepository.save(entity);
+      jobEventBus.publish(JobEvent.refresh(entity.getFailedRefresh()));
     }
-    listContentsRepository.deleteContents(entity.getId(), currentRefreshId);
+    // Staged contents were never visible, so there's nothing to purge gradually
+    listContentsStagingRepository.dropStagingTable(currentRefreshId);
+    listContentsReaper.markGarbage(entity.getId(), currentRefreshId);
   }
 
   /**
@@ -0,0 +1,154 @@
+package org.folio.list.services.refresh;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.domain.JobType;
+import org.folio.list.domain.ListEntity;
+import org.folio.list.exception.RefreshAbandonedException;
+import org.folio.list.exception.RefreshInProgressDuringShutdownException;
+import org.folio.list.repository.JobRepository.Job;
+import org.folio.list.repository.ListContentsStores;
+import org.folio.list.repository.ListRepository;
+import org.folio.list.repository.RefreshCheckpointRepository;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
+import org.folio.list.services.AppShutdownService;
+import org.folio.list.services.AppShutdownService.ShutdownTask;
+import org.folio.list.services.ListValidationService;
+import org.folio.list.services.jobs.JobHandler;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.util.TaskTimer;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs queued refreshes
+ * <p>
+ * A refresh runs without the token of the user who queued it, so before it starts, the user's current permissions are
+ * checked again (see {@link ListValidationService#validateQueuedRefresh}): they may have changed while the refresh
+ * was waiting its turn.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class RefreshJobHandler implements JobHandler<JobPayload.Refresh> {
+
+  private final ListRepository listRepository;
+  private final ListRefreshService listRefreshService;
+  private final ListContentsStores listContentsStores;
+  private final RefreshCheckpointRepository checkpointRepository;
+  private final RefreshCheckpointService refreshCheckpointService;
+  private final RefreshResumer refreshResumer;
+  private final RefreshFailedCallback refreshFailedCallback;
+  private final AppShutdownService appShutdownService;
+  private final ListValidationService listValidationService;
+  private final FolioExecutionContext executionContext;
+
+  @Override
+  public JobType type() {
+    return JobType.REFRESH;
+  }
+
+  @Override
+  public Class<JobPayload.Refresh> payloadType() {
+    return JobPayload.Refresh.class;
+  }
+
+  @Override
+  public CompletableFuture<Void> handle(JobPayload.Refresh payload, Job job) {
+    Optional<ListEntity> list = listRepository.findByIdAndIsDeletedFalse(payload.listId())
+      .filter(l -> l.getInProgressRefreshId().filter(payload.refreshId()::equals).isPresent());
+    if (list.isEmpty()) {
+      // Cancelled while it was queued, or (if this is a retry) it got far enough to be over, one way or another
+      log.info("Refresh {} of list {} is no longer in progress. Skipping it", payload.refreshId(), payload.listId());
+      discardHandedOffCheckpoint(payload);
+      return CompletableFuture.completedFuture(null);
+    }
+    TaskTimer timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    timer.addDetails(payload.timings());
+    if (payload.checkpoint() != null) {
+      return resume(list.get(), payload.checkpoint(), timer);
+    }
+    if (job.userId() != null && !isStillAllowed(list.get(), payload, timer)) {
+      return CompletableFuture.completedFuture(null);
+    }
+    if (job.attempts() == 1) {
+      timer.addDetails(Map.of("QUEUE_WAIT", job.age().toString()));
+    } else {
+      if (checkpointRepository.exists(payload.refreshId())) {
+        // It got far enough to be checkpointed, so it's resumed (or already being resumed) from there instead
+        log.info("Refresh {} of list {} has a checkpoint. Leaving it to be resumed", payload.refreshId(),
+          payload.listId());
+        return CompletableFuture.completedFuture(null);
+      }
+      log.info("Restarting refresh {} of list {} (attempt {})", payload.refreshId(), payload.listId(), job.attempts());
+      listContentsStores.deleteContentsFrom(payload.listId(), payload.refreshId(), 0);
+      timer.addDetails(Map.of("JOB_ATTEMPTS", Integer.toString(job.attempts())));
+    }
+
+    ShutdownTask shutdownTask = registerShutdownTask(list.get());
+    return payload.queryId() == null
+      ? listRefreshService.doAsyncRefresh(list.get(), shutdownTask, timer)
+      : listRefreshService.doAsyncSorting(list.get(), payload.queryId(), shutdownTask, timer);
+  }
+
+  /**
+   * Fail the refresh if the user who queued it may no longer refresh the list. Refreshes queued by the system (i.e.,
+   * resumed ones) were checked when they first started.
+   */
+  private boolean isStillAllowed(ListEntity list, JobPayload.Refresh payload, TaskTimer timer) {
+    try {
+      listValidationService.validateQueuedRefresh(list, payload.queryId() != null);
+      return true;
+    } catch (RuntimeException e) {
+      log.info("Refresh {} of list {} can't run on behalf of the user who queued it: {}", payload.refreshId(),
+        payload.listId(), e.getMessage());
+      refreshFailedCallback.accept(list, timer, e);
+      return false;
+    }
+  }
+
+  private CompletableFuture<Void> resume(ListEntity list, RefreshCheckpoint checkpoint, TaskTimer timer) {
+    if (!refreshCheckpointService.takeOver(checkpoint)) {
+      // This job was retried after its node went away, and the refresh has been claimed again since
+      log.info("Refresh {} of list {} was claimed again since it was queued. Leaving it to be resumed",
+        checkpoint.refreshId(), list.getId());
+      return CompletableFuture.completedFuture(null);
+    }
+    return refreshResumer.resume(list, checkpoint, registerShutdownTask(list), timer);
+  }
+
+  /**
+   * Fail the refresh, so that the list doesn't stay refreshing forever
+   */
+  @Override
+  public void giveUp(JobPayload.Refresh payload, Job job) {
+    listRepository.findByIdAndIsDeletedFalse(payload.listId())
+      .filter(l -> l.getInProgressRefreshId().filter(payload.refreshId()::equals).isPresent())
+      .ifPresent(list -> refreshFailedCallback.accept(list, new TaskTimer(),
+        new RefreshAbandonedException(list, job.attempts())));
+    discardHandedOffCheckpoint(payload);
+  }
+
+  private void discardHandedOffCheckpoint(JobPayload.Refresh payload) {
+    // A checkpoint handed off to this job is held until the job takes it over, so nobody else would ever clear it out
+    if (payload.checkpoint() != null) {
+      checkpointRepository.delete(payload.refreshId());
+    }
+  }
+
+  private ShutdownTask registerShutdownTask(ListEntity list) {
+    // Refreshes that can be resumed elsewhere are left to another node, rather than failed
+    Runnable shutDownTask = () -> {
+      if (!refreshCheckpointService.suspend(list)) {
+        refreshFailedCallback.accept(list, new TaskTimer(), new RefreshInProgressDuringShutdownException(list));
+      }
+    };
+    return appShutdownService.registerShutdownTask(executionContext, shutDownTask,
+      "Suspend refresh for list " + list.getId());
+  }
+}
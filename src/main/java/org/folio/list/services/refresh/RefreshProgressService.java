@@ -0,0 +1,109 @@
+package org.folio.list.services.refresh;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.RefreshProgressProperties;
+import org.folio.list.domain.ListEntity;
+import org.folio.list.exception.ListNotRefreshingException;
+import org.folio.list.repository.RefreshProgressRepository;
+import org.folio.list.repository.RefreshProgressRepository.RefreshProgress;
+import org.folio.list.services.ListActions;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.spring.FolioExecutionContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Reports how far running refreshes have got: the number of records and batches imported so far, the current import
+ * rate, and how long the rest should take at that rate.
+ * <p>
+ * Progress is saved every few batches (see {@link RefreshProgressProperties}) rather than after every one, and in a
+ * table of its own, so that reporting it costs the import next to nothing. A refresh whose saved progress stops being
+ * updated is stuck, while a slow one keeps updating it, just with a low rate. The same numbers are published as
+ * metrics, and to the list's event stream (see {@link JobEventBus}) whenever they're saved.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class RefreshProgressService {
+
+  static final String RECORDS_IMPORTED_METRIC = "mod_lists.refresh.records_imported";
+  static final String BATCHES_IMPORTED_METRIC = "mod_lists.refresh.batches_imported";
+  static final String IMPORT_RATE_METRIC = "mod_lists.refresh.records_per_second";
+
+  private final RefreshProgressRepository refreshProgressRepository;
+  private final RefreshProgressProperties properties;
+  private final JobEventBus jobEventBus;
+  private final FolioExecutionContext executionContext;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Start following the import of a list's in-progress refresh. Call {@link #complete} once the refresh is over.
+   *
+   * @param recordsImported the number of records imported already (when resuming a refresh)
+   * @param totalRecords    the number of records the refresh will import, if known
+   */
+  public RefreshProgressTracker startTracking(ListEntity list, int recordsImported, Integer totalRecords) {
+    UUID refreshId = list.getInProgressRefreshId()
+      .orElseThrow(() -> new ListNotRefreshingException(list, ListActions.REFRESH));
+    String tenantId = executionContext.getTenantId();
+    return new RefreshProgressTracker(list.getId(), refreshId, recordsImported, totalRecords, properties.saveInterval(),
+      this::save,
+      Counter.builder(RECORDS_IMPORTED_METRIC)
+        .description("Records imported by refreshes")
+        .tag("tenant", tenantId)
+        .register(meterRegistry),
+      Counter.builder(BATCHES_IMPORTED_METRIC)
+        .description("Batches of records imported by refreshes")
+        .tag("tenant", tenantId)
+        .register(meterRegistry),
+      DistributionSummary.builder(IMPORT_RATE_METRIC)
+        .description("How fast refreshes import records")
+        .baseUnit("records/second")
+        .tag("tenant", tenantId)
+        .register(meterRegistry),
+      System::nanoTime);
+  }
+
+  /**
+   * @return the progress last saved for a running refresh, or empty if none was saved (e.g., its import hasn't
+   * started yet)
+   */
+  public Optional<RefreshProgress> find(UUID refreshId) {
+    return properties.enabled() ? refreshProgressRepository.find(refreshId) : Optional.empty();
+  }
+
+  /**
+   * Forget a refresh's progress, now that it's over (or suspended, to be resumed elsewhere)
+   */
+  public void complete(UUID refreshId) {
+    if (!properties.enabled()) {
+      return;
+    }
+    try {
+      refreshProgressRepository.delete(refreshId);
+    } catch (DataAccessException e) {
+      log.warn("Unable to delete the progress of refresh {}", refreshId, e);
+    }
+  }
+
+  private void save(RefreshProgress progress) {
+    if (!properties.enabled()) {
+      return;
+    }
+    try {
+      refreshProgressRepository.save(progress);
+      jobEventBus.publish(JobEvent.refreshProgress(progress));
+    } catch (DataAccessException e) {
+      // Progress is just for show, so failing to save it mustn't fail the refresh
+      log.warn("Unable to save the progress of refresh {}", progress.refreshId(), e);
+    }
+  }
+}
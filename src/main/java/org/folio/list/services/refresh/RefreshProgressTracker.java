@@ -0,0 +1,82 @@
+package org.folio.list.services.refresh;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import org.folio.list.repository.RefreshProgressRepository.RefreshProgress;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Follows a refresh's import as its batches are written, and reports how far it has got: every batch feeds the
+ * metrics, and every {@code saveInterval} batches (starting with the first) the progress is saved for clients to see.
+ * <p>
+ * The import rate is measured over the batches since the last save, rather than since the import started, so that it
+ * follows FQM and the database slowing down or speeding up.
+ * <p>
+ * Not thread-safe; each refresh has its own. Use {@link RefreshProgressService#startTracking} to get one.
+ */
+public class RefreshProgressTracker {
+
+  private final UUID listId;
+  private final UUID refreshId;
+  private final Integer totalRecords;
+  private final int saveInterval;
+  private final Consumer<RefreshProgress> saver;
+  private final Counter recordsImported;
+  private final Counter batchesImported;
+  private final DistributionSummary recordsPerSecond;
+  private final LongSupplier nanoClock;
+  private long sampleStart;
+  private int sampleStartRecords;
+  private int batchesSinceStart;
+
+  /**
+   * @param startRecords the number of records imported before tracking started (when resuming a refresh)
+   * @param totalRecords the number of records the refresh will import, if known
+   * @param saver        saves the refresh's progress
+   * @param nanoClock    the time, in nanoseconds (see {@link System#nanoTime()})
+   */
+  public RefreshProgressTracker(UUID listId, UUID refreshId, int startRecords, Integer totalRecords, int saveInterval,
+                                Consumer<RefreshProgress> saver, Counter recordsImported, Counter batchesImported,
+                                DistributionSummary recordsPerSecond, LongSupplier nanoClock) {
+    this.listId = listId;
+    this.refreshId = refreshId;
+    this.totalRecords = totalRecords;
+    this.saveInterval = saveInterval;
+    this.saver = saver;
+    this.recordsImported = recordsImported;
+    this.batchesImported = batchesImported;
+    this.recordsPerSecond = recordsPerSecond;
+    this.nanoClock = nanoClock;
+    this.sampleStart = nanoClock.getAsLong();
+    this.sampleStartRecords = startRecords;
+  }
+
+  /**
+   * Record that a batch was imported
+   *
+   * @param batchSize     the number of records in the batch
+   * @param totalImported the number of records imported so far, including this batch
+   * @param batchNumber   the number of batches imported so far, including this one
+   */
+  public void batchImported(int batchSize, int totalImported, int batchNumber) {
+    recordsImported.increment(batchSize);
+    batchesImported.increment();
+    if (batchesSinceStart++ % saveInterval != 0) {
+      return;
+    }
+    long now = nanoClock.getAsLong();
+    double rate = (totalImported - sampleStartRecords) * 1e9 / Math.max(now - sampleStart, 1);
+    Integer secondsRemaining = totalRecords == null || rate <= 0
+      ? null
+      : (int) Math.ceil(Math.max(totalRecords - totalImported, 0) / rate);
+    recordsPerSecond.record(rate);
+    saver.accept(new RefreshProgress(refreshId, listId, totalImported, batchNumber, rate, secondsRemaining,
+      Duration.ZERO));
+    sampleStart = now;
+    sampleStartRecords = totalImported;
+  }
+}
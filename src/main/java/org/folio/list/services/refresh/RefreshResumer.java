@@ -0,0 +1,213 @@
+package org.folio.list.services.refresh;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.RefreshCheckpointProperties;
+import org.folio.list.domain.ListEntity;
+import org.folio.list.repository.ListContentsStagingRepository;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.ListContentsStores;
+import org.folio.list.repository.ListContentsWriter.WriteMode;
+import org.folio.list.repository.ListRepository;
+import org.folio.list.repository.RefreshCheckpointRepository;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
+import org.folio.list.services.AppShutdownService.ShutdownTask;
+import org.folio.list.services.TenantSchemas;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.jobs.JobQueue;
+import org.folio.list.util.TaskTimer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumes refreshes that were interrupted on another node (or on this one, before a restart).
+ * <p>
+ * Runs in the background, looking for refresh checkpoints whose claim was released (the node running the refresh shut
+ * down) or ran out (it died). Each one is claimed and handed off to a refresh job carrying the checkpoint, so that
+ * resumed refreshes wait their turn in the job queue (and count towards the tenant's running jobs) like any other. When
+ * the job runs, the partial batch the refresh may have written past its checkpoint is deleted, and the refresh carries
+ * on from there, fetching the rest of the results of the same FQM query (see {@link #resume}). See
+ * {@link RefreshCheckpointService}.
+ */
+@Log4j2
+@Service
+public class RefreshResumer {
+
+  private final RefreshCheckpointRepository checkpointRepository;
+  private final ListRepository listRepository;
+  private final ListContentsStores listContentsStores;
+  private final ListContentsStagingRepository listContentsStagingRepository;
+  private final ListRefreshService listRefreshService;
+  private final JobQueue jobQueue;
+  private final TenantSchemas tenantSchemas;
+  private final RefreshCheckpointProperties properties;
+  private final TransactionTemplate transactionTemplate;
+  private ScheduledExecutorService scheduler;
+  private volatile boolean running = true;
+
+  @Value("${mod-lists.general.refresh-write-mode:JPA}")
+  private WriteMode refreshWriteMode;
+
+  @Autowired
+  public RefreshResumer(RefreshCheckpointRepository checkpointRepository,
+                        ListRepository listRepository,
+                        ListContentsStores listContentsStores,
+                        ListContentsStagingRepository listContentsStagingRepository,
+                        ListRefreshService listRefreshService,
+                        JobQueue jobQueue,
+                        TenantSchemas tenantSchemas,
+                        RefreshCheckpointProperties properties,
+                        PlatformTransactionManager transactionManager) {
+    this.checkpointRepository = checkpointRepository;
+    this.listRepository = listRepository;
+    this.listContentsStores = listContentsStores;
+    this.listContentsStagingRepository = listContentsStagingRepository;
+    this.listRefreshService = listRefreshService;
+    this.jobQueue = jobQueue;
+    this.tenantSchemas = tenantSchemas;
+    this.properties = properties;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!properties.enabled()) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("mod-lists-refresh-resumer").daemon().factory()
+    );
+    scheduler.scheduleWithFixedDelay(this::resumeAllTenants, properties.resumeIntervalSeconds(),
+      properties.resumeIntervalSeconds(), TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Resume every interrupted refresh, for every tenant
+   */
+  // Visible for testing
+  public void resumeAllTenants() {
+    List<String> tenants;
+    try {
+      tenants = tenantSchemas.findTenantsWithTable("list_refresh_checkpoints");
+    } catch (Exception e) {
+      // Don't let this escape, or the scheduler would stop running us
+      log.warn("Unable to find tenants to resume refreshes for", e);
+      return;
+    }
+    for (String tenantId : tenants) {
+      if (!running) {
+        return;
+      }
+      try {
+        tenantSchemas.systemContext(tenantId).execute(() -> {
+          resumeTenant(tenantId);
+          return null;
+        });
+      } catch (Exception e) {
+        // A checkpoint claimed but not resumed is released when its lease runs out, so the next run will try again
+        log.warn("Error resuming refreshes for tenant {}", tenantId, e);
+      }
+    }
+  }
+
+  private void resumeTenant(String tenantId) {
+    while (running) {
+      Optional<RefreshCheckpoint> checkpoint = checkpointRepository.claimNext(Duration.ofSeconds(properties.leaseSeconds()));
+      if (checkpoint.isEmpty()) {
+        return;
+      }
+      requeue(tenantId, checkpoint.get());
+    }
+  }
+
+  private void requeue(String tenantId, RefreshCheckpoint checkpoint) {
+    Optional<ListEntity> list = listRepository.findByIdAndIsDeletedFalse(checkpoint.listId())
+      .filter(l -> l.getInProgressRefreshId().filter(checkpoint.refreshId()::equals).isPresent());
+    if (list.isEmpty()) {
+      // The refresh finished, failed or was cancelled after its last checkpoint
+      log.info("Refresh {} of list {} is no longer in progress. Discarding its checkpoint", checkpoint.refreshId(),
+        checkpoint.listId());
+      checkpointRepository.delete(checkpoint.refreshId());
+      return;
+    }
+    // The job and the hand-off go together, so that the checkpoint isn't held for a job that was never queued
+    transactionTemplate.executeWithoutResult(status -> {
+      if (checkpointRepository.handOff(checkpoint.refreshId(), checkpoint.claimToken())) {
+        jobQueue.enqueue(new JobPayload.Refresh(checkpoint.listId(), checkpoint.refreshId(), checkpoint.queryId(),
+          Map.of(), list.get().getRecordsCount(), checkpoint));
+        log.info("Queued refresh {} of list {} for tenant {} to resume from offset {}", checkpoint.refreshId(),
+          checkpoint.listId(), tenantId, checkpoint.nextOffset());
+      }
+    });
+  }
+
+  /**
+   * Resume a refresh from a checkpoint that the caller has taken over. Called by the refresh job that the checkpoint
+   * was handed off to.
+   *
+   * @return a future that completes once the refresh is over, whether it succeeded or not
+   */
+  public CompletableFuture<Void> resume(ListEntity list, RefreshCheckpoint checkpoint, ShutdownTask shutdownTask,
+                                        TaskTimer timer) {
+    Layout layout = refreshWriteMode.layout();
+    if (checkpoint.layout() != layout) {
+      // Contents in two layouts can't be read back as one list, so start over in this node's layout
+      log.info("Refresh {} was written as {}, but this node writes {}. Restarting it from the beginning",
+        checkpoint.refreshId(), checkpoint.layout(), layout);
+      checkpoint = restartFromBeginning(checkpoint, layout);
+    } else if (!isStagedAsThisNodeStages(checkpoint)) {
+      log.info("Refresh {} was not staged the way this node stages refreshes, or its staging table was lost. Restarting "
+        + "it from the beginning", checkpoint.refreshId());
+      checkpoint = restartFromBeginning(checkpoint, layout);
+    }
+    log.info("Resuming refresh {} of list {} from offset {}", checkpoint.refreshId(), checkpoint.listId(),
+      checkpoint.nextOffset());
+    listContentsStores.deleteContentsFrom(checkpoint.listId(), checkpoint.refreshId(), checkpoint.nextOffset());
+
+    timer.addDetails(Map.of("RESUMED_FROM_OFFSET", Integer.toString(checkpoint.nextOffset())));
+    return listRefreshService.resumeRefresh(list, checkpoint, shutdownTask, timer);
+  }
+
+  /**
+   * Check that a refresh's contents so far are where this node would write the rest of them: all in a staging table if
+   * this node stages refreshes, and in list_contents otherwise. Staging tables are unlogged, so they're emptied if
+   * Postgres crashes.
+   */
+  private boolean isStagedAsThisNodeStages(RefreshCheckpoint checkpoint) {
+    if (refreshWriteMode == WriteMode.STAGED) {
+      return checkpoint.nextOffset() == 0
+        || listContentsStagingRepository.holdsContentsBefore(checkpoint.refreshId(), checkpoint.nextOffset());
+    }
+    return !listContentsStagingRepository.stagingTableExists(checkpoint.refreshId());
+  }
+
+  private RefreshCheckpoint restartFromBeginning(RefreshCheckpoint checkpoint, Layout layout) {
+    // A staging table is created again when the refresh restarts, if this node stages refreshes
+    listContentsStagingRepository.dropStagingTable(checkpoint.refreshId());
+    RefreshCheckpoint restarted = new RefreshCheckpoint(checkpoint.refreshId(), checkpoint.listId(), checkpoint.queryId(),
+      layout, 0, 0, checkpoint.claimToken());
+    checkpointRepository.create(restarted, Duration.ofSeconds(properties.leaseSeconds()));
+    return restarted;
+  }
+}
@@ -0,0 +1,220 @@
+package org.folio.list.services.refresh;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.RefreshScheduleProperties;
+import org.folio.list.exception.AbstractListException;
+import org.folio.list.exception.InsufficientEntityTypePermissionsException;
+import org.folio.list.exception.PrivateListOfAnotherUserException;
+import org.folio.list.repository.RefreshScheduleRepository;
+import org.folio.list.repository.RefreshScheduleRepository.RefreshSchedule;
+import org.folio.list.services.ConcurrencyLimits;
+import org.folio.list.services.ConcurrencyLimits.Resource;
+import org.folio.list.services.ListService;
+import org.folio.list.services.TenantSchemas;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts scheduled refreshes (see {@link RefreshScheduleRepository}) once they're due.
+ * <p>
+ * Every node with the scheduler enabled polls each tenant's schedules, and claims the ones that are due by moving them
+ * on to their next run, so each scheduled refresh is started by exactly one node. Lists scheduled for the same time are
+ * spread out by a random amount of jitter, each node only starts a few refreshes per poll, and none at all while the
+ * database or FQM are slow to respond: due refreshes just wait for a quieter poll. A refresh is skipped if the list
+ * was refreshed recently enough anyway (e.g., by hand), or can't be refreshed right now (e.g., it's already refreshing).
+ * <p>
+ * Scheduled refreshes are queued like any other refresh, on behalf of the user who set the schedule. They run without
+ * that user's token, so their access is checked again before each run, and a schedule whose user can no longer refresh
+ * the list (e.g., they lost access to its entity type, or it was made private by someone else) is removed.
+ */
+@Log4j2
+@Service
+public class RefreshScheduler {
+
+  public static final String SCHEDULED_REFRESHES_METRIC = "mod_lists.scheduled_refreshes";
+
+  enum Outcome {
+    STARTED,
+    SKIPPED,
+    DISABLED,
+    FAILED,
+  }
+
+  private final RefreshScheduleRepository scheduleRepository;
+  private final ListService listService;
+  private final ConcurrencyLimits concurrencyLimits;
+  private final FolioModuleMetadata folioModuleMetadata;
+  private final TenantSchemas tenantSchemas;
+  private final RefreshScheduleProperties properties;
+  private final MeterRegistry meterRegistry;
+  private int nextFirstTenant;
+  private ScheduledExecutorService scheduler;
+  private volatile boolean running = true;
+
+  @Autowired
+  public RefreshScheduler(RefreshScheduleRepository scheduleRepository,
+                          ListService listService,
+                          ConcurrencyLimits concurrencyLimits,
+                          FolioModuleMetadata folioModuleMetadata,
+                          TenantSchemas tenantSchemas,
+                          RefreshScheduleProperties properties,
+                          MeterRegistry meterRegistry) {
+    this.scheduleRepository = scheduleRepository;
+    this.listService = listService;
+    this.concurrencyLimits = concurrencyLimits;
+    this.folioModuleMetadata = folioModuleMetadata;
+    this.tenantSchemas = tenantSchemas;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!properties.schedulerEnabled()) {
+      log.info("Refresh scheduler is disabled on this node");
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("mod-lists-refresh-scheduler").daemon().factory()
+    );
+    scheduler.scheduleWithFixedDelay(this::pollAllTenants, properties.pollIntervalSeconds(),
+      properties.pollIntervalSeconds(), TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Start up to {@code maxRefreshesPerPoll} due refreshes, across all tenants, as long as the system isn't too busy
+   */
+  // Visible for testing
+  public void pollAllTenants() {
+    List<String> tenants;
+    try {
+      tenants = tenantSchemas.findTenantsWithTable("list_refresh_schedules");
+    } catch (Exception e) {
+      // Don't let this escape, or the scheduler would stop running us
+      log.warn("Unable to find tenants to run scheduled refreshes for", e);
+      return;
+    }
+    if (tenants.isEmpty()) {
+      return;
+    }
+    // Only the scheduler thread polls, so this needs no synchronization
+    int first = Math.floorMod(nextFirstTenant++, tenants.size());
+    List<String> inTurn = new ArrayList<>(tenants.subList(first, tenants.size()));
+    inTurn.addAll(tenants.subList(0, first));
+
+    int room = properties.maxRefreshesPerPoll();
+    for (String tenantId : inTurn) {
+      if (room <= 0 || !running) {
+        return;
+      }
+      try {
+        Optional<String> overload = tenantSchemas.systemContext(tenantId).execute(this::findOverload);
+        if (overload.isPresent()) {
+          log.info("Holding back scheduled refreshes until the next poll: {}", overload.get());
+          return;
+        }
+        room -= startDueRefreshes(tenantId, room);
+      } catch (Exception e) {
+        log.warn("Error starting scheduled refreshes for tenant {}", tenantId, e);
+      }
+    }
+  }
+
+  /**
+   * @return why new refreshes shouldn't be started right now, if they shouldn't
+   */
+  // Visible for testing
+  Optional<String> findOverload() {
+    Duration dbLatency = scheduleRepository.probeLatency();
+    if (dbLatency.toMillis() > properties.maxDbLatencyMillis()) {
+      return Optional.of("the database took " + dbLatency.toMillis() + " ms to respond");
+    }
+    Duration fqmLatency = concurrencyLimits.recentLatency(Resource.FQM);
+    if (fqmLatency.toMillis() > properties.maxFqmLatencyMillis()) {
+      return Optional.of("FQM has been taking " + fqmLatency.toMillis() + " ms to respond");
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * @return the number of due refreshes claimed (whether they were started or skipped)
+   */
+  private int startDueRefreshes(String tenantId, int limit) {
+    List<RefreshSchedule> due = tenantSchemas.systemContext(tenantId)
+      .execute(() -> scheduleRepository.claimDue(limit, properties.maxJitterSeconds()));
+    for (RefreshSchedule schedule : due) {
+      Outcome outcome = startRefresh(tenantId, schedule);
+      Counter.builder(SCHEDULED_REFRESHES_METRIC)
+        .description("Scheduled refreshes that came due on this node")
+        .tag("tenant", tenantId)
+        .tag("outcome", outcome.name())
+        .register(meterRegistry)
+        .increment();
+    }
+    return due.size();
+  }
+
+  private Outcome startRefresh(String tenantId, RefreshSchedule schedule) {
+    log.info("Scheduled refresh of list {} for tenant {} is due ({} late)", schedule.listId(), tenantId,
+      schedule.untilNextRun().negated());
+    try {
+      boolean started = scheduleContext(tenantId, schedule).execute(() ->
+        listService.startScheduledRefresh(schedule.listId(), Duration.ofMinutes(schedule.maxAgeMinutes())));
+      return started ? Outcome.STARTED : Outcome.SKIPPED;
+    } catch (InsufficientEntityTypePermissionsException | PrivateListOfAnotherUserException e) {
+      // This won't fix itself, and the user would have to be allowed to refresh the list to set the schedule again
+      log.warn("Removing refresh schedule of list {} for tenant {}, since the user who set it can't refresh it "
+        + "anymore: {}", schedule.listId(), tenantId, e.getMessage());
+      tenantSchemas.systemContext(tenantId).execute(() -> scheduleRepository.delete(schedule.listId()));
+      return Outcome.DISABLED;
+    } catch (AbstractListException e) {
+      // The list can't be refreshed right now (e.g., it's already refreshing, or it's been deactivated)
+      log.info("Skipping scheduled refresh of list {} for tenant {}: {}", schedule.listId(), tenantId, e.getMessage());
+      return Outcome.SKIPPED;
+    } catch (Exception e) {
+      log.warn("Error starting scheduled refresh of list {} for tenant {}", schedule.listId(), tenantId, e);
+      return Outcome.FAILED;
+    }
+  }
+
+  /**
+   * The context of the user who set the schedule, minus their token, so that calls to other modules run as the system
+   * user (see {@link org.folio.list.services.RunAsSystemUserService})
+   */
+  private FolioExecutionContext scheduleContext(String tenantId, RefreshSchedule schedule) {
+    Map<String, Collection<String>> headers = new HashMap<>();
+    headers.put(XOkapiHeaders.TENANT, List.of(tenantId));
+    headers.put(XOkapiHeaders.USER_ID, List.of(schedule.scheduledBy().toString()));
+    if (schedule.okapiUrl() != null) {
+      headers.put(XOkapiHeaders.URL, List.of(schedule.okapiUrl()));
+    }
+    return new DefaultFolioExecutionContext(folioModuleMetadata, headers);
+  }
+}
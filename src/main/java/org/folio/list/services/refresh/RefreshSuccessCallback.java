@@ -3,9 +3,12 @@ package org.folio.list.services.refresh;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.folio.list.domain.ListEntity;
-import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStagingRepository;
 import org.folio.list.repository.ListRepository;
 import org.folio.list.services.EntityManagerFlushService;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.list.services.purge.ListContentsReaper;
 import org.folio.list.util.TaskTimer;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,8 +21,10 @@ import java.util.function.Predicate;
 @Log4j2
 public class RefreshSuccessCallback implements SuccessCallback {
   private final ListRepository listRepository;
-  private final ListContentsRepository listContentsRepository;
+  private final ListContentsReaper listContentsReaper;
   private final EntityManagerFlushService entityManagerFlushService;
+  private final ListContentsStagingRepository listContentsStagingRepository;
+  private final JobEventBus jobEventBus;
 
   @Transactional
   public void accept(ListEntity entity, int recordsCount, TaskTimer timer) {
@@ -37,17 +42,20 @@ public class RefreshSuccessCallback implements SuccessCallback {
       entity.getId(),
       currentRefreshId,
       recordsCount);
-    // Save list with refresh if this refresh is the most recent for the list. If not, delete the contents
-    // of this refresh
+    // Save list with refresh if this refresh is the most recent for the list. If not, purge the contents
+    // of this refresh. Either way, the obsolete contents are only marked here and purged in the background, so that
+    // we don't hold up this transaction with a huge delete
     if (isActiveRefresh(entity.getId(), currentRefreshId)) {
         if (entity.getSuccessRefresh() != null) {
-          listContentsRepository.deleteContents(entity.getId(), entity.getSuccessRefresh().getId());
+          listContentsReaper.markGarbage(entity.getId(), entity.getSuccessRefresh().getId());
         }
         entity.refreshCompleted(recordsCount, timer);
         timer.time(TimedStage.WRITE_END, () -> listRepository.save(entity));
         entityManagerFlushService.flush();
+        jobEventBus.publish(JobEvent.refresh(entity.getSuccessRefresh()));
     } else {
-      listContentsRepository.deleteContents(entity.getId(), currentRefreshId);
+      listContentsStagingRepository.dropStagingTable(currentRefreshId);
+      listContentsReaper.markGarbage(entity.getId(), currentRefreshId);
     }
   }
 
@@ -0,0 +1,172 @@
+package org.folio.list.services.refresh;
+
+import lombok.extern.log4j.Log4j2;
+import org.folio.spring.FolioExecutionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches pages of sorted content IDs on background threads, running up to {@code prefetchPages} pages ahead of the
+ * caller. This lets FQM serve the next pages while the caller is still writing the current one to the database.
+ * <p>
+ * When the total number of records is known up front, the page offsets are known too, so up to
+ * {@code fetchConcurrency} pages are requested at the same time. Otherwise, pages are fetched one after another until
+ * FQM returns an empty page.
+ * <p>
+ * Either way, pages are always returned in offset order, and an empty page marks the end of the results. Closing the
+ * prefetcher stops the background fetch, so use it with try-with-resources to make sure an aborted import
+ * (cancellation, max list size exceeded, etc.) doesn't leave threads talking to FQM.
+ */
+@Log4j2
+public class SortedIdsPrefetcher implements AutoCloseable {
+
+  /**
+   * Retrieves one page of sorted IDs, starting at {@code offset}
+   */
+  @FunctionalInterface
+  public interface PageSource {
+    List<List<String>> getPage(int offset, int limit);
+  }
+
+  private final PageSource pageSource;
+  private final int pageSize;
+  // Only known when the total record count is known; -1 otherwise
+  private final int pageCount;
+  // Limits how many pages can be in flight or waiting to be read
+  private final Semaphore window;
+  private final Map<Integer, CompletableFuture<List<List<String>>>> pages = new ConcurrentHashMap<>();
+  private final AtomicInteger nextPageToFetch = new AtomicInteger();
+  private final List<Thread> fetchThreads = new ArrayList<>();
+  private volatile boolean closed;
+  private int nextPageToRead;
+  private boolean finished;
+
+  /**
+   * @param totalRecords     the total number of IDs to fetch, if known. May be null.
+   * @param fetchConcurrency the max number of pages to request at once. Ignored if {@code totalRecords} is null.
+   * @param context          the execution context to fetch with. This must be a real context instance (see
+   *                         {@link FolioExecutionContext#getInstance()}), since the fetch runs on other threads.
+   */
+  public SortedIdsPrefetcher(PageSource pageSource, int pageSize, Integer totalRecords, int prefetchPages,
+                             int fetchConcurrency, FolioExecutionContext context, String threadName) {
+    if (prefetchPages < 1) {
+      throw new IllegalArgumentException("prefetchPages must be at least 1, but was " + prefetchPages);
+    }
+    this.pageSource = pageSource;
+    this.pageSize = pageSize;
+    this.pageCount = totalRecords == null ? -1 : (totalRecords + pageSize - 1) / pageSize;
+    int threadCount = totalRecords == null ? 1 : Math.max(1, Math.min(fetchConcurrency, pageCount));
+    this.window = new Semaphore(Math.max(prefetchPages, threadCount));
+
+    Runnable fetchLoop = totalRecords == null ? this::fetchSequentially : this::fetchConcurrently;
+    for (int i = 0; i < threadCount; i++) {
+      fetchThreads.add(Thread.ofVirtual()
+        .name(threadName + "-" + i)
+        .start(() -> context.execute(() -> {
+          fetchLoop.run();
+          return null;
+        })));
+    }
+  }
+
+  /**
+   * Get the next page of IDs, waiting for it to be fetched if necessary. Returns an empty list once all IDs have been
+   * read. If fetching the page failed, the failure is rethrown here.
+   */
+  public List<List<String>> next() {
+    if (finished || nextPageToRead == pageCount) {
+      finished = true;
+      return List.of();
+    }
+    try {
+      List<List<String>> ids = page(nextPageToRead).get();
+      pages.remove(nextPageToRead);
+      nextPageToRead++;
+      window.release();
+      finished = ids.isEmpty();
+      return ids;
+    } catch (ExecutionException e) {
+      finished = true;
+      throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the next page of sorted IDs", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    fetchThreads.forEach(Thread::interrupt);
+  }
+
+  /**
+   * Fetch pages in order until an empty page is returned. Offsets are advanced by the number of IDs actually returned,
+   * so this works without knowing the total number of records.
+   */
+  private void fetchSequentially() {
+    int offset = 0;
+    try {
+      List<List<String>> ids;
+      do {
+        window.acquire();
+        int pageNumber = nextPageToFetch.getAndIncrement();
+        ids = fetchPage(pageNumber, offset);
+        if (ids == null) {
+          return;
+        }
+        offset += ids.size();
+      } while (!ids.isEmpty() && !closed);
+    } catch (InterruptedException e) {
+      log.debug("Sorted ID prefetch interrupted at offset {}", offset);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Claim and fetch pages by number until every page has been claimed. Several threads run this loop at the same time,
+   * so pages can complete out of order; {@link #next()} puts them back in order.
+   */
+  private void fetchConcurrently() {
+    try {
+      while (!closed) {
+        window.acquire();
+        int pageNumber = nextPageToFetch.getAndIncrement();
+        if (pageNumber >= pageCount || fetchPage(pageNumber, pageNumber * pageSize) == null) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      log.debug("Sorted ID prefetch interrupted");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Fetch a page and hand it over to the reader. Returns null if the fetch failed, in which case the reader will see
+   * the failure instead of the page.
+   */
+  private List<List<String>> fetchPage(int pageNumber, int offset) {
+    CompletableFuture<List<List<String>>> page = page(pageNumber);
+    try {
+      List<List<String>> ids = Objects.requireNonNullElse(pageSource.getPage(offset, pageSize), List.of());
+      page.complete(ids);
+      return ids;
+    } catch (RuntimeException e) {
+      page.completeExceptionally(e);
+      return null;
+    }
+  }
+
+  private CompletableFuture<List<List<String>>> page(int pageNumber) {
+    return pages.computeIfAbsent(pageNumber, k -> new CompletableFuture<>());
+  }
+}
@@ -0,0 +1,107 @@
+package org.folio.list.services.refresh;
+
+import org.folio.list.domain.ContentIdBatch;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads a page of sorted IDs from FQM's response body as it arrives, rather than deserializing the whole page first.
+ * IDs are handed over in {@link ContentIdBatch}es of up to {@code batchSize}, so memory use depends on the batch size
+ * rather than on the page size.
+ * <p>
+ * A page is a JSON array of content IDs, each of which is an array of strings (usually just one, but composite
+ * entity types have more), e.g. {@code [["id1"], ["id2"]]}.
+ */
+public class SortedIdsStreamReader {
+
+  private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder().build();
+
+  private final int batchSize;
+
+  public SortedIdsStreamReader(int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be at least 1, but was " + batchSize);
+    }
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Read a page of sorted IDs, passing them to {@code batchConsumer} in order
+   *
+   * @return the number of IDs read
+   */
+  public int read(InputStream body, Consumer<ContentIdBatch> batchConsumer) {
+    int count = 0;
+    try (JsonParser parser = OBJECT_MAPPER.createParser(body)) {
+      JsonToken token = parser.nextToken();
+      if (token == null) {
+        // No body at all, which FQM shouldn't send, but means the same as an empty page
+        return 0;
+      }
+      expect(JsonToken.START_ARRAY, token);
+      ContentIdBatch.Builder batch = ContentIdBatch.builder(batchSize);
+      for (token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+        expect(JsonToken.START_ARRAY, token);
+        readContentId(parser, batch);
+        count++;
+        if (batch.size() == batchSize) {
+          batchConsumer.accept(batch.build());
+          batch = ContentIdBatch.builder(batchSize);
+        }
+      }
+      if (batch.size() > 0) {
+        batchConsumer.accept(batch.build());
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Read one content ID into the batch. Most IDs are a single UUID, which goes into the batch as such without any list
+   * being made for it.
+   */
+  private static void readContentId(JsonParser parser, ContentIdBatch.Builder batch) {
+    JsonToken token = nextInContentId(parser);
+    if (token == JsonToken.END_ARRAY) {
+      batch.add(List.<String>of());
+      return;
+    }
+    String first = valueOf(parser, token);
+    token = nextInContentId(parser);
+    if (token == JsonToken.END_ARRAY) {
+      batch.add(first);
+      return;
+    }
+    List<String> contentId = new ArrayList<>(2);
+    contentId.add(first);
+    for (; token != JsonToken.END_ARRAY; token = nextInContentId(parser)) {
+      contentId.add(valueOf(parser, token));
+    }
+    batch.add(contentId);
+  }
+
+  private static JsonToken nextInContentId(JsonParser parser) {
+    JsonToken token = parser.nextToken();
+    if (token == null) {
+      throw new IllegalStateException("Unexpected end of sorted IDs");
+    }
+    return token;
+  }
+
+  private static String valueOf(JsonParser parser, JsonToken token) {
+    return token == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+  }
+
+  private static void expect(JsonToken expected, JsonToken actual) {
+    if (actual != expected) {
+      throw new IllegalStateException("Expected " + expected + " in sorted IDs, but got " + actual);
+    }
+  }
+}
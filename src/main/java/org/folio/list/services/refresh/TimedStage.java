@@ -5,6 +5,8 @@ public enum TimedStage {
   WRITE_START,
   REQUEST_QUERY,
   WAIT_FOR_QUERY_COMPLETION,
+  CHECK_RESULT_SIZE,
   IMPORT_RESULTS,
+  PUBLISH_STAGED_CONTENTS,
   WRITE_END,
 }
@@ -10,6 +10,7 @@ import java.util.stream.Collectors;
 
 public class TaskTimer {
   Map<TimedStage, Stopwatch> stopwatches = new EnumMap<>(TimedStage.class);
+  Map<String, String> details = new LinkedHashMap<>();
 
   public void start(TimedStage task) {
     if (stopwatches.get(task) != null) {
@@ -45,11 +46,25 @@ public class TaskTimer {
     });
   }
 
+  /**
+   * Record extra information about how the task ran, to be included in the summary alongside the timings
+   */
+  public void addDetails(Map<String, String> details) {
+    this.details.putAll(details);
+  }
+
   public Map<String, String> getSummary() {
-    return stopwatches
+    Map<String, String> summary = stopwatches
       .entrySet()
       .stream()
-      .collect(Collectors.toMap(e -> e.getKey().toString(), e -> Objects.toString(e.getValue().getElapsedTime())));
+      .collect(Collectors.toMap(
+        e -> e.getKey().toString(),
+        e -> Objects.toString(e.getValue().getElapsedTime()),
+        (a, b) -> a,
+        HashMap::new
+      ));
+    summary.putAll(details);
+    return summary;
   }
 
   private static class Stopwatch {
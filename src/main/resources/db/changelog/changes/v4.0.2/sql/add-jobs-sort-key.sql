@@ -0,0 +1,9 @@
+-- The time a job counts as queued at, when deciding which of a tenant's jobs to run next. Jobs expected to take a while
+-- count as queued a bit later than they were, so that quick jobs don't wait behind them. See JobQueue.
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS sort_key TIMESTAMP;
+UPDATE jobs SET sort_key = created_at WHERE sort_key IS NULL;
+ALTER TABLE jobs ALTER COLUMN sort_key SET DEFAULT now();
+ALTER TABLE jobs ALTER COLUMN sort_key SET NOT NULL;
+
+DROP INDEX IF EXISTS idx_jobs_status_created_at;
+CREATE INDEX IF NOT EXISTS idx_jobs_status_sort_key ON jobs (status, sort_key);
@@ -0,0 +1,36 @@
+-- Give each of list_contents' hash partitions a CHECK constraint that matches its partition bound, so that re-attaching
+-- the partition (see split-list-contents-by-refresh.sql) doesn't need to scan it again.
+--
+-- Adding the constraint as NOT VALID locks the bucket (ACCESS EXCLUSIVE), but only for as long as it takes to update the
+-- catalog. Validating it scans the whole bucket, but only takes a SHARE UPDATE EXCLUSIVE lock, so reads and writes carry
+-- on in the meantime, as long as the ADD has been committed by then. So this only defines the two steps for one bucket,
+-- and the changelog calls each of them in a changeset (and so a transaction) of its own. An interrupted migration
+-- carries on from the first step that wasn't done.
+CREATE OR REPLACE FUNCTION add_list_contents_bucket_check(remainder int) RETURNS void AS $$
+DECLARE
+  bucket text := format('list_contents_%s', lpad(remainder::text, 2, '0'));
+BEGIN
+  IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(bucket)) IS DISTINCT FROM 'r'
+    OR EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = bucket::regclass AND conname = bucket || '_hash_check') THEN
+    RETURN;
+  END IF;
+  EXECUTE format(
+    'ALTER TABLE %I ADD CONSTRAINT %I CHECK (satisfies_hash_partition(%L::regclass::oid, 12, %s, list_id)) NOT VALID',
+    bucket, bucket || '_hash_check', 'list_contents', remainder);
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION validate_list_contents_bucket_check(remainder int) RETURNS void AS $$
+DECLARE
+  bucket text := format('list_contents_%s', lpad(remainder::text, 2, '0'));
+BEGIN
+  IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(bucket)) IS DISTINCT FROM 'r'
+    OR NOT EXISTS (
+      SELECT 1 FROM pg_constraint
+      WHERE conrelid = bucket::regclass AND conname = bucket || '_hash_check' AND NOT convalidated
+    ) THEN
+    RETURN;
+  END IF;
+  EXECUTE format('ALTER TABLE %I VALIDATE CONSTRAINT %I', bucket, bucket || '_hash_check');
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,7 @@
+-- Store content IDs made of UUIDs as native uuid/uuid[] instead of text[]. See ContentIdCodec.
+-- Existing rows are deliberately not backfilled: rewriting every row would double list_contents' size until vacuum
+-- catches up, and hold up the upgrade for as long as it takes. Rows that only have content_id are still read as-is
+-- (ContentIdCodec decodes either form), and they go away as their lists are refreshed, since only new refreshes write
+-- the compact columns.
+ALTER TABLE list_contents ADD COLUMN IF NOT EXISTS content_uuid uuid;
+ALTER TABLE list_contents ADD COLUMN IF NOT EXISTS content_uuids uuid[];
@@ -0,0 +1,19 @@
+-- content_id can't be NOT NULL anymore, so it can't be part of the primary key either. Rows are identified by
+-- (list_id, refresh_id, sort_seq) instead (see ListContent's @IdClass), so that has to be unique before the primary key
+-- goes. idx_sort_seq normally takes care of that already: the changesets that build a new index only run if it's
+-- missing or has been changed (i.e., if this finds no such index), so that nobody pays for two copies of the same index.
+CREATE OR REPLACE FUNCTION count_list_contents_sort_seq_indexes() RETURNS bigint AS $$
+  SELECT count(*)
+  FROM pg_index i
+  WHERE i.indrelid = 'list_contents'::regclass
+    AND i.indisunique
+    AND i.indisvalid
+    AND i.indpred IS NULL
+    AND i.indexprs IS NULL
+    AND ARRAY(
+      SELECT a.attname::text
+      FROM unnest(i.indkey::int2[]) WITH ORDINALITY AS k(attnum, position)
+      JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = k.attnum
+      ORDER BY k.position
+    ) = ARRAY['list_id', 'refresh_id', 'sort_seq']
+$$ LANGUAGE sql;
@@ -0,0 +1,30 @@
+-- Tie the indexes built concurrently on each bucket's partitions together into one index on list_contents. Indexes
+-- created ON ONLY a partitioned table are empty shells, and attaching an existing index to one only updates the catalog,
+-- so this doesn't scan anything. Partitions that somehow got no index of their own get one here, the slow way.
+DO $$
+DECLARE
+  bucket text;
+  leaf text;
+BEGIN
+  CREATE UNIQUE INDEX IF NOT EXISTS list_contents_list_id_refresh_id_sort_seq_idx
+    ON ONLY list_contents (list_id, refresh_id, sort_seq);
+
+  FOR bucket IN
+    SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = 'list_contents'::regclass
+  LOOP
+    EXECUTE format('CREATE UNIQUE INDEX IF NOT EXISTS %I ON ONLY %I (list_id, refresh_id, sort_seq)',
+      bucket || '_list_id_refresh_id_sort_seq_idx', bucket);
+    FOR leaf IN
+      SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+      WHERE i.inhparent = to_regclass(bucket)
+    LOOP
+      EXECUTE format('CREATE UNIQUE INDEX IF NOT EXISTS %I ON %I (list_id, refresh_id, sort_seq)',
+        leaf || '_list_id_refresh_id_sort_seq_idx', leaf);
+      EXECUTE format('ALTER INDEX %I ATTACH PARTITION %I', bucket || '_list_id_refresh_id_sort_seq_idx',
+        leaf || '_list_id_refresh_id_sort_seq_idx');
+    END LOOP;
+    EXECUTE format('ALTER INDEX list_contents_list_id_refresh_id_sort_seq_idx ATTACH PARTITION %I',
+      bucket || '_list_id_refresh_id_sort_seq_idx');
+  END LOOP;
+END $$;
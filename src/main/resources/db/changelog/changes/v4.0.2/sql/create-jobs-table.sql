@@ -0,0 +1,19 @@
+-- Background work (refreshes, exports and migrations) waiting for, or claimed by, a node. See JobWorker.
+CREATE TABLE IF NOT EXISTS jobs
+(
+    id            UUID      NOT NULL,
+    job_type      TEXT      NOT NULL,
+    payload       JSONB     NOT NULL,
+    status        TEXT      NOT NULL DEFAULT 'QUEUED',
+    user_id       UUID,
+    okapi_url     TEXT,
+    attempts      INTEGER   NOT NULL DEFAULT 0,
+    claim_token   UUID,
+    claimed_until TIMESTAMP,
+    error         TEXT,
+    created_at    TIMESTAMP NOT NULL DEFAULT now(),
+    finished_at   TIMESTAMP,
+    CONSTRAINT pk_jobs PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_jobs_status_created_at ON jobs (status, created_at);
@@ -0,0 +1,11 @@
+-- List contents packed into chunks of IDs, for refreshes written with the CHUNKED write mode. See ChunkedListContentsStore.
+CREATE TABLE IF NOT EXISTS list_contents_chunks
+(
+    list_id     UUID    NOT NULL,
+    refresh_id  UUID    NOT NULL,
+    first_seq   INTEGER NOT NULL,
+    last_seq    INTEGER NOT NULL,
+    contents    BYTEA   NOT NULL,
+    CONSTRAINT pk_list_contents_chunks PRIMARY KEY (list_id, refresh_id, first_seq)
+);
+
@@ -0,0 +1,14 @@
+-- Contents that are no longer needed (superseded or failed refreshes, deleted lists), waiting to be purged in the
+-- background. A NULL refresh_id means all of the list's contents.
+CREATE TABLE IF NOT EXISTS list_contents_garbage
+(
+    id              UUID NOT NULL PRIMARY KEY,
+    list_id         UUID NOT NULL,
+    refresh_id      UUID,
+    marked_at       TIMESTAMP NOT NULL DEFAULT now(),
+    rows_deleted    BIGINT NOT NULL DEFAULT 0,
+    last_purged_at  TIMESTAMP,
+    claimed_until   TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_list_contents_garbage_marked_at ON list_contents_garbage (marked_at);
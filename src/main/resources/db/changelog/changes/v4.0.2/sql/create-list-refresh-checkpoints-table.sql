@@ -0,0 +1,16 @@
+-- How far each running refresh has got, so that another node can resume it. See RefreshCheckpointService.
+CREATE TABLE IF NOT EXISTS list_refresh_checkpoints
+(
+    refresh_id    UUID      NOT NULL,
+    list_id       UUID      NOT NULL,
+    query_id      UUID      NOT NULL,
+    layout        TEXT      NOT NULL,
+    next_offset   INTEGER   NOT NULL DEFAULT 0,
+    batch_number  INTEGER   NOT NULL DEFAULT 0,
+    claim_token   UUID      NOT NULL,
+    claimed_until TIMESTAMP NOT NULL,
+    updated_at    TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT pk_list_refresh_checkpoints PRIMARY KEY (refresh_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_list_refresh_checkpoints_claimed_until ON list_refresh_checkpoints (claimed_until);
@@ -0,0 +1,12 @@
+-- How far each running refresh has got, for clients to show. See RefreshProgressService.
+CREATE TABLE IF NOT EXISTS list_refresh_progress
+(
+    refresh_id                  UUID             NOT NULL,
+    list_id                     UUID             NOT NULL,
+    records_imported            INTEGER          NOT NULL,
+    batches_processed           INTEGER          NOT NULL,
+    records_per_second          DOUBLE PRECISION NOT NULL,
+    estimated_seconds_remaining INTEGER,
+    updated_at                  TIMESTAMP        NOT NULL DEFAULT now(),
+    CONSTRAINT pk_list_refresh_progress PRIMARY KEY (refresh_id)
+);
@@ -0,0 +1,7 @@
+-- Find the query timings of a list's latest successful refreshes (see ListRefreshRepository) without going through
+-- every refresh the list ever had. list_refresh_details keeps growing with each refresh, so the index is built
+-- concurrently. An interrupted build leaves an invalid index behind, which is dropped before trying again.
+DROP INDEX CONCURRENTLY IF EXISTS idx_list_refresh_details_query_durations;
+CREATE INDEX CONCURRENTLY idx_list_refresh_details_query_durations
+  ON list_refresh_details (list_id, refresh_start_date DESC)
+  WHERE status = 'SUCCESS' AND metadata ->> 'WAIT_FOR_QUERY_COMPLETION' IS NOT NULL;
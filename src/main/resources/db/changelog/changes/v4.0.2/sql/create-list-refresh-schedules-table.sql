@@ -0,0 +1,18 @@
+-- Lists that are refreshed automatically, and when they're next due. See RefreshScheduler.
+CREATE TABLE IF NOT EXISTS list_refresh_schedules
+(
+    list_id          UUID      NOT NULL,
+    interval_minutes INTEGER   NOT NULL,
+    max_age_minutes  INTEGER   NOT NULL,
+    -- When the next refresh is due, before jitter. Later refreshes are due every interval_minutes after it.
+    base_run_at      TIMESTAMP NOT NULL,
+    -- When the next refresh may start: base_run_at, plus jitter
+    next_run_at      TIMESTAMP NOT NULL,
+    scheduled_by     UUID      NOT NULL,
+    okapi_url        TEXT,
+    updated_at       TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT pk_list_refresh_schedules PRIMARY KEY (list_id),
+    CONSTRAINT fk_list_refresh_schedules_list_id FOREIGN KEY (list_id) REFERENCES list_details (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_list_refresh_schedules_next_run_at ON list_refresh_schedules (next_run_at);
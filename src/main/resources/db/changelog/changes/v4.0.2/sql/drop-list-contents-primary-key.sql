@@ -0,0 +1,16 @@
+-- Dropping the primary key also drops its index, which was the biggest thing in list_contents after the table itself.
+-- By now, (list_id, refresh_id, sort_seq) is unique without it (see add-list-contents-sort-seq-index-check.sql).
+DO $$
+DECLARE
+  pk_name text;
+BEGIN
+  SELECT conname INTO pk_name
+  FROM pg_constraint
+  WHERE conrelid = 'list_contents'::regclass AND contype = 'p';
+
+  IF pk_name IS NOT NULL THEN
+    EXECUTE format('ALTER TABLE list_contents DROP CONSTRAINT %I', pk_name);
+  END IF;
+END $$;
+
+ALTER TABLE list_contents ALTER COLUMN content_id DROP NOT NULL;
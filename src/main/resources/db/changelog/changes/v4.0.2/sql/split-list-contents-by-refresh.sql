@@ -0,0 +1,26 @@
+-- Turn each of list_contents' hash partitions into a partitioned table of its own, partitioned by refresh_id. Big
+-- refreshes get a partition of their own (attached when the refresh starts writing), so that their contents can be
+-- dropped in one go once they're obsolete. Everything else, including all existing contents, goes to each bucket's
+-- default partition, which is simply the old hash partition: no data is moved, and its indexes and foreign keys are
+-- reused as-is.
+--
+-- Detaching and re-attaching a bucket locks all of list_contents (ACCESS EXCLUSIVE), so this only defines how to split
+-- one bucket. The changelog calls it once per bucket, each in a changeset (and so a transaction) of its own, so that
+-- list_contents is only ever locked for as long as it takes to split a single bucket, and reads and writes get through
+-- in between. An interrupted migration carries on from the first bucket that wasn't split.
+CREATE OR REPLACE FUNCTION split_list_contents_bucket(remainder int) RETURNS void AS $$
+DECLARE
+  bucket text := format('list_contents_%s', lpad(remainder::text, 2, '0'));
+BEGIN
+  IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(bucket)) IS DISTINCT FROM 'r' THEN
+    RETURN;
+  END IF;
+  EXECUTE format('ALTER TABLE list_contents DETACH PARTITION %I', bucket);
+  EXECUTE format('ALTER TABLE %I RENAME TO %I', bucket, bucket || '_default');
+  EXECUTE format('CREATE TABLE %I (LIKE list_contents INCLUDING DEFAULTS) PARTITION BY LIST (refresh_id)', bucket);
+  EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I DEFAULT', bucket, bucket || '_default');
+  EXECUTE format('ALTER TABLE list_contents ATTACH PARTITION %I FOR VALUES WITH (MODULUS 12, REMAINDER %s)', bucket,
+    remainder);
+  EXECUTE format('ALTER TABLE %I DROP CONSTRAINT IF EXISTS %I', bucket || '_default', bucket || '_hash_check');
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,41 @@
+package org.folio.list.configuration;
+
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AsyncExecutionConfigurationTest {
+
+  @Test
+  void shouldRunTasksInTheSubmittersContext() {
+    FolioExecutionContext contextProxy = mock(FolioExecutionContext.class);
+    FolioExecutionContext submittersContext = mock(FolioExecutionContext.class);
+    AtomicBoolean ranInContext = new AtomicBoolean(false);
+    AtomicBoolean inContext = new AtomicBoolean(false);
+    when(contextProxy.getInstance()).thenReturn(submittersContext);
+    when(submittersContext.execute(any())).thenAnswer(invocation -> {
+      inContext.set(true);
+      try {
+        return invocation.<Callable<?>>getArgument(0).call();
+      } finally {
+        inContext.set(false);
+      }
+    });
+
+    TaskDecorator decorator = AsyncExecutionConfiguration.folioContextPropagator(contextProxy);
+    Runnable decorated = decorator.decorate(() -> ranInContext.set(inContext.get()));
+    // The context is captured when the task is submitted, not when it runs
+    verify(contextProxy, times(1)).getInstance();
+    decorated.run();
+
+    assertThat(ranInContext).isTrue();
+    verify(contextProxy, never()).execute(any());
+  }
+}
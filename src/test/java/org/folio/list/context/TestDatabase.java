@@ -0,0 +1,105 @@
+package org.folio.list.context;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.UUID;
+
+/**
+ * The module's schema in the database of {@link TestcontainerCallbackExtension}, created by the real Liquibase
+ * changelog, for tests of repositories and other database code that don't need a whole application context.
+ * <p>
+ * The schema is created the first time a test class asks for it, and then shared by every test class, so tests must
+ * only rely on their own rows (or clear the tables they look at as a whole). Its name doesn't end with the module's
+ * schema suffix, so that the background workers of application contexts sharing the same database leave it alone.
+ */
+public final class TestDatabase {
+
+  public static final String SCHEMA = "mod_lists_test";
+
+  private static final String CHANGELOG = "classpath:db/changelog/changelog-master.xml";
+  private static final UUID ENTITY_TYPE_ID = UUID.fromString("0cb79a4c-f7eb-4941-a104-745224ae0292");
+  private static final UUID USER_ID = UUID.fromString("7eb41f7c-ec2f-4637-8ceb-2e9573666ad0");
+
+  private static DriverManagerDataSource dataSource;
+
+  private TestDatabase() {
+  }
+
+  /**
+   * The module's schema, in the database of {@link TestcontainerCallbackExtension}. Test classes using this must be
+   * extended with it, since that's what starts the database.
+   */
+  public static synchronized DriverManagerDataSource dataSource() {
+    if (dataSource == null) {
+      dataSource = migrate(TestcontainerCallbackExtension.dbContainer, SCHEMA);
+    }
+    return dataSource;
+  }
+
+  /**
+   * The properties of the database of {@link TestcontainerCallbackExtension}, for code that opens its own connections
+   */
+  public static DataSourceProperties dataSourceProperties() {
+    var dbContainer = TestcontainerCallbackExtension.dbContainer;
+    var dataSourceProperties = new DataSourceProperties();
+    dataSourceProperties.setUrl(dbContainer.getJdbcUrl());
+    dataSourceProperties.setUsername(dbContainer.getUsername());
+    dataSourceProperties.setPassword(dbContainer.getPassword());
+    return dataSourceProperties;
+  }
+
+  /**
+   * Create the module's schema in the given database, the way it's created for a tenant. Only benchmarks, which need a
+   * database to themselves, should need this directly.
+   */
+  public static DriverManagerDataSource migrate(PostgreSQLContainer dbContainer, String schema) {
+    var migrated = new DriverManagerDataSource(
+      dbContainer.getJdbcUrl(), dbContainer.getUsername(), dbContainer.getPassword());
+    new JdbcTemplate(migrated).execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+    migrated.setSchema(schema);
+
+    var liquibase = new SpringLiquibase();
+    liquibase.setDataSource(migrated);
+    liquibase.setChangeLog(CHANGELOG);
+    liquibase.setDefaultSchema(schema);
+    liquibase.setResourceLoader(new DefaultResourceLoader());
+    try {
+      liquibase.afterPropertiesSet();
+    } catch (LiquibaseException e) {
+      throw new IllegalStateException("Unable to create schema " + schema, e);
+    }
+    return migrated;
+  }
+
+  /**
+   * Add a list, with only the details the schema requires. Does nothing if the list already exists.
+   */
+  public static void insertList(JdbcTemplate jdbcTemplate, UUID listId) {
+    jdbcTemplate.update("""
+        INSERT INTO list_details (id, name, entity_type_id, created_by, created_by_username, created_date, updated_by,
+          updated_by_username, updated_date, is_active, is_private, is_canned, version)
+        VALUES (?, 'Test list', ?, ?, 'test', now(), ?, 'test', now(), true, false, false, 1)
+        ON CONFLICT (id) DO NOTHING
+        """,
+      listId, ENTITY_TYPE_ID, USER_ID, USER_ID);
+  }
+
+  /**
+   * Add an in-progress refresh of a list, and the list if it doesn't exist yet, so that the refresh can have contents
+   */
+  public static void insertRefresh(JdbcTemplate jdbcTemplate, UUID listId, UUID refreshId) {
+    insertList(jdbcTemplate, listId);
+    jdbcTemplate.update("""
+        INSERT INTO list_refresh_details (id, list_id, status, refresh_start_date, refreshed_by, refreshed_by_username)
+        VALUES (?, ?, 'IN_PROGRESS', now(), ?, 'test')
+        ON CONFLICT (id) DO NOTHING
+        """,
+      refreshId, listId, USER_ID);
+  }
+}
@@ -4,6 +4,7 @@ import org.folio.list.domain.ListEntity;
 import org.folio.list.exception.PrivateListOfAnotherUserException;
 import org.folio.list.services.ListActions;
 import org.folio.list.services.ListService;
+import org.folio.list.services.ListService.ListContentsPage;
 import org.folio.querytool.domain.dto.ResultsetPage;
 import org.folio.spring.integration.XOkapiHeaders;
 import org.junit.jupiter.api.Test;
@@ -21,6 +22,7 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -52,6 +54,41 @@ class ListControllerListContentsTest {
       .andExpect(jsonPath("$.content[1]", is(expectedList.get(1))));
   }
 
+  @Test
+  void shouldMarkPreviewPagesAsPartial() throws Exception {
+    UUID listId = UUID.randomUUID();
+    List<String> fields = List.of("key1");
+    var requestBuilder = get("/lists/" + listId + "/contents?size=2&offset=0&fields=key1&preview=true")
+      .contentType(APPLICATION_JSON)
+      .header(XOkapiHeaders.TENANT, listId);
+    List<Map<String, Object>> expectedList = List.of(Map.of("key1", "value1"));
+    ResultsetPage page = new ResultsetPage().content(expectedList).totalRecords(1);
+    when(listService.getListContentsPreview(listId, fields, 0, 2))
+      .thenReturn(Optional.of(new ListContentsPage(page, true)));
+    mockMvc.perform(requestBuilder)
+      .andExpect(status().isOk())
+      .andExpect(header().string("x-partial", "true"))
+      .andExpect(header().string("x-records-so-far", "1"))
+      .andExpect(jsonPath("$.content[0]", is(expectedList.get(0))))
+      .andExpect(jsonPath("$.totalRecords", is(1)));
+  }
+
+  @Test
+  void shouldNotMarkCompletePreviewPagesAsPartial() throws Exception {
+    UUID listId = UUID.randomUUID();
+    List<String> fields = List.of("key1");
+    var requestBuilder = get("/lists/" + listId + "/contents?size=2&offset=0&fields=key1&preview=true")
+      .contentType(APPLICATION_JSON)
+      .header(XOkapiHeaders.TENANT, listId);
+    ResultsetPage page = new ResultsetPage().content(List.of()).totalRecords(0);
+    when(listService.getListContentsPreview(listId, fields, 0, 2))
+      .thenReturn(Optional.of(new ListContentsPage(page, false)));
+    mockMvc.perform(requestBuilder)
+      .andExpect(status().isOk())
+      .andExpect(header().string("x-partial", "false"))
+      .andExpect(header().doesNotExist("x-records-so-far"));
+  }
+
   @Test
   void getListContentsShouldReturnHttp404WhenListNotFound() throws Exception {
     UUID listId = UUID.randomUUID();
@@ -0,0 +1,107 @@
+package org.folio.list.controller;
+
+import org.folio.list.domain.ListEntity;
+import org.folio.list.domain.dto.ListRefreshScheduleDTO;
+import org.folio.list.exception.RefreshScheduleNotFoundException;
+import org.folio.list.services.ListActions;
+import org.folio.list.services.ListService;
+import org.folio.list.util.TestDataFixture;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ListController.class)
+class ListControllerRefreshScheduleTest {
+
+  private static final String TENANT_ID = "test-tenant";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockitoBean
+  private ListService listService;
+
+  @Test
+  void shouldSetRefreshSchedule() throws Exception {
+    UUID listId = UUID.randomUUID();
+    UUID userId = UUID.randomUUID();
+    ListRefreshScheduleDTO schedule = new ListRefreshScheduleDTO()
+      .intervalMinutes(1440)
+      .maxAgeMinutes(720)
+      .nextRefreshDate(OffsetDateTime.now().plusDays(1))
+      .scheduledBy(userId);
+    when(listService.updateRefreshSchedule(eq(listId), any(ListRefreshScheduleDTO.class)))
+      .thenReturn(Optional.of(schedule));
+
+    var requestBuilder = put("/lists/" + listId + "/refresh-schedule")
+      .contentType(APPLICATION_JSON)
+      .header(XOkapiHeaders.TENANT, TENANT_ID)
+      .content("{\"intervalMinutes\": 1440}");
+
+    mockMvc.perform(requestBuilder)
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.intervalMinutes", is(1440)))
+      .andExpect(jsonPath("$.maxAgeMinutes", is(720)))
+      .andExpect(jsonPath("$.scheduledBy", is(userId.toString())));
+  }
+
+  @Test
+  void shouldRejectScheduleWithShortInterval() throws Exception {
+    UUID listId = UUID.randomUUID();
+
+    var requestBuilder = put("/lists/" + listId + "/refresh-schedule")
+      .contentType(APPLICATION_JSON)
+      .header(XOkapiHeaders.TENANT, TENANT_ID)
+      .content("{\"intervalMinutes\": 5}");
+
+    mockMvc.perform(requestBuilder)
+      .andExpect(status().isBadRequest());
+    verifyNoInteractions(listService);
+  }
+
+  @Test
+  void getRefreshScheduleShouldReturnHttp404WhenListHasNoSchedule() throws Exception {
+    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    UUID listId = list.getId();
+    when(listService.getRefreshSchedule(listId))
+      .thenThrow(new RefreshScheduleNotFoundException(list, ListActions.READ));
+
+    var requestBuilder = get("/lists/" + listId + "/refresh-schedule")
+      .contentType(APPLICATION_JSON)
+      .header(XOkapiHeaders.TENANT, TENANT_ID);
+
+    mockMvc.perform(requestBuilder)
+      .andExpect(status().isNotFound())
+      .andExpect(jsonPath("$.code", is("read-refresh.schedule.not.found")));
+  }
+
+  @Test
+  void shouldDeleteRefreshSchedule() throws Exception {
+    UUID listId = UUID.randomUUID();
+
+    var requestBuilder = delete("/lists/" + listId + "/refresh-schedule")
+      .contentType(APPLICATION_JSON)
+      .header(XOkapiHeaders.TENANT, TENANT_ID);
+
+    mockMvc.perform(requestBuilder)
+      .andExpect(status().isNoContent());
+    verify(listService, times(1)).deleteRefreshSchedule(listId);
+  }
+}
@@ -0,0 +1,49 @@
+package org.folio.list.controller;
+
+import org.folio.list.exception.ListNotFoundException;
+import org.folio.list.services.ListActions;
+import org.folio.list.services.ListService;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ListEventsController.class)
+class ListEventsControllerTest {
+  private static final String TENANT_ID = "test-tenant";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockitoBean
+  private ListService listService;
+
+  @Test
+  void shouldStreamListEvents() throws Exception {
+    UUID listId = UUID.randomUUID();
+    when(listService.getListEvents(listId)).thenReturn(new SseEmitter());
+
+    mockMvc.perform(get("/lists/" + listId + "/events").header(XOkapiHeaders.TENANT, TENANT_ID))
+      .andExpect(status().isOk())
+      .andExpect(request().asyncStarted());
+  }
+
+  @Test
+  void shouldReturnNotFoundForMissingList() throws Exception {
+    UUID listId = UUID.randomUUID();
+    when(listService.getListEvents(listId)).thenThrow(new ListNotFoundException(listId, ListActions.READ));
+
+    mockMvc.perform(get("/lists/" + listId + "/events").header(XOkapiHeaders.TENANT, TENANT_ID))
+      .andExpect(status().isNotFound());
+  }
+}
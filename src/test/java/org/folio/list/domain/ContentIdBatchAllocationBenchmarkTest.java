@@ -0,0 +1,81 @@
+package org.folio.list.domain;
+
+import lombok.extern.log4j.Log4j2;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the memory allocated for a batch of 10,000 single-UUID content IDs, held as a {@code List<List<String>>}
+ * and as a {@link ContentIdBatch}. Both are built from the same UUIDs, the way the refresh and export paths get them.
+ * <p>
+ * Allocation is counted per thread by the JVM, so this needs a HotSpot-based JVM. It only runs when requested:
+ * {@code mvn test -Dtest=ContentIdBatchAllocationBenchmarkTest -Dmod-lists.benchmark=true}
+ */
+@Log4j2
+@EnabledIfSystemProperty(named = "mod-lists.benchmark", matches = "true")
+class ContentIdBatchAllocationBenchmarkTest {
+
+  private static final int BATCH_SIZE = 10_000;
+  private static final int WARMUP_ROUNDS = 200;
+  private static final int ROUNDS = 100;
+
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private final List<UUID> uuids = new ArrayList<>(BATCH_SIZE);
+
+  @Test
+  void compareAllocationPerBatch() {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      uuids.add(UUID.randomUUID());
+    }
+
+    long listBytes = measure("List<List<String>>", this::asLists);
+    long batchBytes = measure("ContentIdBatch", this::asBatch);
+
+    log.info("ContentIdBatch allocates {}x less than List<List<String>>",
+      String.format("%.1f", (double) listBytes / batchBytes));
+    assertThat(batchBytes).isLessThan(listBytes);
+  }
+
+  private List<List<String>> asLists() {
+    List<List<String>> contentIds = new ArrayList<>(BATCH_SIZE);
+    for (UUID uuid : uuids) {
+      contentIds.add(List.of(uuid.toString()));
+    }
+    return contentIds;
+  }
+
+  private ContentIdBatch asBatch() {
+    ContentIdBatch.Builder builder = ContentIdBatch.builder(BATCH_SIZE);
+    for (UUID uuid : uuids) {
+      builder.addUuid(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+    return builder.build();
+  }
+
+  private long measure(String name, Supplier<Object> batchFactory) {
+    Object sink = null;
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      sink = batchFactory.get();
+    }
+    long threadId = Thread.currentThread().threadId();
+    long before = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < ROUNDS; i++) {
+      sink = batchFactory.get();
+    }
+    long bytesPerBatch = (THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - before) / ROUNDS;
+    log.info("{}: {} bytes allocated per batch of {} IDs ({} bytes per ID)",
+      name, bytesPerBatch, BATCH_SIZE, bytesPerBatch / BATCH_SIZE);
+    assertThat(sink).isNotNull();
+    return bytesPerBatch;
+  }
+}
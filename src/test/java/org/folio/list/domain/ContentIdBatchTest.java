@@ -0,0 +1,90 @@
+package org.folio.list.domain;
+
+import org.folio.list.domain.ContentIdCodec.EncodedContentId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentIdBatchTest {
+
+  @Test
+  void shouldKeepSingleUuidsAsBits() {
+    UUID id = UUID.randomUUID();
+
+    ContentIdBatch batch = ContentIdBatch.of(List.of(List.of(id.toString())));
+
+    assertThat(batch.isUuid(0)).isTrue();
+    assertThat(batch.mostSignificantBits(0)).isEqualTo(id.getMostSignificantBits());
+    assertThat(batch.leastSignificantBits(0)).isEqualTo(id.getLeastSignificantBits());
+    assertThat(batch.get(0)).containsExactly(id.toString());
+    assertThat(batch.encoded(0)).isEqualTo(new EncodedContentId(id, null, null));
+  }
+
+  @Test
+  void shouldKeepEverythingElseAsText() {
+    String uuid = UUID.randomUUID().toString();
+    List<List<String>> ids = List.of(
+      List.of(uuid),
+      List.of("in00000000001"),
+      List.of(uuid.toUpperCase()),
+      List.of(uuid, uuid),
+      Arrays.asList((String) null),
+      List.of()
+    );
+
+    ContentIdBatch batch = ContentIdBatch.of(ids);
+
+    assertThat(batch.size()).isEqualTo(ids.size());
+    assertThat(batch.isUuid(0)).isTrue();
+    for (int i = 1; i < ids.size(); i++) {
+      assertThat(batch.isUuid(i)).isFalse();
+      assertThat(batch.encoded(i)).isEqualTo(ContentIdCodec.encode(ids.get(i)));
+    }
+    assertThat(batch.toContentIds()).isEqualTo(ids);
+    assertThatThrownBy(() -> batch.mostSignificantBits(1)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldGrowPastExpectedSize() {
+    ContentIdBatch.Builder builder = ContentIdBatch.builder(1);
+    List<String> ids = IntStream.range(0, 100).mapToObj(i -> UUID.randomUUID().toString()).toList();
+    builder.add("not a uuid");
+    ids.forEach(builder::add);
+
+    ContentIdBatch batch = builder.build();
+
+    assertThat(batch.size()).isEqualTo(101);
+    assertThat(batch.get(0)).containsExactly("not a uuid");
+    assertThat(batch.toContentIds().subList(1, 101)).isEqualTo(ids.stream().map(List::of).toList());
+  }
+
+  @Test
+  void shouldCollectContentIdsOfListContents() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    List<List<String>> ids = List.of(List.of(UUID.randomUUID().toString()), List.of("a", "b"));
+    List<ListContent> contents = List.of(
+      new ListContent(listId, refreshId, ids.get(0), 0),
+      new ListContent(listId, refreshId, ids.get(1), 1)
+    );
+
+    ContentIdBatch batch = ContentIdBatch.ofContents(contents);
+
+    assertThat(batch.toContentIds()).isEqualTo(ids);
+    assertThat(new ListContent(listId, refreshId, batch.encoded(0), 0)).isEqualTo(contents.get(0));
+  }
+
+  @Test
+  void emptyBatchShouldHaveNoIds() {
+    assertThat(ContentIdBatch.empty().isEmpty()).isTrue();
+    assertThat(ContentIdBatch.builder(10).build().isEmpty()).isTrue();
+    assertThat(ContentIdBatch.empty().toContentIds()).isEmpty();
+    assertThatThrownBy(() -> ContentIdBatch.empty().get(0)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+}
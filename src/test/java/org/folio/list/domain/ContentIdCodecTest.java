@@ -0,0 +1,82 @@
+package org.folio.list.domain;
+
+import org.folio.list.domain.ContentIdCodec.EncodedContentId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentIdCodecTest {
+
+  @Test
+  void shouldEncodeSingleUuidAsUuid() {
+    UUID id = UUID.randomUUID();
+
+    EncodedContentId encoded = ContentIdCodec.encode(List.of(id.toString()));
+
+    assertThat(encoded).isEqualTo(new EncodedContentId(id, null, null));
+    assertThat(decode(encoded)).containsExactly(id.toString());
+  }
+
+  @Test
+  void shouldEncodeCompositeUuidsAsUuidArray() {
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+
+    EncodedContentId encoded = ContentIdCodec.encode(List.of(first.toString(), second.toString()));
+
+    assertThat(encoded).isEqualTo(new EncodedContentId(null, List.of(first, second), null));
+    assertThat(decode(encoded)).containsExactly(first.toString(), second.toString());
+  }
+
+  @Test
+  void shouldFallBackToTextForAnythingThatWouldNotRoundTrip() {
+    String uuid = UUID.randomUUID().toString();
+    List<List<String>> ids = List.of(
+      List.of("in00000000001"),
+      List.of(uuid.toUpperCase()),
+      List.of(uuid.replace("-", "")),
+      List.of("1-1-1-1-1"),
+      List.of(uuid, "not-a-uuid"),
+      Arrays.asList(uuid, null),
+      List.of()
+    );
+
+    for (List<String> id : ids) {
+      EncodedContentId encoded = ContentIdCodec.encode(id);
+      assertThat(encoded).isEqualTo(new EncodedContentId(null, null, id));
+      assertThat(decode(encoded)).isEqualTo(id);
+    }
+  }
+
+  @Test
+  void shouldRoundTripThroughListContent() {
+    String id = UUID.randomUUID().toString();
+    ListContent content = new ListContent(UUID.randomUUID(), UUID.randomUUID(), List.of(id), 0);
+
+    assertThat(content.getContentId()).containsExactly(id);
+    assertThat(content.withContentId(List.of("abc")).getContentId()).containsExactly("abc");
+  }
+
+  @Test
+  void shouldRoundTripChunks() {
+    List<List<String>> ids = List.of(
+      List.of(UUID.randomUUID().toString()),
+      List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString()),
+      List.of("in00000000001", "ünïcödé"),
+      Arrays.asList("a", null),
+      List.of()
+    );
+
+    assertThat(ContentIdCodec.decodeChunk(ContentIdCodec.encodeChunk(ids)).toContentIds()).isEqualTo(ids);
+    // 1 version byte, then 17 bytes per single UUID
+    assertThat(ContentIdCodec.encodeChunk(List.of(List.of(UUID.randomUUID().toString())))).hasSize(18);
+  }
+
+  private static List<String> decode(EncodedContentId encoded) {
+    return ContentIdCodec.decode(encoded.uuid(), encoded.uuids(), encoded.text());
+  }
+}
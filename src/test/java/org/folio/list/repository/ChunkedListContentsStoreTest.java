@@ -0,0 +1,113 @@
+package org.folio.list.repository;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.domain.ListContent;
+import org.folio.spring.data.OffsetRequest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(TestcontainerCallbackExtension.class)
+class ChunkedListContentsStoreTest {
+
+  private static JdbcTemplate jdbcTemplate;
+
+  private ChunkedListContentsStore store;
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate.execute("TRUNCATE list_contents_chunks");
+    store = new ChunkedListContentsStore(jdbcTemplate);
+  }
+
+  @Test
+  void shouldSplitBatchesIntoChunks() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+
+    store.writeContents(contents(listId, refreshId, 0, ChunkedListContentsStore.CHUNK_SIZE + 10));
+
+    assertThat(jdbcTemplate.queryForList("SELECT first_seq FROM list_contents_chunks ORDER BY first_seq", Integer.class))
+      .containsExactly(0, ChunkedListContentsStore.CHUNK_SIZE);
+  }
+
+  @Test
+  void shouldReadPagesByOffsetAndKeysetAcrossChunks() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    List<ListContent> contents = contents(listId, refreshId, 0, 10_000);
+    // Write in batches, the way refreshes do, so that there are chunk boundaries in odd places
+    for (int i = 0; i < contents.size(); i += 3000) {
+      store.writeContents(contents.subList(i, Math.min(i + 3000, contents.size())));
+    }
+    store.writeContents(contents(listId, UUID.randomUUID(), 0, 100));
+
+    assertThat(store.getContents(listId, refreshId, new OffsetRequest(2990, 20)))
+      .isEqualTo(contents.subList(2990, 3010));
+    assertThat(store.getContents(listId, refreshId, 4095, PageRequest.ofSize(5)))
+      .isEqualTo(contents.subList(4096, 4101));
+    assertThat(store.getContents(listId, refreshId, new OffsetRequest(9990, 100)))
+      .isEqualTo(contents.subList(9990, 10_000));
+    assertThat(store.getContents(listId, refreshId, 9999, PageRequest.ofSize(100))).isEmpty();
+
+    List<ListContent> all = new ArrayList<>();
+    int after = ListContent.SORT_SEQUENCE_START_NUMBER - 1;
+    for (var page = store.getContents(listId, refreshId, after, PageRequest.ofSize(777)); !page.isEmpty();
+         page = store.getContents(listId, refreshId, after, PageRequest.ofSize(777))) {
+      all.addAll(page);
+      after = page.get(page.size() - 1).getSortSequence();
+    }
+    assertThat(all).isEqualTo(contents);
+  }
+
+  @Test
+  void shouldKeepCompositeAndTextIds() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    List<ListContent> contents = List.of(
+      new ListContent(listId, refreshId, List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString()), 0),
+      new ListContent(listId, refreshId, List.of("in00000000001"), 1),
+      new ListContent(listId, refreshId, List.of(UUID.randomUUID().toString()), 2)
+    );
+
+    store.writeContents(contents);
+
+    assertThat(store.getContents(listId, refreshId, new OffsetRequest(0, 10))).isEqualTo(contents);
+  }
+
+  @Test
+  void shouldDeleteAllContentsOfList() {
+    UUID listId = UUID.randomUUID();
+    UUID otherListId = UUID.randomUUID();
+    store.writeContents(contents(listId, UUID.randomUUID(), 0, 10));
+    store.writeContents(contents(listId, UUID.randomUUID(), 0, 10));
+    store.writeContents(contents(otherListId, UUID.randomUUID(), 0, 10));
+
+    store.deleteContents(listId);
+
+    assertThat(jdbcTemplate.queryForList("SELECT DISTINCT list_id FROM list_contents_chunks", UUID.class))
+      .containsExactly(otherListId);
+  }
+
+  private static List<ListContent> contents(UUID listId, UUID refreshId, int start, int count) {
+    return IntStream.range(start, start + count)
+      .mapToObj(i -> new ListContent(listId, refreshId, List.of(UUID.randomUUID().toString()), i))
+      .toList();
+  }
+}
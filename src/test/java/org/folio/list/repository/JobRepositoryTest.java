@@ -0,0 +1,162 @@
+package org.folio.list.repository;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.domain.JobType;
+import org.folio.list.repository.JobRepository.Job;
+import org.folio.list.repository.JobRepository.JobStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the job claims against a real Postgres, since they rely on leases, advisory locks and FOR UPDATE SKIP LOCKED
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class JobRepositoryTest {
+
+  private static final Duration LEASE = Duration.ofMinutes(1);
+  private static final String PAYLOAD = "{\"listId\": \"" + UUID.randomUUID() + "\"}";
+
+  private static JdbcTemplate jdbcTemplate;
+
+  private JobRepository repository;
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate.execute("TRUNCATE jobs");
+    repository = new JobRepository(jdbcTemplate);
+  }
+
+  @Test
+  void shouldHandOutQueuedJobsOnce() {
+    UUID userId = UUID.randomUUID();
+    UUID jobId = enqueue(userId);
+
+    List<Job> claimed = repository.claim(10, 10, 3, LEASE);
+
+    assertThat(claimed).singleElement().satisfies(job -> {
+      assertThat(job.id()).isEqualTo(jobId);
+      assertThat(job.type()).isEqualTo(JobType.EXPORT);
+      assertThat(job.payload()).contains("listId");
+      assertThat(job.userId()).isEqualTo(userId);
+      assertThat(job.okapiUrl()).isEqualTo("http://okapi:9130");
+      assertThat(job.attempts()).isEqualTo(1);
+    });
+    assertThat(repository.findStatus(jobId)).contains(JobStatus.RUNNING);
+    assertThat(repository.claim(10, 10, 3, LEASE)).isEmpty();
+  }
+
+  @Test
+  void shouldNotRunMoreThanTenantCap() {
+    for (int i = 0; i < 5; i++) {
+      enqueue(null);
+    }
+
+    assertThat(repository.claim(10, 2, 3, LEASE)).hasSize(2);
+    // The cap covers jobs claimed by every node, not just this call
+    assertThat(repository.claim(10, 3, 3, LEASE)).hasSize(1);
+    assertThat(repository.claim(10, 3, 3, LEASE)).isEmpty();
+  }
+
+  @Test
+  void shouldHandOutJobOfNodeThatWentAway() {
+    UUID jobId = enqueue(null);
+    Job first = repository.claim(1, 10, 3, Duration.ZERO).getFirst();
+
+    Job second = repository.claim(1, 10, 3, LEASE).getFirst();
+
+    assertThat(second.id()).isEqualTo(jobId);
+    assertThat(second.attempts()).isEqualTo(2);
+    assertThat(second.claimToken()).isNotEqualTo(first.claimToken());
+    // Whoever claimed it first lost their claim, and can't record an outcome anymore
+    assertThat(repository.extendLease(jobId, first.claimToken(), LEASE)).isFalse();
+    assertThat(repository.finish(jobId, first.claimToken(), JobStatus.SUCCEEDED, null)).isFalse();
+    assertThat(repository.finish(jobId, second.claimToken(), JobStatus.SUCCEEDED, null)).isTrue();
+    assertThat(repository.findStatus(jobId)).contains(JobStatus.SUCCEEDED);
+  }
+
+  @Test
+  void shouldGiveUpOnJobAfterMaxAttempts() {
+    UUID jobId = enqueue(null);
+    repository.claim(1, 10, 2, Duration.ZERO);
+    repository.claim(1, 10, 2, Duration.ZERO);
+
+    assertThat(repository.claim(1, 10, 2, LEASE)).isEmpty();
+    Job abandoned = repository.findAbandoned(2).getFirst();
+    assertThat(abandoned.id()).isEqualTo(jobId);
+
+    assertThat(repository.giveUp(jobId, abandoned.claimToken())).isTrue();
+    // Only one node gets to give up on it
+    assertThat(repository.giveUp(jobId, abandoned.claimToken())).isFalse();
+    assertThat(repository.findAbandoned(2)).isEmpty();
+    assertThat(repository.findStatus(jobId)).contains(JobStatus.FAILED);
+    assertThat(repository.findError(jobId)).contains("Gave up after 2 attempts");
+  }
+
+  @Test
+  void shouldPutReleasedJobBackWithoutCountingTheAttempt() {
+    UUID jobId = enqueue(null);
+    Job claimed = repository.claim(1, 10, 3, LEASE).getFirst();
+
+    repository.release(jobId, claimed.claimToken());
+
+    assertThat(repository.findStatus(jobId)).contains(JobStatus.QUEUED);
+    assertThat(repository.claim(1, 10, 3, LEASE).getFirst().attempts()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldDeleteOnlyOldFinishedJobs() {
+    UUID finishedJobId = enqueue(null);
+    Job claimed = repository.claim(1, 10, 3, LEASE).getFirst();
+    repository.finish(finishedJobId, claimed.claimToken(), JobStatus.FAILED, "oh no");
+    UUID queuedJobId = enqueue(null);
+
+    assertThat(repository.deleteFinishedBefore(Duration.ofHours(1))).isZero();
+    assertThat(repository.deleteFinishedBefore(Duration.ZERO)).isEqualTo(1);
+    assertThat(repository.findStatus(finishedJobId)).isEmpty();
+    assertThat(repository.findStatus(queuedJobId)).contains(JobStatus.QUEUED);
+  }
+
+  @Test
+  void shouldLetSmallJobsGoAheadOfBigOnes() {
+    UUID bigRefreshId = UUID.randomUUID();
+    UUID smallRefreshId = UUID.randomUUID();
+    UUID bigJobId = enqueueRefresh(bigRefreshId, Duration.ofMinutes(10));
+    UUID smallJobId = enqueueRefresh(smallRefreshId, Duration.ZERO);
+
+    assertThat(repository.findRefreshQueuePosition(smallRefreshId)).contains(1);
+    assertThat(repository.findRefreshQueuePosition(bigRefreshId)).contains(2);
+    assertThat(repository.claim(1, 10, 3, LEASE).getFirst().id()).isEqualTo(smallJobId);
+    // Once it's running, it's no longer in the queue
+    assertThat(repository.findRefreshQueuePosition(smallRefreshId)).isEmpty();
+    assertThat(repository.findRefreshQueuePosition(bigRefreshId)).contains(1);
+    assertThat(repository.claim(1, 10, 3, LEASE).getFirst().id()).isEqualTo(bigJobId);
+  }
+
+  private UUID enqueue(UUID userId) {
+    UUID jobId = UUID.randomUUID();
+    repository.enqueue(jobId, JobType.EXPORT, PAYLOAD, userId, "http://okapi:9130", Duration.ZERO);
+    return jobId;
+  }
+
+  private UUID enqueueRefresh(UUID refreshId, Duration sortPenalty) {
+    UUID jobId = UUID.randomUUID();
+    String payload = "{\"listId\": \"" + UUID.randomUUID() + "\", \"refreshId\": \"" + refreshId + "\"}";
+    repository.enqueue(jobId, JobType.REFRESH, payload, null, null, sortPenalty);
+    return jobId;
+  }
+}
@@ -0,0 +1,98 @@
+package org.folio.list.repository;
+
+import org.folio.list.domain.ListContent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ListContentsCopyRepositoryTest {
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks
+  private ListContentsCopyRepository copyRepository;
+
+  @Test
+  void shouldNotTouchDatabaseForEmptyBatch() {
+    copyRepository.copyContents(List.of());
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void shouldWriteSingleUuidIdToUuidColumn() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    String contentId = UUID.randomUUID().toString();
+    StringBuilder buffer = new StringBuilder();
+
+    ListContentsCopyRepository.appendRow(buffer, new ListContent(listId, refreshId, List.of(contentId), 42));
+
+    assertThat(buffer).hasToString(listId + "\t" + refreshId + "\t" + contentId + "\t\\N\t\\N\t42\n");
+  }
+
+  @Test
+  void shouldWriteCompositeUuidIdToUuidArrayColumn() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    String first = UUID.randomUUID().toString();
+    String second = UUID.randomUUID().toString();
+    StringBuilder buffer = new StringBuilder();
+
+    ListContentsCopyRepository.appendRow(buffer, new ListContent(listId, refreshId, List.of(first, second), 7));
+
+    assertThat(buffer).hasToString(listId + "\t" + refreshId + "\t\\N\t{" + first + "," + second + "}\t\\N\t7\n");
+  }
+
+  @Test
+  void shouldWriteOtherIdsToTextArrayColumn() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    StringBuilder buffer = new StringBuilder();
+
+    ListContentsCopyRepository.appendRow(buffer, new ListContent(listId, refreshId, List.of("in00001"), 3));
+
+    assertThat(buffer).hasToString(listId + "\t" + refreshId + "\t\\N\t\\N\t{\"in00001\"}\t3\n");
+  }
+
+  @Test
+  void shouldQuoteCompositeIds() {
+    assertThat(ListContentsCopyRepository.toArrayLiteral(List.of("a", "b,c", "{d}")))
+      .isEqualTo("{\"a\",\"b,c\",\"{d}\"}");
+  }
+
+  @Test
+  void shouldEscapeQuotesAndBackslashesInArrayElements() {
+    assertThat(ListContentsCopyRepository.toArrayLiteral(List.of("say \"hi\"", "C:\\temp")))
+      .isEqualTo("{\"say \\\"hi\\\"\",\"C:\\\\temp\"}");
+  }
+
+  @Test
+  void shouldWriteNullArrayElementsUnquoted() {
+    assertThat(ListContentsCopyRepository.toArrayLiteral(Arrays.asList("a", null)))
+      .isEqualTo("{\"a\",NULL}");
+  }
+
+  @Test
+  void shouldEscapeCopyControlCharacters() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    StringBuilder buffer = new StringBuilder();
+
+    ListContentsCopyRepository.appendRow(buffer, new ListContent(listId, refreshId, List.of("tab\there\nnewline\\"), 0));
+
+    // Array escaping doubles the backslash first, then COPY escaping doubles both of those again
+    assertThat(buffer).hasToString(listId + "\t" + refreshId + "\t\\N\t\\N\t{\"tab\\there\\nnewline\\\\\\\\\"}\t0\n");
+  }
+}
@@ -0,0 +1,113 @@
+package org.folio.list.repository;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.repository.ListContentsGarbageRepository.GarbageEntry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the purge queries against a real Postgres, since they rely on ctid and partition pruning
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class ListContentsGarbageRepositoryTest {
+
+  private static final Duration LEASE = Duration.ofMinutes(5);
+
+  private static JdbcTemplate jdbcTemplate;
+
+  private ListContentsGarbageRepository repository;
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate.execute("TRUNCATE list_contents_garbage");
+    repository = new ListContentsGarbageRepository(jdbcTemplate);
+  }
+
+  @Test
+  void shouldPurgeRefreshInChunksWithoutTouchingOtherContents() {
+    UUID listId = UUID.randomUUID();
+    UUID oldRefreshId = UUID.randomUUID();
+    UUID newRefreshId = UUID.randomUUID();
+    UUID otherListId = UUID.randomUUID();
+    insertContents(listId, oldRefreshId, 25);
+    // In a partition of its own, where ctids are the same as in the partition of the old refresh's contents
+    TestDatabase.insertRefresh(jdbcTemplate, listId, newRefreshId);
+    assertThat(new ListContentsPartitionRepository(jdbcTemplate).createRefreshPartition(listId, newRefreshId)).isTrue();
+    insertContents(listId, newRefreshId, 10);
+    insertContents(otherListId, oldRefreshId, 10);
+
+    repository.markGarbage(listId, oldRefreshId);
+    GarbageEntry entry = repository.claimNext(LEASE).orElseThrow();
+    assertThat(repository.deleteChunk(entry, 10)).isEqualTo(10);
+    assertThat(repository.deleteChunk(entry, 10)).isEqualTo(10);
+    assertThat(repository.deleteChunk(entry, 10)).isEqualTo(5);
+    assertThat(repository.deleteChunk(entry, 10)).isZero();
+
+    assertThat(countContents(listId, oldRefreshId)).isZero();
+    assertThat(countContents(listId, newRefreshId)).isEqualTo(10);
+    assertThat(countContents(otherListId, oldRefreshId)).isEqualTo(10);
+  }
+
+  @Test
+  void shouldPurgeAllContentsOfDeletedList() {
+    UUID listId = UUID.randomUUID();
+    UUID otherListId = UUID.randomUUID();
+    insertContents(listId, UUID.randomUUID(), 5);
+    insertContents(listId, UUID.randomUUID(), 5);
+    insertContents(otherListId, UUID.randomUUID(), 5);
+
+    repository.markGarbage(listId);
+    GarbageEntry entry = repository.claimNext(LEASE).orElseThrow();
+    assertThat(entry.refreshId()).isNull();
+    assertThat(repository.deleteChunk(entry, 100)).isEqualTo(10);
+
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM list_contents WHERE list_id IN (?, ?)", Long.class,
+      listId, otherListId)).isEqualTo(5);
+  }
+
+  @Test
+  void shouldNotHandOutClaimedEntriesUntilTheirLeaseExpires() {
+    UUID listId = UUID.randomUUID();
+    repository.markGarbage(listId, UUID.randomUUID());
+
+    GarbageEntry entry = repository.claimNext(LEASE).orElseThrow();
+    assertThat(repository.claimNext(LEASE)).isEmpty();
+
+    // An expired lease means whoever claimed it went away, so it's up for grabs again, progress included
+    repository.recordProgress(entry.id(), 7, Duration.ZERO);
+    assertThat(repository.claimNext(LEASE)).get()
+      .extracting(GarbageEntry::rowsDeleted)
+      .isEqualTo(7L);
+
+    repository.remove(entry.id());
+    assertThat(repository.countPending()).isZero();
+  }
+
+  private static void insertContents(UUID listId, UUID refreshId, int count) {
+    TestDatabase.insertRefresh(jdbcTemplate, listId, refreshId);
+    for (int i = 0; i < count; i++) {
+      jdbcTemplate.update(
+        "INSERT INTO list_contents (list_id, refresh_id, content_id, sort_seq) VALUES (?, ?, ARRAY[?], ?)",
+        listId, refreshId, UUID.randomUUID().toString(), i);
+    }
+  }
+
+  private static long countContents(UUID listId, UUID refreshId) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM list_contents WHERE list_id = ? AND refresh_id = ?",
+      Long.class, listId, refreshId);
+  }
+}
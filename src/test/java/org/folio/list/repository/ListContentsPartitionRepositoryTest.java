@@ -0,0 +1,149 @@
+package org.folio.list.repository;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the per-refresh partition DDL against a real Postgres, with list_contents partitioned by the real changelog
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class ListContentsPartitionRepositoryTest {
+
+  private static final UUID EXISTING_LIST_ID = UUID.randomUUID();
+  private static final UUID EXISTING_REFRESH_ID = UUID.randomUUID();
+  private static JdbcTemplate jdbcTemplate;
+
+  private ListContentsPartitionRepository repository;
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+    insertRefresh(EXISTING_LIST_ID, EXISTING_REFRESH_ID, 10);
+  }
+
+  @BeforeEach
+  void setup() {
+    repository = new ListContentsPartitionRepository(jdbcTemplate);
+  }
+
+  @Test
+  void shouldKeepContentsOfRefreshesWithoutPartitionInDefaultPartitions() {
+    assertThat(countContents(EXISTING_LIST_ID, EXISTING_REFRESH_ID)).isEqualTo(10);
+    assertThat(partitionOf(EXISTING_LIST_ID, EXISTING_REFRESH_ID)).endsWith("_default");
+    // Every hash bucket is itself partitioned (by refresh)
+    assertThat(jdbcTemplate.queryForObject("""
+        SELECT count(*) FROM pg_class
+        WHERE relname LIKE 'list\\_contents\\___' AND relkind = 'p' AND relnamespace = current_schema()::regnamespace
+        """, Long.class))
+      .isEqualTo(12);
+  }
+
+  @Test
+  void shouldRouteRefreshToItsOwnPartitionAndDropIt() {
+    UUID listId = UUID.randomUUID();
+    UUID bigRefreshId = UUID.randomUUID();
+    UUID smallRefreshId = UUID.randomUUID();
+    insertRefreshDetails(listId, bigRefreshId);
+
+    assertThat(repository.createRefreshPartition(listId, bigRefreshId)).isTrue();
+    insertRefresh(listId, bigRefreshId, 20);
+    insertRefresh(listId, smallRefreshId, 5);
+
+    assertThat(partitionOf(listId, bigRefreshId)).isEqualTo(ListContentsPartitionRepository.partitionName(bigRefreshId));
+    assertThat(partitionOf(listId, smallRefreshId)).endsWith("_default");
+    assertThat(repository.findPartitionedRefreshes(listId)).containsExactly(bigRefreshId);
+
+    assertThat(repository.dropRefreshPartition(bigRefreshId)).isTrue();
+    assertThat(countContents(listId, bigRefreshId)).isZero();
+    assertThat(countContents(listId, smallRefreshId)).isEqualTo(5);
+    assertThat(repository.dropRefreshPartition(bigRefreshId)).isFalse();
+    assertThat(repository.findPartitionedRefreshes(listId)).isEmpty();
+  }
+
+  @Test
+  void shouldAttachFilledTableAsRefreshPartition() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    String partition = ListContentsPartitionRepository.partitionName(refreshId);
+    insertRefreshDetails(listId, refreshId);
+    jdbcTemplate.execute("CREATE UNLOGGED TABLE filled_contents (LIKE list_contents INCLUDING DEFAULTS)");
+    for (int i = 0; i < 20; i++) {
+      jdbcTemplate.update(
+        "INSERT INTO filled_contents (list_id, refresh_id, content_id, sort_seq) VALUES (?, ?, ARRAY[?], ?)",
+        listId, refreshId, UUID.randomUUID().toString(), i);
+    }
+
+    assertThat(repository.attachRefreshPartition(listId, refreshId, "filled_contents")).isTrue();
+
+    assertThat(partitionOf(listId, refreshId)).isEqualTo(partition);
+    assertThat(countContents(listId, refreshId)).isEqualTo(20);
+    assertThat(jdbcTemplate.queryForObject("SELECT relpersistence FROM pg_class WHERE relname = ?", String.class,
+      partition)).isEqualTo("p");
+    // Its own copies of list_contents' foreign keys (to the list and the refresh) and idx_sort_seq, adopted by
+    // list_contents'
+    assertThat(jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM pg_constraint WHERE conrelid = ?::regclass AND contype = 'f'", Long.class, partition))
+      .isEqualTo(2);
+    assertThat(jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM pg_inherits WHERE inhrelid IN (SELECT indexrelid FROM pg_index WHERE indrelid = ?::regclass)",
+      Long.class, partition)).isEqualTo(1);
+    // Nothing left behind on the default partition
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_constraint WHERE conname = ?", Long.class,
+      partition + "_excluded")).isZero();
+  }
+
+  @Test
+  void shouldNotAttachTableWithContentsOfAnotherRefresh() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    insertRefreshDetails(listId, refreshId);
+    jdbcTemplate.execute("CREATE UNLOGGED TABLE mixed_contents (LIKE list_contents INCLUDING DEFAULTS)");
+    jdbcTemplate.update(
+      "INSERT INTO mixed_contents (list_id, refresh_id, content_id, sort_seq) VALUES (?, ?, ARRAY[?], 0)",
+      listId, EXISTING_REFRESH_ID, "a");
+
+    assertThat(repository.attachRefreshPartition(listId, refreshId, "mixed_contents")).isFalse();
+
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM mixed_contents", Long.class)).isEqualTo(1);
+    assertThat(repository.findPartitionedRefreshes(listId)).isEmpty();
+  }
+
+  @Test
+  void shouldNotDropRefreshesWithoutPartition() {
+    assertThat(repository.dropRefreshPartition(EXISTING_REFRESH_ID)).isFalse();
+    assertThat(countContents(EXISTING_LIST_ID, EXISTING_REFRESH_ID)).isEqualTo(10);
+  }
+
+  private static void insertRefreshDetails(UUID listId, UUID refreshId) {
+    TestDatabase.insertRefresh(jdbcTemplate, listId, refreshId);
+  }
+
+  private static void insertRefresh(UUID listId, UUID refreshId, int count) {
+    insertRefreshDetails(listId, refreshId);
+    for (int i = 0; i < count; i++) {
+      jdbcTemplate.update(
+        "INSERT INTO list_contents (list_id, refresh_id, content_id, sort_seq) VALUES (?, ?, ARRAY[?], ?)",
+        listId, refreshId, UUID.randomUUID().toString(), i);
+    }
+  }
+
+  private static long countContents(UUID listId, UUID refreshId) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM list_contents WHERE list_id = ? AND refresh_id = ?",
+      Long.class, listId, refreshId);
+  }
+
+  private static String partitionOf(UUID listId, UUID refreshId) {
+    return jdbcTemplate.queryForObject(
+      "SELECT DISTINCT tableoid::regclass::text FROM list_contents WHERE list_id = ? AND refresh_id = ?",
+      String.class, listId, refreshId);
+  }
+}
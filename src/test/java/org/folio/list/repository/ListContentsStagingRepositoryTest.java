@@ -0,0 +1,210 @@
+package org.folio.list.repository;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.domain.ListContent;
+import org.folio.spring.data.OffsetRequest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the staging table DDL and the attachment to list_contents against a real Postgres, with list_contents as the
+ * real changelog leaves it
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class ListContentsStagingRepositoryTest {
+
+  private static JdbcTemplate jdbcTemplate;
+
+  private ListContentsStagingRepository repository;
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+  }
+
+  @BeforeEach
+  void setup() {
+    repository = new ListContentsStagingRepository(jdbcTemplate, new ListContentsCopyRepository(jdbcTemplate),
+      new ListContentsPartitionRepository(jdbcTemplate));
+  }
+
+  @Test
+  void shouldStageContentsInUnloggedTableWithoutIndexes() {
+    UUID refreshId = UUID.randomUUID();
+    String table = ListContentsStagingRepository.stagingTableName(refreshId);
+
+    repository.createStagingTable(refreshId);
+    repository.writeContents(contents(UUID.randomUUID(), refreshId, 0, 5));
+
+    assertThat(repository.stagingTableExists(refreshId)).isTrue();
+    assertThat(jdbcTemplate.queryForObject("SELECT relpersistence FROM pg_class WHERE relname = ?", String.class, table))
+      .isEqualTo("u");
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_indexes WHERE tablename = ?", Long.class, table))
+      .isZero();
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class)).isEqualTo(5);
+    assertThat(countContents(refreshId)).isZero();
+  }
+
+  @Test
+  void shouldStartOverWhenCreatedAgain() {
+    UUID refreshId = UUID.randomUUID();
+    repository.createStagingTable(refreshId);
+    repository.writeContents(contents(UUID.randomUUID(), refreshId, 0, 5));
+
+    repository.createStagingTable(refreshId);
+
+    assertThat(repository.holdsContentsBefore(refreshId, 0)).isTrue();
+    assertThat(repository.holdsContentsBefore(refreshId, 1)).isFalse();
+  }
+
+  @Test
+  void shouldCheckAndTrimStagedContentsForResume() {
+    UUID refreshId = UUID.randomUUID();
+    repository.createStagingTable(refreshId);
+    repository.writeContents(contents(UUID.randomUUID(), refreshId, 0, 10));
+    repository.writeContents(contents(UUID.randomUUID(), refreshId, 10, 3));
+
+    repository.deleteContentsFrom(refreshId, 10);
+
+    assertThat(repository.holdsContentsBefore(refreshId, 10)).isTrue();
+    assertThat(repository.holdsContentsBefore(refreshId, 11)).isFalse();
+    // What crash recovery does to unlogged tables
+    jdbcTemplate.execute("TRUNCATE " + ListContentsStagingRepository.stagingTableName(refreshId));
+    assertThat(repository.holdsContentsBefore(refreshId, 10)).isFalse();
+    assertThat(repository.holdsContentsBefore(UUID.randomUUID(), 10)).isFalse();
+  }
+
+  @Test
+  void shouldPublishStagingTableAsRefreshPartition() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    String partition = ListContentsPartitionRepository.partitionName(refreshId);
+    TestDatabase.insertRefresh(jdbcTemplate, listId, refreshId);
+    repository.createStagingTable(refreshId);
+    repository.writeContents(contents(listId, refreshId, 100, 100));
+    repository.writeContents(contents(listId, refreshId, 0, 100));
+
+    repository.publish(listId, refreshId, true);
+
+    assertThat(repository.stagingTableExists(refreshId)).isFalse();
+    assertThat(jdbcTemplate.queryForObject("SELECT relpersistence FROM pg_class WHERE relname = ?", String.class,
+      partition)).isEqualTo("p");
+    assertThat(jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM list_contents WHERE refresh_id = ? LIMIT 1",
+      String.class, refreshId)).isEqualTo(partition);
+    // The partition has list_contents' indexes, so reads in sort order use idx_sort_seq like any other contents do
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_indexes WHERE tablename = ?", Long.class, partition))
+      .isEqualTo(1);
+    assertThat(jdbcTemplate.queryForList(
+      "SELECT sort_seq FROM list_contents WHERE list_id = ? AND refresh_id = ? ORDER BY sort_seq", Integer.class,
+      listId, refreshId))
+      .isEqualTo(IntStream.range(0, 200).boxed().toList());
+  }
+
+  @Test
+  void shouldCopySmallRefreshToDefaultPartition() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    TestDatabase.insertRefresh(jdbcTemplate, listId, refreshId);
+    repository.createStagingTable(refreshId);
+    repository.writeContents(contents(listId, refreshId, 0, 10));
+
+    repository.publish(listId, refreshId, false);
+
+    assertThat(repository.stagingTableExists(refreshId)).isFalse();
+    assertThat(jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM list_contents WHERE refresh_id = ? LIMIT 1",
+      String.class, refreshId)).endsWith("_default");
+    assertThat(jdbcTemplate.queryForList(
+      "SELECT sort_seq FROM list_contents WHERE list_id = ? AND refresh_id = ? ORDER BY sort_seq", Integer.class,
+      listId, refreshId))
+      .isEqualTo(IntStream.range(0, 10).boxed().toList());
+  }
+
+  @Test
+  void shouldLeaveStagingTableAloneIfItCantBePublished() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    // No refresh details, so the contents break list_contents' foreign key
+    repository.createStagingTable(refreshId);
+    repository.writeContents(contents(listId, refreshId, 0, 5));
+
+    assertThatThrownBy(() -> repository.publish(listId, refreshId, true)).isInstanceOf(IllegalStateException.class);
+
+    assertThat(repository.stagingTableExists(refreshId)).isTrue();
+    assertThat(countContents(refreshId)).isZero();
+    assertThat(repository.holdsContentsBefore(refreshId, 5)).isTrue();
+  }
+
+  @Test
+  void shouldKeepContentsUniqueWithoutPrimaryKey() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    TestDatabase.insertRefresh(jdbcTemplate, listId, refreshId);
+    String insert = "INSERT INTO list_contents (list_id, refresh_id, content_uuid, sort_seq) VALUES (?, ?, ?, 0)";
+    jdbcTemplate.update(insert, listId, refreshId, UUID.randomUUID());
+
+    assertThatThrownBy(() -> jdbcTemplate.update(insert, listId, refreshId, UUID.randomUUID()))
+      .isInstanceOf(DuplicateKeyException.class);
+    assertThat(jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM pg_constraint WHERE conrelid = 'list_contents'::regclass AND contype = 'p'", Long.class))
+      .isZero();
+    // idx_sort_seq already did the job, so there's no second copy of it
+    assertThat(jdbcTemplate.queryForList("SELECT indexrelid::regclass::text FROM pg_index "
+      + "WHERE indrelid = 'list_contents'::regclass", String.class)).containsExactly("idx_sort_seq");
+  }
+
+  @Test
+  void shouldReadStagedContentsInSortOrder() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    List<ListContent> uuids = contents(listId, refreshId, 0, 3);
+    ListContent multipleUuids = new ListContent(listId, refreshId,
+      List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString()), 3);
+    ListContent text = new ListContent(listId, refreshId, List.of("in00000000001"), 4);
+    repository.createStagingTable(refreshId);
+    repository.writeContents(List.of(multipleUuids, text));
+    repository.writeContents(uuids);
+
+    assertThat(repository.getContents(listId, refreshId, new OffsetRequest(2, 2)))
+      .extracting(ListContent::getEncodedContentId)
+      .containsExactly(uuids.get(2).getEncodedContentId(), multipleUuids.getEncodedContentId());
+    assertThat(repository.getContents(listId, refreshId, 3, PageRequest.ofSize(10)))
+      .extracting(ListContent::getSortSequence)
+      .containsExactly(4);
+    assertThat(repository.getContents(listId, refreshId, new OffsetRequest(5, 10))).isEmpty();
+  }
+
+  @Test
+  void shouldDropStagingTable() {
+    UUID refreshId = UUID.randomUUID();
+    repository.createStagingTable(refreshId);
+
+    repository.dropStagingTable(refreshId);
+    repository.dropStagingTable(refreshId);
+    repository.deleteContentsFrom(refreshId, 0);
+
+    assertThat(repository.stagingTableExists(refreshId)).isFalse();
+  }
+
+  private static List<ListContent> contents(UUID listId, UUID refreshId, int from, int count) {
+    return IntStream.range(from, from + count)
+      .mapToObj(i -> new ListContent(listId, refreshId, List.of(UUID.randomUUID().toString()), i))
+      .toList();
+  }
+
+  private static long countContents(UUID refreshId) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM list_contents WHERE refresh_id = ?", Long.class, refreshId);
+  }
+}
@@ -0,0 +1,166 @@
+package org.folio.list.repository;
+
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.context.TestDatabase;
+import org.folio.list.domain.ListContent;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the text[] list_contents layout with the uuid/uuid[] one (see {@link org.folio.list.domain.ContentIdCodec})
+ * against a real Postgres: on-disk size (table and indexes), write throughput, and read throughput.
+ * <p>
+ * Both layouts are written with COPY, so that the only difference is the layout itself.
+ * <p>
+ * This is slow, so it only runs when requested: {@code mvn test -Dtest=ListContentsStorageBenchmarkTest -Dmod-lists.benchmark=true}
+ */
+@Log4j2
+@EnabledIfSystemProperty(named = "mod-lists.benchmark", matches = "true")
+class ListContentsStorageBenchmarkTest {
+
+  private static final int ROWS = 500_000;
+  private static final int PAGE_SIZE = 10_000;
+
+  // Where the two layouts are measured, one at a time, next to the module's schema
+  private static final String BENCHMARK_SCHEMA = "list_contents_layouts";
+
+  private static final PostgreSQLContainer dbContainer = new PostgreSQLContainer("postgres:12-alpine");
+  private static JdbcTemplate jdbcTemplate;
+
+  @BeforeAll
+  static void startDatabase() {
+    dbContainer.start();
+    // The benchmark has a database to itself, so that other tests' rows don't skew it
+    new JdbcTemplate(TestDatabase.migrate(dbContainer, TestDatabase.SCHEMA))
+      .execute("CREATE SCHEMA " + BENCHMARK_SCHEMA);
+    var dataSource = new DriverManagerDataSource(
+      dbContainer.getJdbcUrl(), dbContainer.getUsername(), dbContainer.getPassword());
+    dataSource.setSchema(BENCHMARK_SCHEMA);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @AfterAll
+  static void stopDatabase() {
+    dbContainer.stop();
+  }
+
+  @AfterEach
+  void dropTable() {
+    jdbcTemplate.execute("DROP TABLE IF EXISTS list_contents");
+  }
+
+  @Test
+  void compareLayouts() {
+    // list_contents as it was before the changelog's add-list-contents-compact-content-ids
+    Result text = measure("text[]", """
+        CREATE TABLE list_contents (
+          list_id uuid NOT NULL,
+          refresh_id uuid NOT NULL,
+          content_id text[] NOT NULL,
+          sort_seq numeric NOT NULL,
+          PRIMARY KEY (list_id, refresh_id, content_id)
+        )
+        """,
+      ListContentsStorageBenchmarkTest::copyAsText);
+    dropTable();
+    // The columns the changelog gives list_contents, without its partitions and foreign keys, which the text[] layout
+    // doesn't have either
+    Result compact = measure("uuid/uuid[]",
+      "CREATE TABLE list_contents (LIKE %s.list_contents)".formatted(TestDatabase.SCHEMA),
+      new ListContentsCopyRepository(jdbcTemplate)::copyContents);
+
+    log.info("uuid/uuid[] takes {}% of the space of text[], writes {}x as fast, and reads {}x as fast",
+      String.format("%.0f", 100.0 * compact.bytes() / text.bytes()),
+      String.format("%.1f", compact.writeRate() / text.writeRate()),
+      String.format("%.1f", compact.readRate() / text.readRate()));
+    assertThat(compact.bytes()).isLessThan(text.bytes());
+  }
+
+  private record Result(long bytes, double writeRate, double readRate) {
+  }
+
+  private Result measure(String name, String ddl, ListContentsWriter writer) {
+    jdbcTemplate.execute(ddl);
+    jdbcTemplate.execute("CREATE UNIQUE INDEX idx_sort_seq ON list_contents (list_id, refresh_id, sort_seq)");
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+
+    long start = System.nanoTime();
+    for (int offset = 0; offset < ROWS; offset += PAGE_SIZE) {
+      List<ListContent> page = new ArrayList<>(PAGE_SIZE);
+      for (int i = offset; i < offset + PAGE_SIZE; i++) {
+        page.add(new ListContent(listId, refreshId, List.of(UUID.randomUUID().toString()), i));
+      }
+      writer.writeContents(page);
+    }
+    double writeSeconds = (System.nanoTime() - start) / 1e9;
+
+    jdbcTemplate.execute("VACUUM ANALYZE list_contents");
+    long tableBytes = jdbcTemplate.queryForObject("SELECT pg_table_size('list_contents')", Long.class);
+    long indexBytes = jdbcTemplate.queryForObject("SELECT pg_indexes_size('list_contents')", Long.class);
+
+    // Read it back in pages the way ListService does, decoding every ID
+    start = System.nanoTime();
+    int read = 0;
+    for (int offset = 0; offset < ROWS; offset += PAGE_SIZE) {
+      read += jdbcTemplate.query("""
+          SELECT * FROM list_contents
+          WHERE list_id = ? AND refresh_id = ? AND sort_seq >= ?
+          ORDER BY sort_seq LIMIT ?
+          """,
+        (rs, rowNum) -> readContentId(rs), listId, refreshId, offset, PAGE_SIZE).size();
+    }
+    double readSeconds = (System.nanoTime() - start) / 1e9;
+    assertThat(read).isEqualTo(ROWS);
+
+    var result = new Result(tableBytes + indexBytes, ROWS / writeSeconds, ROWS / readSeconds);
+    log.info("{}: table {} MB, indexes {} MB; wrote {} rows/sec, read {} rows/sec", name,
+      tableBytes / (1024 * 1024), indexBytes / (1024 * 1024),
+      String.format("%.0f", result.writeRate()), String.format("%.0f", result.readRate()));
+    return result;
+  }
+
+  private static List<String> readContentId(ResultSet rs) throws SQLException {
+    var contentId = rs.getArray("content_id");
+    if (contentId != null) {
+      return List.of((String[]) contentId.getArray());
+    }
+    return List.of(rs.getObject("content_uuid", UUID.class).toString());
+  }
+
+  // The layout and write path as they were before ContentIdCodec
+  private static void copyAsText(List<ListContent> contents) {
+    jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+      CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+        .copyIn("COPY list_contents (list_id, refresh_id, content_id, sort_seq) FROM STDIN");
+      StringBuilder buffer = new StringBuilder();
+      for (ListContent content : contents) {
+        buffer.append(content.getListId()).append('\t')
+          .append(content.getRefreshId()).append('\t')
+          .append(ListContentsCopyRepository.toArrayLiteral(content.getContentId())).append('\t')
+          .append(content.getSortSequence()).append('\n');
+      }
+      byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+      copyIn.writeToCopy(bytes, 0, bytes.length);
+      return copyIn.endCopy();
+    });
+  }
+}
@@ -0,0 +1,64 @@
+package org.folio.list.repository;
+
+import org.folio.list.domain.ListRefreshDetails;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListContentsStoresTest {
+
+  @Mock
+  private ListContentsRepository listContentsRepository;
+  @Mock
+  private ChunkedListContentsStore chunkedListContentsStore;
+  @Mock
+  private ListContentsStagingRepository listContentsStagingRepository;
+
+  @InjectMocks
+  private ListContentsStores listContentsStores;
+
+  @Test
+  void shouldFindFinishedRefreshesContentsByTheirRecordedLayout() {
+    ListRefreshDetails legacy = ListRefreshDetails.builder().id(UUID.randomUUID()).build();
+    ListRefreshDetails chunked = ListRefreshDetails.builder()
+      .id(UUID.randomUUID())
+      .metadata(Layout.CHUNKED.toMetadata())
+      .build();
+
+    assertThat(listContentsStores.forRefresh(legacy)).isSameAs(listContentsRepository);
+    assertThat(listContentsStores.forRefresh(chunked)).isSameAs(chunkedListContentsStore);
+  }
+
+  @Test
+  void shouldFindInProgressRefreshesContentsByTheirCheckpointsLayout() {
+    // The refresh itself has no layout yet, so only the checkpoint can tell
+    RefreshCheckpoint rows = checkpoint(Layout.ROWS);
+    RefreshCheckpoint chunked = checkpoint(Layout.CHUNKED);
+
+    assertThat(listContentsStores.forInProgressRefresh(rows)).isSameAs(listContentsRepository);
+    assertThat(listContentsStores.forInProgressRefresh(chunked)).isSameAs(chunkedListContentsStore);
+  }
+
+  @Test
+  void shouldFindStagedRefreshesContentsInTheirStagingTable() {
+    RefreshCheckpoint staged = checkpoint(Layout.ROWS);
+    when(listContentsStagingRepository.stagingTableExists(staged.refreshId())).thenReturn(true);
+
+    assertThat(listContentsStores.forInProgressRefresh(staged)).isSameAs(listContentsStagingRepository);
+  }
+
+  private static RefreshCheckpoint checkpoint(Layout layout) {
+    return new RefreshCheckpoint(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), layout, 100, 1,
+      UUID.randomUUID());
+  }
+}
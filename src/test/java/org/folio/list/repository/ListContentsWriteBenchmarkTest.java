@@ -0,0 +1,122 @@
+package org.folio.list.repository;
+
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.context.TestDatabase;
+import org.folio.list.domain.ContentIdCodec.EncodedContentId;
+import org.folio.list.domain.ListContent;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput of the two {@link ListContentsWriter.WriteMode}s against a real Postgres.
+ * <p>
+ * The JPA path is reproduced here with the same plain JDBC batches Hibernate issues (batch_size 50, with
+ * reWriteBatchedInserts), so that the benchmark doesn't need a full application context.
+ * <p>
+ * This is slow, so it only runs when requested: {@code mvn test -Dtest=ListContentsWriteBenchmarkTest -Dmod-lists.benchmark=true}
+ */
+@Log4j2
+@EnabledIfSystemProperty(named = "mod-lists.benchmark", matches = "true")
+class ListContentsWriteBenchmarkTest {
+
+  private static final int ROWS = 200_000;
+  private static final int PAGE_SIZE = 10_000;
+  private static final int JPA_BATCH_SIZE = 50;
+
+  private static final PostgreSQLContainer dbContainer = new PostgreSQLContainer("postgres:12-alpine");
+  private static JdbcTemplate jdbcTemplate;
+
+  @BeforeAll
+  static void startDatabase() {
+    dbContainer.start();
+    // The benchmark has a database to itself, so that other tests' rows don't skew it
+    var dataSource = TestDatabase.migrate(dbContainer, TestDatabase.SCHEMA);
+    var connectionProperties = new Properties();
+    connectionProperties.setProperty("reWriteBatchedInserts", "true");
+    dataSource.setConnectionProperties(connectionProperties);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @AfterAll
+  static void stopDatabase() {
+    dbContainer.stop();
+  }
+
+  @BeforeEach
+  void truncate() {
+    jdbcTemplate.execute("TRUNCATE list_contents");
+  }
+
+  @Test
+  void compareWriteModes() {
+    double batchedRate = measure("JPA-equivalent batched INSERT", this::batchedInsert);
+    truncate();
+    double copyRate = measure("COPY", new ListContentsCopyRepository(jdbcTemplate)::copyContents);
+
+    log.info("COPY is {}x the throughput of batched INSERT", String.format("%.1f", copyRate / batchedRate));
+  }
+
+  private double measure(String name, ListContentsWriter writer) {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    TestDatabase.insertRefresh(jdbcTemplate, listId, refreshId);
+    long start = System.nanoTime();
+    for (int offset = 0; offset < ROWS; offset += PAGE_SIZE) {
+      List<ListContent> page = new ArrayList<>(PAGE_SIZE);
+      for (int i = offset; i < offset + PAGE_SIZE; i++) {
+        page.add(new ListContent(listId, refreshId, List.of(UUID.randomUUID().toString()), i));
+      }
+      writer.writeContents(page);
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    double rate = ROWS / seconds;
+    log.info("{}: wrote {} rows in {}s ({} rows/sec)", name, ROWS, String.format("%.2f", seconds), String.format("%.0f", rate));
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM list_contents", Integer.class)).isEqualTo(ROWS);
+    return rate;
+  }
+
+  private void batchedInsert(List<ListContent> contents) {
+    jdbcTemplate.execute((Connection connection) -> {
+      try (PreparedStatement statement = connection.prepareStatement(
+        "INSERT INTO list_contents (list_id, refresh_id, content_uuid, content_uuids, content_id, sort_seq) VALUES (?, ?, ?, ?, ?, ?)")) {
+        int pending = 0;
+        for (ListContent content : contents) {
+          EncodedContentId contentId = content.getEncodedContentId();
+          statement.setObject(1, content.getListId());
+          statement.setObject(2, content.getRefreshId());
+          statement.setObject(3, contentId.uuid());
+          statement.setArray(4, contentId.uuids() == null ? null : toSqlArray(connection, "uuid", contentId.uuids()));
+          statement.setArray(5, contentId.text() == null ? null : toSqlArray(connection, "text", contentId.text()));
+          statement.setInt(6, content.getSortSequence());
+          statement.addBatch();
+          if (++pending == JPA_BATCH_SIZE) {
+            statement.executeBatch();
+            pending = 0;
+          }
+        }
+        statement.executeBatch();
+      }
+      return null;
+    });
+  }
+
+  private static Array toSqlArray(Connection connection, String type, List<?> values) throws SQLException {
+    return connection.createArrayOf(type, values.toArray());
+  }
+}
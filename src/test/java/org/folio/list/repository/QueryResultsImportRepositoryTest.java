@@ -0,0 +1,120 @@
+package org.folio.list.repository;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.domain.ContentIdCodec;
+import org.folio.list.domain.ContentIdCodec.EncodedContentId;
+import org.folio.list.repository.QueryResultsImportRepository.ResultTable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copies query results from a stand-in for FQM's result table, in a schema of its own, into list_contents in a real
+ * Postgres
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class QueryResultsImportRepositoryTest {
+
+  private static final ResultTable RESULT_TABLE =
+    new ResultTable("diku_mod_fqm_manager.query_results", "query_id", "result_id", "result_id");
+  private static JdbcTemplate jdbcTemplate;
+
+  private QueryResultsImportRepository repository;
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+    // FQM's table, so not part of this module's changelog
+    jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS diku_mod_fqm_manager");
+    jdbcTemplate.execute("""
+      CREATE TABLE IF NOT EXISTS diku_mod_fqm_manager.query_results (query_id uuid NOT NULL, result_id text[] NOT NULL)
+      """);
+  }
+
+  @BeforeEach
+  void setup() {
+    repository = new QueryResultsImportRepository(jdbcTemplate);
+  }
+
+  @Test
+  void shouldOnlyFindTablesThatExist() {
+    assertThat(repository.isReadable(RESULT_TABLE.table())).isTrue();
+    assertThat(repository.isReadable("diku_mod_fqm_manager.no_such_table")).isFalse();
+    assertThat(repository.isReadable("no_such_schema.query_results")).isFalse();
+  }
+
+  @Test
+  void shouldCopyResultsInSortOrderAndEncodeThemLikeTheCodec() {
+    UUID queryId = UUID.randomUUID();
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    // Each ID starts with a different character, so that the collation doesn't matter to the order
+    List<List<String>> sortedIds = List.of(
+      List.of("10000000-0000-4000-8000-00000000000a"),
+      List.of("20000000-0000-4000-8000-00000000000a", "30000000-0000-4000-8000-00000000000a"),
+      List.of("40000000-0000-4000-8000-00000000000A"),
+      List.of("50000000-0000-4000-8000-00000000000a"),
+      List.of("in00000000001")
+    );
+    // Inserted out of order, and alongside another query's results
+    for (int i = sortedIds.size() - 1; i >= 0; i--) {
+      insertResult(queryId, sortedIds.get(i));
+    }
+    insertResult(UUID.randomUUID(), sortedIds.get(0));
+    TestDatabase.insertRefresh(jdbcTemplate, listId, refreshId);
+
+    int count = repository.importResults(RESULT_TABLE, queryId, listId, refreshId, 10, "list_contents");
+
+    assertThat(count).isEqualTo(sortedIds.size());
+    List<EncodedContentId> imported = jdbcTemplate.query("""
+        SELECT content_uuid, content_uuids, content_id FROM list_contents
+        WHERE list_id = ? AND refresh_id = ? ORDER BY sort_seq
+        """,
+      (rs, rowNum) -> new EncodedContentId(rs.getObject("content_uuid", UUID.class), uuids(rs), text(rs)),
+      listId, refreshId);
+    assertThat(imported).isEqualTo(sortedIds.stream().map(ContentIdCodec::encode).toList());
+    assertThat(jdbcTemplate.queryForList("SELECT sort_seq FROM list_contents WHERE refresh_id = ? ORDER BY sort_seq",
+      Integer.class, refreshId)).containsExactly(0, 1, 2, 3, 4);
+  }
+
+  @Test
+  void shouldStopAtLimit() {
+    UUID queryId = UUID.randomUUID();
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+    for (int i = 0; i < 5; i++) {
+      insertResult(queryId, List.of(UUID.randomUUID().toString()));
+    }
+    TestDatabase.insertRefresh(jdbcTemplate, listId, refreshId);
+
+    assertThat(repository.importResults(RESULT_TABLE, queryId, listId, refreshId, 3, "list_contents"))
+      .isEqualTo(3);
+  }
+
+  private static void insertResult(UUID queryId, List<String> contentId) {
+    jdbcTemplate.update("INSERT INTO diku_mod_fqm_manager.query_results (query_id, result_id) VALUES (?, ?::text[])",
+      queryId, "{" + String.join(",", contentId.stream().map(id -> '"' + id + '"').toList()) + "}");
+  }
+
+  private static List<UUID> uuids(ResultSet rs) throws SQLException {
+    Array array = rs.getArray("content_uuids");
+    return array == null ? null : Arrays.asList((UUID[]) array.getArray());
+  }
+
+  private static List<String> text(ResultSet rs) throws SQLException {
+    Array array = rs.getArray("content_id");
+    return array == null ? null : Arrays.asList((String[]) array.getArray());
+  }
+}
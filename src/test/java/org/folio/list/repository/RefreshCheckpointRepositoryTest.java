@@ -0,0 +1,118 @@
+package org.folio.list.repository;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the checkpoint claims against a real Postgres, since they rely on leases and FOR UPDATE SKIP LOCKED
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class RefreshCheckpointRepositoryTest {
+
+  private static final Duration LEASE = Duration.ofMinutes(1);
+
+  private static JdbcTemplate jdbcTemplate;
+
+  private RefreshCheckpointRepository repository;
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate.execute("TRUNCATE list_refresh_checkpoints");
+    repository = new RefreshCheckpointRepository(jdbcTemplate);
+  }
+
+  @Test
+  void shouldNotHandOutRunningRefreshes() {
+    RefreshCheckpoint checkpoint = newCheckpoint();
+    repository.create(checkpoint, LEASE);
+
+    assertThat(repository.advance(checkpoint.refreshId(), checkpoint.claimToken(), 100, 1)).isTrue();
+    assertThat(repository.claimNext(LEASE)).isEmpty();
+  }
+
+  @Test
+  void shouldHandOutReleasedRefreshWithItsProgress() {
+    RefreshCheckpoint checkpoint = newCheckpoint();
+    repository.create(checkpoint, LEASE);
+    repository.advance(checkpoint.refreshId(), checkpoint.claimToken(), 200, 2);
+
+    repository.release(checkpoint.refreshId(), checkpoint.claimToken());
+
+    RefreshCheckpoint claimed = repository.claimNext(LEASE).orElseThrow();
+    assertThat(claimed.refreshId()).isEqualTo(checkpoint.refreshId());
+    assertThat(claimed.queryId()).isEqualTo(checkpoint.queryId());
+    assertThat(claimed.layout()).isEqualTo(Layout.CHUNKED);
+    assertThat(claimed.nextOffset()).isEqualTo(200);
+    assertThat(claimed.batchNumber()).isEqualTo(2);
+    assertThat(claimed.claimToken()).isNotEqualTo(checkpoint.claimToken());
+    assertThat(repository.claimNext(LEASE)).isEmpty();
+  }
+
+  @Test
+  void shouldFindProgressOfRunningRefresh() {
+    RefreshCheckpoint checkpoint = newCheckpoint();
+    repository.create(checkpoint, LEASE);
+    repository.advance(checkpoint.refreshId(), checkpoint.claimToken(), 400, 4);
+
+    assertThat(repository.find(checkpoint.refreshId())).hasValueSatisfying(found -> {
+      assertThat(found.nextOffset()).isEqualTo(400);
+      assertThat(found.batchNumber()).isEqualTo(4);
+      assertThat(found.layout()).isEqualTo(checkpoint.layout());
+    });
+    assertThat(repository.find(UUID.randomUUID())).isEmpty();
+  }
+
+  @Test
+  void shouldStopRecordingProgressOnceClaimIsLost() {
+    RefreshCheckpoint checkpoint = newCheckpoint();
+    // An expired lease means whoever claimed it went away, so it's up for grabs again
+    repository.create(checkpoint, Duration.ZERO);
+    RefreshCheckpoint claimed = repository.claimNext(LEASE).orElseThrow();
+
+    assertThat(repository.advance(checkpoint.refreshId(), checkpoint.claimToken(), 300, 3)).isFalse();
+    assertThat(repository.extendLease(checkpoint.refreshId(), checkpoint.claimToken(), LEASE)).isFalse();
+    assertThat(repository.advance(claimed.refreshId(), claimed.claimToken(), 300, 3)).isTrue();
+    assertThat(repository.extendLease(claimed.refreshId(), claimed.claimToken(), LEASE)).isTrue();
+
+    repository.delete(checkpoint.refreshId());
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM list_refresh_checkpoints", Long.class)).isZero();
+  }
+
+  @Test
+  void shouldHoldHandedOffCheckpointUntilItIsTakenOver() {
+    RefreshCheckpoint checkpoint = newCheckpoint();
+    repository.create(checkpoint, Duration.ZERO);
+    RefreshCheckpoint claimed = repository.claimNext(LEASE).orElseThrow();
+
+    assertThat(repository.handOff(claimed.refreshId(), UUID.randomUUID())).isFalse();
+    assertThat(repository.handOff(claimed.refreshId(), claimed.claimToken())).isTrue();
+    // However long the job takes to start, nobody else can claim it in the meantime
+    jdbcTemplate.update("UPDATE list_refresh_checkpoints SET claimed_until = claimed_until - interval '1 day' "
+      + "WHERE claimed_until <> 'infinity'");
+    assertThat(repository.claimNext(LEASE)).isEmpty();
+
+    assertThat(repository.extendLease(claimed.refreshId(), claimed.claimToken(), LEASE)).isTrue();
+  }
+
+  private static RefreshCheckpoint newCheckpoint() {
+    return new RefreshCheckpoint(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), Layout.CHUNKED, 0, 0,
+      UUID.randomUUID());
+  }
+}
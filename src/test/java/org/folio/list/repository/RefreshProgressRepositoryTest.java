@@ -0,0 +1,75 @@
+package org.folio.list.repository;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.repository.RefreshProgressRepository.RefreshProgress;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Saves and reads refresh progress in a real Postgres, with the table created by the module's own changelog SQL
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class RefreshProgressRepositoryTest {
+
+  private static JdbcTemplate jdbcTemplate;
+
+  private RefreshProgressRepository repository;
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate.execute("TRUNCATE list_refresh_progress");
+    repository = new RefreshProgressRepository(jdbcTemplate);
+  }
+
+  @Test
+  void shouldReplaceEarlierProgress() {
+    UUID refreshId = UUID.randomUUID();
+    UUID listId = UUID.randomUUID();
+    repository.save(new RefreshProgress(refreshId, listId, 100, 1, 50.0, 18, Duration.ZERO));
+    repository.save(new RefreshProgress(refreshId, listId, 1000, 10, 125.5, null, Duration.ZERO));
+
+    RefreshProgress progress = repository.find(refreshId).orElseThrow();
+
+    assertThat(progress.listId()).isEqualTo(listId);
+    assertThat(progress.recordsImported()).isEqualTo(1000);
+    assertThat(progress.batchesProcessed()).isEqualTo(10);
+    assertThat(progress.recordsPerSecond()).isEqualTo(125.5);
+    assertThat(progress.estimatedSecondsRemaining()).isNull();
+    assertThat(progress.sinceUpdate()).isBetween(Duration.ZERO, Duration.ofMinutes(1));
+  }
+
+  @Test
+  void shouldTellHowLongAgoProgressWasSaved() {
+    UUID refreshId = UUID.randomUUID();
+    repository.save(new RefreshProgress(refreshId, UUID.randomUUID(), 100, 1, 50.0, 18, Duration.ZERO));
+    jdbcTemplate.update("UPDATE list_refresh_progress SET updated_at = now() - interval '10 minutes'");
+
+    assertThat(repository.find(refreshId).orElseThrow().sinceUpdate())
+      .isBetween(Duration.ofMinutes(10), Duration.ofMinutes(11));
+  }
+
+  @Test
+  void shouldForgetDeletedProgress() {
+    UUID refreshId = UUID.randomUUID();
+    repository.save(new RefreshProgress(refreshId, UUID.randomUUID(), 100, 1, 50.0, 18, Duration.ZERO));
+
+    repository.delete(refreshId);
+
+    assertThat(repository.find(refreshId)).isEmpty();
+    assertThat(repository.find(UUID.randomUUID())).isEmpty();
+  }
+}
@@ -0,0 +1,129 @@
+package org.folio.list.repository;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.repository.RefreshScheduleRepository.RefreshSchedule;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the schedule claims against a real Postgres, since they rely on FOR UPDATE SKIP LOCKED and interval arithmetic
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class RefreshScheduleRepositoryTest {
+
+  private static final String OKAPI_URL = "http://okapi:9130";
+
+  private static JdbcTemplate jdbcTemplate;
+
+  private RefreshScheduleRepository repository;
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+  }
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate.execute("TRUNCATE list_refresh_schedules");
+    repository = new RefreshScheduleRepository(jdbcTemplate);
+  }
+
+  @Test
+  void shouldClaimDueScheduleOnce() {
+    UUID listId = newList();
+    UUID userId = UUID.randomUUID();
+    repository.save(listId, 60, 30, Duration.ZERO, 0, userId, OKAPI_URL);
+
+    List<RefreshSchedule> claimed = repository.claimDue(10, 0);
+
+    assertThat(claimed).hasSize(1);
+    assertThat(claimed.getFirst().listId()).isEqualTo(listId);
+    assertThat(claimed.getFirst().maxAgeMinutes()).isEqualTo(30);
+    assertThat(claimed.getFirst().scheduledBy()).isEqualTo(userId);
+    assertThat(claimed.getFirst().okapiUrl()).isEqualTo(OKAPI_URL);
+    // Claiming it moved it on to its next run
+    assertThat(repository.claimDue(10, 0)).isEmpty();
+    assertThat(untilNextRun(listId)).isBetween(Duration.ofMinutes(59), Duration.ofMinutes(60));
+  }
+
+  @Test
+  void shouldNotClaimSchedulesThatAreNotDue() {
+    repository.save(newList(), 60, 30, Duration.ofMinutes(5), 0, UUID.randomUUID(), OKAPI_URL);
+
+    assertThat(repository.claimDue(10, 0)).isEmpty();
+  }
+
+  @Test
+  void shouldClaimMostOverdueFirst() {
+    UUID lessOverdue = newList();
+    UUID mostOverdue = newList();
+    repository.save(lessOverdue, 60, 30, Duration.ZERO, 0, UUID.randomUUID(), OKAPI_URL);
+    repository.save(mostOverdue, 60, 30, Duration.ZERO, 0, UUID.randomUUID(), OKAPI_URL);
+    jdbcTemplate.update("UPDATE list_refresh_schedules SET next_run_at = next_run_at - interval '10 minutes' WHERE list_id = ?",
+      mostOverdue);
+
+    assertThat(repository.claimDue(1, 0)).extracting(RefreshSchedule::listId).containsExactly(mostOverdue);
+    assertThat(repository.claimDue(1, 0)).extracting(RefreshSchedule::listId).containsExactly(lessOverdue);
+  }
+
+  @Test
+  void shouldKeepToTheScheduleAfterMissedRuns() {
+    UUID listId = newList();
+    repository.save(listId, 60, 30, Duration.ZERO, 0, UUID.randomUUID(), OKAPI_URL);
+    // Due 2.5 hours ago, so it missed two runs. The next one is due half an hour from now, not an hour.
+    jdbcTemplate.update("""
+      UPDATE list_refresh_schedules
+      SET base_run_at = now() - interval '150 minutes', next_run_at = now() - interval '150 minutes'
+      WHERE list_id = ?
+      """, listId);
+
+    repository.claimDue(10, 0);
+
+    assertThat(untilNextRun(listId)).isBetween(Duration.ofMinutes(29), Duration.ofMinutes(30));
+  }
+
+  @Test
+  void shouldLimitJitterToHalfTheInterval() {
+    for (int i = 0; i < 20; i++) {
+      UUID listId = newList();
+      repository.save(listId, 60, 30, Duration.ZERO, 24 * 60 * 60, UUID.randomUUID(), OKAPI_URL);
+      assertThat(untilNextRun(listId)).isBetween(Duration.ofMinutes(-1), Duration.ofMinutes(30));
+    }
+  }
+
+  @Test
+  void shouldReplaceAndDeleteSchedule() {
+    UUID listId = newList();
+    repository.save(listId, 60, 30, Duration.ZERO, 0, UUID.randomUUID(), OKAPI_URL);
+    repository.save(listId, 120, 90, Duration.ofMinutes(10), 0, UUID.randomUUID(), null);
+
+    RefreshSchedule schedule = repository.findByListId(listId).orElseThrow();
+    assertThat(schedule.intervalMinutes()).isEqualTo(120);
+    assertThat(schedule.maxAgeMinutes()).isEqualTo(90);
+    assertThat(schedule.okapiUrl()).isNull();
+
+    assertThat(repository.delete(listId)).isTrue();
+    assertThat(repository.findByListId(listId)).isEmpty();
+    assertThat(repository.delete(listId)).isFalse();
+  }
+
+  private static UUID newList() {
+    UUID listId = UUID.randomUUID();
+    TestDatabase.insertList(jdbcTemplate, listId);
+    return listId;
+  }
+
+  private Duration untilNextRun(UUID listId) {
+    return repository.findByListId(listId).orElseThrow().untilNextRun();
+  }
+}
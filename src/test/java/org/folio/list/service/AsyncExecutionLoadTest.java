@@ -0,0 +1,95 @@
+package org.folio.list.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.folio.list.configuration.AsyncExecutionProperties;
+import org.folio.list.configuration.AsyncExecutionProperties.ExecutorMode;
+import org.folio.list.services.ConcurrencyLimits;
+import org.folio.list.services.ConcurrencyLimits.Resource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput of the two {@link ExecutorMode}s for a burst of simulated refreshes, each of which mostly
+ * waits: first on FQM (polling a query, fetching pages of results), then on database writes.
+ * <p>
+ * With the default fixed pool of 10 threads, refreshes queue behind each other even while every thread is just
+ * waiting. With a virtual thread per task, only the {@link ConcurrencyLimits} hold them back.
+ * <p>
+ * This is slow, so it only runs when requested: {@code mvn test -Dtest=AsyncExecutionLoadTest -Dmod-lists.benchmark=true}
+ */
+@Log4j2
+@EnabledIfSystemProperty(named = "mod-lists.benchmark", matches = "true")
+class AsyncExecutionLoadTest {
+
+  private static final int TASKS = 200;
+  private static final int FQM_CALLS_PER_TASK = 5;
+  private static final int DB_WRITES_PER_TASK = 5;
+  private static final long FQM_LATENCY_MILLIS = 50;
+  private static final long DB_WRITE_LATENCY_MILLIS = 5;
+
+  private final ConcurrencyLimits concurrencyLimits =
+    new ConcurrencyLimits(new AsyncExecutionProperties(ExecutorMode.VIRTUAL, 5, 20, 10));
+
+  @Test
+  void compareExecutorModes() {
+    ThreadPoolTaskExecutor platformExecutor = new ThreadPoolTaskExecutor();
+    platformExecutor.setCorePoolSize(10);
+    platformExecutor.setMaxPoolSize(10);
+    platformExecutor.setQueueCapacity(1000);
+    platformExecutor.initialize();
+    double platformRate;
+    try {
+      platformRate = measure("PLATFORM (10 threads)", platformExecutor);
+    } finally {
+      platformExecutor.shutdown();
+    }
+
+    SimpleAsyncTaskExecutor virtualExecutor = new SimpleAsyncTaskExecutor("load-test-");
+    virtualExecutor.setVirtualThreads(true);
+    double virtualRate = measure("VIRTUAL", virtualExecutor);
+
+    log.info("VIRTUAL is {}x the throughput of PLATFORM", String.format("%.1f", virtualRate / platformRate));
+    assertThat(virtualRate).isGreaterThan(platformRate);
+  }
+
+  private double measure(String name, AsyncTaskExecutor executor) {
+    long start = System.nanoTime();
+    List<CompletableFuture<Void>> tasks = new ArrayList<>(TASKS);
+    for (int i = 0; i < TASKS; i++) {
+      tasks.add(executor.submitCompletable(this::simulatedRefresh));
+    }
+    CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+    double seconds = (System.nanoTime() - start) / 1e9;
+    double rate = TASKS / seconds;
+    log.info("{}: {} tasks in {}s ({} tasks/s)", name, TASKS, String.format("%.2f", seconds),
+      String.format("%.1f", rate));
+    return rate;
+  }
+
+  private Void simulatedRefresh() {
+    for (int i = 0; i < FQM_CALLS_PER_TASK; i++) {
+      concurrencyLimits.withPermit(Resource.FQM, () -> sleep(FQM_LATENCY_MILLIS));
+    }
+    for (int i = 0; i < DB_WRITES_PER_TASK; i++) {
+      concurrencyLimits.withPermit(Resource.DB_WRITES, () -> sleep(DB_WRITE_LATENCY_MILLIS));
+    }
+    return null;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
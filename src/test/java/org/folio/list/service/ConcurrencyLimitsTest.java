@@ -0,0 +1,138 @@
+package org.folio.list.service;
+
+import org.folio.list.configuration.AsyncExecutionProperties;
+import org.folio.list.configuration.AsyncExecutionProperties.ExecutorMode;
+import org.folio.list.services.ConcurrencyLimits;
+import org.folio.list.services.ConcurrencyLimits.Resource;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitsTest {
+
+  private final ConcurrencyLimits concurrencyLimits =
+    new ConcurrencyLimits(new AsyncExecutionProperties(ExecutorMode.VIRTUAL, 1, 2, 3));
+
+  @Test
+  void shouldCapConcurrentTasks() throws InterruptedException {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(20);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 20; i++) {
+        executor.submit(() -> concurrencyLimits.withPermit(Resource.FQM, () -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          sleep(5);
+          running.decrementAndGet();
+          done.countDown();
+        }));
+      }
+      assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    assertThat(maxRunning.get()).isEqualTo(2);
+    assertThat(concurrencyLimits.availablePermits(Resource.FQM)).isEqualTo(2);
+  }
+
+  @Test
+  void shouldReleasePermitWhenTaskFails() {
+    Supplier<String> failingTask = () -> {
+      throw new IllegalArgumentException("Boom");
+    };
+
+    assertThatThrownBy(() -> concurrencyLimits.withPermit(Resource.DB_WRITES, failingTask))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThat(concurrencyLimits.availablePermits(Resource.DB_WRITES)).isEqualTo(1);
+  }
+
+  @Test
+  void shouldGiveUpWhenInterruptedWhileWaiting() throws InterruptedException {
+    CountDownLatch holding = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread holder = Thread.ofVirtual().start(() -> concurrencyLimits.withPermit(Resource.DB_WRITES, () -> {
+      holding.countDown();
+      await(release);
+    }));
+    holding.await();
+
+    Thread.currentThread().interrupt();
+    try {
+      assertThatThrownBy(() -> concurrencyLimits.withPermit(Resource.DB_WRITES, () -> {}))
+        .isInstanceOf(IllegalStateException.class)
+        .hasCauseInstanceOf(InterruptedException.class);
+      assertThat(Thread.currentThread().isInterrupted()).isTrue();
+    } finally {
+      Thread.interrupted();
+      release.countDown();
+      holder.join();
+    }
+    assertThat(concurrencyLimits.availablePermits(Resource.DB_WRITES)).isEqualTo(1);
+  }
+
+  @Test
+  void limitedClientShouldTakePermitForEachCall() {
+    Supplier<Integer> client = () -> concurrencyLimits.availablePermits(Resource.S3);
+    @SuppressWarnings("unchecked")
+    Supplier<Integer> limitedClient = concurrencyLimits.limit(Resource.S3, Supplier.class, client);
+
+    assertThat(limitedClient.get()).isEqualTo(2);
+    assertThat(concurrencyLimits.availablePermits(Resource.S3)).isEqualTo(3);
+  }
+
+  @Test
+  void limitedClientShouldRethrowClientExceptions() {
+    Supplier<Integer> client = () -> {
+      throw new IllegalArgumentException("Boom");
+    };
+    @SuppressWarnings("unchecked")
+    Supplier<Integer> limitedClient = concurrencyLimits.limit(Resource.S3, Supplier.class, client);
+
+    assertThatThrownBy(limitedClient::get).isInstanceOf(IllegalArgumentException.class).hasMessage("Boom");
+    assertThat(concurrencyLimits.availablePermits(Resource.S3)).isEqualTo(3);
+  }
+
+  @Test
+  void limitedClientShouldNotTakePermitForObjectMethods() {
+    Supplier<Integer> client = () -> 1;
+    @SuppressWarnings("unchecked")
+    Supplier<Integer> limitedClient = concurrencyLimits.limit(Resource.S3, Supplier.class, client);
+
+    assertThat(limitedClient.toString()).isEqualTo(client.toString());
+    assertThat(limitedClient.hashCode()).isEqualTo(client.hashCode());
+  }
+
+  @Test
+  void shouldTrackRecentLatency() {
+    assertThat(concurrencyLimits.recentLatency(Resource.FQM)).isZero();
+
+    concurrencyLimits.withPermit(Resource.FQM, () -> sleep(50));
+
+    assertThat(concurrencyLimits.recentLatency(Resource.FQM)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+    assertThat(concurrencyLimits.recentLatency(Resource.S3)).isZero();
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,14 +1,35 @@
 package org.folio.list.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.awaitility.core.ConditionTimeoutException;
+import org.folio.list.configuration.RefreshBatchSizeProperties;
+import org.folio.list.configuration.RefreshFetchProperties;
+import org.folio.list.domain.ContentIdBatch;
 import org.folio.list.domain.ListEntity;
 import org.folio.list.domain.dto.ListConfiguration;
 import org.folio.list.exception.MaxListSizeExceededException;
+import org.folio.list.exception.RefreshCancelledException;
+import org.folio.list.repository.ListContentsPartitionRepository;
 import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStagingRepository;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.ListContentsWriter.WriteMode;
 import org.folio.list.repository.ListRepository;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
 import org.folio.list.rest.QueryClient;
 import org.folio.list.services.EntityManagerFlushService;
+import org.folio.list.services.cancellation.CancellationRegistry;
+import org.folio.list.services.refresh.DataBatchCallback;
+import org.folio.list.services.refresh.DirectResultsImporter;
 import org.folio.list.services.refresh.ListRefreshService;
+import org.folio.list.services.refresh.QueryCoalescer;
+import org.folio.list.services.refresh.QueryCompletionWaiter;
+import org.folio.list.services.refresh.QueryPollSchedule;
+import org.folio.list.services.refresh.QueryPollSchedulePlanner;
+import org.folio.list.services.refresh.RefreshCheckpointService;
 import org.folio.list.services.refresh.RefreshFailedCallback;
+import org.folio.list.services.refresh.RefreshProgressService;
+import org.folio.list.services.refresh.RefreshProgressTracker;
 import org.folio.list.services.refresh.RefreshSuccessCallback;
 import org.folio.list.services.refresh.TimedStage;
 import org.folio.list.util.TaskTimer;
@@ -23,15 +44,29 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.Mockito.*;
 
 
@@ -60,21 +95,54 @@ class ListRefreshServiceTest {
   @Mock
   private ListConfiguration listConfiguration;
 
+  @Mock
+  private QueryCompletionWaiter queryCompletionWaiter;
+  @Mock
+  private AsyncTaskExecutor taskExecutor;
+  @Mock
+  private QueryPollSchedulePlanner queryPollSchedulePlanner;
+  @Spy
+  private CancellationRegistry cancellationRegistry = new CancellationRegistry();
+  @Mock
+  private ListContentsPartitionRepository listContentsPartitionRepository;
+  @Mock
+  private ListContentsStagingRepository listContentsStagingRepository;
+  @Mock
+  private DirectResultsImporter directResultsImporter;
+  @Mock
+  private RefreshCheckpointService refreshCheckpointService;
+  @Mock
+  private RefreshProgressService refreshProgressService;
+
   @BeforeEach
   void setup() {
-    ReflectionTestUtils.setField(listRefreshService, "getQueryTimeoutMinutes", 10);
-    ReflectionTestUtils.setField(listRefreshService, "getQueryPollIntervalSeconds", 0L);
+    ReflectionTestUtils.setField(listRefreshService, "refreshWriteMode", WriteMode.JPA);
+    ReflectionTestUtils.setField(listRefreshService, "refreshBatchSizeProperties",
+      new RefreshBatchSizeProperties(false, 1, 100, 1, 60_000, 60_000));
+    ReflectionTestUtils.setField(listRefreshService, "queryCoalescer",
+      new QueryCoalescer(queryClient, executionContext, new SimpleMeterRegistry()));
+    // Run everything on the test thread, so that the refresh is done by the time doAsyncRefresh() returns. Lenient,
+    // since not every test runs a refresh
+    lenient().when(executionContext.getInstance()).thenReturn(executionContext);
+    lenient().when(listConfiguration.getMaxListSize()).thenReturn(1_250_000);
+    lenient().when(queryPollSchedulePlanner.plan(any()))
+      .thenReturn(new QueryPollSchedule(QueryPollSchedule.Basis.NONE, null, Duration.ZERO, Duration.ZERO));
+    lenient().doAnswer(invocation -> invocation.<Callable<?>>getArgument(0).call()).when(executionContext).execute(any());
+    lenient().doAnswer(invocation -> {
+      invocation.<Runnable>getArgument(0).run();
+      return null;
+    }).when(taskExecutor).execute(any(Runnable.class));
   }
 
   @Test
   void shouldStartRefresh() {
-    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
     int totalRecords = 0;
     ArgumentCaptor<SubmitQuery> submitQueryArgumentCaptor = ArgumentCaptor.forClass(SubmitQuery.class);
     QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(totalRecords);
     QueryIdentifier expectedIdentifier = new QueryIdentifier().queryId(UUID.randomUUID());
     when(queryClient.executeQuery(any())).thenReturn(expectedIdentifier);
-    when(queryClient.getQuery(expectedIdentifier.getQueryId())).thenReturn(queryDetails);
+    when(queryCompletionWaiter.waitForCompletion(eq(expectedIdentifier.getQueryId()), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
     var timer = new TaskTimer();
     timer.start(TimedStage.TOTAL);
     listRefreshService.doAsyncRefresh(list, null, timer);
@@ -82,13 +150,58 @@ class ListRefreshServiceTest {
     verify(refreshSuccessCallback, times(1)).accept(list, totalRecords, timer);
   }
 
+  @Test
+  void shouldGiveBigRefreshItsOwnPartition() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(500_000);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    ReflectionTestUtils.setField(listRefreshService, "refreshPartitionsEnabled", true);
+    ReflectionTestUtils.setField(listRefreshService, "refreshPartitionMinRecords", 100_000);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncSorting(list, queryId, null, timer);
+    verify(listContentsPartitionRepository, times(1)).createRefreshPartition(list.getId(), refreshId);
+  }
+
+  @Test
+  void shouldRecordChunkedLayoutAndSkipPartition() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(500_000);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    ReflectionTestUtils.setField(listRefreshService, "refreshWriteMode", WriteMode.CHUNKED);
+    ReflectionTestUtils.setField(listRefreshService, "refreshPartitionsEnabled", true);
+    ReflectionTestUtils.setField(listRefreshService, "refreshPartitionMinRecords", 100_000);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncSorting(list, queryId, null, timer);
+    assertThat(timer.getSummary()).containsEntry(Layout.METADATA_KEY, "CHUNKED");
+    verifyNoInteractions(listContentsPartitionRepository);
+  }
+
+  @Test
+  void shouldNotGiveSmallRefreshItsOwnPartition() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(10);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    ReflectionTestUtils.setField(listRefreshService, "refreshPartitionsEnabled", true);
+    ReflectionTestUtils.setField(listRefreshService, "refreshPartitionMinRecords", 100_000);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncSorting(list, queryId, null, timer);
+    verify(listContentsPartitionRepository, never()).createRefreshPartition(any(), any());
+  }
+
   @Test
   void shouldStartAsyncSort() {
     UUID queryId = UUID.randomUUID();
-    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
     int totalRecords = 0;
     QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(totalRecords);
-    when(queryClient.getQuery(queryId)).thenReturn(queryDetails);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
     var timer =  new TaskTimer();
     timer.start(TimedStage.TOTAL);
     listRefreshService.doAsyncSorting(list, queryId, null, timer);
@@ -97,13 +210,13 @@ class ListRefreshServiceTest {
 
   @Test
   void shouldHandleQueryCancelledDuringRefresh() {
-    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
     int totalRecords = 0;
     ArgumentCaptor<SubmitQuery> submitQueryArgumentCaptor = ArgumentCaptor.forClass(SubmitQuery.class);
     QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.CANCELLED).totalRecords(totalRecords);
     QueryIdentifier expectedIdentifier = new QueryIdentifier().queryId(UUID.randomUUID());
     when(queryClient.executeQuery(any())).thenReturn(expectedIdentifier);
-    when(queryClient.getQuery(expectedIdentifier.getQueryId())).thenReturn(queryDetails);
+    when(queryCompletionWaiter.waitForCompletion(eq(expectedIdentifier.getQueryId()), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
     var timer =  new TaskTimer();
     timer.start(TimedStage.TOTAL);
     listRefreshService.doAsyncRefresh(list, null, timer);
@@ -113,13 +226,13 @@ class ListRefreshServiceTest {
 
   @Test
   void shouldHandleQueryFailedDuringRefresh() {
-    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
     int totalRecords = 0;
     ArgumentCaptor<SubmitQuery> submitQueryArgumentCaptor = ArgumentCaptor.forClass(SubmitQuery.class);
     QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.FAILED).totalRecords(totalRecords);
     QueryIdentifier expectedIdentifier = new QueryIdentifier().queryId(UUID.randomUUID());
     when(queryClient.executeQuery(any())).thenReturn(expectedIdentifier);
-    when(queryClient.getQuery(expectedIdentifier.getQueryId())).thenReturn(queryDetails);
+    when(queryCompletionWaiter.waitForCompletion(eq(expectedIdentifier.getQueryId()), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
     var timer =  new TaskTimer();
     timer.start(TimedStage.TOTAL);
     listRefreshService.doAsyncRefresh(list, null, timer);
@@ -129,13 +242,13 @@ class ListRefreshServiceTest {
 
   @Test
   void shouldHandleMaxQuerySizeExceededDuringRefresh() {
-    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
     int totalRecords = 0;
     ArgumentCaptor<SubmitQuery> submitQueryArgumentCaptor = ArgumentCaptor.forClass(SubmitQuery.class);
     QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.MAX_SIZE_EXCEEDED).totalRecords(totalRecords);
     QueryIdentifier expectedIdentifier = new QueryIdentifier().queryId(UUID.randomUUID());
     when(queryClient.executeQuery(any())).thenReturn(expectedIdentifier);
-    when(queryClient.getQuery(expectedIdentifier.getQueryId())).thenReturn(queryDetails);
+    when(queryCompletionWaiter.waitForCompletion(eq(expectedIdentifier.getQueryId()), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
     when(listConfiguration.getMaxListSize()).thenReturn(10);
     var timer =  new TaskTimer();
     timer.start(TimedStage.TOTAL);
@@ -143,4 +256,368 @@ class ListRefreshServiceTest {
     verify(queryClient, times(1)).executeQuery(submitQueryArgumentCaptor.capture());
     verify(refreshFailedCallback, times(1)).accept(eq(list), eq(timer), any(MaxListSizeExceededException.class));
   }
+
+  @Test
+  void shouldStreamResultsIntoListInBatches() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    DataBatchCallback dataBatchCallback = mock(DataBatchCallback.class);
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(3);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    doReturn(dataBatchCallback).when(listBatchCallbackSupplier).get();
+    when(queryClient.streamSortedIds(queryId, 0, 10)).thenReturn(json("[[\"a\"], [\"b\"], [\"c\"]]"));
+    when(queryClient.streamSortedIds(queryId, 3, 10)).thenReturn(json("[]"));
+    ReflectionTestUtils.setField(listRefreshService, "refreshStreamingEnabled", true);
+    ReflectionTestUtils.setField(listRefreshService, "refreshStreamBatchSize", 2);
+    ReflectionTestUtils.setField(listRefreshService, "refreshBatchSize", 10);
+    RefreshProgressTracker progressTracker = mock(RefreshProgressTracker.class);
+    when(refreshProgressService.startTracking(list, 0, 3)).thenReturn(progressTracker);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncSorting(list, queryId, null, timer);
+    ArgumentCaptor<ContentIdBatch> batches = ArgumentCaptor.forClass(ContentIdBatch.class);
+    verify(dataBatchCallback, times(2)).accept(eq(list), batches.capture());
+    assertThat(batches.getAllValues()).map(ContentIdBatch::toContentIds)
+      .containsExactly(List.of(List.of("a"), List.of("b")), List.of(List.of("c")));
+    verify(queryClient, never()).getSortedIds(any(), anyInt(), anyInt());
+    verify(refreshSuccessCallback, times(1)).accept(list, 3, timer);
+    verify(dataBatchCallback).trackProgress(progressTracker);
+    verify(refreshProgressService).complete(list.getInProgressRefreshId().orElseThrow());
+  }
+
+  @Test
+  void shouldRejectTooManyResultsBeforeImportingThem() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(11);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), eq(10), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    when(listConfiguration.getMaxListSize()).thenReturn(10);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncSorting(list, queryId, null, timer);
+    verify(refreshFailedCallback, times(1)).accept(eq(list), eq(timer), any(MaxListSizeExceededException.class));
+    verify(queryClient, never()).getSortedIds(any(), anyInt(), anyInt());
+    verifyNoInteractions(listBatchCallbackSupplier, refreshSuccessCallback);
+    assertThat(timer.getSummary()).containsKey(TimedStage.CHECK_RESULT_SIZE.name());
+  }
+
+  @Test
+  void shouldRejectQueryThatFoundTooManyResultsWhileRunning() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.IN_PROGRESS).totalRecords(11);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), eq(10), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    when(listConfiguration.getMaxListSize()).thenReturn(10);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncSorting(list, queryId, null, timer);
+    verify(refreshFailedCallback, times(1)).accept(eq(list), eq(timer), any(MaxListSizeExceededException.class));
+    verifyNoInteractions(listBatchCallbackSupplier, refreshSuccessCallback);
+    // Nobody is going to read its results
+    verify(queryClient, times(1)).deleteQuery(queryId);
+  }
+
+  @Test
+  void shouldReportFailedQueryRatherThanItsSize() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.FAILED).totalRecords(11)
+      .failureReason("Something went wrong");
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), eq(10), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    when(listConfiguration.getMaxListSize()).thenReturn(10);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncSorting(list, queryId, null, timer);
+    ArgumentCaptor<Throwable> failure = ArgumentCaptor.forClass(Throwable.class);
+    verify(refreshFailedCallback, times(1)).accept(eq(list), eq(timer), failure.capture());
+    assertThat(failure.getValue()).isNotInstanceOf(MaxListSizeExceededException.class)
+      .hasMessage("Something went wrong");
+    verify(queryClient, never()).deleteQuery(any());
+    assertThat(timer.getSummary()).doesNotContainKey(TimedStage.CHECK_RESULT_SIZE.name());
+  }
+
+  @Test
+  void shouldProbeForResultsPastTheLimitWhenTotalIsUnknown() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), eq(10), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    when(listConfiguration.getMaxListSize()).thenReturn(10);
+    when(queryClient.getSortedIds(queryId, 10, 1)).thenReturn(List.of(List.of(UUID.randomUUID().toString())));
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncSorting(list, queryId, null, timer);
+    verify(refreshFailedCallback, times(1)).accept(eq(list), eq(timer), any(MaxListSizeExceededException.class));
+    verifyNoInteractions(listBatchCallbackSupplier, refreshSuccessCallback);
+  }
+
+  @Test
+  void shouldFailRefreshWhenQueryTimesOut() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    QueryIdentifier expectedIdentifier = new QueryIdentifier().queryId(UUID.randomUUID());
+    ConditionTimeoutException timeout = new ConditionTimeoutException("Query did not complete");
+    when(queryClient.executeQuery(any())).thenReturn(expectedIdentifier);
+    when(queryCompletionWaiter.waitForCompletion(eq(expectedIdentifier.getQueryId()), any(), anyInt(), any()))
+      .thenReturn(CompletableFuture.failedFuture(timeout));
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncRefresh(list, null, timer);
+    verify(refreshFailedCallback, times(1)).accept(list, timer, timeout);
+    verifyNoInteractions(refreshSuccessCallback);
+  }
+
+  @Test
+  void shouldStopWaitingForQueryWhenRefreshIsCancelled() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    QueryIdentifier expectedIdentifier = new QueryIdentifier().queryId(UUID.randomUUID());
+    CompletableFuture<QueryDetails> queryCompletion = new CompletableFuture<>();
+    when(queryClient.executeQuery(any())).thenReturn(expectedIdentifier);
+    when(queryCompletionWaiter.waitForCompletion(eq(expectedIdentifier.getQueryId()), any(), anyInt(), any()))
+      .thenReturn(queryCompletion);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncRefresh(list, null, timer);
+    verifyNoInteractions(refreshFailedCallback);
+
+    cancellationRegistry.cancel(refreshId);
+
+    assertThat(queryCompletion).isCompletedExceptionally();
+    verify(refreshFailedCallback, times(1)).accept(eq(list), eq(timer), any(RefreshCancelledException.class));
+    verifyNoInteractions(refreshSuccessCallback);
+    assertThat(cancellationRegistry.find(refreshId)).isEmpty();
+  }
+
+  @Test
+  void shouldKeepSharingQueryWhenOneOfItsRefreshesIsCancelled() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    QueryCoalescer queryCoalescer = new QueryCoalescer(queryClient, executionContext, new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(queryCoalescer, "enabled", true);
+    ReflectionTestUtils.setField(listRefreshService, "queryCoalescer", queryCoalescer);
+    ArgumentCaptor<SubmitQuery> submitQuery = ArgumentCaptor.forClass(SubmitQuery.class);
+    QueryIdentifier expectedIdentifier = new QueryIdentifier().queryId(UUID.randomUUID());
+    when(queryClient.executeQuery(submitQuery.capture())).thenReturn(expectedIdentifier);
+    when(queryCompletionWaiter.waitForCompletion(eq(expectedIdentifier.getQueryId()), any(), anyInt(), any()))
+      .thenReturn(new CompletableFuture<>());
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncRefresh(list, null, timer);
+    // Another list with the same query, still waiting for it
+    queryCoalescer.submit(UUID.randomUUID(), submitQuery.getValue());
+
+    cancellationRegistry.cancel(refreshId);
+
+    // The query is still running, so later refreshes can still join it
+    assertThat(queryCoalescer.submit(UUID.randomUUID(), submitQuery.getValue()).shared()).isTrue();
+    verify(queryClient, times(1)).executeQuery(any());
+  }
+
+  @Test
+  void shouldNotFailSuspendedRefresh() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    QueryIdentifier expectedIdentifier = new QueryIdentifier().queryId(UUID.randomUUID());
+    when(queryClient.executeQuery(any())).thenReturn(expectedIdentifier);
+    when(queryCompletionWaiter.waitForCompletion(eq(expectedIdentifier.getQueryId()), any(), anyInt(), any()))
+      .thenReturn(new CompletableFuture<>());
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+    listRefreshService.doAsyncRefresh(list, null, timer);
+    verify(refreshCheckpointService, times(1)).begin(list, expectedIdentifier.getQueryId(), Layout.ROWS);
+
+    // Suspending a refresh on shutdown cancels it, but it's left for another node to resume rather than failed
+    when(refreshCheckpointService.isSuspended(refreshId)).thenReturn(true);
+    cancellationRegistry.cancel(refreshId);
+
+    verifyNoInteractions(refreshFailedCallback, refreshSuccessCallback);
+    verify(refreshCheckpointService, times(1)).complete(refreshId);
+  }
+
+  @Test
+  void shouldStageContentsOfRefresh() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    DataBatchCallback dataBatchCallback = mock(DataBatchCallback.class);
+    List<List<String>> ids = List.of(List.of(UUID.randomUUID().toString()));
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(1);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    doReturn(dataBatchCallback).when(listBatchCallbackSupplier).get();
+    when(queryClient.getSortedIds(queryId, 0, 10)).thenReturn(ids);
+    when(queryClient.getSortedIds(queryId, 1, 10)).thenReturn(List.of());
+    when(listContentsStagingRepository.stagingTableExists(refreshId)).thenReturn(true);
+    ReflectionTestUtils.setField(listRefreshService, "refreshWriteMode", WriteMode.STAGED);
+    ReflectionTestUtils.setField(listRefreshService, "refreshBatchSize", 10);
+    ReflectionTestUtils.setField(listRefreshService, "refreshPartitionsEnabled", true);
+    ReflectionTestUtils.setField(listRefreshService, "refreshPartitionMinRecords", 100_000);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+
+    listRefreshService.doAsyncSorting(list, queryId, null, timer);
+
+    var inOrder = inOrder(listContentsStagingRepository, dataBatchCallback, refreshSuccessCallback);
+    inOrder.verify(listContentsStagingRepository).createStagingTable(refreshId);
+    inOrder.verify(dataBatchCallback).accept(list, ids);
+    // Too small for a partition of its own
+    inOrder.verify(listContentsStagingRepository).publish(list.getId(), refreshId, false);
+    inOrder.verify(refreshSuccessCallback).accept(list, 1, timer);
+    assertThat(timer.getSummary()).containsEntry("CONTENTS_LAYOUT", "ROWS");
+    assertThat(timer.getSummary()).containsKey("PUBLISH_STAGED_CONTENTS");
+    // Staged refreshes never get an empty partition up front
+    verifyNoInteractions(listContentsPartitionRepository);
+  }
+
+  @Test
+  void shouldImportResultsInsideDatabaseWhenPossible() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(3);
+    when(queryClient.executeQuery(any())).thenReturn(new QueryIdentifier().queryId(queryId));
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    when(directResultsImporter.importResults(list, queryId, WriteMode.JPA)).thenReturn(OptionalInt.of(3));
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+
+    listRefreshService.doAsyncRefresh(list, null, timer);
+
+    verify(queryClient, never()).getSortedIds(any(), anyInt(), anyInt());
+    verify(refreshSuccessCallback, times(1)).accept(list, 3, timer);
+    assertThat(timer.getSummary()).containsEntry("IMPORTED_IN_DATABASE", "true");
+  }
+
+  @Test
+  void shouldOnlyImportResultsOfItsOwnQueryInsideDatabase() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    QueryCoalescer queryCoalescer = new QueryCoalescer(queryClient, executionContext, new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(queryCoalescer, "enabled", true);
+    ReflectionTestUtils.setField(listRefreshService, "queryCoalescer", queryCoalescer);
+    UUID queryId = UUID.randomUUID();
+    SubmitQuery submitQuery = new SubmitQuery()
+      .entityTypeId(list.getEntityTypeId())
+      .fqlQuery(list.getFqlQuery())
+      .fields(list.getFields());
+    when(queryClient.executeQuery(any())).thenReturn(new QueryIdentifier().queryId(queryId));
+    // Someone else's list with the same query submitted it
+    queryCoalescer.submit(UUID.randomUUID(), submitQuery);
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(1);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    DataBatchCallback dataBatchCallback = mock(DataBatchCallback.class);
+    doReturn(dataBatchCallback).when(listBatchCallbackSupplier).get();
+    List<List<String>> ids = List.of(List.of(UUID.randomUUID().toString()));
+    when(queryClient.getSortedIds(queryId, 0, 10)).thenReturn(ids);
+    when(queryClient.getSortedIds(queryId, 1, 10)).thenReturn(List.of());
+    ReflectionTestUtils.setField(listRefreshService, "refreshBatchSize", 10);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+
+    listRefreshService.doAsyncRefresh(list, null, timer);
+
+    verify(queryClient, times(1)).executeQuery(any());
+    verify(dataBatchCallback, times(1)).accept(list, ids);
+    verifyNoInteractions(directResultsImporter);
+  }
+
+  @Test
+  void shouldResumeRefreshFromCheckpoint() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    RefreshCheckpoint checkpoint = new RefreshCheckpoint(refreshId, list.getId(), queryId, Layout.ROWS, 5, 1,
+      UUID.randomUUID());
+    DataBatchCallback dataBatchCallback = mock(DataBatchCallback.class);
+    List<List<String>> remainingIds = List.of(List.of(UUID.randomUUID().toString()), List.of(UUID.randomUUID().toString()));
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(7);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    doReturn(dataBatchCallback).when(listBatchCallbackSupplier).get();
+    when(queryClient.getSortedIds(eq(queryId), anyInt(), eq(10))).thenReturn(remainingIds, List.of());
+    ReflectionTestUtils.setField(listRefreshService, "refreshBatchSize", 10);
+    ReflectionTestUtils.setField(listRefreshService, "refreshPartitionsEnabled", true);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+
+    listRefreshService.resumeRefresh(list, checkpoint, null, timer);
+
+    verify(refreshCheckpointService, times(1)).resume(checkpoint);
+    verify(dataBatchCallback, times(1)).resumeFrom(5, 1);
+    verify(dataBatchCallback, times(1)).accept(list, remainingIds);
+    verify(queryClient, never()).getSortedIds(eq(queryId), intThat(offset -> offset < 5), anyInt());
+    verify(refreshSuccessCallback, times(1)).accept(list, 7, timer);
+    verifyNoInteractions(listContentsPartitionRepository);
+    verify(refreshCheckpointService, times(1)).complete(refreshId);
+  }
+
+  @Test
+  void shouldGrowBatchSizeWhilePagesAreQuick() {
+    UUID queryId = UUID.randomUUID();
+    ListEntity list = TestDataFixture.getListEntityWithInProgressAndSuccessRefresh();
+    DataBatchCallback dataBatchCallback = mock(DataBatchCallback.class);
+    QueryDetails queryDetails = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(11);
+    when(queryCompletionWaiter.waitForCompletion(eq(queryId), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(queryDetails));
+    doReturn(dataBatchCallback).when(listBatchCallbackSupplier).get();
+    when(queryClient.getSortedIds(eq(queryId), anyInt(), anyInt())).thenAnswer(invocation -> {
+      int offset = invocation.getArgument(1);
+      int limit = invocation.getArgument(2);
+      return IntStream.range(offset, Math.min(offset + limit, 11))
+        .mapToObj(i -> List.of(Integer.toString(i)))
+        .toList();
+    });
+    ReflectionTestUtils.setField(listRefreshService, "refreshBatchSizeProperties",
+      new RefreshBatchSizeProperties(true, 2, 5, 1, 60_000, 60_000));
+    ReflectionTestUtils.setField(listRefreshService, "refreshBatchSize", 2);
+    var timer = new TaskTimer();
+    timer.start(TimedStage.TOTAL);
+
+    listRefreshService.doAsyncSorting(list, queryId, null, timer);
+
+    // Pages of 2, 3 and 4, then 2 left of the 5 requested
+    verify(queryClient, times(1)).getSortedIds(queryId, 0, 2);
+    verify(queryClient, times(1)).getSortedIds(queryId, 2, 3);
+    verify(queryClient, times(1)).getSortedIds(queryId, 5, 4);
+    verify(queryClient, times(1)).getSortedIds(queryId, 9, 5);
+    verify(queryClient, times(1)).getSortedIds(queryId, 11, 5);
+    verify(refreshSuccessCallback, times(1)).accept(list, 11, timer);
+    assertThat(timer.getSummary())
+      .containsEntry("REFRESH_BATCH_SIZE_INITIAL", "2")
+      .containsEntry("REFRESH_BATCH_SIZE_FINAL", "5")
+      .containsEntry("REFRESH_BATCH_SIZE_RANGE", "2..5");
+  }
+
+  @Test
+  void shouldRefuseToPrefetchPagesThatAreSizedAdaptivelyOrStreamed() {
+    ReflectionTestUtils.setField(listRefreshService, "refreshFetchProperties", new RefreshFetchProperties(1, Map.of()));
+    ReflectionTestUtils.setField(listRefreshService, "refreshPrefetchPages", 2);
+    ReflectionTestUtils.setField(listRefreshService, "refreshBatchSizeProperties",
+      new RefreshBatchSizeProperties(true, 2, 5, 1, 60_000, 60_000));
+    assertThatThrownBy(() -> listRefreshService.validateFetchSettings())
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("REFRESH_PREFETCH_PAGES=0");
+
+    ReflectionTestUtils.setField(listRefreshService, "refreshBatchSizeProperties",
+      new RefreshBatchSizeProperties(false, 1, 100, 1, 60_000, 60_000));
+    ReflectionTestUtils.setField(listRefreshService, "refreshStreamingEnabled", true);
+    assertThatThrownBy(() -> listRefreshService.validateFetchSettings())
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("REFRESH_PREFETCH_PAGES=0");
+
+    ReflectionTestUtils.setField(listRefreshService, "refreshPrefetchPages", 0);
+    assertDoesNotThrow(() -> listRefreshService.validateFetchSettings());
+  }
+
+  @Test
+  void shouldRefuseToFetchConcurrentlyWithoutPrefetch() {
+    ReflectionTestUtils.setField(listRefreshService, "refreshFetchProperties",
+      new RefreshFetchProperties(1, Map.of("diku", 4)));
+    ReflectionTestUtils.setField(listRefreshService, "refreshPrefetchPages", 0);
+    assertThatThrownBy(() -> listRefreshService.validateFetchSettings())
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("REFRESH_FETCH_CONCURRENCY");
+
+    ReflectionTestUtils.setField(listRefreshService, "refreshPrefetchPages", 2);
+    assertDoesNotThrow(() -> listRefreshService.validateFetchSettings());
+  }
+
+  private static InputStreamResource json(String json) {
+    return new InputStreamResource(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
 }
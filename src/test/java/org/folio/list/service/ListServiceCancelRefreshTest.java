@@ -11,6 +11,9 @@ import org.folio.list.domain.ListRefreshDetails;
 import org.folio.list.repository.ListRepository;
 import org.folio.list.services.ListService;
 import org.folio.list.services.ListValidationService;
+import org.folio.list.services.cancellation.CancellationBus;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEventBus;
 import org.folio.list.util.TestDataFixture;
 import org.folio.spring.FolioExecutionContext;
 import org.junit.jupiter.api.Test;
@@ -34,6 +37,12 @@ class ListServiceCancelRefreshTest {
   @Mock
   private FolioExecutionContext executionContext;
 
+  @Mock
+  private CancellationBus cancellationBus;
+
+  @Mock
+  private JobEventBus jobEventBus;
+
   @Test
   void shouldCancelListRefresh() {
     UUID userId = UUID.randomUUID();
@@ -47,5 +56,7 @@ class ListServiceCancelRefreshTest {
     assertEquals(AsyncProcessStatus.CANCELLED, refreshDetails.getStatus());
     assertEquals(userId, refreshDetails.getCancelledBy());
     assertNull(list.getInProgressRefresh());
+    verify(cancellationBus, times(1)).publishCancellation(refreshDetails.getId());
+    verify(jobEventBus, times(1)).publish(JobEvent.refresh(refreshDetails));
   }
 }
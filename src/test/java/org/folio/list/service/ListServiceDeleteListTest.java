@@ -2,12 +2,13 @@ package org.folio.list.service;
 
 import org.folio.list.domain.ListEntity;
 import org.folio.list.exception.*;
-import org.folio.list.repository.ListContentsRepository;
 import org.folio.list.repository.ListRepository;
+import org.folio.list.repository.RefreshScheduleRepository;
 import org.folio.list.rest.EntityTypeClient;
 import org.folio.list.services.ListActions;
 import org.folio.list.services.ListService;
 import org.folio.list.services.ListValidationService;
+import org.folio.list.services.purge.ListContentsReaper;
 import org.folio.list.util.TestDataFixture;
 import org.folio.querytool.domain.dto.UpdateUsedByRequest;
 import org.junit.jupiter.api.Test;
@@ -41,11 +42,14 @@ class ListServiceDeleteListTest {
   private ListValidationService listValidationService;
 
   @Mock
-  private ListContentsRepository listContentsRepository;
+  private ListContentsReaper listContentsReaper;
 
   @Mock
   private EntityTypeClient entityTypeClient;
 
+  @Mock
+  private RefreshScheduleRepository refreshScheduleRepository;
+
   @Test
   void shouldDeleteList() {
     ListEntity entity = TestDataFixture.getListEntityWithSuccessRefresh();
@@ -71,7 +75,8 @@ class ListServiceDeleteListTest {
     listValidationService.validateDelete(entity);
     listService.deleteList(entity.getId());
 
-    verify(listContentsRepository, times(1)).deleteContents(entity.getId());
+    verify(listContentsReaper, times(1)).markDeletedListGarbage(entity.getId());
+    verify(refreshScheduleRepository, times(1)).delete(entity.getId());
     verify(entityTypeClient, times(1)).updateEntityTypeUsedBy(
       entity.getEntityTypeId(),
       updateUsedByRequest
@@ -7,11 +7,16 @@ import org.folio.list.domain.ListRefreshDetails;
 import org.folio.list.exception.ListContentsFqmRequestException;
 import org.folio.list.exception.PrivateListOfAnotherUserException;
 import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.ListContentsStores;
 import org.folio.list.repository.ListRepository;
+import org.folio.list.repository.RefreshCheckpointRepository;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
 import org.folio.list.rest.EntityTypeClient;
 import org.folio.list.rest.QueryClient;
 import org.folio.list.services.ListActions;
 import org.folio.list.services.ListService;
+import org.folio.list.services.ListService.ListContentsPage;
 import org.folio.list.services.ListValidationService;
 import org.folio.list.util.TestDataFixture;
 import org.folio.querytool.domain.dto.ContentsRequest;
@@ -21,6 +26,7 @@ import org.folio.querytool.domain.dto.ResultsetPage;
 import org.folio.spring.FolioExecutionContext;
 import org.folio.spring.data.OffsetRequest;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -48,14 +54,23 @@ class ListServiceGetListContentsTest {
   @Mock
   private ListContentsRepository listContentsRepository;
   @Mock
+  private ListContentsStores listContentsStores;
+  @Mock
   private FqlService fqlService;
   @Mock
   private QueryClient queryClient;
   @Mock
   private EntityTypeClient entityTypeClient;
+  @Mock
+  private RefreshCheckpointRepository refreshCheckpointRepository;
   @InjectMocks
   private ListService listService;
 
+  @BeforeEach
+  void setup() {
+    lenient().when(listContentsStores.forRefresh(any())).thenReturn(listContentsRepository);
+  }
+
   @Test
   void shouldReturnValidContentPage() {
     String tenantId = "tenant_01";
@@ -371,4 +386,65 @@ class ListServiceGetListContentsTest {
 
     assertThat(exception.getMessage()).contains("Failed to retrieve list contents");
   }
+
+  @Test
+  void shouldPreviewWhatTheInProgressRefreshHasImported() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    List<String> contentId = List.of(UUID.randomUUID().toString());
+    List<String> fields = List.of("id");
+    EntityType entityType = new EntityType().name("entity-type")
+      .columns(List.of(new EntityTypeColumn().name("id").isIdColumn(true)));
+    List<Map<String, Object>> expectedList = List.of(Map.of("id", contentId));
+
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    RefreshCheckpoint checkpoint = checkpointOf(list, 3);
+    when(refreshCheckpointRepository.find(refreshId)).thenReturn(Optional.of(checkpoint));
+    when(listContentsStores.forInProgressRefresh(checkpoint)).thenReturn(listContentsRepository);
+    // Only 1 of the 5 requested records has been imported past offset 2
+    when(listContentsRepository.getContents(list.getId(), refreshId, new OffsetRequest(2, 1)))
+      .thenReturn(List.of(new ListContent(list.getId(), refreshId, contentId, 2)));
+    when(entityTypeClient.getEntityType(list.getEntityTypeId(), ListActions.READ)).thenReturn(entityType);
+    when(queryClient.getContents(new ContentsRequest().entityTypeId(list.getEntityTypeId()).fields(fields)
+      .ids(List.of(contentId)))).thenReturn(expectedList);
+
+    Optional<ListContentsPage> actual = listService.getListContentsPreview(list.getId(), fields, 2, 5);
+
+    assertThat(actual).contains(new ListContentsPage(new ResultsetPage().content(expectedList).totalRecords(3), true));
+  }
+
+  @Test
+  void shouldNotReadPastTheInProgressRefreshsCheckpoint() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(refreshCheckpointRepository.find(refreshId)).thenReturn(Optional.of(checkpointOf(list, 3)));
+    when(entityTypeClient.getEntityType(list.getEntityTypeId(), ListActions.READ)).thenReturn(new EntityType());
+
+    Optional<ListContentsPage> actual = listService.getListContentsPreview(list.getId(), List.of("id"), 3, 5);
+
+    assertThat(actual).contains(new ListContentsPage(new ResultsetPage().content(List.of()).totalRecords(3), true));
+    verifyNoInteractions(listContentsRepository, queryClient);
+  }
+
+  @Test
+  void shouldServeUsualContentsWhenTheRefreshCantBePreviewed() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(refreshCheckpointRepository.find(list.getInProgressRefreshId().orElseThrow()))
+      .thenReturn(Optional.empty());
+    when(entityTypeClient.getEntityType(list.getEntityTypeId(), ListActions.READ)).thenReturn(new EntityType());
+
+    Optional<ListContentsPage> actual = listService.getListContentsPreview(list.getId(), List.of("id"), 0, 100);
+
+    assertThat(actual).contains(new ListContentsPage(new ResultsetPage().content(List.of()).totalRecords(0), false));
+    verifyNoInteractions(listContentsRepository, queryClient);
+  }
+
+  private static RefreshCheckpoint checkpointOf(ListEntity list, int nextOffset) {
+    return new RefreshCheckpoint(list.getInProgressRefreshId().orElseThrow(), list.getId(), UUID.randomUUID(),
+      Layout.ROWS, nextOffset, 1, UUID.randomUUID());
+  }
 }
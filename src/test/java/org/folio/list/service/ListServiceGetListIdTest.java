@@ -6,11 +6,16 @@ import org.folio.list.exception.InsufficientEntityTypePermissionsException;
 import org.folio.list.exception.PrivateListOfAnotherUserException;
 import org.folio.list.mapper.ListMapper;
 import org.folio.list.repository.ListRepository;
+import org.folio.list.repository.RefreshProgressRepository.RefreshProgress;
 import org.folio.list.domain.dto.ListDTO;
+import org.folio.list.domain.dto.ListRefreshProgressDTO;
 import org.folio.list.rest.EntityTypeClient;
 import org.folio.list.services.ListActions;
 import org.folio.list.services.ListService;
 import org.folio.list.services.ListValidationService;
+import org.folio.list.services.events.JobEventSubscriptions;
+import org.folio.list.services.jobs.JobQueue;
+import org.folio.list.services.refresh.RefreshProgressService;
 import org.folio.list.util.TestDataFixture;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -18,12 +23,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 
@@ -45,6 +56,15 @@ class ListServiceGetListIdTest {
   @Mock
   private EntityTypeClient entityTypeClient;
 
+  @Mock
+  private JobQueue jobQueue;
+
+  @Mock
+  private RefreshProgressService refreshProgressService;
+
+  @Mock
+  private JobEventSubscriptions jobEventSubscriptions;
+
   @Test
   void testGetListById() {
     UUID listId = UUID.randomUUID();
@@ -57,6 +77,28 @@ class ListServiceGetListIdTest {
     assertThat(actual).contains(listDto);
   }
 
+  @Test
+  void shouldIncludeProgressOfRunningRefresh() {
+    UUID listId = UUID.randomUUID();
+    ListEntity entity = TestDataFixture.getListEntityWithInProgressRefresh();
+    ListDTO listDto = TestDataFixture.getListDTOInProgressRefresh(listId);
+    UUID refreshId = listDto.getInProgressRefresh().getId();
+    when(listRepository.findByIdAndIsDeletedFalse(listId)).thenReturn(Optional.of(entity));
+    when(listMapper.toListDTO(entity)).thenReturn(listDto);
+    when(jobQueue.findRefreshQueuePosition(refreshId)).thenReturn(Optional.empty());
+    when(refreshProgressService.find(refreshId)).thenReturn(Optional.of(
+      new RefreshProgress(refreshId, listId, 3000, 3, 1500.0, 4, Duration.ofMinutes(5))));
+
+    ListRefreshProgressDTO progress = listService.getListById(listId).orElseThrow().getInProgressRefresh().getProgress();
+
+    assertThat(progress.getRecordsImported()).isEqualTo(3000);
+    assertThat(progress.getBatchesProcessed()).isEqualTo(3);
+    assertThat(progress.getRecordsPerSecond()).isEqualTo(1500.0);
+    assertThat(progress.getEstimatedSecondsRemaining()).isEqualTo(4);
+    assertThat(progress.getUpdatedDate())
+      .isBetween(OffsetDateTime.now().minusMinutes(6), OffsetDateTime.now().minusMinutes(4));
+  }
+
   @Test
   void shouldThrowExceptionWhenValidationFailed() {
     UUID listId = UUID.randomUUID();
@@ -76,4 +118,33 @@ class ListServiceGetListIdTest {
       .when(listValidationService).validateRead(listEntity);
     assertThrows(InsufficientEntityTypePermissionsException.class, () -> listService.getListById(listId));
   }
+
+  @Test
+  void shouldStartListEventsWithTheList() {
+    UUID listId = UUID.randomUUID();
+    ListEntity entity = TestDataFixture.getListEntityWithSuccessRefresh(UUID.randomUUID());
+    ListDTO listDto = TestDataFixture.getListDTOSuccessRefresh(listId);
+    SseEmitter emitter = new SseEmitter();
+    when(listRepository.findByIdAndIsDeletedFalse(listId)).thenReturn(Optional.of(entity));
+    when(listMapper.toListDTO(entity)).thenReturn(listDto);
+    when(jobEventSubscriptions.subscribe(eq(listId), any())).thenAnswer(invocation -> {
+      assertThat(invocation.getArgument(1, Supplier.class).get()).isEqualTo(listDto);
+      return emitter;
+    });
+
+    assertThat(listService.getListEvents(listId)).isSameAs(emitter);
+  }
+
+  @Test
+  void shouldNotStreamEventsOfListUserCantRead() {
+    UUID listId = UUID.randomUUID();
+    ListEntity listEntity = TestDataFixture.getNeverRefreshedListEntity();
+    when(listRepository.findByIdAndIsDeletedFalse(listId)).thenReturn(Optional.of(listEntity));
+    doThrow(new PrivateListOfAnotherUserException(listEntity, ListActions.READ))
+      .when(listValidationService).validateRead(listEntity);
+    when(jobEventSubscriptions.subscribe(eq(listId), any()))
+      .thenAnswer(invocation -> invocation.getArgument(1, Supplier.class).get());
+
+    assertThrows(PrivateListOfAnotherUserException.class, () -> listService.getListEvents(listId));
+  }
 }
@@ -1,21 +1,26 @@
 package org.folio.list.service;
 
-import jakarta.persistence.EntityManager;
 import org.folio.list.domain.AsyncProcessStatus;
 import org.folio.list.domain.ListEntity;
 import org.folio.list.domain.ListRefreshDetails;
 import org.folio.list.exception.PrivateListOfAnotherUserException;
 import org.folio.list.mapper.ListRefreshMapper;
 import org.folio.list.repository.ListRepository;
+import org.folio.list.rest.EntityTypeClient;
+import org.folio.list.rest.QueryClient;
 import org.folio.list.rest.UsersClient;
-import org.folio.list.services.AppShutdownService;
-import org.folio.list.services.EntityManagerFlushService;
 import org.folio.list.services.ListActions;
 import org.folio.list.services.ListService;
 import org.folio.list.services.ListValidationService;
-import org.folio.list.services.refresh.ListRefreshService;
-import org.folio.list.util.TaskTimer;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.jobs.JobQueue;
+import org.folio.list.services.refresh.TimedStage;
 import org.folio.list.util.TestDataFixture;
+import org.folio.querytool.domain.dto.EntityType;
+import org.folio.querytool.domain.dto.QueryIdentifier;
+import org.folio.querytool.domain.dto.SubmitQuery;
 import org.folio.spring.FolioExecutionContext;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -39,7 +44,10 @@ class ListServicePostRefreshTest {
   private ListService listService;
 
   @Mock
-  private ListRefreshService listRefreshService;
+  private JobEventBus jobEventBus;
+
+  @Mock
+  private JobQueue jobQueue;
 
   @Mock
   private ListRepository listRepository;
@@ -57,9 +65,10 @@ class ListServicePostRefreshTest {
   private ListValidationService listValidationService;
 
   @Mock
-  private AppShutdownService appShutdownService;
+  private EntityTypeClient entityTypeClient;
 
-  private final EntityManagerFlushService entityManagerFlushService = spy(new EntityManagerFlushService(mock(EntityManager.class)));
+  @Mock
+  private QueryClient queryClient;
 
   @Test
   void shouldPerformRefresh() {
@@ -69,20 +78,56 @@ class ListServicePostRefreshTest {
     ListEntity fetchedEntity = TestDataFixture.getListEntityWithSuccessRefresh();
     ListEntity savedEntity = TestDataFixture.getListEntityWithSuccessRefresh();
     org.folio.list.domain.dto.ListRefreshDTO inProgressRefreshDTO = TestDataFixture.getListRefreshDTO();
-    ListRefreshDetails inProgressRefreshEntity = ListRefreshDetails.builder().build();
+    ListRefreshDetails inProgressRefreshEntity = ListRefreshDetails.builder().id(UUID.randomUUID()).build();
+    ArgumentCaptor<JobPayload> payloadCaptor = ArgumentCaptor.forClass(JobPayload.class);
 
     savedEntity.setInProgressRefresh(inProgressRefreshEntity);
 
     when(listRepository.findByIdAndIsDeletedFalse(savedEntity.getId())).thenReturn(Optional.of(fetchedEntity));
+    when(entityTypeClient.getEntityType(fetchedEntity.getEntityTypeId(), ListActions.REFRESH))
+      .thenReturn(new EntityType());
     when(listRepository.save(fetchedEntity)).thenReturn(savedEntity);
     when(refreshMapper.toListRefreshDTO(inProgressRefreshEntity)).thenReturn(inProgressRefreshDTO);
     when(executionContext.getUserId()).thenReturn(userId);
+    when(jobQueue.findRefreshQueuePosition(inProgressRefreshDTO.getId())).thenReturn(Optional.of(3));
 
     Optional<org.folio.list.domain.dto.ListRefreshDTO> refreshDetails = listService.performRefresh(savedEntity.getId());
-    verify(listRefreshService, times(1)).doAsyncRefresh(eq(savedEntity), isNull(), any(TaskTimer.class));
-    verify(entityManagerFlushService, atLeastOnce()).flush();
+    verify(jobQueue, times(1)).enqueue(payloadCaptor.capture());
     assertThat(refreshDetails).contains(inProgressRefreshDTO);
-    verify(appShutdownService, times(1)).registerShutdownTask(eq(executionContext), any(Runnable.class), any(String.class));
+    JobPayload.Refresh payload = (JobPayload.Refresh) payloadCaptor.getValue();
+    assertThat(payload.listId()).isEqualTo(savedEntity.getId());
+    assertThat(payload.refreshId()).isEqualTo(inProgressRefreshEntity.getId());
+    assertThat(payload.queryId()).isNull();
+    assertThat(payload.timings()).containsKey(TimedStage.WRITE_START.name());
+    // The list's last refresh is the best guess at how big this one is
+    assertThat(payload.expectedRecords()).isEqualTo(savedEntity.getRecordsCount());
+    assertThat(refreshDetails.orElseThrow().getQueuePosition()).isEqualTo(3);
+    verify(jobEventBus, times(1)).publish(JobEvent.refresh(inProgressRefreshEntity));
+  }
+
+  @Test
+  void shouldSubmitQueryOfCrossTenantListBeforeQueueingRefresh() {
+    UUID userId = UUID.randomUUID();
+    UUID queryId = UUID.randomUUID();
+    ListEntity fetchedEntity = TestDataFixture.getListEntityWithSuccessRefresh();
+    ListEntity savedEntity = TestDataFixture.getListEntityWithSuccessRefresh();
+    savedEntity.setInProgressRefresh(ListRefreshDetails.builder().id(UUID.randomUUID()).build());
+    ArgumentCaptor<SubmitQuery> submitQueryCaptor = ArgumentCaptor.forClass(SubmitQuery.class);
+    ArgumentCaptor<JobPayload> payloadCaptor = ArgumentCaptor.forClass(JobPayload.class);
+    when(listRepository.findByIdAndIsDeletedFalse(fetchedEntity.getId())).thenReturn(Optional.of(fetchedEntity));
+    when(entityTypeClient.getEntityType(fetchedEntity.getEntityTypeId(), ListActions.REFRESH))
+      .thenReturn(new EntityType().crossTenantQueriesEnabled(true));
+    when(queryClient.executeQuery(submitQueryCaptor.capture())).thenReturn(new QueryIdentifier().queryId(queryId));
+    when(listRepository.save(fetchedEntity)).thenReturn(savedEntity);
+    when(executionContext.getUserId()).thenReturn(userId);
+    when(usersClient.getUser(userId)).thenThrow(HttpClientErrorException.NotFound.class);
+
+    listService.performRefresh(fetchedEntity.getId());
+
+    // The refresh runs without the user's token, so FQM gets the query while we still have it
+    assertThat(submitQueryCaptor.getValue().getFqlQuery()).isEqualTo(fetchedEntity.getFqlQuery());
+    verify(jobQueue, times(1)).enqueue(payloadCaptor.capture());
+    assertThat(((JobPayload.Refresh) payloadCaptor.getValue()).queryId()).isEqualTo(queryId);
   }
 
   @Test
@@ -95,6 +140,8 @@ class ListServicePostRefreshTest {
 
     ArgumentCaptor<ListEntity> listEntityCaptor = ArgumentCaptor.forClass(ListEntity.class);
     when(listRepository.findByIdAndIsDeletedFalse(listId)).thenReturn(Optional.of(fetchedEntity));
+    when(entityTypeClient.getEntityType(fetchedEntity.getEntityTypeId(), ListActions.REFRESH))
+      .thenReturn(new EntityType());
     when(listRepository.save(listEntityCaptor.capture())).thenReturn(fetchedEntity);
     when(refreshMapper.toListRefreshDTO(any(ListRefreshDetails.class))).thenReturn(mock(org.folio.list.domain.dto.ListRefreshDTO.class));
     when(executionContext.getUserId()).thenReturn(userId);
@@ -116,6 +163,8 @@ class ListServicePostRefreshTest {
 
     ArgumentCaptor<ListEntity> listEntityCaptor = ArgumentCaptor.forClass(ListEntity.class);
     when(listRepository.findByIdAndIsDeletedFalse(listId)).thenReturn(Optional.of(fetchedEntity));
+    when(entityTypeClient.getEntityType(fetchedEntity.getEntityTypeId(), ListActions.REFRESH))
+      .thenReturn(new EntityType());
     when(listRepository.save(listEntityCaptor.capture())).thenReturn(fetchedEntity);
     when(refreshMapper.toListRefreshDTO(any(ListRefreshDetails.class))).thenReturn(mock(org.folio.list.domain.dto.ListRefreshDTO.class));
     when(executionContext.getUserId()).thenReturn(userId);
@@ -0,0 +1,186 @@
+package org.folio.list.service;
+
+import org.folio.list.configuration.RefreshScheduleProperties;
+import org.folio.list.domain.ListEntity;
+import org.folio.list.domain.dto.ListRefreshScheduleDTO;
+import org.folio.list.exception.ListInactiveException;
+import org.folio.list.exception.RefreshScheduleNotFoundException;
+import org.folio.list.repository.ListRepository;
+import org.folio.list.repository.RefreshScheduleRepository;
+import org.folio.list.repository.RefreshScheduleRepository.RefreshSchedule;
+import org.folio.list.rest.UsersClient;
+import org.folio.list.services.ListActions;
+import org.folio.list.services.ListService;
+import org.folio.list.services.ListValidationService;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.jobs.JobQueue;
+import org.folio.list.util.TestDataFixture;
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListServiceRefreshScheduleTest {
+
+  private static final String OKAPI_URL = "http://okapi:9130";
+
+  @InjectMocks
+  private ListService listService;
+
+  @Mock
+  private ListRepository listRepository;
+
+  @Mock
+  private ListValidationService listValidationService;
+
+  @Mock
+  private RefreshScheduleRepository refreshScheduleRepository;
+
+  @Mock
+  private RefreshScheduleProperties refreshScheduleProperties;
+
+  @Mock
+  private FolioExecutionContext executionContext;
+
+  @Mock
+  private UsersClient usersClient;
+
+  @Mock
+  private JobEventBus jobEventBus;
+
+  @Mock
+  private JobQueue jobQueue;
+
+  @Test
+  void shouldSetScheduleWithDefaults() {
+    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    UUID userId = UUID.randomUUID();
+    RefreshSchedule saved = new RefreshSchedule(list.getId(), 1440, 720, Duration.ofHours(24), userId, OKAPI_URL);
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(refreshScheduleProperties.maxJitterSeconds()).thenReturn(600);
+    when(executionContext.getUserId()).thenReturn(userId);
+    when(executionContext.getOkapiUrl()).thenReturn(OKAPI_URL);
+    when(refreshScheduleRepository.findByListId(list.getId())).thenReturn(Optional.of(saved));
+
+    ListRefreshScheduleDTO schedule = listService
+      .updateRefreshSchedule(list.getId(), new ListRefreshScheduleDTO().intervalMinutes(1440))
+      .orElseThrow();
+
+    verify(listValidationService).validateScheduleRefresh(list);
+    // With no start date, the first refresh is due one interval from now. With no max age, it's half the interval.
+    verify(refreshScheduleRepository).save(list.getId(), 1440, 720, Duration.ofMinutes(1440), 600, userId, OKAPI_URL);
+    assertThat(schedule.getIntervalMinutes()).isEqualTo(1440);
+    assertThat(schedule.getMaxAgeMinutes()).isEqualTo(720);
+    assertThat(schedule.getScheduledBy()).isEqualTo(userId);
+    assertThat(schedule.getNextRefreshDate()).isCloseTo(OffsetDateTime.now().plusHours(24), within(Duration.ofMinutes(1)));
+  }
+
+  @Test
+  void shouldRollPastStartDateForward() {
+    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    RefreshSchedule saved = new RefreshSchedule(list.getId(), 1440, 60, Duration.ofHours(23), UUID.randomUUID(), null);
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(refreshScheduleRepository.findByListId(list.getId())).thenReturn(Optional.of(saved));
+    ArgumentCaptor<Duration> firstRunDelay = ArgumentCaptor.forClass(Duration.class);
+
+    // Started a day and an hour ago, so the next one is due in 23 hours
+    listService.updateRefreshSchedule(list.getId(), new ListRefreshScheduleDTO()
+      .intervalMinutes(1440)
+      .maxAgeMinutes(60)
+      .startDate(OffsetDateTime.now().minusHours(25)));
+
+    verify(refreshScheduleRepository).save(eq(list.getId()), eq(1440), eq(60), firstRunDelay.capture(), anyInt(),
+      any(), any());
+    assertThat(firstRunDelay.getValue()).isBetween(Duration.ofHours(23).minusMinutes(1), Duration.ofHours(23));
+  }
+
+  @Test
+  void shouldNotScheduleListThatFailsValidation() {
+    ListEntity list = TestDataFixture.getInactiveListEntity();
+    UUID listId = list.getId();
+    ListRefreshScheduleDTO request = new ListRefreshScheduleDTO().intervalMinutes(60);
+    when(listRepository.findByIdAndIsDeletedFalse(listId)).thenReturn(Optional.of(list));
+    doThrow(new ListInactiveException(list, ListActions.SCHEDULE_REFRESH))
+      .when(listValidationService).validateScheduleRefresh(list);
+
+    assertThrows(ListInactiveException.class, () -> listService.updateRefreshSchedule(listId, request));
+    verifyNoInteractions(refreshScheduleRepository);
+  }
+
+  @Test
+  void shouldThrowIfListHasNoSchedule() {
+    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    UUID listId = list.getId();
+    when(listRepository.findByIdAndIsDeletedFalse(listId)).thenReturn(Optional.of(list));
+    when(refreshScheduleRepository.findByListId(listId)).thenReturn(Optional.empty());
+    when(refreshScheduleRepository.delete(listId)).thenReturn(false);
+
+    assertThrows(RefreshScheduleNotFoundException.class, () -> listService.getRefreshSchedule(listId));
+    assertThrows(RefreshScheduleNotFoundException.class, () -> listService.deleteRefreshSchedule(listId));
+  }
+
+  @Test
+  void shouldDeleteSchedule() {
+    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(refreshScheduleRepository.delete(list.getId())).thenReturn(true);
+
+    listService.deleteRefreshSchedule(list.getId());
+
+    verify(listValidationService).assertSharedOrOwnedByUser(list, ListActions.SCHEDULE_REFRESH);
+    verify(refreshScheduleRepository).delete(list.getId());
+  }
+
+  @Test
+  void shouldStartScheduledRefreshOfStaleList() {
+    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    list.getSuccessRefresh().setRefreshEndDate(OffsetDateTime.now().minusHours(2));
+    UUID userId = UUID.randomUUID();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(listRepository.save(list)).thenReturn(list);
+    when(executionContext.getUserId()).thenReturn(userId);
+    when(usersClient.getUser(userId)).thenReturn(new UsersClient.User(userId, Optional.empty()));
+    ArgumentCaptor<JobPayload> payloadCaptor = ArgumentCaptor.forClass(JobPayload.class);
+
+    boolean started = listService.startScheduledRefresh(list.getId(), Duration.ofHours(1));
+
+    assertThat(started).isTrue();
+    verify(listValidationService).validateRefreshWithoutToken(list);
+    verify(jobQueue).enqueue(payloadCaptor.capture());
+    JobPayload.Refresh payload = (JobPayload.Refresh) payloadCaptor.getValue();
+    assertThat(payload.listId()).isEqualTo(list.getId());
+    assertThat(payload.timings()).containsEntry("SCHEDULED", "true");
+    assertThat(list.getInProgressRefresh().getRefreshedBy()).isEqualTo(userId);
+  }
+
+  @Test
+  void shouldSkipScheduledRefreshOfFreshList() {
+    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    list.getSuccessRefresh().setRefreshEndDate(OffsetDateTime.now().minusMinutes(10));
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+
+    boolean started = listService.startScheduledRefresh(list.getId(), Duration.ofHours(1));
+
+    assertThat(started).isFalse();
+    verifyNoInteractions(jobQueue);
+    verify(listRepository, never()).save(any());
+  }
+}
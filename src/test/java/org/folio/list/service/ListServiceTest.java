@@ -13,7 +13,7 @@ import org.folio.list.domain.dto.ListUpdateRequestDTO;
 import org.folio.list.mapper.*;
 import org.folio.list.mapper.ListMapperImpl;
 import org.folio.list.mapper.ListRefreshMapperImpl;
-import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStores;
 import org.folio.list.repository.ListRepository;
 import org.folio.list.repository.ListVersionRepository;
 import org.folio.list.rest.EntityTypeClient;
@@ -21,13 +21,13 @@ import org.folio.list.rest.EntityTypeClient.EntityTypeSummary;
 import org.folio.list.rest.EntityTypeClient.EntityTypeSummaryResponse;
 import org.folio.list.rest.UsersClient;
 import org.folio.list.rest.UsersClient.User;
-import org.folio.list.services.AppShutdownService;
 import org.folio.list.services.ListActions;
-import org.folio.list.services.refresh.ListRefreshService;
 import org.folio.list.services.ListService;
 import org.folio.list.services.ListValidationService;
 import org.folio.list.services.MigrationService;
-import org.folio.list.util.TaskTimer;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.jobs.JobQueue;
 import org.folio.list.util.TestDataFixture;
 import org.folio.querytool.domain.dto.EntityType;
 import org.folio.querytool.domain.dto.EntityTypeColumn;
@@ -68,9 +68,6 @@ class ListServiceTest {
   @Spy
   private ListEntityMapper listEntityMapper = new org.folio.list.mapper.ListEntityMapperImpl();
 
-  @Mock
-  private AppShutdownService appShutdownService;
-
   @Mock
   private EntityTypeClient entityTypeClient;
 
@@ -78,10 +75,13 @@ class ListServiceTest {
   private FolioExecutionContext executionContext;
 
   @Mock
-  private ListContentsRepository listContentsRepository;
+  private ListContentsStores listContentsStores;
+
+  @Mock
+  private JobEventBus jobEventBus;
 
   @Mock
-  private ListRefreshService listRefreshService;
+  private JobQueue jobQueue;
 
   @Mock
   private ListRepository listRepository;
@@ -485,8 +485,7 @@ class ListServiceTest {
 
     var actual = listService.createList(listRequestDto);
     assertThat(actual).isEqualTo(expected);
-    verify(listRefreshService, times(1)).doAsyncSorting(eq(entity), eq(queryId), isNull(), any(TaskTimer.class));
-    verify(appShutdownService, times(1)).registerShutdownTask(eq(executionContext), any(Runnable.class), any(String.class));
+    verify(jobQueue, times(1)).enqueue(refreshFromQuery(entity, queryId));
   }
 
   @Test
@@ -644,7 +643,7 @@ class ListServiceTest {
     assertThat(entity.getIsActive())
       .withFailMessage("isActive on the list object is modified by ListService, so we should see that change")
       .isFalse();
-    verify(listContentsRepository, times(1)).deleteContents(listId);
+    verify(listContentsStores, times(1)).deleteContents(listId);
   }
 
   @Test
@@ -670,7 +669,7 @@ class ListServiceTest {
     assertThat(actual).map(ListDTO::getSuccessRefresh).isNotEmpty();
     assertThat(actual).map(ListDTO::getIsActive).contains(true);
     assertThat(actual).map(ListDTO::getVersion).contains(oldVersion + 1);
-    verify(listRefreshService, times(1)).doAsyncSorting(eq(entity), eq(queryId), isNull(), any(TaskTimer.class));
+    verify(jobQueue, times(1)).enqueue(refreshFromQuery(entity, queryId));
   }
 
   @Test
@@ -698,7 +697,7 @@ class ListServiceTest {
     int oldVersion = entity.getVersion(); // Save the original version, since updateList modifies entity
     var actual = listService.updateList(entity.getId(), listUpdateRequestDto);
 
-    verify(listRefreshService, never()).doAsyncSorting(entity, queryId, null, new TaskTimer());
+    verifyNoInteractions(jobQueue);
     assertThat(actual).map(ListDTO::getSuccessRefresh).isEmpty();
     assertThat(actual).map(ListDTO::getVersion).contains(oldVersion + 1);
     assertThat(actual).map(ListDTO::getIsActive).contains(expected.getIsActive());
@@ -870,4 +869,11 @@ class ListServiceTest {
 
     assertDoesNotThrow(() -> listService.createList(listRequestDto));
   }
+
+  private static JobPayload refreshFromQuery(ListEntity list, UUID queryId) {
+    return argThat(payload -> payload instanceof JobPayload.Refresh refresh
+      && refresh.listId().equals(list.getId())
+      && refresh.refreshId().equals(list.getInProgressRefreshId().orElseThrow())
+      && queryId.equals(refresh.queryId()));
+  }
 }
@@ -4,8 +4,11 @@ import org.folio.list.domain.ListEntity;
 import org.folio.list.exception.*;
 import org.folio.list.repository.ListExportRepository;
 import org.folio.list.rest.EntityTypeClient;
+import org.folio.list.rest.UserPermissionsClient;
+import org.folio.list.services.ListActions;
 import org.folio.list.services.ListValidationService;
 import org.folio.list.util.TestDataFixture;
+import org.folio.querytool.domain.dto.EntityType;
 import org.folio.spring.FolioExecutionContext;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +17,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +31,8 @@ class ListServiceValidateRefreshTest {
   private ListExportRepository listExportRepository;
   @Mock
   private EntityTypeClient entityTypeClient;
+  @Mock
+  private UserPermissionsClient userPermissionsClient;
   @InjectMocks
   private ListValidationService validationService;
 
@@ -74,4 +80,56 @@ class ListServiceValidateRefreshTest {
       assertThrows(MissingQueryException.class, () -> validationService.validateRefresh(list));
     }
   }
+
+  @Test
+  void shouldRefreshWithoutTokenWhileUserStillHasAccessToEntityType() {
+    ListEntity list = TestDataFixture.getSharedNonCannedListEntity();
+    UUID userId = UUID.randomUUID();
+    when(folioExecutionContext.getUserId()).thenReturn(userId);
+    when(entityTypeClient.getEntityType(list.getEntityTypeId(), ListActions.REFRESH))
+      .thenReturn(new EntityType().requiredPermissions(List.of("users.collection.get")));
+    when(userPermissionsClient.getPermissionNames(userId)).thenReturn(List.of("users.collection.get", "lists.item.get"));
+
+    assertDoesNotThrow(() -> validationService.validateRefreshWithoutToken(list));
+  }
+
+  @Test
+  void shouldNotRefreshWithoutTokenOnceUserHasLostAccessToEntityType() {
+    ListEntity list = TestDataFixture.getSharedNonCannedListEntity();
+    UUID userId = UUID.randomUUID();
+    when(folioExecutionContext.getUserId()).thenReturn(userId);
+    // FQM lets the system user see the entity type, but the user who scheduled the refresh can't anymore
+    when(entityTypeClient.getEntityType(list.getEntityTypeId(), ListActions.REFRESH))
+      .thenReturn(new EntityType().requiredPermissions(List.of("users.collection.get")));
+    when(userPermissionsClient.getPermissionNames(userId)).thenReturn(List.of("lists.item.get"));
+
+    assertThrows(InsufficientEntityTypePermissionsException.class,
+      () -> validationService.validateRefreshWithoutToken(list));
+  }
+
+  @Test
+  void shouldNotRefreshCrossTenantListWithoutToken() {
+    ListEntity list = TestDataFixture.getSharedNonCannedListEntity();
+    when(entityTypeClient.getEntityType(list.getEntityTypeId(), ListActions.REFRESH))
+      .thenReturn(new EntityType().crossTenantQueriesEnabled(true));
+
+    assertThrows(InsufficientEntityTypePermissionsException.class,
+      () -> validationService.validateRefreshWithoutToken(list));
+  }
+
+  @Test
+  void shouldRunQueuedRefreshOfCrossTenantListOnceItsQueryIsSubmitted() {
+    ListEntity list = TestDataFixture.getPrivateListEntity();
+    // Cross-tenant lists are private to their owner
+    UUID userId = list.getUpdatedBy() == null ? list.getCreatedBy() : list.getUpdatedBy();
+    when(folioExecutionContext.getUserId()).thenReturn(userId);
+    when(entityTypeClient.getEntityType(list.getEntityTypeId(), ListActions.REFRESH)).thenReturn(new EntityType()
+      .crossTenantQueriesEnabled(true)
+      .requiredPermissions(List.of("users.collection.get")));
+    when(userPermissionsClient.getPermissionNames(userId)).thenReturn(List.of("users.collection.get"));
+
+    assertDoesNotThrow(() -> validationService.validateQueuedRefresh(list, true));
+    assertThrows(InsufficientEntityTypePermissionsException.class,
+      () -> validationService.validateQueuedRefresh(list, false));
+  }
 }
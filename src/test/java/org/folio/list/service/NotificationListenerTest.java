@@ -0,0 +1,94 @@
+package org.folio.list.service;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.services.NotificationListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs the listener against a real Postgres, since it relies on LISTEN/NOTIFY
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class NotificationListenerTest {
+
+  private static JdbcTemplate jdbcTemplate;
+
+  private NotificationListener listener;
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+  }
+
+  @AfterEach
+  void tearDown() {
+    listener.stop();
+  }
+
+  @Test
+  void shouldHandEachChannelsNotificationsToItsHandler() throws InterruptedException {
+    listener = new NotificationListener(TestDatabase.dataSourceProperties());
+    List<String> first = new CopyOnWriteArrayList<>();
+    List<String> second = new CopyOnWriteArrayList<>();
+    CountDownLatch connected = new CountDownLatch(2);
+    listener.listen("test_first", new NotificationListener.Handler() {
+      @Override
+      public void handle(String payload) {
+        if (payload.equals("bad")) {
+          throw new IllegalArgumentException(payload);
+        }
+        first.add(payload);
+      }
+
+      @Override
+      public void connected() {
+        connected.countDown();
+      }
+    });
+    // Channels added later share the same connection
+    listener.listen("test_second", new NotificationListener.Handler() {
+      @Override
+      public void handle(String payload) {
+        second.add(payload);
+      }
+
+      @Override
+      public void connected() {
+        connected.countDown();
+      }
+    });
+    assertThat(connected.await(15, TimeUnit.SECONDS)).isTrue();
+
+    // A handler failing doesn't stop the listener
+    publish("test_first", "bad");
+    publish("test_first", "a");
+    publish("test_second", "b");
+
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      assertThat(first).containsExactly("a");
+      assertThat(second).containsExactly("b");
+    });
+    // Other listeners may share the database, so only count connections that listen on this test's channels
+    assertThat(jdbcTemplate.queryForObject(
+      "SELECT count(*) FROM pg_stat_activity WHERE query LIKE 'LISTEN test\\_%'", Long.class)).isOne();
+    assertThatThrownBy(() -> listener.listen("test_first", payload -> { }))
+      .isInstanceOf(IllegalStateException.class);
+  }
+
+  private static void publish(String channel, String payload) {
+    jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, payload);
+  }
+}
@@ -0,0 +1,60 @@
+package org.folio.list.service;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.services.TenantSchemas;
+import org.folio.spring.FolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the tenant lookup against a real Postgres, since it relies on information_schema
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class TenantSchemasTest {
+
+  private static JdbcTemplate jdbcTemplate;
+
+  private final FolioModuleMetadata folioModuleMetadata = mock(FolioModuleMetadata.class);
+
+  @BeforeAll
+  static void setupDatabase() {
+    jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+  }
+
+  @Test
+  void shouldFindTenantsWhoseSchemaHasTable() {
+    when(folioModuleMetadata.getDBSchemaName(anyString()))
+      .thenAnswer(invocation -> invocation.getArgument(0) + "_mod_lists");
+    TestDatabase.migrate(TestcontainerCallbackExtension.dbContainer, "diku_mod_lists");
+    // A tenant that hasn't been upgraded yet
+    jdbcTemplate.execute("CREATE SCHEMA old_mod_lists");
+    // Not one of this module's schemas, even though LIKE's _ would match any character
+    jdbcTemplate.execute("CREATE SCHEMA other_mod_listsx");
+    jdbcTemplate.execute("CREATE TABLE other_mod_listsx.jobs (id uuid)");
+    jdbcTemplate.execute("CREATE SCHEMA another_modxlists");
+    jdbcTemplate.execute("CREATE TABLE another_modxlists.jobs (id uuid)");
+    try {
+      assertThat(new TenantSchemas(jdbcTemplate, folioModuleMetadata).findTenantsWithTable("jobs"))
+        .containsExactly("diku");
+    } finally {
+      jdbcTemplate.execute("DROP SCHEMA diku_mod_lists, old_mod_lists, other_mod_listsx, another_modxlists CASCADE");
+    }
+  }
+
+  @Test
+  void shouldWorkOnTenantAsSystemUser() {
+    FolioExecutionContext context = new TenantSchemas(jdbcTemplate, folioModuleMetadata).systemContext("diku");
+
+    assertThat(context.getTenantId()).isEqualTo("diku");
+    assertThat(context.getToken()).isNull();
+  }
+}
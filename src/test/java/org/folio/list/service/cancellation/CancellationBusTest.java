@@ -0,0 +1,63 @@
+package org.folio.list.service.cancellation;
+
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.services.NotificationListener;
+import org.folio.list.services.cancellation.CancellationBus;
+import org.folio.list.services.cancellation.CancellationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs the cancellation bus against a real Postgres, with two buses standing in for two nodes
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class CancellationBusTest {
+
+  private final CancellationRegistry publisherRegistry = new CancellationRegistry();
+  private final CancellationRegistry workerRegistry = new CancellationRegistry();
+  private NotificationListener publisherListener;
+  private NotificationListener workerListener;
+  private CancellationBus publisher;
+
+  @BeforeEach
+  void setup() {
+    var dataSourceProperties = TestDatabase.dataSourceProperties();
+    var jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+
+    publisherListener = new NotificationListener(dataSourceProperties);
+    workerListener = new NotificationListener(dataSourceProperties);
+    publisher = new CancellationBus(jdbcTemplate, publisherRegistry, publisherListener, true);
+    var worker = new CancellationBus(jdbcTemplate, workerRegistry, workerListener, true);
+    publisher.start();
+    worker.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    publisherListener.stop();
+    workerListener.stop();
+  }
+
+  @Test
+  void shouldCancelJobOnWhicheverNodeRunsIt() {
+    UUID jobId = UUID.randomUUID();
+    try (var job = workerRegistry.register(jobId)) {
+      // Wait for the worker to start listening, so that the notification isn't published before anyone is listening
+      await().atMost(10, TimeUnit.SECONDS).until(() -> !job.needsStatusCheck());
+
+      publisher.publishCancellation(jobId);
+
+      await().atMost(10, TimeUnit.SECONDS).until(job::isCancelled);
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package org.folio.list.service.cancellation;
+
+import org.folio.list.services.cancellation.CancellationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CancellationRegistryTest {
+
+  private final CancellationRegistry registry = new CancellationRegistry();
+
+  @Test
+  void shouldInterruptBlockedTaskOnCancel() throws Exception {
+    UUID jobId = UUID.randomUUID();
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+    AtomicBoolean interruptedAfterTask = new AtomicBoolean();
+
+    Thread worker = Thread.ofPlatform().start(() -> {
+      try (var job = registry.register(jobId)) {
+        job.runInterruptibly(() -> {
+          started.countDown();
+          try {
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+          } catch (InterruptedException e) {
+            interrupted.set(true);
+            Thread.currentThread().interrupt();
+          }
+          return null;
+        });
+        interruptedAfterTask.set(Thread.currentThread().isInterrupted());
+      }
+    });
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(registry.cancel(jobId)).isTrue();
+
+    worker.join(TimeUnit.SECONDS.toMillis(5));
+    assertThat(interrupted).isTrue();
+    // The interrupt is cleared once the task is done, so pooled threads can be reused safely
+    assertThat(interruptedAfterTask).isFalse();
+    assertThat(registry.find(jobId)).isEmpty();
+  }
+
+  @Test
+  void shouldNotInterruptThreadOutsideOfTask() {
+    try (var job = registry.register(UUID.randomUUID())) {
+      job.runInterruptibly(() -> null);
+      registry.cancel(job.getJobId());
+      assertThat(job.isCancelled()).isTrue();
+      assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+  }
+
+  @Test
+  void shouldRunCancelListeners() {
+    try (var job = registry.register(UUID.randomUUID())) {
+      AtomicBoolean before = new AtomicBoolean();
+      job.onCancel(() -> before.set(true));
+      assertThat(before).isFalse();
+
+      registry.cancel(job.getJobId());
+      assertThat(before).isTrue();
+
+      // Listeners added after the fact run right away
+      AtomicBoolean after = new AtomicBoolean();
+      job.onCancel(() -> after.set(true));
+      assertThat(after).isTrue();
+    }
+  }
+
+  @Test
+  void shouldIgnoreCancellationOfJobsRunningElsewhere() {
+    assertThat(registry.cancel(UUID.randomUUID())).isFalse();
+  }
+
+  @Test
+  void shouldRequireStatusChecksWhenNotificationsMayHaveBeenMissed() {
+    try (var job = registry.register(UUID.randomUUID())) {
+      // Always check the first time, in case the job was cancelled before it was registered
+      assertThat(job.needsStatusCheck()).isTrue();
+      // Not listening for notifications, so keep checking
+      assertThat(job.needsStatusCheck()).isTrue();
+
+      registry.listenerConnected();
+      assertThat(job.needsStatusCheck()).isTrue();
+      assertThat(job.needsStatusCheck()).isFalse();
+
+      // Reconnecting means notifications might have been missed in the meantime
+      registry.listenerDisconnected();
+      registry.listenerConnected();
+      assertThat(job.needsStatusCheck()).isTrue();
+      assertThat(job.needsStatusCheck()).isFalse();
+    }
+  }
+
+  @Test
+  void shouldPropagateTaskFailures() {
+    try (var job = registry.register(UUID.randomUUID())) {
+      assertThrows(IllegalStateException.class, () -> job.runInterruptibly(() -> {
+        throw new IllegalStateException("boom");
+      }));
+    }
+  }
+
+  @Test
+  void shouldAbortBlockingCallsOnCancel() {
+    try (var job = registry.register(UUID.randomUUID())) {
+      AtomicInteger aborts = new AtomicInteger();
+      job.runInterruptibly(() -> {
+        try (var ignored = CancellationRegistry.abortOnCancel(aborts::incrementAndGet)) {
+          registry.cancel(job.getJobId());
+        }
+        return null;
+      });
+      assertThat(aborts).hasValue(1);
+      assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+  }
+
+  @Test
+  void shouldNotStartBlockingCallsOfCancelledJob() {
+    try (var job = registry.register(UUID.randomUUID())) {
+      registry.cancel(job.getJobId());
+      Runnable abort = () -> { };
+      assertThrows(CancellationException.class,
+        () -> job.runInterruptibly(() -> CancellationRegistry.abortOnCancel(abort)));
+      assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+  }
+
+  @Test
+  void shouldNotAbortClosedOrUnrelatedCalls() {
+    AtomicBoolean aborted = new AtomicBoolean();
+    // Outside of a job, there's nothing to abort for
+    CancellationRegistry.abortOnCancel(() -> aborted.set(true)).close();
+    try (var job = registry.register(UUID.randomUUID())) {
+      job.runInterruptibly(() -> {
+        CancellationRegistry.abortOnCancel(() -> aborted.set(true)).close();
+        return null;
+      });
+      // The job's no longer running on this thread
+      CancellationRegistry.abortOnCancel(() -> aborted.set(true)).close();
+      registry.cancel(job.getJobId());
+    }
+    assertThat(aborted).isFalse();
+  }
+}
@@ -0,0 +1,81 @@
+package org.folio.list.service.events;
+
+import org.folio.list.configuration.JobEventsProperties;
+import org.folio.list.context.TestDatabase;
+import org.folio.list.context.TestcontainerCallbackExtension;
+import org.folio.list.domain.AsyncProcessStatus;
+import org.folio.list.services.NotificationListener;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEvent.JobType;
+import org.folio.list.services.events.JobEvent.Progress;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.list.services.events.JobEventSubscriptions;
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the job event bus against a real Postgres, with two buses standing in for two nodes
+ */
+@ExtendWith(TestcontainerCallbackExtension.class)
+class JobEventBusTest {
+
+  private static final String TENANT_ID = "test-tenant";
+
+  private final JobEventSubscriptions publisherSubscriptions = mock(JobEventSubscriptions.class);
+  private final JobEventSubscriptions subscriberSubscriptions = mock(JobEventSubscriptions.class);
+  private NotificationListener publisherListener;
+  private NotificationListener subscriberListener;
+  private JobEventBus publisher;
+
+  @BeforeEach
+  void setup() {
+    var dataSourceProperties = TestDatabase.dataSourceProperties();
+    var jdbcTemplate = new JdbcTemplate(TestDatabase.dataSource());
+    var executionContext = mock(FolioExecutionContext.class);
+    when(executionContext.getTenantId()).thenReturn(TENANT_ID);
+    var properties = new JobEventsProperties(true, 60, 30);
+
+    publisherListener = new NotificationListener(dataSourceProperties);
+    subscriberListener = new NotificationListener(dataSourceProperties);
+    publisher = new JobEventBus(jdbcTemplate, publisherSubscriptions, executionContext, JsonMapper.builder().build(),
+      publisherListener, properties);
+    var subscriber = new JobEventBus(jdbcTemplate, subscriberSubscriptions, executionContext,
+      JsonMapper.builder().build(), subscriberListener, properties);
+    publisher.start();
+    subscriber.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    publisherListener.stop();
+    subscriberListener.stop();
+  }
+
+  @Test
+  void shouldDeliverEventsToSubscribersOnEveryNode() {
+    JobEvent event = new JobEvent(JobType.REFRESH, UUID.randomUUID(), UUID.randomUUID(),
+      AsyncProcessStatus.IN_PROGRESS, null, null, new Progress(1000, 10, 125.5, 8));
+
+    // Keep publishing until the other node has started listening, since nobody hears what's published before that
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      publisher.publish(event);
+      verify(subscriberSubscriptions, atLeastOnce()).deliver(TENANT_ID, event);
+    });
+    await().atMost(10, TimeUnit.SECONDS)
+      .untilAsserted(() -> verify(publisherSubscriptions, atLeastOnce()).deliver(TENANT_ID, event));
+  }
+}
@@ -0,0 +1,132 @@
+package org.folio.list.service.events;
+
+import org.folio.list.configuration.JobEventsProperties;
+import org.folio.list.domain.AsyncProcessStatus;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEvent.JobType;
+import org.folio.list.services.events.JobEventSubscriptions;
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class JobEventSubscriptionsTest {
+
+  private static final String TENANT_ID = "test-tenant";
+  private static final UUID LIST_ID = UUID.randomUUID();
+
+  private final JobEventSubscriptions subscriptions = subscriptions(true);
+
+  @Test
+  void shouldSendSnapshotThenEventsInOrder() throws IOException {
+    SseEmitter emitter = mock(SseEmitter.class);
+    JobEvent started = refreshEvent(AsyncProcessStatus.IN_PROGRESS);
+    JobEvent finished = refreshEvent(AsyncProcessStatus.SUCCESS);
+    Map<String, UUID> snapshot = Map.of("id", LIST_ID);
+
+    subscriptions.subscribe(TENANT_ID, LIST_ID, emitter, () -> {
+      // An event that arrives while the snapshot is being read has to wait for the snapshot
+      subscriptions.deliver(TENANT_ID, started);
+      return snapshot;
+    });
+    subscriptions.deliver(TENANT_ID, finished);
+
+    assertThat(sentData(emitter, 3)).containsExactly(snapshot, started, finished);
+  }
+
+  @Test
+  void shouldOnlyDeliverEventsToSubscribersOfTheirList() throws IOException {
+    SseEmitter subscriber = mock(SseEmitter.class);
+    SseEmitter otherList = mock(SseEmitter.class);
+    SseEmitter otherTenant = mock(SseEmitter.class);
+    subscriptions.subscribe(TENANT_ID, LIST_ID, subscriber, () -> "snapshot");
+    subscriptions.subscribe(TENANT_ID, UUID.randomUUID(), otherList, () -> "snapshot");
+    subscriptions.subscribe("other-tenant", LIST_ID, otherTenant, () -> "snapshot");
+
+    subscriptions.deliver(TENANT_ID, refreshEvent(AsyncProcessStatus.SUCCESS));
+
+    verify(subscriber, times(2)).send(any(SseEventBuilder.class));
+    verify(otherList, times(1)).send(any(SseEventBuilder.class));
+    verify(otherTenant, times(1)).send(any(SseEventBuilder.class));
+  }
+
+  @Test
+  void shouldDropSubscribersThatGoAway() throws IOException {
+    SseEmitter emitter = mock(SseEmitter.class);
+    subscriptions.subscribe(TENANT_ID, LIST_ID, emitter, () -> "snapshot");
+    doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEventBuilder.class));
+
+    subscriptions.deliver(TENANT_ID, refreshEvent(AsyncProcessStatus.IN_PROGRESS));
+    subscriptions.deliver(TENANT_ID, refreshEvent(AsyncProcessStatus.SUCCESS));
+    subscriptions.sendHeartbeats();
+
+    verify(emitter, times(2)).send(any(SseEventBuilder.class));
+  }
+
+  @Test
+  void shouldNotSubscribeIfListCantBeRead() throws IOException {
+    SseEmitter emitter = mock(SseEmitter.class);
+
+    assertThatThrownBy(() -> subscriptions.subscribe(TENANT_ID, LIST_ID, emitter, () -> {
+      throw new IllegalStateException("No such list");
+    })).isInstanceOf(IllegalStateException.class);
+    subscriptions.deliver(TENANT_ID, refreshEvent(AsyncProcessStatus.SUCCESS));
+
+    verify(emitter, never()).send(any(SseEventBuilder.class));
+  }
+
+  @Test
+  void shouldOnlySendSnapshotWhenDisabled() throws IOException {
+    JobEventSubscriptions disabled = subscriptions(false);
+    SseEmitter emitter = mock(SseEmitter.class);
+
+    disabled.subscribe(TENANT_ID, LIST_ID, emitter, () -> "snapshot");
+    disabled.deliver(TENANT_ID, refreshEvent(AsyncProcessStatus.SUCCESS));
+
+    verify(emitter, times(1)).send(any(SseEventBuilder.class));
+    verify(emitter).complete();
+  }
+
+  private static JobEventSubscriptions subscriptions(boolean enabled) {
+    return new JobEventSubscriptions(mock(FolioExecutionContext.class), new JobEventsProperties(enabled, 60, 30));
+  }
+
+  private static JobEvent refreshEvent(AsyncProcessStatus status) {
+    return new JobEvent(JobType.REFRESH, LIST_ID, UUID.randomUUID(), status, null, null, null);
+  }
+
+  /**
+   * @return the data of the events sent down the stream, leaving out the event names and other framing
+   */
+  private static List<Object> sentData(SseEmitter emitter, int eventCount) throws IOException {
+    ArgumentCaptor<SseEventBuilder> events = ArgumentCaptor.forClass(SseEventBuilder.class);
+    verify(emitter, times(eventCount)).send(events.capture());
+    return events.getAllValues()
+      .stream()
+      .map(event -> event.build()
+        .stream()
+        .map(DataWithMediaType::getData)
+        .filter(data -> !(data instanceof String))
+        .findFirst()
+        .orElse(null))
+      .filter(Objects::nonNull)
+      .toList();
+  }
+}
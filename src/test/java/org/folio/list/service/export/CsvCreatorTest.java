@@ -7,9 +7,11 @@ import org.folio.list.domain.ExportDetails;
 import org.folio.list.domain.ListContent;
 import org.folio.list.domain.ListEntity;
 import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStores;
 import org.folio.list.repository.ListExportRepository;
 import org.folio.list.rest.EntityTypeClient;
 import org.folio.list.rest.QueryClient;
+import org.folio.list.services.cancellation.CancellationRegistry;
 import org.folio.list.services.export.CsvCreator;
 import org.folio.list.services.export.ExportLocalStorage;
 import org.folio.list.util.TestDataFixture;
@@ -19,10 +21,12 @@ import org.folio.querytool.domain.dto.EntityTypeColumn;
 import org.folio.querytool.domain.dto.StringType;
 import org.folio.s3.client.FolioS3Client;
 import org.folio.s3.exception.S3ClientException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.MockMakers;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
@@ -39,6 +43,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -50,6 +55,8 @@ class CsvCreatorTest {
   @Mock
   private ListContentsRepository contentsRepository;
   @Mock
+  private ListContentsStores contentsStores;
+  @Mock
   private EntityTypeClient entityTypeClient;
   @Mock
   private QueryClient queryClient;
@@ -59,9 +66,16 @@ class CsvCreatorTest {
   private ListExportProperties exportProperties;
   @Mock
   private FolioS3Client folioS3Client;
+  @Spy
+  private CancellationRegistry cancellationRegistry = new CancellationRegistry();
   @InjectMocks
   private CsvCreator csvCreator;
 
+  @BeforeEach
+  void setup() {
+    lenient().when(contentsStores.forRefresh(any())).thenReturn(contentsRepository);
+  }
+
   @Test
   void shouldCreateCsvFromList() {
     int batchSize = 100000;
@@ -10,10 +10,10 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Supplier;
 
 import org.folio.list.domain.AsyncProcessStatus;
 import org.folio.list.domain.ExportDetails;
@@ -28,11 +28,15 @@ import org.folio.list.rest.EntityTypeClient;
 import org.folio.list.services.AppShutdownService;
 import org.folio.list.services.ListActions;
 import org.folio.list.services.ListValidationService;
-import org.folio.list.services.RunAsSystemUserService;
+import org.folio.list.services.cancellation.CancellationBus;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEventBus;
 import org.folio.list.services.export.ExportUtils;
 import org.folio.list.services.export.ListExportService;
 import org.folio.list.services.export.ListExportWorkerService;
 import org.folio.list.services.export.ListExportService.ExportDownloadContents;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.jobs.JobQueue;
 import org.folio.list.util.TestDataFixture;
 import org.folio.querytool.domain.dto.ColumnValues;
 import org.folio.querytool.domain.dto.EntityType;
@@ -81,13 +85,19 @@ class ListExportServiceTest {
   private AppShutdownService appShutdownService;
 
   @Mock
-  private RunAsSystemUserService runAsSystemUserService;
+  private JobQueue jobQueue;
 
   @Mock
   private EntityTypeClient entityTypeClient;
 
+  @Mock
+  private CancellationBus cancellationBus;
+
+  @Mock
+  private JobEventBus jobEventBus;
+
   @Test
-  void shouldSaveExport() {
+  void shouldSaveAndQueueExport() {
     UUID listId = TestDataFixture.getListExportDetails().getList().getId();
     UUID userId = UUID.randomUUID();
     List<String> fields = new ArrayList<>(
@@ -114,42 +124,23 @@ class ListExportServiceTest {
     when(listExportMapper.toListExportDTO(any(ExportDetails.class)))
       .thenReturn(mock(org.folio.list.domain.dto.ListExportDTO.class));
     when(folioExecutionContext.getUserId()).thenReturn(userId);
-    when(listExportWorkerService.doAsyncExport(eq(exportDetails), eq(userId), eq(entityType), anyMap())).thenReturn(CompletableFuture.completedFuture(true));
     when(entityTypeClient.getEntityType(fetchedEntity.getEntityTypeId(), ListActions.EXPORT)).thenReturn(entityType);
-    doAnswer(invocation -> {
-      Supplier<?> runnable = invocation.getArgument(1);
-      runnable.get();
-      return CompletableFuture.completedFuture(null);
-    })
-      .when(runAsSystemUserService)
-      .executeAsyncSystemUserScoped(any(), any());
 
     listExportService.createExport(listId, fields);
 
-    // Two calls made to listExportRepository.save()
-    // 1. For saving the "IN_PROGRESS" export
-    // 2. For saving the "SUCCESS" export
-    ExportDetails inProgressExport = exportDetailsArgumentCaptor.getAllValues().get(0);
-    ExportDetails successExport = exportDetailsArgumentCaptor.getAllValues().get(1);
-
+    ExportDetails inProgressExport = exportDetailsArgumentCaptor.getValue();
     assertThat(userId).isEqualTo(inProgressExport.getCreatedBy());
     assertThat(listId).isEqualTo(inProgressExport.getList().getId());
     assertThat(inProgressExport.getStartDate()).isNotNull();
     assertThat(inProgressExport.getStatus()).hasToString(ListExportDTO.StatusEnum.IN_PROGRESS.toString());
     assertTrue(inProgressExport.getFields().containsAll(expectedExportFields));
-
-    assertThat(exportDetails.getCreatedBy()).isEqualTo(successExport.getCreatedBy());
-    assertThat(exportDetails.getList().getId()).isEqualTo(successExport.getList().getId());
-    assertThat(exportDetails.getStartDate()).isEqualTo(successExport.getStartDate());
-    assertThat(successExport.getEndDate()).isNotNull();
-    assertThat(successExport.getStatus()).hasToString(ListExportDTO.StatusEnum.SUCCESS.toString());
+    verify(jobQueue, times(1)).enqueue(new JobPayload.Export(exportDetails.getExportId(), entityType, Map.of()));
+    verifyNoInteractions(listExportWorkerService);
   }
 
-
   @Test
   void shouldFetchLocalizedValues() {
     UUID listId = UUID.randomUUID();
-    UUID userId = UUID.randomUUID();
     UUID exportId = UUID.randomUUID();
     ListEntity fetchedEntity = TestDataFixture.getListEntityWithSuccessRefresh(listId);
     ExportDetails exportDetails = new ExportDetails();
@@ -164,60 +155,82 @@ class ListExportServiceTest {
     when(listExportRepository.save(any())).thenReturn(exportDetails);
     when(entityTypeClient.getEntityType(fetchedEntity.getEntityTypeId(), ListActions.EXPORT)).thenReturn(entityType);
     when(entityTypeClient.getColumnValues(fetchedEntity.getEntityTypeId(), "col")).thenReturn(columnValues);
-    when(folioExecutionContext.getUserId()).thenReturn(userId);
-    when(listExportWorkerService.doAsyncExport(any(), any(), any(), anyMap())).thenReturn(CompletableFuture.completedFuture(true));
-    doAnswer(invocation -> {
-      Supplier<?> runnable = invocation.getArgument(1);
-      runnable.get();
-      return CompletableFuture.completedFuture(null);
-    })
-      .when(runAsSystemUserService)
-      .executeAsyncSystemUserScoped(any(), any());
 
     listExportService.createExport(listId, List.of());
 
     verify(entityTypeClient, times(1)).getColumnValues(fetchedEntity.getEntityTypeId(), "col");
-    verify(listExportWorkerService, times(1)).doAsyncExport(any(), eq(userId), eq(entityType), argThat(map ->
-      map.containsKey("col") && map.get("col").get("val").equals("label")
-    ));
+    verify(jobQueue, times(1))
+      .enqueue(new JobPayload.Export(exportId, entityType, Map.of("col", Map.of("val", "label"))));
   }
 
   @Test
-  void shouldSaveFailedExportIfRefreshFail() {
-    UUID listId = TestDataFixture.getListExportDetails().getList().getId();
+  void shouldRunQueuedExport() {
     UUID userId = UUID.randomUUID();
-    ListEntity fetchedEntity = TestDataFixture.getListExportDetails().getList();
     ExportDetails exportDetails = TestDataFixture.getListExportDetails();
+    EntityType entityType = new EntityType().name("test-entity");
+    Map<String, Map<String, String>> localizedValues = Map.of("col", Map.of("val", "label"));
     ArgumentCaptor<ExportDetails> exportDetailsArgumentCaptor = ArgumentCaptor.forClass(ExportDetails.class);
-    when(listRepository.findByIdAndIsDeletedFalse(listId)).thenReturn(Optional.of(fetchedEntity));
+    when(listExportRepository.findById(exportDetails.getExportId())).thenReturn(Optional.of(exportDetails));
     when(listExportRepository.save(exportDetailsArgumentCaptor.capture())).thenReturn(exportDetails);
-    when(entityTypeClient.getEntityType(fetchedEntity.getEntityTypeId(), ListActions.EXPORT)).thenReturn(new EntityType());
+    when(listExportWorkerService.doAsyncExport(exportDetails, userId, entityType, localizedValues))
+      .thenReturn(CompletableFuture.completedFuture(true));
 
-    when(listExportMapper.toListExportDTO(any(ExportDetails.class)))
-      .thenReturn(mock(org.folio.list.domain.dto.ListExportDTO.class));
-    when(folioExecutionContext.getUserId()).thenReturn(userId);
-    when(listExportWorkerService.doAsyncExport(eq(exportDetails), eq(userId), any(EntityType.class), anyMap()))
-      .thenReturn(CompletableFuture.failedFuture(new RuntimeException("something went wrong")));
-    doAnswer(invocation -> {
+    CompletableFuture<Void> done = listExportService.runExport(exportDetails.getExportId(), userId, entityType,
+      localizedValues);
 
-  Supplier<?> runnable = invocation.getArgument(1);
-      runnable.get();      return CompletableFuture.completedFuture(null);
-    })
-      .when(runAsSystemUserService)
-      .executeAsyncSystemUserScoped(any(), any());
+    assertThat(done.isDone()).isTrue();
+    ExportDetails successExport = exportDetailsArgumentCaptor.getValue();
+    assertThat(successExport.getEndDate()).isNotNull();
+    assertThat(successExport.getStatus()).hasToString(ListExportDTO.StatusEnum.SUCCESS.toString());
+    verify(jobEventBus, times(1)).publish(JobEvent.export(successExport));
+    verify(appShutdownService, times(1))
+      .registerShutdownTask(eq(folioExecutionContext), any(Runnable.class), any(String.class));
+  }
 
-    listExportService.createExport(listId, null);
+  @Test
+  void shouldSaveFailedExportIfExportFails() {
+    UUID userId = UUID.randomUUID();
+    ExportDetails exportDetails = TestDataFixture.getListExportDetails();
+    ArgumentCaptor<ExportDetails> exportDetailsArgumentCaptor = ArgumentCaptor.forClass(ExportDetails.class);
+    when(listExportRepository.findById(exportDetails.getExportId())).thenReturn(Optional.of(exportDetails));
+    when(listExportRepository.save(exportDetailsArgumentCaptor.capture())).thenReturn(exportDetails);
+    when(listExportWorkerService.doAsyncExport(eq(exportDetails), eq(userId), any(EntityType.class), anyMap()))
+      .thenReturn(CompletableFuture.failedFuture(new RuntimeException("something went wrong")));
 
-    // Two calls made to listExportRepository.save()
-    // 1. For saving the "IN_PROGRESS" export
-    // 2. For saving the "FAILED" export
-    ExportDetails failedExport = exportDetailsArgumentCaptor.getAllValues().get(1);
+    CompletableFuture<Void> done = listExportService.runExport(exportDetails.getExportId(), userId, new EntityType(),
+      Map.of());
 
-    assertThat(exportDetails.getCreatedBy()).isEqualTo(failedExport.getCreatedBy());
-    assertThat(exportDetails.getList().getId()).isEqualTo(failedExport.getList().getId());
-    assertThat(exportDetails.getStartDate()).isEqualTo(failedExport.getStartDate());
+    // The failure is recorded on the export, so there's nothing more for the job to do
+    assertThat(done.isCompletedExceptionally()).isFalse();
+    ExportDetails failedExport = exportDetailsArgumentCaptor.getValue();
     assertThat(failedExport.getEndDate()).isNotNull();
     assertThat(failedExport.getStatus()).hasToString(ListExportDTO.StatusEnum.FAILED.toString());
+    verify(jobEventBus, times(1)).publish(JobEvent.export(failedExport));
+  }
+
+  @Test
+  void shouldSkipQueuedExportThatIsNoLongerInProgress() {
+    ExportDetails exportDetails = TestDataFixture.getListExportDetails();
+    exportDetails.setStatus(AsyncProcessStatus.CANCELLED);
+    when(listExportRepository.findById(exportDetails.getExportId())).thenReturn(Optional.of(exportDetails));
+
+    listExportService.runExport(exportDetails.getExportId(), UUID.randomUUID(), new EntityType(), Map.of());
+
+    verifyNoInteractions(listExportWorkerService, appShutdownService);
+  }
+
+  @Test
+  void shouldFailExportThatWasGivenUpOn() {
+    ExportDetails exportDetails = TestDataFixture.getListExportDetails();
+    exportDetails.setStatus(AsyncProcessStatus.IN_PROGRESS);
+    when(listExportRepository.findById(exportDetails.getExportId())).thenReturn(Optional.of(exportDetails));
+
+    listExportService.failExport(exportDetails.getExportId());
+
+    assertThat(exportDetails.getStatus()).isEqualTo(AsyncProcessStatus.FAILED);
+    assertThat(exportDetails.getEndDate()).isNotNull();
+    verify(listExportRepository).save(exportDetails);
+    verify(jobEventBus).publish(JobEvent.export(exportDetails));
   }
 
   @Test
@@ -318,6 +331,8 @@ class ListExportServiceTest {
 
     listExportService.cancelExport(listId, exportId);
     verify(listExportRepository, times(1)).save(cancelledExport);
+    verify(cancellationBus, times(1)).publishCancellation(exportId);
+    verify(jobEventBus, times(1)).publish(JobEvent.export(cancelledExport));
   }
 
   @Test
@@ -329,18 +344,21 @@ class ListExportServiceTest {
   }
 
   @Test
-  void shouldRegisterShutdownTask() {
+  void shouldCancelRunningExportOnShutdown() {
     ExportDetails exportDetails = TestDataFixture.getListExportDetails();
-    ListEntity fetchedEntity = exportDetails.getList();
-    UUID listId = fetchedEntity.getId();
-    when(listRepository.findByIdAndIsDeletedFalse(listId)).thenReturn(Optional.of(fetchedEntity));
-    when(listExportRepository.save(any(ExportDetails.class))).thenReturn(exportDetails);
-    when(listExportMapper.toListExportDTO(exportDetails)).thenReturn(mock(ListExportDTO.class));
-    when(entityTypeClient.getEntityType(fetchedEntity.getEntityTypeId(), ListActions.EXPORT)).thenReturn(new EntityType());
-
-    listExportService.createExport(listId, null);
-
-    verify(appShutdownService, times(1))
-      .registerShutdownTask(eq(folioExecutionContext), any(Runnable.class), any(String.class));
+    ArgumentCaptor<Runnable> shutdownTaskCaptor = ArgumentCaptor.forClass(Runnable.class);
+    when(listExportRepository.findById(exportDetails.getExportId())).thenReturn(Optional.of(exportDetails));
+    when(listExportWorkerService.doAsyncExport(any(), any(), any(), anyMap())).thenReturn(new CompletableFuture<>());
+    listExportService.runExport(exportDetails.getExportId(), UUID.randomUUID(), new EntityType(), Map.of());
+    verify(appShutdownService).registerShutdownTask(eq(folioExecutionContext), shutdownTaskCaptor.capture(),
+      any(String.class));
+
+    shutdownTaskCaptor.getValue().run();
+
+    // The export runs as the system user, so it's cancelled without the checks a user's cancellation goes through
+    verifyNoInteractions(validationService);
+    assertThat(exportDetails.getStatus()).isEqualTo(AsyncProcessStatus.CANCELLED);
+    verify(listExportRepository).save(exportDetails);
+    verify(cancellationBus).publishCancellation(exportDetails.getExportId());
   }
 }
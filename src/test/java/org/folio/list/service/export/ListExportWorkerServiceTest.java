@@ -2,6 +2,8 @@ package org.folio.list.service.export;
 
 import org.folio.list.domain.ExportDetails;
 import org.folio.list.domain.ListEntity;
+import org.folio.list.exception.ExportCancelledException;
+import org.folio.list.services.cancellation.CancellationRegistry;
 import org.folio.list.services.export.CsvCreator;
 import org.folio.list.services.export.ExportLocalStorage;
 import org.folio.list.services.export.ListExportWorkerService;
@@ -13,17 +15,24 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ListExportWorkerServiceTest {
+  @Spy
+  private CancellationRegistry cancellationRegistry = new CancellationRegistry();
   @InjectMocks
   private ListExportWorkerService listExportWorkerService;
   @Mock
@@ -73,6 +82,35 @@ class ListExportWorkerServiceTest {
     assertTrue(exportFailed);
   }
 
+  @Test
+  void shouldReportCancellationIfExportIsInterrupted() {
+    UUID exportId = UUID.randomUUID();
+    String tenantId = "tenant_01";
+    String uploadId = "uploadId";
+    String expectedDestinationFile = tenantId + "/" + exportId + ".csv";
+    ExportDetails exportDetails = getExportDetails(TestDataFixture.getPrivateListEntity(), exportId);
+
+    when(folioExecutionContext.getTenantId()).thenReturn(tenantId);
+    when(folioS3Client.initiateMultipartUpload(expectedDestinationFile)).thenReturn(uploadId);
+    when(csvCreator.createAndUploadCSV(eq(exportDetails), eq(expectedDestinationFile), eq(uploadId), any(), any(), any(), any()))
+      .thenAnswer(invocation -> {
+        // Simulate a cancellation interrupting a blocking call
+        cancellationRegistry.cancel(exportId);
+        assertTrue(Thread.currentThread().isInterrupted());
+        throw new IllegalStateException("Interrupted");
+      });
+
+    var result = listExportWorkerService.doAsyncExport(exportDetails, UUID.randomUUID(), null, Map.of());
+
+    assertThat(result).failsWithin(Duration.ZERO)
+      .withThrowableOfType(ExecutionException.class)
+      .withCauseInstanceOf(ExportCancelledException.class);
+    verify(folioS3Client, times(1)).abortMultipartUpload(expectedDestinationFile, uploadId);
+    // The interrupt must not leak into whatever runs on this thread next
+    assertFalse(Thread.currentThread().isInterrupted());
+    assertThat(cancellationRegistry.find(exportId)).isEmpty();
+  }
+
   private static ExportDetails getExportDetails(ListEntity entity, UUID exportId) {
     ExportDetails exportDetails = new ExportDetails();
     exportDetails.setExportId(exportId);
@@ -1,5 +1,6 @@
 package org.folio.list.service.export;
 
+import org.folio.list.domain.ContentIdBatch;
 import org.folio.list.domain.ListContent;
 import org.folio.list.domain.ListEntity;
 import org.folio.list.repository.ListContentsRepository;
@@ -40,10 +41,10 @@ class ListIdsProviderTest {
     when(repository.getContents(list.getId(), list.getSuccessRefresh().getId(), batch1.get(batch1.size() - 1).getSortSequence(),
       Pageable.ofSize(batchSize))).thenReturn(batch2);
 
-    List<List<String>> actualBatch1 = listIdsProvider.nextBatch(batchSize);
-    List<List<String>> actualBatch2 = listIdsProvider.nextBatch(batchSize);
+    ContentIdBatch actualBatch1 = listIdsProvider.nextBatch(batchSize);
+    ContentIdBatch actualBatch2 = listIdsProvider.nextBatch(batchSize);
 
-    assertEquals(batch1.stream().map(ListContent::getContentId).toList(), actualBatch1);
-    assertEquals(batch2.stream().map(ListContent::getContentId).toList(), actualBatch2);
+    assertEquals(batch1.stream().map(ListContent::getContentId).toList(), actualBatch1.toContentIds());
+    assertEquals(batch2.stream().map(ListContent::getContentId).toList(), actualBatch2.toContentIds());
   }
 }
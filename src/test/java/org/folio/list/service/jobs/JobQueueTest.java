@@ -0,0 +1,86 @@
+package org.folio.list.service.jobs;
+
+import org.folio.list.configuration.JobQueueProperties;
+import org.folio.list.domain.JobType;
+import org.folio.list.repository.JobRepository;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.jobs.JobQueue;
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobQueueTest {
+
+  @Mock
+  private JobRepository jobRepository;
+  @Mock
+  private FolioExecutionContext executionContext;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  private JobQueue jobQueue;
+
+  @BeforeEach
+  void setup() {
+    var properties = new JobQueueProperties(false, 1000, 60, 3, 5, 2, Map.of(), Map.of(), 1000, 600, 60);
+    jobQueue = new JobQueue(jobRepository, executionContext, new ObjectMapper(), eventPublisher, properties);
+  }
+
+  @Test
+  void shouldQueueJobOnBehalfOfCurrentUser() {
+    UUID userId = UUID.randomUUID();
+    when(executionContext.getUserId()).thenReturn(userId);
+    when(executionContext.getOkapiUrl()).thenReturn("http://okapi:9130");
+    when(executionContext.getTenantId()).thenReturn("diku");
+
+    UUID jobId = jobQueue.enqueue(new JobPayload.Export(UUID.randomUUID(), null, Map.of()));
+
+    verify(jobRepository).enqueue(eq(jobId), eq(JobType.EXPORT), anyString(), eq(userId), eq("http://okapi:9130"),
+      eq(Duration.ZERO));
+    verify(eventPublisher).publishEvent(new JobQueue.JobQueuedEvent("diku"));
+  }
+
+  @Test
+  void shouldNotKeepTokenOfRefreshRequester() {
+    UUID userId = UUID.randomUUID();
+    when(executionContext.getUserId()).thenReturn(userId);
+    when(executionContext.getTenantId()).thenReturn("diku");
+
+    UUID jobId = jobQueue.enqueue(refreshOf(null));
+
+    // The refresh runs on the user's behalf, as the system user
+    verify(jobRepository).enqueue(eq(jobId), eq(JobType.REFRESH), anyString(), eq(userId), isNull(),
+      eq(Duration.ZERO));
+    verify(executionContext, never()).getToken();
+  }
+
+  @Test
+  void shouldHoldBackBigRefreshesUpToALimit() {
+    assertThat(jobQueue.sortPenalty(refreshOf(null))).isEqualTo(Duration.ZERO);
+    assertThat(jobQueue.sortPenalty(refreshOf(50))).isEqualTo(Duration.ofMillis(50));
+    assertThat(jobQueue.sortPenalty(refreshOf(120_000))).isEqualTo(Duration.ofMinutes(2));
+    assertThat(jobQueue.sortPenalty(refreshOf(50_000_000))).isEqualTo(Duration.ofMinutes(10));
+  }
+
+  private static JobPayload.Refresh refreshOf(Integer expectedRecords) {
+    return new JobPayload.Refresh(UUID.randomUUID(), UUID.randomUUID(), null, Map.of(), expectedRecords, null);
+  }
+}
@@ -0,0 +1,299 @@
+package org.folio.list.service.jobs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.folio.list.configuration.JobQueueProperties;
+import org.folio.list.domain.JobType;
+import org.folio.list.repository.JobRepository;
+import org.folio.list.repository.JobRepository.Job;
+import org.folio.list.repository.JobRepository.JobStatus;
+import org.folio.list.services.TenantSchemas;
+import org.folio.list.services.jobs.JobHandler;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.jobs.JobWorker;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.folio.list.services.jobs.JobWorker.JOBS_METRIC;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobWorkerTest {
+
+  private static final String TENANT_ID = "diku";
+  private static final Duration LEASE = Duration.ofSeconds(60);
+
+  @Mock
+  private JobRepository jobRepository;
+  @Mock
+  private FolioModuleMetadata folioModuleMetadata;
+  @Mock
+  private TenantSchemas tenantSchemas;
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final FakeExportHandler handler = new FakeExportHandler();
+  private final JobQueueProperties properties = new JobQueueProperties(false, 1000, 60, 3, 5, 2,
+    Map.of("busy-tenant", 1), Map.of(), 1000, 600, 60);
+  private JobWorker worker;
+
+  @BeforeEach
+  void setup() {
+    worker = new JobWorker(jobRepository, List.of(handler), objectMapper, new TaskExecutorAdapter(Runnable::run),
+      folioModuleMetadata, tenantSchemas, properties, meterRegistry, transactionManager);
+    // Work on a tenant runs in a context of its own
+    lenient().when(tenantSchemas.systemContext(any())).thenAnswer(invocation -> new DefaultFolioExecutionContext(
+      folioModuleMetadata, Map.of(XOkapiHeaders.TENANT, List.of(invocation.getArgument(0, String.class)))));
+  }
+
+  @Test
+  void shouldRunClaimedJobsAndRecordTheirOutcome() {
+    UUID exportId = UUID.randomUUID();
+    Job job = job(export(exportId));
+    givenTenants(TENANT_ID);
+    when(jobRepository.claim(5, 2, 3, LEASE)).thenReturn(List.of(job));
+    when(jobRepository.finish(job.id(), job.claimToken(), JobStatus.SUCCEEDED, null)).thenReturn(true);
+
+    worker.pollAllTenants();
+
+    assertThat(handler.payloads).containsExactly(export(exportId));
+    verify(jobRepository).finish(job.id(), job.claimToken(), JobStatus.SUCCEEDED, null);
+    verify(jobRepository).deleteFinishedBefore(Duration.ofMinutes(60));
+    assertThat(meterRegistry.get(JOBS_METRIC).tag("tenant", TENANT_ID).tag("status", "SUCCEEDED").counter().count())
+      .isEqualTo(1);
+  }
+
+  @Test
+  void shouldRecordFailedJob() {
+    Job job = job(export(UUID.randomUUID()));
+    handler.outcome = CompletableFuture.failedFuture(new IllegalStateException("oh no"));
+    when(jobRepository.claim(5, 2, 3, LEASE)).thenReturn(List.of(job));
+
+    worker.pollTenant(TENANT_ID);
+
+    verify(jobRepository).finish(eq(job.id()), eq(job.claimToken()), eq(JobStatus.FAILED), startsWith(
+      "java.lang.IllegalStateException: oh no"));
+    assertThat(meterRegistry.get(JOBS_METRIC).tag("status", "FAILED").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRenewLeasesOfRunningJobsOnly() {
+    Job running = job(export(UUID.randomUUID()));
+    Job done = job(export(UUID.randomUUID()));
+    handler.outcome = new CompletableFuture<>();
+    when(jobRepository.claim(5, 2, 3, LEASE)).thenReturn(List.of(running));
+    worker.pollTenant(TENANT_ID);
+    handler.outcome = CompletableFuture.completedFuture(null);
+    when(jobRepository.claim(4, 2, 3, LEASE)).thenReturn(List.of(done));
+    worker.pollTenant(TENANT_ID);
+
+    worker.renewLeases();
+
+    verify(jobRepository).extendLease(running.id(), running.claimToken(), LEASE);
+    verify(jobRepository, never()).extendLease(eq(done.id()), any(), any());
+  }
+
+  @Test
+  void shouldApplyTenantOverrideAndNodeCap() {
+    handler.outcome = new CompletableFuture<>();
+    when(jobRepository.claim(5, 1, 3, LEASE)).thenReturn(jobs(5));
+
+    worker.pollTenant("busy-tenant");
+    // This node is full, so it doesn't claim anything more until a job finishes
+    worker.pollTenant(TENANT_ID);
+
+    verify(jobRepository, never()).claim(anyInt(), eq(2), anyInt(), any());
+  }
+
+  @Test
+  void shouldShareSlotsBetweenTenantsByWeight() {
+    // Per-tenant caps that tell the tenants' claims apart
+    var weightedProperties = new JobQueueProperties(false, 1000, 60, 3, 4, 2, Map.of("big", 7, "small", 8),
+      Map.of("big", 3), 1000, 600, 60);
+    worker = new JobWorker(jobRepository, List.of(handler), objectMapper, new TaskExecutorAdapter(Runnable::run),
+      folioModuleMetadata, tenantSchemas, weightedProperties, meterRegistry, transactionManager);
+    handler.outcome = new CompletableFuture<>();
+    givenTenants("big", "small");
+    when(jobRepository.claim(3, 7, 3, LEASE)).thenReturn(jobs(3));
+    when(jobRepository.claim(1, 8, 3, LEASE)).thenReturn(jobs(1));
+
+    worker.pollAllTenants();
+
+    assertThat(worker.fairShare("big")).isEqualTo(3);
+    assertThat(worker.fairShare("small")).isEqualTo(1);
+    assertThat(handler.payloads).hasSize(4);
+  }
+
+  @Test
+  void shouldGiveUnusedSlotsToTenantsWithMoreWorkWaiting() {
+    var weightedProperties = new JobQueueProperties(false, 1000, 60, 3, 4, 2, Map.of("busy", 7, "idle", 8),
+      Map.of(), 1000, 600, 60);
+    worker = new JobWorker(jobRepository, List.of(handler), objectMapper, new TaskExecutorAdapter(Runnable::run),
+      folioModuleMetadata, tenantSchemas, weightedProperties, meterRegistry, transactionManager);
+    handler.outcome = new CompletableFuture<>();
+    givenTenants("busy", "idle");
+    when(jobRepository.claim(2, 7, 3, LEASE)).thenReturn(jobs(2));
+    when(jobRepository.claim(1, 7, 3, LEASE)).thenReturn(jobs(1), jobs(1));
+    when(jobRepository.claim(2, 8, 3, LEASE)).thenReturn(List.of());
+
+    worker.pollAllTenants();
+
+    // The idle tenant's half went to the busy one, one job at a time
+    assertThat(handler.payloads).hasSize(4);
+    verify(jobRepository, never()).claim(eq(1), eq(8), anyInt(), any());
+  }
+
+  @Test
+  void shouldPutJobBackWhenThereIsNoRoomToStartIt() {
+    worker = new JobWorker(jobRepository, List.of(handler), objectMapper,
+      new TaskExecutorAdapter(task -> {
+        throw new RejectedExecutionException("full");
+      }),
+      folioModuleMetadata, tenantSchemas, properties, meterRegistry, transactionManager);
+    Job job = job(export(UUID.randomUUID()));
+    when(jobRepository.claim(5, 2, 3, LEASE)).thenReturn(List.of(job));
+
+    worker.pollTenant(TENANT_ID);
+
+    verify(jobRepository).release(job.id(), job.claimToken());
+    assertThat(handler.payloads).isEmpty();
+  }
+
+  @Test
+  void shouldGiveUpOnAbandonedJobsAlongWithTheirWork() {
+    Job abandoned = job(export(UUID.randomUUID()));
+    Job takenByAnotherNode = job(export(UUID.randomUUID()));
+    when(jobRepository.findAbandoned(3)).thenReturn(List.of(abandoned, takenByAnotherNode));
+    when(jobRepository.giveUp(abandoned.id(), abandoned.claimToken())).thenReturn(true);
+    when(jobRepository.giveUp(takenByAnotherNode.id(), takenByAnotherNode.claimToken())).thenReturn(false);
+
+    worker.giveUpAbandonedJobs(TENANT_ID);
+
+    assertThat(handler.abandoned).containsExactly(abandoned.id());
+    verify(transactionManager, times(2)).commit(any());
+    assertThat(meterRegistry.get(JOBS_METRIC).tag("tenant", TENANT_ID).tag("status", "ABANDONED").counter().count())
+      .isEqualTo(1);
+  }
+
+  @Test
+  void shouldRunRefreshOnBehalfOfItsRequester() {
+    JobHandler<JobPayload.Refresh> refreshHandler = new JobHandler<>() {
+      @Override
+      public JobType type() {
+        return JobType.REFRESH;
+      }
+
+      @Override
+      public Class<JobPayload.Refresh> payloadType() {
+        return JobPayload.Refresh.class;
+      }
+
+      @Override
+      public CompletableFuture<Void> handle(JobPayload.Refresh payload, Job job) {
+        return CompletableFuture.completedFuture(null);
+      }
+    };
+    worker = new JobWorker(jobRepository, List.of(handler, refreshHandler), objectMapper,
+      new TaskExecutorAdapter(Runnable::run), folioModuleMetadata, tenantSchemas, properties, meterRegistry,
+      transactionManager);
+    UUID userId = UUID.randomUUID();
+    JobPayload.Refresh payload = new JobPayload.Refresh(UUID.randomUUID(), UUID.randomUUID(), null, Map.of(), null,
+      null);
+    Job job = new Job(UUID.randomUUID(), JobType.REFRESH, objectMapper.writeValueAsString(payload), userId,
+      "http://okapi:9130", 1, UUID.randomUUID(), Duration.ofSeconds(1));
+
+    FolioExecutionContext context = worker.jobContext(TENANT_ID, job);
+
+    // No token is kept for the user, so the refresh runs as the system user on their behalf
+    assertThat(context.getTenantId()).isEqualTo(TENANT_ID);
+    assertThat(context.getOkapiUrl()).isEqualTo("http://okapi:9130");
+    assertThat(context.getToken()).isNull();
+    assertThat(context.getUserId()).isEqualTo(userId);
+  }
+
+  @Test
+  void shouldRunJobAsSystemUserOtherwise() {
+    FolioExecutionContext context = worker.jobContext(TENANT_ID, job(export(UUID.randomUUID())));
+
+    assertThat(context.getTenantId()).isEqualTo(TENANT_ID);
+    assertThat(context.getToken()).isNull();
+  }
+
+  private List<Job> jobs(int count) {
+    List<Job> jobs = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      jobs.add(job(export(UUID.randomUUID())));
+    }
+    return jobs;
+  }
+
+  private static JobPayload.Export export(UUID exportId) {
+    return new JobPayload.Export(exportId, null, Map.of());
+  }
+
+  private Job job(JobPayload payload) {
+    return new Job(UUID.randomUUID(), payload.type(), objectMapper.writeValueAsString(payload), null, null, 1,
+      UUID.randomUUID(), Duration.ofSeconds(1));
+  }
+
+  private static class FakeExportHandler implements JobHandler<JobPayload.Export> {
+
+    private final List<JobPayload.Export> payloads = new ArrayList<>();
+    private final List<UUID> abandoned = new ArrayList<>();
+    private CompletableFuture<Void> outcome = CompletableFuture.completedFuture(null);
+
+    @Override
+    public JobType type() {
+      return JobType.EXPORT;
+    }
+
+    @Override
+    public Class<JobPayload.Export> payloadType() {
+      return JobPayload.Export.class;
+    }
+
+    @Override
+    public CompletableFuture<Void> handle(JobPayload.Export payload, Job job) {
+      payloads.add(payload);
+      return outcome;
+    }
+
+    @Override
+    public void giveUp(JobPayload.Export payload, Job job) {
+      abandoned.add(job.id());
+    }
+  }
+
+  private void givenTenants(String... tenantIds) {
+    when(tenantSchemas.findTenantsWithTable("jobs")).thenReturn(List.of(tenantIds));
+  }
+}
@@ -0,0 +1,161 @@
+package org.folio.list.service.purge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.folio.list.configuration.ListContentsPurgeProperties;
+import org.folio.list.repository.ListContentsGarbageRepository;
+import org.folio.list.repository.ListContentsGarbageRepository.GarbageEntry;
+import org.folio.list.repository.ListContentsPartitionRepository;
+import org.folio.list.services.TenantSchemas;
+import org.folio.list.services.purge.ListContentsReaper;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.folio.list.services.purge.ListContentsReaper.PARTITIONS_DROPPED_METRIC;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListContentsReaperTest {
+
+  private static final int CHUNK_SIZE = 100;
+  private static final String TENANT_ID = "diku";
+
+  @Mock
+  private ListContentsGarbageRepository garbageRepository;
+  @Mock
+  private ListContentsPartitionRepository partitionRepository;
+  @Mock
+  private FolioModuleMetadata folioModuleMetadata;
+  @Mock
+  private TenantSchemas tenantSchemas;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private ListContentsReaper reaper;
+
+  @BeforeEach
+  void setup() {
+    var properties = new ListContentsPurgeProperties(false, 30, CHUNK_SIZE, 0);
+    // Work on a tenant runs in a context of its own
+    lenient().when(tenantSchemas.systemContext(any())).thenAnswer(invocation -> new DefaultFolioExecutionContext(
+      folioModuleMetadata, Map.of(XOkapiHeaders.TENANT, List.of(invocation.getArgument(0, String.class)))));
+    reaper = new ListContentsReaper(garbageRepository, partitionRepository, tenantSchemas, properties, meterRegistry);
+  }
+
+  @Test
+  void shouldMarkRefreshContentsAsGarbage() {
+    UUID listId = UUID.randomUUID();
+    UUID refreshId = UUID.randomUUID();
+
+    reaper.markGarbage(listId, refreshId);
+
+    verify(garbageRepository).markGarbage(listId, refreshId);
+  }
+
+  @Test
+  void shouldMarkAllContentsOfDeletedListAsGarbage() {
+    UUID listId = UUID.randomUUID();
+
+    reaper.markDeletedListGarbage(listId);
+
+    verify(garbageRepository).markGarbage(listId);
+  }
+
+  @Test
+  void shouldPurgeEntriesInChunksAndRecordProgress() {
+    GarbageEntry entry = new GarbageEntry(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 0);
+    givenTenants(TENANT_ID);
+    when(garbageRepository.claimNext(any())).thenReturn(Optional.of(entry), Optional.empty());
+    when(garbageRepository.deleteChunk(entry, CHUNK_SIZE)).thenReturn(CHUNK_SIZE, CHUNK_SIZE, 42);
+    when(garbageRepository.countPending()).thenReturn(0L);
+
+    reaper.purgeAllTenants();
+
+    var inOrder = inOrder(garbageRepository);
+    inOrder.verify(garbageRepository).recordProgress(eq(entry.id()), eq(CHUNK_SIZE), any());
+    inOrder.verify(garbageRepository).recordProgress(eq(entry.id()), eq(CHUNK_SIZE), any());
+    inOrder.verify(garbageRepository).recordProgress(eq(entry.id()), eq(42), any());
+    inOrder.verify(garbageRepository).remove(entry.id());
+    assertThat(meterRegistry.get("mod_lists.list_contents.purge.rows").tag("tenant", TENANT_ID).counter().count())
+      .isEqualTo(2 * CHUNK_SIZE + 42);
+    assertThat(meterRegistry.get("mod_lists.list_contents.purge.entries").tag("tenant", TENANT_ID).counter().count())
+      .isEqualTo(1);
+  }
+
+  @Test
+  void shouldDropRefreshPartitionInsteadOfDeletingRows() {
+    GarbageEntry entry = new GarbageEntry(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 0);
+    givenTenants(TENANT_ID);
+    when(garbageRepository.claimNext(any())).thenReturn(Optional.of(entry), Optional.empty());
+    when(partitionRepository.dropRefreshPartition(entry.refreshId())).thenReturn(true);
+
+    reaper.purgeAllTenants();
+
+    verify(garbageRepository, never()).deleteChunk(any(), anyInt());
+    verify(garbageRepository).remove(entry.id());
+    assertThat(meterRegistry.get(PARTITIONS_DROPPED_METRIC).tag("tenant", TENANT_ID).counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldDropPartitionsOfDeletedListBeforeDeletingRemainingRows() {
+    GarbageEntry entry = new GarbageEntry(UUID.randomUUID(), UUID.randomUUID(), null, 0);
+    UUID partitionedRefreshId = UUID.randomUUID();
+    givenTenants(TENANT_ID);
+    when(garbageRepository.claimNext(any())).thenReturn(Optional.of(entry), Optional.empty());
+    when(partitionRepository.findPartitionedRefreshes(entry.listId())).thenReturn(List.of(partitionedRefreshId));
+    when(partitionRepository.dropRefreshPartition(partitionedRefreshId)).thenReturn(true);
+    when(garbageRepository.deleteChunk(entry, CHUNK_SIZE)).thenReturn(3);
+
+    reaper.purgeAllTenants();
+
+    var inOrder = inOrder(partitionRepository, garbageRepository);
+    inOrder.verify(partitionRepository).dropRefreshPartition(partitionedRefreshId);
+    inOrder.verify(garbageRepository).deleteChunk(entry, CHUNK_SIZE);
+    inOrder.verify(garbageRepository).remove(entry.id());
+  }
+
+  @Test
+  void shouldReportPendingEntries() {
+    givenTenants("a", "b");
+    when(garbageRepository.claimNext(any())).thenReturn(Optional.empty());
+    when(garbageRepository.countPending()).thenReturn(2L, 3L);
+
+    reaper.purgeAllTenants();
+
+    assertThat(meterRegistry.get("mod_lists.list_contents.purge.pending").gauge().value()).isEqualTo(5);
+  }
+
+  @Test
+  void shouldKeepEntryIfPurgeFails() {
+    GarbageEntry entry = new GarbageEntry(UUID.randomUUID(), UUID.randomUUID(), null, 0);
+    givenTenants(TENANT_ID);
+    when(garbageRepository.claimNext(any())).thenReturn(Optional.of(entry));
+    when(garbageRepository.deleteChunk(entry, CHUNK_SIZE)).thenThrow(new IllegalStateException("DB is down"));
+
+    reaper.purgeAllTenants();
+
+    verify(garbageRepository, never()).remove(any());
+  }
+
+  private void givenTenants(String... tenantIds) {
+    when(tenantSchemas.findTenantsWithTable("list_contents_garbage")).thenReturn(List.of(tenantIds));
+  }
+}
@@ -0,0 +1,101 @@
+package org.folio.list.service.refresh;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.folio.list.rest.QueryClient;
+import org.folio.list.services.refresh.SortedIdsPrefetcher;
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.support.RestClientAdapter;
+import org.springframework.web.service.invoker.HttpServiceProxyFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Runs {@link SortedIdsPrefetcher} against a real {@link QueryClient} and a stubbed FQM that answers the later pages
+ * first, to verify that the pages still come out in offset order.
+ */
+@ExtendWith(MockitoExtension.class)
+class ConcurrentSortedIdsFetchTest {
+
+  private static final UUID QUERY_ID = UUID.randomUUID();
+  private static final String SORTED_IDS_PATH = "/query/" + QUERY_ID + "/sortedIds";
+
+  @Mock
+  private FolioExecutionContext executionContext;
+
+  private WireMockServer fqm;
+  private QueryClient queryClient;
+
+  @BeforeEach
+  void setup() {
+    fqm = new WireMockServer(options().dynamicPort());
+    fqm.start();
+    RestClient restClient = RestClient.create(fqm.baseUrl());
+    queryClient = HttpServiceProxyFactory.builderFor(RestClientAdapter.create(restClient))
+      .build()
+      .createClient(QueryClient.class);
+    doAnswer(invocation -> invocation.<Callable<?>>getArgument(0).call()).when(executionContext).execute(any());
+  }
+
+  @AfterEach
+  void tearDown() {
+    fqm.stop();
+  }
+
+  @Test
+  void shouldReassemblePagesInOffsetOrder() {
+    // The earlier the page, the slower FQM is to answer it
+    stubPage(0, "[[\"a\"],[\"b\"]]", 900);
+    stubPage(2, "[[\"c\"],[\"d\"]]", 600);
+    stubPage(4, "[[\"e\"],[\"f\"]]", 300);
+    stubPage(6, "[[\"g\"]]", 0);
+    List<Integer> completionOrder = new CopyOnWriteArrayList<>();
+    SortedIdsPrefetcher.PageSource pageSource = (offset, limit) -> {
+      List<List<String>> page = queryClient.getSortedIds(QUERY_ID, offset, limit);
+      completionOrder.add(offset);
+      return page;
+    };
+
+    List<List<String>> imported = new ArrayList<>();
+    try (var prefetcher = new SortedIdsPrefetcher(pageSource, 2, 7, 4, 4, executionContext, "test-fetch")) {
+      for (var ids = prefetcher.next(); !ids.isEmpty(); ids = prefetcher.next()) {
+        imported.addAll(ids);
+      }
+    }
+
+    assertThat(completionOrder).containsExactlyInAnyOrder(0, 2, 4, 6);
+    assertThat(completionOrder.getFirst()).isNotZero();
+    assertThat(imported).containsExactly(
+      List.of("a"), List.of("b"), List.of("c"), List.of("d"), List.of("e"), List.of("f"), List.of("g")
+    );
+    // The total is known, so there's no need to ask FQM for a trailing empty page
+    fqm.verify(4, getRequestedFor(urlPathEqualTo(SORTED_IDS_PATH)));
+  }
+
+  private void stubPage(int offset, String body, int delayMs) {
+    fqm.stubFor(get(urlPathEqualTo(SORTED_IDS_PATH))
+      .withQueryParam("offset", equalTo(Integer.toString(offset)))
+      .withQueryParam("limit", equalTo("2"))
+      .willReturn(okJson(body).withFixedDelay(delayMs)));
+  }
+}
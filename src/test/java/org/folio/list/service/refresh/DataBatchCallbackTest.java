@@ -8,16 +8,20 @@ import org.folio.list.domain.dto.ListConfiguration;
 import org.folio.list.exception.ListNotRefreshingException;
 import org.folio.list.exception.MaxListSizeExceededException;
 import org.folio.list.exception.RefreshCancelledException;
-import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsWriter;
 import org.folio.list.repository.ListRefreshRepository;
 import org.folio.list.services.ListActions;
+import org.folio.list.services.cancellation.CancellationRegistry;
 import org.folio.list.services.refresh.DataBatchCallback;
+import org.folio.list.services.refresh.RefreshCheckpointService;
+import org.folio.list.services.refresh.RefreshProgressTracker;
 import org.folio.list.util.TestDataFixture;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
@@ -35,11 +39,17 @@ class DataBatchCallbackTest {
   private ListRefreshRepository listRefreshRepository;
 
   @Mock
-  private ListContentsRepository listContentsRepository;
+  private ListContentsWriter listContentsWriter;
 
   @Mock
   private ListConfiguration listConfiguration;
 
+  @Spy
+  private CancellationRegistry cancellationRegistry = new CancellationRegistry();
+
+  @Mock
+  private RefreshCheckpointService refreshCheckpointService;
+
   @InjectMocks
   private DataBatchCallback dataBatchCallback;
 
@@ -56,7 +66,7 @@ class DataBatchCallbackTest {
     when(listConfiguration.getMaxListSize()).thenReturn(1250000);
 
     dataBatchCallback.accept(entity, contentIds);
-    verify(listContentsRepository, times(1)).saveAll(savedContentsCapture.capture());
+    verify(listContentsWriter, times(1)).writeContents(savedContentsCapture.capture());
     List<ListContent> capturedContents = savedContentsCapture.getValue();
 
     assertThat(capturedContents).hasSameSizeAs(contentIds);
@@ -98,4 +108,56 @@ class DataBatchCallbackTest {
     when(listRefreshRepository.findById(refreshDetails.getId())).thenReturn(Optional.of(refreshDetails));
     assertThrows(RefreshCancelledException.class, () -> dataBatchCallback.accept(entity, contentIds));
   }
+
+  @Test
+  void shouldStopAsSoonAsRefreshIsCancelledWithoutCheckingDatabase() {
+    ListEntity entity = TestDataFixture.getListEntityWithInProgressRefresh();
+    UUID refreshId = entity.getInProgressRefreshId().orElseThrow();
+    when(listConfiguration.getMaxListSize()).thenReturn(1250000);
+    cancellationRegistry.listenerConnected();
+    try (var job = cancellationRegistry.register(refreshId)) {
+      when(listRefreshRepository.findById(refreshId)).thenReturn(Optional.of(entity.getInProgressRefresh()));
+      dataBatchCallback.accept(entity, List.of(List.of(UUID.randomUUID().toString())));
+      dataBatchCallback.accept(entity, List.of(List.of(UUID.randomUUID().toString())));
+
+      cancellationRegistry.cancel(refreshId);
+
+      assertThrows(RefreshCancelledException.class,
+        () -> dataBatchCallback.accept(entity, List.of(List.of(UUID.randomUUID().toString()))));
+      // Only the first batch checks the database, to catch cancellations from before the refresh was registered
+      verify(listRefreshRepository, times(1)).findById(refreshId);
+      verify(listContentsWriter, times(2)).writeContents(any());
+    }
+  }
+
+  @Test
+  void shouldCheckpointEachBatchAndResumeFromCheckpoint() {
+    ListEntity entity = TestDataFixture.getListEntityWithInProgressRefresh();
+    UUID refreshId = entity.getInProgressRefreshId().orElseThrow();
+    ArgumentCaptor<List<ListContent>> savedContentsCapture = ArgumentCaptor.forClass(List.class);
+    when(listConfiguration.getMaxListSize()).thenReturn(1250000);
+
+    dataBatchCallback.resumeFrom(5, 1);
+    dataBatchCallback.accept(entity, List.of(List.of(UUID.randomUUID().toString()), List.of(UUID.randomUUID().toString())));
+
+    verify(listContentsWriter, times(1)).writeContents(savedContentsCapture.capture());
+    assertThat(savedContentsCapture.getValue()).extracting(ListContent::getSortSequence).containsExactly(5, 6);
+    verify(refreshCheckpointService, times(1)).advance(refreshId, 7, 2);
+  }
+
+  @Test
+  void shouldReportProgressOfEachBatch() {
+    ListEntity entity = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshProgressTracker progressTracker = mock(RefreshProgressTracker.class);
+    when(listConfiguration.getMaxListSize()).thenReturn(1250000);
+
+    dataBatchCallback.resumeFrom(5, 1);
+    dataBatchCallback.trackProgress(progressTracker);
+    dataBatchCallback.accept(entity, List.of(List.of(UUID.randomUUID().toString()), List.of(UUID.randomUUID().toString())));
+    dataBatchCallback.accept(entity, List.of(List.of(UUID.randomUUID().toString())));
+
+    var inOrder = inOrder(progressTracker);
+    inOrder.verify(progressTracker).batchImported(2, 7, 2);
+    inOrder.verify(progressTracker).batchImported(1, 8, 3);
+  }
 }
@@ -0,0 +1,116 @@
+package org.folio.list.service.refresh;
+
+import org.folio.list.configuration.DirectImportProperties;
+import org.folio.list.domain.ListEntity;
+import org.folio.list.domain.dto.ListConfiguration;
+import org.folio.list.exception.MaxListSizeExceededException;
+import org.folio.list.repository.ListContentsStagingRepository;
+import org.folio.list.repository.ListContentsWriter.WriteMode;
+import org.folio.list.repository.QueryResultsImportRepository;
+import org.folio.list.repository.QueryResultsImportRepository.ResultTable;
+import org.folio.list.services.refresh.DirectResultsImporter;
+import org.folio.list.util.TestDataFixture;
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.OptionalInt;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DirectResultsImporterTest {
+
+  private static final DirectImportProperties PROPERTIES = new DirectImportProperties(true,
+    "{tenant}_mod_fqm_manager.query_results", "query_id", "result_id", "result_id");
+  private static final ResultTable RESULT_TABLE =
+    new ResultTable("diku_mod_fqm_manager.query_results", "query_id", "result_id", "result_id");
+
+  @Mock
+  private QueryResultsImportRepository queryResultsImportRepository;
+  @Mock
+  private ListConfiguration listConfiguration;
+  @Mock
+  private FolioExecutionContext executionContext;
+
+  @Test
+  void shouldImportIntoListContents() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    UUID queryId = UUID.randomUUID();
+    givenReadableResultTable();
+    when(queryResultsImportRepository.importResults(RESULT_TABLE, queryId, list.getId(), refreshId, 11, "list_contents"))
+      .thenReturn(7);
+
+    assertThat(importer(PROPERTIES).importResults(list, queryId, WriteMode.COPY)).hasValue(7);
+  }
+
+  @Test
+  void shouldImportIntoStagingTable() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    UUID queryId = UUID.randomUUID();
+    givenReadableResultTable();
+    when(queryResultsImportRepository.importResults(RESULT_TABLE, queryId, list.getId(), refreshId, 11,
+      ListContentsStagingRepository.stagingTableName(refreshId))).thenReturn(7);
+
+    assertThat(importer(PROPERTIES).importResults(list, queryId, WriteMode.STAGED)).hasValue(7);
+  }
+
+  @Test
+  void shouldRejectTooManyResults() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    givenReadableResultTable();
+    when(queryResultsImportRepository.importResults(any(), any(), any(), any(), anyInt(), anyString())).thenReturn(11);
+    DirectResultsImporter importer = importer(PROPERTIES);
+
+    assertThatThrownBy(() -> importer.importResults(list, UUID.randomUUID(), WriteMode.JPA))
+      .isInstanceOf(MaxListSizeExceededException.class);
+  }
+
+  @Test
+  void shouldFallBackWhenResultTableIsNotReadable() {
+    when(executionContext.getTenantId()).thenReturn("diku");
+    when(queryResultsImportRepository.isReadable(RESULT_TABLE.table())).thenReturn(false);
+
+    OptionalInt imported = importer(PROPERTIES)
+      .importResults(TestDataFixture.getListEntityWithInProgressRefresh(), UUID.randomUUID(), WriteMode.JPA);
+
+    assertThat(imported).isEmpty();
+    verify(queryResultsImportRepository, never()).importResults(any(), any(), any(), any(), anyInt(), anyString());
+  }
+
+  @Test
+  void shouldFallBackWhenDisabledOrChunkedOrTenantIsOdd() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    var disabled = new DirectImportProperties(false, PROPERTIES.resultTable(), "query_id", "result_id", "result_id");
+
+    assertThat(importer(disabled).importResults(list, UUID.randomUUID(), WriteMode.JPA)).isEmpty();
+    assertThat(importer(PROPERTIES).importResults(list, UUID.randomUUID(), WriteMode.CHUNKED)).isEmpty();
+    when(executionContext.getTenantId()).thenReturn("diku; DROP TABLE list_contents");
+    assertThat(importer(PROPERTIES).importResults(list, UUID.randomUUID(), WriteMode.JPA)).isEmpty();
+    verifyNoInteractions(queryResultsImportRepository);
+  }
+
+  private void givenReadableResultTable() {
+    when(executionContext.getTenantId()).thenReturn("diku");
+    when(queryResultsImportRepository.isReadable(RESULT_TABLE.table())).thenReturn(true);
+    lenient().when(listConfiguration.getMaxListSize()).thenReturn(10);
+  }
+
+  private DirectResultsImporter importer(DirectImportProperties properties) {
+    return new DirectResultsImporter(properties, queryResultsImportRepository, listConfiguration, executionContext);
+  }
+}
@@ -0,0 +1,154 @@
+package org.folio.list.service.refresh;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.folio.list.rest.QueryClient;
+import org.folio.list.services.refresh.QueryCoalescer;
+import org.folio.list.services.refresh.QueryCoalescer.SubmittedQuery;
+import org.folio.querytool.domain.dto.QueryIdentifier;
+import org.folio.querytool.domain.dto.SubmitQuery;
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueryCoalescerTest {
+
+  private static final UUID ENTITY_TYPE_ID = UUID.randomUUID();
+
+  @Mock
+  private QueryClient queryClient;
+  @Mock
+  private FolioExecutionContext executionContext;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private QueryCoalescer coalescer;
+
+  @BeforeEach
+  void setup() {
+    coalescer = new QueryCoalescer(queryClient, executionContext, meterRegistry);
+    ReflectionTestUtils.setField(coalescer, "enabled", true);
+    lenient().when(executionContext.getTenantId()).thenReturn("diku");
+  }
+
+  @Test
+  void shouldShareRunningQueryBetweenIdenticalRefreshes() {
+    UUID queryId = UUID.randomUUID();
+    when(queryClient.executeQuery(any())).thenReturn(new QueryIdentifier().queryId(queryId));
+
+    SubmittedQuery first = coalescer.submit(UUID.randomUUID(), missingItems());
+    SubmittedQuery second = coalescer.submit(UUID.randomUUID(), missingItems());
+
+    assertThat(first).isEqualTo(new SubmittedQuery(queryId, false));
+    assertThat(second).isEqualTo(new SubmittedQuery(queryId, true));
+    verify(queryClient, times(1)).executeQuery(any());
+    assertThat(meterRegistry.get("mod_lists.refresh.shared_queries").tag("tenant", "diku").counter().count())
+      .isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotShareQueriesThatDiffer() {
+    when(queryClient.executeQuery(any()))
+      .thenReturn(new QueryIdentifier().queryId(UUID.randomUUID()), new QueryIdentifier().queryId(UUID.randomUUID()));
+
+    SubmittedQuery first = coalescer.submit(UUID.randomUUID(), missingItems());
+    SubmittedQuery second = coalescer.submit(UUID.randomUUID(), missingItems().fields(List.of("id", "barcode")));
+
+    assertThat(first.shared()).isFalse();
+    assertThat(second.shared()).isFalse();
+    assertThat(first.queryId()).isNotEqualTo(second.queryId());
+  }
+
+  @Test
+  void shouldNotShareCompletedQuery() {
+    UUID oldQueryId = UUID.randomUUID();
+    UUID newQueryId = UUID.randomUUID();
+    when(queryClient.executeQuery(any()))
+      .thenReturn(new QueryIdentifier().queryId(oldQueryId), new QueryIdentifier().queryId(newQueryId));
+    coalescer.submit(UUID.randomUUID(), missingItems());
+
+    // A refresh started after the query completed would get results older than itself
+    coalescer.queryCompleted(oldQueryId);
+
+    assertThat(coalescer.submit(UUID.randomUUID(), missingItems())).isEqualTo(new SubmittedQuery(newQueryId, false));
+  }
+
+  @Test
+  void shouldSubmitNewQueryOnceEveryRefreshIsReleased() {
+    UUID refreshId1 = UUID.randomUUID();
+    UUID refreshId2 = UUID.randomUUID();
+    when(queryClient.executeQuery(any()))
+      .thenReturn(new QueryIdentifier().queryId(UUID.randomUUID()), new QueryIdentifier().queryId(UUID.randomUUID()));
+    coalescer.submit(refreshId1, missingItems());
+    coalescer.submit(refreshId2, missingItems());
+
+    coalescer.release(refreshId1);
+    assertThat(coalescer.submit(UUID.randomUUID(), missingItems()).shared()).isTrue();
+
+    coalescer.release(refreshId2);
+    coalescer.release(refreshId1);
+    verify(queryClient, times(1)).executeQuery(any());
+  }
+
+  @Test
+  void shouldKnowWhetherOtherRefreshesWaitForSameQuery() {
+    UUID refreshId1 = UUID.randomUUID();
+    UUID refreshId2 = UUID.randomUUID();
+    UUID queryId = UUID.randomUUID();
+    when(queryClient.executeQuery(any())).thenReturn(new QueryIdentifier().queryId(queryId));
+    coalescer.submit(refreshId1, missingItems());
+    assertThat(coalescer.isSharedWithOthers(refreshId1)).isFalse();
+
+    coalescer.submit(refreshId2, missingItems());
+    // Even once the query can't be joined anymore
+    coalescer.queryCompleted(queryId);
+    assertThat(coalescer.isSharedWithOthers(refreshId1)).isTrue();
+
+    coalescer.release(refreshId2);
+    assertThat(coalescer.isSharedWithOthers(refreshId1)).isFalse();
+  }
+
+  @Test
+  void shouldRetryQueryThatFailedToSubmit() {
+    UUID queryId = UUID.randomUUID();
+    when(queryClient.executeQuery(any()))
+      .thenThrow(new IllegalStateException("FQM is down"))
+      .thenReturn(new QueryIdentifier().queryId(queryId));
+
+    assertThrows(IllegalStateException.class, () -> coalescer.submit(UUID.randomUUID(), missingItems()));
+
+    assertThat(coalescer.submit(UUID.randomUUID(), missingItems())).isEqualTo(new SubmittedQuery(queryId, false));
+  }
+
+  @Test
+  void shouldAlwaysSubmitWhenDisabled() {
+    ReflectionTestUtils.setField(coalescer, "enabled", false);
+    when(queryClient.executeQuery(any()))
+      .thenReturn(new QueryIdentifier().queryId(UUID.randomUUID()), new QueryIdentifier().queryId(UUID.randomUUID()));
+
+    assertThat(coalescer.submit(UUID.randomUUID(), missingItems()).shared()).isFalse();
+    assertThat(coalescer.submit(UUID.randomUUID(), missingItems()).shared()).isFalse();
+  }
+
+  private static SubmitQuery missingItems() {
+    return new SubmitQuery()
+      .entityTypeId(ENTITY_TYPE_ID)
+      .fqlQuery("{\"status\": {\"$eq\": \"Missing\"}}")
+      .fields(List.of("id"));
+  }
+}
@@ -0,0 +1,104 @@
+package org.folio.list.service.refresh;
+
+import org.awaitility.core.ConditionTimeoutException;
+import org.folio.list.rest.QueryClient;
+import org.folio.list.services.refresh.QueryCompletionWaiter;
+import org.folio.list.services.refresh.QueryPollSchedule;
+import org.folio.querytool.domain.dto.QueryDetails;
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueryCompletionWaiterTest {
+
+  private static final UUID QUERY_ID = UUID.randomUUID();
+  private static final int MAX_RESULTS = 100;
+
+  @Mock
+  private QueryClient queryClient;
+  @Mock
+  private FolioExecutionContext executionContext;
+
+  private QueryCompletionWaiter waiter;
+
+  @BeforeEach
+  void setup() {
+    waiter = new QueryCompletionWaiter(queryClient, 10, 1);
+    doAnswer(invocation -> invocation.<Callable<?>>getArgument(0).call()).when(executionContext).execute(any());
+  }
+
+  @AfterEach
+  void tearDown() {
+    waiter.shutdown();
+  }
+
+  @Test
+  void shouldCompleteOnceQueryIsNoLongerInProgress() throws Exception {
+    QueryDetails inProgress = new QueryDetails().status(QueryDetails.StatusEnum.IN_PROGRESS);
+    QueryDetails success = new QueryDetails().status(QueryDetails.StatusEnum.SUCCESS).totalRecords(5);
+    when(queryClient.getQuery(QUERY_ID)).thenReturn(inProgress, inProgress, success);
+
+    QueryDetails result = waiter.waitForCompletion(QUERY_ID, noDelay(), MAX_RESULTS, executionContext).get(5, TimeUnit.SECONDS);
+
+    assertThat(result).isEqualTo(success);
+    verify(queryClient, times(3)).getQuery(QUERY_ID);
+  }
+
+  @Test
+  void shouldStopWaitingOnceQueryHasTooManyResults() throws Exception {
+    QueryDetails smallSoFar = new QueryDetails().status(QueryDetails.StatusEnum.IN_PROGRESS).totalRecords(MAX_RESULTS);
+    QueryDetails tooBig = new QueryDetails().status(QueryDetails.StatusEnum.IN_PROGRESS).totalRecords(MAX_RESULTS + 1);
+    when(queryClient.getQuery(QUERY_ID)).thenReturn(smallSoFar, tooBig);
+
+    QueryDetails result = waiter.waitForCompletion(QUERY_ID, noDelay(), MAX_RESULTS, executionContext).get(5, TimeUnit.SECONDS);
+
+    assertThat(result).isEqualTo(tooBig);
+    verify(queryClient, times(2)).getQuery(QUERY_ID);
+  }
+
+  @Test
+  void shouldTimeOutIfQueryNeverCompletes() {
+    waiter.shutdown();
+    waiter = new QueryCompletionWaiter(queryClient, 0, 1);
+    when(queryClient.getQuery(QUERY_ID)).thenReturn(new QueryDetails().status(QueryDetails.StatusEnum.IN_PROGRESS));
+
+    var result = waiter.waitForCompletion(QUERY_ID, noDelay(), MAX_RESULTS, executionContext);
+
+    assertThat(result).failsWithin(5, TimeUnit.SECONDS)
+      .withThrowableOfType(Exception.class)
+      .withCauseInstanceOf(ConditionTimeoutException.class);
+  }
+
+  @Test
+  void shouldFailIfPollingFails() {
+    IllegalStateException failure = new IllegalStateException("FQM is down");
+    when(queryClient.getQuery(QUERY_ID)).thenThrow(failure);
+
+    var result = waiter.waitForCompletion(QUERY_ID, noDelay(), MAX_RESULTS, executionContext);
+
+    assertThat(result).failsWithin(5, TimeUnit.SECONDS)
+      .withThrowableOfType(Exception.class)
+      .withCause(failure);
+  }
+
+  private static QueryPollSchedule noDelay() {
+    return new QueryPollSchedule(QueryPollSchedule.Basis.NONE, null, Duration.ZERO, Duration.ZERO);
+  }
+}
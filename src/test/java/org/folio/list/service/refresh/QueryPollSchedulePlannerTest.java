@@ -0,0 +1,75 @@
+package org.folio.list.service.refresh;
+
+import org.folio.list.domain.ListEntity;
+import org.folio.list.repository.ListRefreshRepository;
+import org.folio.list.services.refresh.QueryPollSchedulePlanner;
+import org.folio.list.util.TestDataFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueryPollSchedulePlannerTest {
+
+  @Mock
+  private ListRefreshRepository listRefreshRepository;
+
+  private QueryPollSchedulePlanner planner;
+  private ListEntity list;
+
+  @BeforeEach
+  void setup() {
+    planner = new QueryPollSchedulePlanner(listRefreshRepository, 1000, 30);
+    list = TestDataFixture.getListEntityWithSuccessRefresh();
+  }
+
+  @Test
+  void shouldUseMedianOfListHistory() {
+    when(listRefreshRepository.getRecentQueryDurationsForList(list.getId(), 5))
+      .thenReturn(List.of("PT40S", "PT2M", "PT42S"));
+
+    var summary = planner.plan(list).getSummary();
+
+    assertThat(summary)
+      .containsEntry("QUERY_POLL_BASIS", "LIST")
+      .containsEntry("QUERY_POLL_EXPECTED_DURATION", "PT42S");
+    verify(listRefreshRepository).getRecentQueryDurationsForList(list.getId(), 5);
+    verifyNoMoreInteractions(listRefreshRepository);
+  }
+
+  @Test
+  void shouldFallBackToEntityTypeHistory() {
+    when(listRefreshRepository.getRecentQueryDurationsForList(list.getId(), 5)).thenReturn(List.of("not a duration"));
+    when(listRefreshRepository.getRecentQueryDurationsForEntityType(list.getEntityTypeId(), 20))
+      .thenReturn(List.of("PT5S"));
+
+    assertThat(planner.plan(list).getSummary())
+      .containsEntry("QUERY_POLL_BASIS", "ENTITY_TYPE")
+      .containsEntry("QUERY_POLL_EXPECTED_DURATION", "PT5S");
+  }
+
+  @Test
+  void shouldFallBackToPlainBackoffWithoutHistory() {
+    when(listRefreshRepository.getRecentQueryDurationsForList(list.getId(), 5)).thenReturn(List.of());
+    when(listRefreshRepository.getRecentQueryDurationsForEntityType(list.getEntityTypeId(), 20)).thenReturn(List.of());
+
+    assertThat(planner.plan(list).getSummary()).containsEntry("QUERY_POLL_BASIS", "NONE");
+  }
+
+  @Test
+  void shouldNotFailIfHistoryIsUnavailable() {
+    when(listRefreshRepository.getRecentQueryDurationsForList(list.getId(), 5))
+      .thenThrow(new IllegalStateException("DB is down"));
+
+    assertThat(planner.plan(list).getSummary()).containsEntry("QUERY_POLL_BASIS", "NONE");
+  }
+}
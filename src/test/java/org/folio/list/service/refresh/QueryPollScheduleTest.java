@@ -0,0 +1,62 @@
+package org.folio.list.service.refresh;
+
+import org.folio.list.services.refresh.QueryPollSchedule;
+import org.folio.list.services.refresh.QueryPollSchedule.Basis;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryPollScheduleTest {
+
+  private static final Duration MIN = Duration.ofSeconds(1);
+  private static final Duration MAX = Duration.ofSeconds(30);
+
+  @Test
+  void shouldBackOffExponentiallyWithoutHistory() {
+    var schedule = new QueryPollSchedule(Basis.NONE, null, MIN, MAX);
+
+    assertThat(delays(schedule, 7)).containsExactly(1L, 2L, 4L, 8L, 16L, 30L, 30L);
+    assertThat(schedule.getSummary())
+      .containsEntry("QUERY_POLL_BASIS", "NONE")
+      .containsEntry("QUERY_POLL_COUNT", "7")
+      .doesNotContainKey("QUERY_POLL_EXPECTED_DURATION");
+  }
+
+  @Test
+  void shouldAimForExpectedCompletionTime() {
+    var schedule = new QueryPollSchedule(Basis.LIST, Duration.ofSeconds(42), MIN, MAX);
+
+    // 1 + 2 + 4 + 8 + 16 = 31s elapsed, then wait the remaining 11s instead of 30s. After that, the query is overdue,
+    // so start over with quick polls
+    assertThat(delays(schedule, 9)).containsExactly(1L, 2L, 4L, 8L, 16L, 11L, 1L, 2L, 4L);
+    assertThat(schedule.getSummary())
+      .containsEntry("QUERY_POLL_BASIS", "LIST")
+      .containsEntry("QUERY_POLL_EXPECTED_DURATION", "PT42S")
+      .containsEntry("QUERY_POLL_COUNT", "9");
+  }
+
+  @Test
+  void shouldPollQuicklyForFastQueries() {
+    var schedule = new QueryPollSchedule(Basis.ENTITY_TYPE, Duration.ofMillis(1500), MIN, MAX);
+
+    assertThat(delays(schedule, 4)).containsExactly(1L, 1L, 1L, 2L);
+  }
+
+  /**
+   * Get the first {@code count} delays (in seconds), assuming each poll happens exactly when scheduled
+   */
+  private static List<Long> delays(QueryPollSchedule schedule, int count) {
+    List<Long> delays = new ArrayList<>();
+    Duration elapsed = Duration.ZERO;
+    for (int i = 0; i < count; i++) {
+      Duration delay = schedule.nextDelay(elapsed);
+      delays.add(delay.toSeconds());
+      elapsed = elapsed.plus(delay);
+    }
+    return delays;
+  }
+}
@@ -0,0 +1,84 @@
+package org.folio.list.service.refresh;
+
+import org.folio.list.configuration.RefreshBatchSizeProperties;
+import org.folio.list.services.refresh.RefreshBatchSizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RefreshBatchSizerTest {
+
+  private static final Duration QUICK = Duration.ofMillis(100);
+  private static final Duration SLOW = Duration.ofSeconds(5);
+  private static final RefreshBatchSizeProperties PROPERTIES =
+    new RefreshBatchSizeProperties(true, 1000, 20_000, 2000, 2000, 3000);
+
+  @Test
+  void shouldGrowAdditivelyUpToMax() {
+    var sizer = RefreshBatchSizer.adaptive(10_000, PROPERTIES);
+
+    for (int i = 0; i < 10; i++) {
+      int size = sizer.nextSize();
+      sizer.record(size, size, QUICK, QUICK);
+    }
+
+    assertThat(sizer.nextSize()).isEqualTo(20_000);
+    assertThat(sizer.getSummary())
+      .containsEntry("REFRESH_BATCH_SIZE_INITIAL", "10000")
+      .containsEntry("REFRESH_BATCH_SIZE_FINAL", "20000")
+      .containsEntry("REFRESH_BATCH_SIZE_INCREASES", "5")
+      .containsEntry("REFRESH_BATCH_SIZE_DECREASES", "0");
+  }
+
+  @Test
+  void shouldHalveWhenFetchOrWriteIsSlow() {
+    var sizer = RefreshBatchSizer.adaptive(10_000, PROPERTIES);
+
+    sizer.record(10_000, 10_000, SLOW, QUICK);
+    assertThat(sizer.nextSize()).isEqualTo(5000);
+    sizer.record(5000, 5000, QUICK, SLOW);
+    assertThat(sizer.nextSize()).isEqualTo(2500);
+    sizer.record(2500, 2500, SLOW, SLOW);
+    sizer.record(1250, 1250, SLOW, SLOW);
+    assertThat(sizer.nextSize()).isEqualTo(1000);
+    sizer.record(1000, 1000, QUICK, QUICK);
+    assertThat(sizer.nextSize()).isEqualTo(3000);
+
+    assertThat(sizer.getSummary())
+      .containsEntry("REFRESH_BATCH_SIZE_BOUNDS", "1000..20000")
+      .containsEntry("REFRESH_BATCH_SIZE_RANGE", "1000..10000")
+      .containsEntry("REFRESH_BATCH_SIZE_DECREASES", "4")
+      .containsEntry("REFRESH_BATCH_SIZE_INCREASES", "1");
+  }
+
+  @Test
+  void shouldNotGrowAfterLastPage() {
+    var sizer = RefreshBatchSizer.adaptive(10_000, PROPERTIES);
+
+    sizer.record(10_000, 42, QUICK, QUICK);
+
+    assertThat(sizer.nextSize()).isEqualTo(10_000);
+  }
+
+  @Test
+  void shouldStartWithinBounds() {
+    assertThat(RefreshBatchSizer.adaptive(100, PROPERTIES).nextSize()).isEqualTo(1000);
+    assertThat(RefreshBatchSizer.adaptive(100_000, PROPERTIES).nextSize()).isEqualTo(20_000);
+    assertThatThrownBy(() -> RefreshBatchSizer.adaptive(100, new RefreshBatchSizeProperties(true, 10, 5, 1, 1, 1)))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void fixedSizeShouldNeverChange() {
+    var sizer = RefreshBatchSizer.fixed(10_000);
+
+    sizer.record(10_000, 10_000, QUICK, QUICK);
+    sizer.record(10_000, 10_000, SLOW, SLOW);
+
+    assertThat(sizer.nextSize()).isEqualTo(10_000);
+    assertThat(sizer.getSummary()).isEmpty();
+  }
+}
@@ -1,8 +1,11 @@
 package org.folio.list.service.refresh;
 
 import org.folio.list.domain.ListEntity;
-import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStagingRepository;
 import org.folio.list.repository.ListRepository;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.list.services.purge.ListContentsReaper;
 import org.folio.list.services.refresh.RefreshFailedCallback;
 import org.folio.list.util.TaskTimer;
 import org.folio.list.util.TestDataFixture;
@@ -22,7 +25,13 @@ class RefreshFailedCallbackTest {
   private ListRepository listRepository;
 
   @Mock
-  private ListContentsRepository listContentsRepository;
+  private ListContentsReaper listContentsReaper;
+
+  @Mock
+  private ListContentsStagingRepository listContentsStagingRepository;
+
+  @Mock
+  private JobEventBus jobEventBus;
 
   @InjectMocks
   private RefreshFailedCallback failedRefreshService;
@@ -38,6 +47,8 @@ class RefreshFailedCallbackTest {
     assertThat(entity.getFailedRefresh().getErrorMessage()).isEqualTo(failureReason.getMessage());
     assertThat(entity.getFailedRefresh().getErrorCode()).isEqualTo(expectedErrorCode);
     verify(listRepository, times(1)).save(entity);
-    verify(listContentsRepository, times(1)).deleteContents(entity.getId(), entity.getFailedRefresh().getId());
+    verify(listContentsReaper, times(1)).markGarbage(entity.getId(), entity.getFailedRefresh().getId());
+    verify(listContentsStagingRepository, times(1)).dropStagingTable(entity.getFailedRefresh().getId());
+    verify(jobEventBus, times(1)).publish(JobEvent.refresh(entity.getFailedRefresh()));
   }
 }
@@ -0,0 +1,278 @@
+package org.folio.list.service.refresh;
+
+import org.folio.list.domain.JobType;
+import org.folio.list.domain.ListEntity;
+import org.folio.list.exception.InsufficientEntityTypePermissionsException;
+import org.folio.list.exception.RefreshAbandonedException;
+import org.folio.list.exception.RefreshInProgressDuringShutdownException;
+import org.folio.list.repository.JobRepository.Job;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.ListContentsStores;
+import org.folio.list.repository.ListRepository;
+import org.folio.list.repository.RefreshCheckpointRepository;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
+import org.folio.list.services.AppShutdownService;
+import org.folio.list.services.ListActions;
+import org.folio.list.services.ListValidationService;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.refresh.ListRefreshService;
+import org.folio.list.services.refresh.RefreshCheckpointService;
+import org.folio.list.services.refresh.RefreshFailedCallback;
+import org.folio.list.services.refresh.RefreshJobHandler;
+import org.folio.list.services.refresh.RefreshResumer;
+import org.folio.list.util.TaskTimer;
+import org.folio.list.util.TestDataFixture;
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshJobHandlerTest {
+
+  @Mock
+  private ListRepository listRepository;
+  @Mock
+  private ListRefreshService listRefreshService;
+  @Mock
+  private ListContentsStores listContentsStores;
+  @Mock
+  private RefreshCheckpointRepository checkpointRepository;
+  @Mock
+  private RefreshCheckpointService refreshCheckpointService;
+  @Mock
+  private RefreshResumer refreshResumer;
+  @Mock
+  private RefreshFailedCallback refreshFailedCallback;
+  @Mock
+  private AppShutdownService appShutdownService;
+  @Mock
+  private FolioExecutionContext executionContext;
+  @Mock
+  private ListValidationService listValidationService;
+
+  @InjectMocks
+  private RefreshJobHandler handler;
+
+  @Test
+  void shouldRunQueuedRefresh() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(listRefreshService.doAsyncRefresh(eq(list), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    ArgumentCaptor<TaskTimer> timerCaptor = ArgumentCaptor.forClass(TaskTimer.class);
+
+    handler.handle(refreshOf(list, null), job(1)).join();
+
+    verify(listRefreshService).doAsyncRefresh(eq(list), any(), timerCaptor.capture());
+    assertThat(timerCaptor.getValue().getSummary())
+      .containsEntry("WRITE_START", "PT0.1S")
+      .containsEntry("QUEUE_WAIT", "PT5S");
+    verify(listRefreshService, never()).doAsyncSorting(any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldSortResultsOfQueryThatAlreadyRan() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    UUID queryId = UUID.randomUUID();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(listRefreshService.doAsyncSorting(eq(list), eq(queryId), any(), any()))
+      .thenReturn(CompletableFuture.completedFuture(null));
+
+    handler.handle(refreshOf(list, queryId), job(1)).join();
+
+    verify(listRefreshService).doAsyncSorting(eq(list), eq(queryId), any(), any());
+  }
+
+  @Test
+  void shouldCheckRequesterIsStillAllowedBeforeRunningRefresh() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(listRefreshService.doAsyncRefresh(eq(list), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+    handler.handle(refreshOf(list, null), queuedBy(UUID.randomUUID())).join();
+
+    verify(listValidationService).validateQueuedRefresh(list, false);
+    verify(listRefreshService).doAsyncRefresh(eq(list), any(), any());
+  }
+
+  @Test
+  void shouldFailRefreshOnceRequesterHasLostAccess() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    var lostAccess = new InsufficientEntityTypePermissionsException(list.getEntityTypeId(), ListActions.REFRESH,
+      "User is missing permissions: [users.collection.get]");
+    doThrow(lostAccess).when(listValidationService).validateQueuedRefresh(list, false);
+
+    handler.handle(refreshOf(list, null), queuedBy(UUID.randomUUID())).join();
+
+    verify(refreshFailedCallback).accept(eq(list), any(TaskTimer.class), eq(lostAccess));
+    verifyNoInteractions(listRefreshService, appShutdownService);
+  }
+
+  @Test
+  void shouldSkipRefreshThatIsNoLongerInProgress() {
+    // e.g., cancelled while it was queued
+    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+
+    handler.handle(new JobPayload.Refresh(list.getId(), UUID.randomUUID(), null, Map.of(), null, null), job(1)).join();
+
+    verifyNoInteractions(listRefreshService, appShutdownService);
+  }
+
+  @Test
+  void shouldLeaveCheckpointedRefreshToBeResumed() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(checkpointRepository.exists(list.getInProgressRefreshId().orElseThrow())).thenReturn(true);
+
+    handler.handle(refreshOf(list, null), job(2)).join();
+
+    verifyNoInteractions(listRefreshService, listContentsStores);
+  }
+
+  @Test
+  void shouldRestartRefreshThatWasNeverCheckpointed() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    UUID refreshId = list.getInProgressRefreshId().orElseThrow();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(checkpointRepository.exists(refreshId)).thenReturn(false);
+    when(listRefreshService.doAsyncRefresh(eq(list), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    ArgumentCaptor<TaskTimer> timerCaptor = ArgumentCaptor.forClass(TaskTimer.class);
+
+    handler.handle(refreshOf(list, null), job(2)).join();
+
+    // Whatever the previous attempt wrote is cleared out before starting over
+    verify(listContentsStores).deleteContentsFrom(list.getId(), refreshId, 0);
+    verify(listRefreshService).doAsyncRefresh(eq(list), any(), timerCaptor.capture());
+    assertThat(timerCaptor.getValue().getSummary()).containsEntry("JOB_ATTEMPTS", "2");
+  }
+
+  @Test
+  void shouldSuspendRefreshOnShutdownUnlessItCantBeResumed() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(listRefreshService.doAsyncRefresh(eq(list), any(), any())).thenReturn(new CompletableFuture<>());
+    ArgumentCaptor<Runnable> shutdownTaskCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+    handler.handle(refreshOf(list, null), job(1));
+    verify(appShutdownService).registerShutdownTask(eq(executionContext), shutdownTaskCaptor.capture(), any());
+
+    // A checkpointed refresh is left for another node to resume
+    when(refreshCheckpointService.suspend(list)).thenReturn(true);
+    shutdownTaskCaptor.getValue().run();
+    verifyNoInteractions(refreshFailedCallback);
+
+    // Otherwise, there's no way to carry on with it, so it fails
+    when(refreshCheckpointService.suspend(list)).thenReturn(false);
+    shutdownTaskCaptor.getValue().run();
+    verify(refreshFailedCallback).accept(eq(list), any(), any(RefreshInProgressDuringShutdownException.class));
+    verify(listContentsStores, never()).deleteContentsFrom(any(), any(), anyInt());
+  }
+
+  @Test
+  void shouldResumeRefreshFromCheckpointItWasHandedOff() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshCheckpoint checkpoint = checkpointFor(list);
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(refreshCheckpointService.takeOver(checkpoint)).thenReturn(true);
+    when(refreshResumer.resume(eq(list), eq(checkpoint), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+    handler.handle(resumeOf(list, checkpoint), job(1)).join();
+
+    verify(refreshResumer).resume(eq(list), eq(checkpoint), any(), any());
+    verifyNoInteractions(listRefreshService);
+  }
+
+  @Test
+  void shouldLeaveCheckpointThatWasClaimedAgainSinceTheResumeWasQueued() {
+    // e.g., this job's first attempt took the checkpoint over, then its node went away
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshCheckpoint checkpoint = checkpointFor(list);
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(refreshCheckpointService.takeOver(checkpoint)).thenReturn(false);
+
+    handler.handle(resumeOf(list, checkpoint), job(2)).join();
+
+    verifyNoInteractions(refreshResumer, listRefreshService, appShutdownService);
+  }
+
+  @Test
+  void shouldDiscardHandedOffCheckpointOfRefreshThatIsNoLongerInProgress() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshCheckpoint checkpoint = checkpointFor(list);
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId()))
+      .thenReturn(Optional.of(TestDataFixture.getListEntityWithSuccessRefresh()));
+
+    handler.handle(resumeOf(list, checkpoint), job(1)).join();
+
+    verify(checkpointRepository).delete(checkpoint.refreshId());
+    verifyNoInteractions(refreshResumer, listRefreshService);
+  }
+
+  @Test
+  void shouldFailRefreshThatWasGivenUpOn() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+
+    handler.giveUp(refreshOf(list, null), job(3));
+
+    verify(refreshFailedCallback).accept(eq(list), any(), any(RefreshAbandonedException.class));
+  }
+
+  @Test
+  void shouldLeaveListAloneIfAbandonedRefreshIsAlreadyOver() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    JobPayload.Refresh payload = refreshOf(list, null);
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId()))
+      .thenReturn(Optional.of(TestDataFixture.getListEntityWithSuccessRefresh()));
+
+    handler.giveUp(payload, job(3));
+
+    verifyNoInteractions(refreshFailedCallback);
+  }
+
+  private static JobPayload.Refresh refreshOf(ListEntity list, UUID queryId) {
+    return new JobPayload.Refresh(list.getId(), list.getInProgressRefreshId().orElseThrow(), queryId,
+      Map.of("WRITE_START", "PT0.1S"), 100, null);
+  }
+
+  private static JobPayload.Refresh resumeOf(ListEntity list, RefreshCheckpoint checkpoint) {
+    return new JobPayload.Refresh(list.getId(), checkpoint.refreshId(), checkpoint.queryId(), Map.of(), 100,
+      checkpoint);
+  }
+
+  private static RefreshCheckpoint checkpointFor(ListEntity list) {
+    return new RefreshCheckpoint(list.getInProgressRefreshId().orElseThrow(), list.getId(), UUID.randomUUID(),
+      Layout.ROWS, 20_000, 2, UUID.randomUUID());
+  }
+
+  private static Job job(int attempts) {
+    return new Job(UUID.randomUUID(), JobType.REFRESH, "{}", null, null, attempts, UUID.randomUUID(),
+      Duration.ofSeconds(5));
+  }
+
+  private static Job queuedBy(UUID userId) {
+    return new Job(UUID.randomUUID(), JobType.REFRESH, "{}", userId, null, 1, UUID.randomUUID(),
+      Duration.ofSeconds(5));
+  }
+}
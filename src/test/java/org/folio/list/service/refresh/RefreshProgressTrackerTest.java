@@ -0,0 +1,78 @@
+package org.folio.list.service.refresh;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.folio.list.repository.RefreshProgressRepository.RefreshProgress;
+import org.folio.list.services.refresh.RefreshProgressTracker;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshProgressTrackerTest {
+
+  private static final long SECOND = Duration.ofSeconds(1).toNanos();
+  private static final UUID LIST_ID = UUID.randomUUID();
+  private static final UUID REFRESH_ID = UUID.randomUUID();
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicLong clock = new AtomicLong();
+  private final List<RefreshProgress> saved = new ArrayList<>();
+
+  @Test
+  void shouldSaveProgressAfterFirstBatchAndThenEveryInterval() {
+    RefreshProgressTracker tracker = tracker(0, 1000, 3);
+
+    for (int batch = 1; batch <= 7; batch++) {
+      clock.addAndGet(SECOND);
+      tracker.batchImported(100, batch * 100, batch);
+    }
+
+    assertThat(saved).extracting(RefreshProgress::batchesProcessed).containsExactly(1, 4, 7);
+    assertThat(saved.getLast()).isEqualTo(
+      new RefreshProgress(REFRESH_ID, LIST_ID, 700, 7, 100.0, 3, Duration.ZERO));
+    assertThat(meterRegistry.counter("mod_lists.refresh.records_imported").count()).isEqualTo(700);
+    assertThat(meterRegistry.counter("mod_lists.refresh.batches_imported").count()).isEqualTo(7);
+    assertThat(meterRegistry.summary("mod_lists.refresh.records_per_second").count()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldMeasureRateSinceLastSave() {
+    RefreshProgressTracker tracker = tracker(0, null, 2);
+
+    clock.addAndGet(SECOND);
+    tracker.batchImported(100, 100, 1);
+    // FQM slows down
+    clock.addAndGet(10 * SECOND);
+    tracker.batchImported(100, 200, 2);
+    clock.addAndGet(10 * SECOND);
+    tracker.batchImported(100, 300, 3);
+
+    assertThat(saved).extracting(RefreshProgress::recordsPerSecond).containsExactly(100.0, 10.0);
+    // Without a total, there's no telling how long the rest will take
+    assertThat(saved).extracting(RefreshProgress::estimatedSecondsRemaining).containsOnlyNulls();
+  }
+
+  @Test
+  void shouldOnlyCountRecordsImportedSinceResuming() {
+    RefreshProgressTracker tracker = tracker(5000, 6000, 10);
+
+    clock.addAndGet(2 * SECOND);
+    tracker.batchImported(500, 5500, 51);
+
+    assertThat(saved).containsExactly(new RefreshProgress(REFRESH_ID, LIST_ID, 5500, 51, 250.0, 2, Duration.ZERO));
+  }
+
+  private RefreshProgressTracker tracker(int startRecords, Integer totalRecords, int saveInterval) {
+    return new RefreshProgressTracker(LIST_ID, REFRESH_ID, startRecords, totalRecords, saveInterval, saved::add,
+      meterRegistry.counter("mod_lists.refresh.records_imported"),
+      meterRegistry.counter("mod_lists.refresh.batches_imported"),
+      meterRegistry.summary("mod_lists.refresh.records_per_second"),
+      clock::get);
+  }
+}
@@ -0,0 +1,210 @@
+package org.folio.list.service.refresh;
+
+import org.folio.list.configuration.RefreshCheckpointProperties;
+import org.folio.list.domain.ListEntity;
+import org.folio.list.repository.ListContentsStagingRepository;
+import org.folio.list.repository.ListContentsStore.Layout;
+import org.folio.list.repository.ListContentsStores;
+import org.folio.list.repository.ListContentsWriter.WriteMode;
+import org.folio.list.repository.ListRepository;
+import org.folio.list.repository.RefreshCheckpointRepository;
+import org.folio.list.repository.RefreshCheckpointRepository.RefreshCheckpoint;
+import org.folio.list.services.TenantSchemas;
+import org.folio.list.services.jobs.JobPayload;
+import org.folio.list.services.jobs.JobQueue;
+import org.folio.list.services.refresh.ListRefreshService;
+import org.folio.list.services.refresh.RefreshResumer;
+import org.folio.list.util.TaskTimer;
+import org.folio.list.util.TestDataFixture;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshResumerTest {
+
+  private static final String TENANT_ID = "diku";
+
+  @Mock
+  private RefreshCheckpointRepository checkpointRepository;
+  @Mock
+  private ListRepository listRepository;
+  @Mock
+  private ListContentsStores listContentsStores;
+  @Mock
+  private ListContentsStagingRepository listContentsStagingRepository;
+  @Mock
+  private ListRefreshService listRefreshService;
+  @Mock
+  private JobQueue jobQueue;
+  @Mock
+  private FolioModuleMetadata folioModuleMetadata;
+  @Mock
+  private TenantSchemas tenantSchemas;
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private RefreshResumer resumer;
+
+  @BeforeEach
+  void setup() {
+    var properties = new RefreshCheckpointProperties(false, 60, 30);
+    // Work on a tenant runs in a context of its own
+    lenient().when(tenantSchemas.systemContext(any())).thenAnswer(invocation -> new DefaultFolioExecutionContext(
+      folioModuleMetadata, Map.of(XOkapiHeaders.TENANT, List.of(invocation.getArgument(0, String.class)))));
+    resumer = new RefreshResumer(checkpointRepository, listRepository, listContentsStores, listContentsStagingRepository,
+      listRefreshService, jobQueue, tenantSchemas, properties, transactionManager);
+    ReflectionTestUtils.setField(resumer, "refreshWriteMode", WriteMode.JPA);
+  }
+
+  @Test
+  void shouldHandOffInterruptedRefreshToRefreshJob() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshCheckpoint checkpoint = checkpointFor(list, Layout.ROWS, 20_000);
+    givenCheckpoints(checkpoint);
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(checkpointRepository.handOff(checkpoint.refreshId(), checkpoint.claimToken())).thenReturn(true);
+    ArgumentCaptor<JobPayload.Refresh> payloadCaptor = ArgumentCaptor.forClass(JobPayload.Refresh.class);
+
+    resumer.resumeAllTenants();
+
+    verify(jobQueue).enqueue(payloadCaptor.capture());
+    assertThat(payloadCaptor.getValue().checkpoint()).isEqualTo(checkpoint);
+    assertThat(payloadCaptor.getValue().refreshId()).isEqualTo(checkpoint.refreshId());
+    assertThat(payloadCaptor.getValue().queryId()).isEqualTo(checkpoint.queryId());
+    verifyNoInteractions(listRefreshService, listContentsStores);
+  }
+
+  @Test
+  void shouldNotQueueRefreshWhoseCheckpointWasClaimedAwayBeforeItsHandOff() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshCheckpoint checkpoint = checkpointFor(list, Layout.ROWS, 20_000);
+    givenCheckpoints(checkpoint);
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+    when(checkpointRepository.handOff(checkpoint.refreshId(), checkpoint.claimToken())).thenReturn(false);
+
+    resumer.resumeAllTenants();
+
+    verifyNoInteractions(jobQueue);
+  }
+
+  @Test
+  void shouldResumeRefreshFromCheckpoint() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshCheckpoint checkpoint = checkpointFor(list, Layout.ROWS, 20_000);
+    ArgumentCaptor<TaskTimer> timerCaptor = ArgumentCaptor.forClass(TaskTimer.class);
+
+    resumer.resume(list, checkpoint, null, new TaskTimer());
+
+    // Whatever was written past the checkpoint is cleared out before carrying on
+    var inOrder = inOrder(listContentsStores, listRefreshService);
+    inOrder.verify(listContentsStores).deleteContentsFrom(list.getId(), checkpoint.refreshId(), 20_000);
+    inOrder.verify(listRefreshService).resumeRefresh(eq(list), eq(checkpoint), any(), timerCaptor.capture());
+    assertThat(timerCaptor.getValue().getSummary()).containsEntry("RESUMED_FROM_OFFSET", "20000");
+  }
+
+  @Test
+  void shouldRestartRefreshWrittenInAnotherLayout() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshCheckpoint checkpoint = checkpointFor(list, Layout.CHUNKED, 20_000);
+    RefreshCheckpoint restarted = new RefreshCheckpoint(checkpoint.refreshId(), list.getId(), checkpoint.queryId(),
+      Layout.ROWS, 0, 0, checkpoint.claimToken());
+
+    resumer.resume(list, checkpoint, null, new TaskTimer());
+
+    verify(checkpointRepository).create(eq(restarted), any());
+    verify(listContentsStores).deleteContentsFrom(list.getId(), checkpoint.refreshId(), 0);
+    verify(listRefreshService).resumeRefresh(eq(list), eq(restarted), any(), any());
+  }
+
+  @Test
+  void shouldResumeStagedRefreshFromCheckpoint() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshCheckpoint checkpoint = checkpointFor(list, Layout.ROWS, 20_000);
+    when(listContentsStagingRepository.holdsContentsBefore(checkpoint.refreshId(), 20_000)).thenReturn(true);
+    ReflectionTestUtils.setField(resumer, "refreshWriteMode", WriteMode.STAGED);
+
+    resumer.resume(list, checkpoint, null, new TaskTimer());
+
+    verify(checkpointRepository, never()).create(any(), any());
+    verify(listContentsStores).deleteContentsFrom(list.getId(), checkpoint.refreshId(), 20_000);
+    verify(listRefreshService).resumeRefresh(eq(list), eq(checkpoint), any(), any());
+  }
+
+  @Test
+  void shouldRestartStagedRefreshWhoseStagingTableWasLost() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshCheckpoint checkpoint = checkpointFor(list, Layout.ROWS, 20_000);
+    RefreshCheckpoint restarted = new RefreshCheckpoint(checkpoint.refreshId(), list.getId(), checkpoint.queryId(),
+      Layout.ROWS, 0, 0, checkpoint.claimToken());
+    // Postgres empties unlogged tables when it recovers from a crash
+    when(listContentsStagingRepository.holdsContentsBefore(checkpoint.refreshId(), 20_000)).thenReturn(false);
+    ReflectionTestUtils.setField(resumer, "refreshWriteMode", WriteMode.STAGED);
+
+    resumer.resume(list, checkpoint, null, new TaskTimer());
+
+    verify(listContentsStagingRepository).dropStagingTable(checkpoint.refreshId());
+    verify(checkpointRepository).create(eq(restarted), any());
+    verify(listRefreshService).resumeRefresh(eq(list), eq(restarted), any(), any());
+  }
+
+  @Test
+  void shouldRestartStagedRefreshOnNodeThatDoesNotStage() {
+    ListEntity list = TestDataFixture.getListEntityWithInProgressRefresh();
+    RefreshCheckpoint checkpoint = checkpointFor(list, Layout.ROWS, 20_000);
+    when(listContentsStagingRepository.stagingTableExists(checkpoint.refreshId())).thenReturn(true);
+
+    resumer.resume(list, checkpoint, null, new TaskTimer());
+
+    verify(listContentsStagingRepository).dropStagingTable(checkpoint.refreshId());
+    verify(listContentsStores).deleteContentsFrom(list.getId(), checkpoint.refreshId(), 0);
+  }
+
+  @Test
+  void shouldDiscardCheckpointOfRefreshThatIsNoLongerRunning() {
+    ListEntity list = TestDataFixture.getListEntityWithSuccessRefresh();
+    RefreshCheckpoint checkpoint = new RefreshCheckpoint(UUID.randomUUID(), list.getId(), UUID.randomUUID(), Layout.ROWS,
+      10, 1, UUID.randomUUID());
+    givenCheckpoints(checkpoint);
+    when(listRepository.findByIdAndIsDeletedFalse(list.getId())).thenReturn(Optional.of(list));
+
+    resumer.resumeAllTenants();
+
+    verify(checkpointRepository).delete(checkpoint.refreshId());
+    verify(checkpointRepository, never()).handOff(any(), any());
+    verifyNoInteractions(jobQueue, listContentsStores, listRefreshService);
+  }
+
+  private void givenCheckpoints(RefreshCheckpoint checkpoint) {
+    when(tenantSchemas.findTenantsWithTable("list_refresh_checkpoints")).thenReturn(List.of(TENANT_ID));
+    when(checkpointRepository.claimNext(any())).thenReturn(Optional.of(checkpoint), Optional.empty());
+  }
+
+  private static RefreshCheckpoint checkpointFor(ListEntity list, Layout layout, int nextOffset) {
+    return new RefreshCheckpoint(list.getInProgressRefreshId().orElseThrow(), list.getId(), UUID.randomUUID(), layout,
+      nextOffset, nextOffset / 10_000, UUID.randomUUID());
+  }
+}
@@ -0,0 +1,168 @@
+package org.folio.list.service.refresh;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.folio.list.configuration.RefreshScheduleProperties;
+import org.folio.list.exception.InsufficientEntityTypePermissionsException;
+import org.folio.list.exception.RefreshInProgressException;
+import org.folio.list.repository.RefreshScheduleRepository;
+import org.folio.list.repository.RefreshScheduleRepository.RefreshSchedule;
+import org.folio.list.services.ConcurrencyLimits;
+import org.folio.list.services.ConcurrencyLimits.Resource;
+import org.folio.list.services.ListActions;
+import org.folio.list.services.ListService;
+import org.folio.list.services.TenantSchemas;
+import org.folio.list.services.refresh.RefreshScheduler;
+import org.folio.list.util.TestDataFixture;
+import org.folio.spring.DefaultFolioExecutionContext;
+import org.folio.spring.FolioModuleMetadata;
+import org.folio.spring.integration.XOkapiHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.folio.list.services.refresh.RefreshScheduler.SCHEDULED_REFRESHES_METRIC;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshSchedulerTest {
+
+  private static final String TENANT_ID = "diku";
+
+  @Mock
+  private RefreshScheduleRepository scheduleRepository;
+  @Mock
+  private ListService listService;
+  @Mock
+  private ConcurrencyLimits concurrencyLimits;
+  @Mock
+  private FolioModuleMetadata folioModuleMetadata;
+  @Mock
+  private TenantSchemas tenantSchemas;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final RefreshScheduleProperties properties = new RefreshScheduleProperties(false, 60, 600, 5, 500, 5000);
+  private RefreshScheduler scheduler;
+
+  @BeforeEach
+  void setup() {
+    scheduler = new RefreshScheduler(scheduleRepository, listService, concurrencyLimits, folioModuleMetadata,
+      tenantSchemas, properties, meterRegistry);
+    // Work on a tenant runs in a context of its own
+    lenient().when(tenantSchemas.systemContext(any())).thenAnswer(invocation -> new DefaultFolioExecutionContext(
+      folioModuleMetadata, Map.of(XOkapiHeaders.TENANT, List.of(invocation.getArgument(0, String.class)))));
+    givenTenants(TENANT_ID);
+  }
+
+  @Test
+  void shouldStartDueRefreshes() {
+    RefreshSchedule started = schedule(120);
+    RefreshSchedule fresh = schedule(120);
+    RefreshSchedule refreshing = schedule(120);
+    when(scheduleRepository.probeLatency()).thenReturn(Duration.ofMillis(5));
+    when(concurrencyLimits.recentLatency(Resource.FQM)).thenReturn(Duration.ofMillis(200));
+    when(scheduleRepository.claimDue(5, 600)).thenReturn(List.of(started, fresh, refreshing));
+    when(listService.startScheduledRefresh(started.listId(), Duration.ofMinutes(120))).thenReturn(true);
+    when(listService.startScheduledRefresh(fresh.listId(), Duration.ofMinutes(120))).thenReturn(false);
+    when(listService.startScheduledRefresh(refreshing.listId(), Duration.ofMinutes(120)))
+      .thenThrow(new RefreshInProgressException(TestDataFixture.getListEntityWithInProgressRefresh(),
+        ListActions.REFRESH));
+
+    scheduler.pollAllTenants();
+
+    assertThat(outcomes("STARTED")).isEqualTo(1);
+    assertThat(outcomes("SKIPPED")).isEqualTo(2);
+  }
+
+  @Test
+  void shouldHoldBackRefreshesWhileTheDatabaseIsSlow() {
+    when(scheduleRepository.probeLatency()).thenReturn(Duration.ofMillis(800));
+
+    scheduler.pollAllTenants();
+
+    verify(scheduleRepository, never()).claimDue(anyInt(), anyInt());
+  }
+
+  @Test
+  void shouldHoldBackRefreshesWhileFqmIsSlow() {
+    when(scheduleRepository.probeLatency()).thenReturn(Duration.ofMillis(5));
+    when(concurrencyLimits.recentLatency(Resource.FQM)).thenReturn(Duration.ofSeconds(8));
+
+    scheduler.pollAllTenants();
+
+    verify(scheduleRepository, never()).claimDue(anyInt(), anyInt());
+  }
+
+  @Test
+  void shouldShareThePollsRefreshesBetweenTenants() {
+    givenTenants("tenant1", "tenant2");
+    when(scheduleRepository.probeLatency()).thenReturn(Duration.ZERO);
+    when(concurrencyLimits.recentLatency(Resource.FQM)).thenReturn(Duration.ZERO);
+    when(scheduleRepository.claimDue(5, 600)).thenReturn(List.of(schedule(60), schedule(60)));
+    when(scheduleRepository.claimDue(3, 600)).thenReturn(List.of(schedule(60)));
+
+    scheduler.pollAllTenants();
+
+    verify(scheduleRepository).claimDue(5, 600);
+    verify(scheduleRepository).claimDue(3, 600);
+  }
+
+  @Test
+  void shouldRecordFailedRefreshesAndCarryOn() {
+    RefreshSchedule failed = schedule(60);
+    RefreshSchedule started = schedule(60);
+    when(scheduleRepository.probeLatency()).thenReturn(Duration.ZERO);
+    when(concurrencyLimits.recentLatency(Resource.FQM)).thenReturn(Duration.ZERO);
+    when(scheduleRepository.claimDue(5, 600)).thenReturn(List.of(failed, started));
+    when(listService.startScheduledRefresh(failed.listId(), Duration.ofMinutes(60)))
+      .thenThrow(new IllegalStateException("oh no"));
+    when(listService.startScheduledRefresh(started.listId(), Duration.ofMinutes(60))).thenReturn(true);
+
+    scheduler.pollAllTenants();
+
+    assertThat(outcomes("FAILED")).isEqualTo(1);
+    assertThat(outcomes("STARTED")).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRemoveScheduleOnceItsUserHasLostAccess() {
+    RefreshSchedule schedule = schedule(60);
+    when(scheduleRepository.probeLatency()).thenReturn(Duration.ZERO);
+    when(concurrencyLimits.recentLatency(Resource.FQM)).thenReturn(Duration.ZERO);
+    when(scheduleRepository.claimDue(5, 600)).thenReturn(List.of(schedule));
+    when(listService.startScheduledRefresh(schedule.listId(), Duration.ofMinutes(60)))
+      .thenThrow(new InsufficientEntityTypePermissionsException(UUID.randomUUID(), ListActions.REFRESH,
+        "User is missing permissions: [users.collection.get]"));
+
+    scheduler.pollAllTenants();
+
+    verify(scheduleRepository).delete(schedule.listId());
+    assertThat(outcomes("DISABLED")).isEqualTo(1);
+  }
+
+  private double outcomes(String outcome) {
+    return meterRegistry.get(SCHEDULED_REFRESHES_METRIC).tag("outcome", outcome).counter().count();
+  }
+
+  private static RefreshSchedule schedule(int maxAgeMinutes) {
+    return new RefreshSchedule(UUID.randomUUID(), 1440, maxAgeMinutes, Duration.ofSeconds(-30), UUID.randomUUID(),
+      "http://okapi:9130");
+  }
+
+  private void givenTenants(String... tenantIds) {
+    when(tenantSchemas.findTenantsWithTable("list_refresh_schedules")).thenReturn(List.of(tenantIds));
+  }
+}
@@ -1,9 +1,12 @@
 package org.folio.list.service.refresh;
 
 import org.folio.list.domain.ListEntity;
-import org.folio.list.repository.ListContentsRepository;
+import org.folio.list.repository.ListContentsStagingRepository;
 import org.folio.list.repository.ListRepository;
 import org.folio.list.services.EntityManagerFlushService;
+import org.folio.list.services.events.JobEvent;
+import org.folio.list.services.events.JobEventBus;
+import org.folio.list.services.purge.ListContentsReaper;
 import org.folio.list.services.refresh.RefreshSuccessCallback;
 import org.folio.list.util.TaskTimer;
 import org.folio.list.util.TestDataFixture;
@@ -27,11 +30,17 @@ class RefreshSuccessCallbackTest {
   private ListRepository listRepository;
 
   @Mock
-  private ListContentsRepository listContentsRepository;
+  private ListContentsReaper listContentsReaper;
 
   @Mock
   private EntityManagerFlushService entityManagerFlushService;
 
+  @Mock
+  private ListContentsStagingRepository listContentsStagingRepository;
+
+  @Mock
+  private JobEventBus jobEventBus;
+
   @InjectMocks
   private RefreshSuccessCallback successRefreshService;
 
@@ -43,9 +52,10 @@ class RefreshSuccessCallbackTest {
 
     successRefreshService.accept(entity, recordsCount, new TaskTimer());
     assertEquals(entity.getSuccessRefresh().getRecordsCount(), recordsCount);
-    // Delete contents should not be called if list has never been refreshed
-    verify(listContentsRepository, times(0)).deleteContents(any(), any());
+    // Nothing should be purged if list has never been refreshed
+    verify(listContentsReaper, times(0)).markGarbage(any(), any());
     verify(listRepository, times(1)).save(entity);
+    verify(jobEventBus, times(1)).publish(JobEvent.refresh(entity.getSuccessRefresh()));
   }
 
   @Test
@@ -57,7 +67,21 @@ class RefreshSuccessCallbackTest {
 
     successRefreshService.accept(entity, recordsCount, new TaskTimer());
     assertEquals(entity.getSuccessRefresh().getRecordsCount(), recordsCount);
-    verify(listContentsRepository, times(1)).deleteContents(entity.getId(), originalRefreshId);
+    verify(listContentsReaper, times(1)).markGarbage(entity.getId(), originalRefreshId);
     verify(listRepository, times(1)).save(entity);
   }
+
+  @Test
+  void shouldDropStagedContentsOfSupersededRefresh() {
+    ListEntity entity = TestDataFixture.getListEntityWithInProgressRefresh();
+    UUID refreshId = entity.getInProgressRefreshId().orElseThrow();
+    when(listRepository.findByIdAndIsDeletedFalse(entity.getId())).thenReturn(Optional.empty());
+
+    successRefreshService.accept(entity, 10, new TaskTimer());
+
+    verify(listContentsStagingRepository, times(1)).dropStagingTable(refreshId);
+    verify(listContentsReaper, times(1)).markGarbage(entity.getId(), refreshId);
+    // The refresh that superseded this one reports its own outcome
+    verifyNoInteractions(jobEventBus);
+  }
 }
@@ -0,0 +1,106 @@
+package org.folio.list.service.refresh;
+
+import org.folio.list.services.refresh.SortedIdsPrefetcher;
+import org.folio.spring.FolioExecutionContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class SortedIdsPrefetcherTest {
+
+  @Mock
+  private FolioExecutionContext executionContext;
+
+  @BeforeEach
+  void setup() {
+    doAnswer(invocation -> invocation.<Callable<?>>getArgument(0).call()).when(executionContext).execute(any());
+  }
+
+  @Test
+  void shouldReturnPagesInOffsetOrder() {
+    Map<Integer, List<List<String>>> results = Map.of(
+      0, List.of(List.of("a"), List.of("b")),
+      2, List.of(List.of("c"), List.of("d")),
+      4, List.of(List.of("e"))
+    );
+    List<Integer> requestedOffsets = new CopyOnWriteArrayList<>();
+    SortedIdsPrefetcher.PageSource pageSource = (offset, limit) -> {
+      requestedOffsets.add(offset);
+      return results.getOrDefault(offset, List.of());
+    };
+
+    try (var prefetcher = new SortedIdsPrefetcher(pageSource, 2, null, 2, 1, executionContext, "test-fetch")) {
+      assertThat(prefetcher.next()).isEqualTo(results.get(0));
+      assertThat(prefetcher.next()).isEqualTo(results.get(2));
+      assertThat(prefetcher.next()).isEqualTo(results.get(4));
+      assertThat(prefetcher.next()).isEmpty();
+      // Once the end has been reached, keep reporting it instead of blocking
+      assertThat(prefetcher.next()).isEmpty();
+    }
+    assertThat(requestedOffsets).containsExactly(0, 2, 4, 5);
+  }
+
+  @Test
+  void shouldRethrowFetchFailures() {
+    SortedIdsPrefetcher.PageSource pageSource = (offset, limit) -> {
+      if (offset > 0) {
+        throw new IllegalStateException("FQM is down");
+      }
+      return List.of(List.of("a"));
+    };
+
+    try (var prefetcher = new SortedIdsPrefetcher(pageSource, 1, null, 2, 1, executionContext, "test-fetch")) {
+      assertThat(prefetcher.next()).containsExactly(List.of("a"));
+      assertThrows(IllegalStateException.class, prefetcher::next);
+    }
+  }
+
+  @Test
+  void shouldStopAtTotalRecordsWithoutFetchingAnEmptyPage() {
+    List<Integer> requestedOffsets = new CopyOnWriteArrayList<>();
+    SortedIdsPrefetcher.PageSource pageSource = (offset, limit) -> {
+      requestedOffsets.add(offset);
+      return List.of(List.of(Integer.toString(offset)), List.of(Integer.toString(offset + 1)));
+    };
+
+    try (var prefetcher = new SortedIdsPrefetcher(pageSource, 2, 4, 2, 2, executionContext, "test-fetch")) {
+      assertThat(prefetcher.next()).containsExactly(List.of("0"), List.of("1"));
+      assertThat(prefetcher.next()).containsExactly(List.of("2"), List.of("3"));
+      assertThat(prefetcher.next()).isEmpty();
+    }
+    assertThat(requestedOffsets).containsExactlyInAnyOrder(0, 2);
+  }
+
+  @Test
+  void shouldNotRunMoreThanPrefetchLimitAhead() {
+    AtomicInteger fetchCount = new AtomicInteger();
+    SortedIdsPrefetcher.PageSource endlessSource = (offset, limit) -> {
+      fetchCount.incrementAndGet();
+      return List.of(List.of(Integer.toString(offset)));
+    };
+
+    try (var prefetcher = new SortedIdsPrefetcher(endlessSource, 1, null, 2, 1, executionContext, "test-fetch")) {
+      await().atMost(5, TimeUnit.SECONDS).until(() -> fetchCount.get() == 2);
+      assertThat(prefetcher.next()).containsExactly(List.of("0"));
+      await().atMost(5, TimeUnit.SECONDS).until(() -> fetchCount.get() == 3);
+    }
+    int fetchesAtClose = fetchCount.get();
+    await().during(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> fetchCount.get() == fetchesAtClose);
+  }
+}
@@ -0,0 +1,90 @@
+package org.folio.list.service.refresh;
+
+import org.folio.list.domain.ContentIdBatch;
+import org.folio.list.services.refresh.SortedIdsStreamReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SortedIdsStreamReaderTest {
+
+  @Test
+  void shouldReadIdsInBatches() {
+    List<ContentIdBatch> batches = new ArrayList<>();
+
+    int count = new SortedIdsStreamReader(2).read(json("[[\"a\"], [\"b\"], [\"c\", \"d\"], [\"e\", null]]"), batches::add);
+
+    assertThat(count).isEqualTo(4);
+    assertThat(contentIds(batches)).containsExactly(
+      List.of(List.of("a"), List.of("b")),
+      List.of(List.of("c", "d"), Arrays.asList("e", null))
+    );
+  }
+
+  @Test
+  void shouldHandOverPartialLastBatch() {
+    List<ContentIdBatch> batches = new ArrayList<>();
+
+    int count = new SortedIdsStreamReader(2).read(json("[[\"a\"], [\"b\"], [\"c\"]]"), batches::add);
+
+    assertThat(count).isEqualTo(3);
+    assertThat(contentIds(batches)).containsExactly(List.of(List.of("a"), List.of("b")), List.of(List.of("c")));
+  }
+
+  @Test
+  void shouldReadEmptyPage() {
+    List<ContentIdBatch> batches = new ArrayList<>();
+
+    assertThat(new SortedIdsStreamReader(2).read(json("[]"), batches::add)).isZero();
+    assertThat(new SortedIdsStreamReader(2).read(json(""), batches::add)).isZero();
+    assertThat(batches).isEmpty();
+  }
+
+  @Test
+  void shouldFailOnTruncatedPage() {
+    List<ContentIdBatch> batches = new ArrayList<>();
+    SortedIdsStreamReader reader = new SortedIdsStreamReader(1);
+
+    // The complete IDs are still handed over, so that the caller's checkpoint covers them
+    assertThatThrownBy(() -> reader.read(json("[[\"a\"], [\"b\""), batches::add)).isInstanceOf(RuntimeException.class);
+    assertThat(contentIds(batches)).containsExactly(List.of(List.of("a")));
+  }
+
+  @Test
+  void shouldRejectUnexpectedJson() {
+    SortedIdsStreamReader reader = new SortedIdsStreamReader(1);
+
+    assertThatThrownBy(() -> reader.read(json("{\"ids\": []}"), ids -> {}))
+      .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void shouldKeepSingleUuidsAsUuids() {
+    List<ContentIdBatch> batches = new ArrayList<>();
+    String uuid = "0b6a4c8e-9d3f-4f0e-8a7b-2c1d3e4f5a6b";
+
+    new SortedIdsStreamReader(10).read(json("[[\"" + uuid + "\"], [\"" + uuid + "\", \"a\"], []]"), batches::add);
+
+    ContentIdBatch batch = batches.get(0);
+    assertThat(batch.isUuid(0)).isTrue();
+    assertThat(batch.isUuid(1)).isFalse();
+    assertThat(batch.isUuid(2)).isFalse();
+    assertThat(batch.toContentIds()).containsExactly(List.of(uuid), List.of(uuid, "a"), List.of());
+  }
+
+  private static List<List<List<String>>> contentIds(List<ContentIdBatch> batches) {
+    return batches.stream().map(ContentIdBatch::toContentIds).toList();
+  }
+
+  private static InputStream json(String json) {
+    return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+  }
+}